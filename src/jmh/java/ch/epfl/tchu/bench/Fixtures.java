@@ -0,0 +1,136 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.sim.BotKind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Realistic inputs of the benchmarks: the states received by a player during a game between
+ * ticket bots, always the same for a given seed.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+final class Fixtures {
+    /** Seed of the games and generators of the benchmarks, fixed to compare their results. */
+    static final long SEED = 2021;
+
+    private final List<PublicGameState> publicStates = new ArrayList<>();
+    private final List<PlayerState> ownStates = new ArrayList<>();
+
+    private Fixtures() {}
+
+    /**
+     * Plays a game between ticket bots, recording the states received by the first player.
+     *
+     * @param seed the seed of the game.
+     * @return the states of the game.
+     */
+    static Fixtures recordedGame(long seed) {
+        Fixtures fixtures = new Fixtures();
+        Random seeds = new Random(seed);
+        Player player1 =
+                fixtures.recording(BotKind.TICKETS.newPlayer(new Random(seeds.nextLong())));
+        Player player2 = BotKind.TICKETS.newPlayer(new Random(seeds.nextLong()));
+        Game.play(
+                Map.of(PlayerId.PLAYER_1, player1, PlayerId.PLAYER_2, player2),
+                Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles"),
+                SortedBag.of(ChMap.tickets()),
+                new Random(seeds.nextLong()));
+        return fixtures;
+    }
+
+    /**
+     * Returns the public states of the game received by the first player, in order.
+     *
+     * @return the public states of the game.
+     */
+    List<PublicGameState> publicStates() {
+        return publicStates;
+    }
+
+    /**
+     * Returns the states of the first player it received, in order.
+     *
+     * @return the states of the first player.
+     */
+    List<PlayerState> ownStates() {
+        return ownStates;
+    }
+
+    /**
+     * Returns the last state of the first player, at the end of the game.
+     *
+     * @return the final state of the first player.
+     */
+    PlayerState finalOwnState() {
+        return ownStates.get(ownStates.size() - 1);
+    }
+
+    // The given player, whose received states are recorded.
+    private Player recording(Player player) {
+        return new Player() {
+            @Override
+            public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+                player.initPlayers(ownId, playerNames);
+            }
+
+            @Override
+            public void receiveInfo(String info) {
+                player.receiveInfo(info);
+            }
+
+            @Override
+            public void updateState(PublicGameState newState, PlayerState ownState) {
+                publicStates.add(newState);
+                ownStates.add(ownState);
+                player.updateState(newState, ownState);
+            }
+
+            @Override
+            public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+                player.setInitialTicketChoice(tickets);
+            }
+
+            @Override
+            public SortedBag<Ticket> chooseInitialTickets() {
+                return player.chooseInitialTickets();
+            }
+
+            @Override
+            public TurnKind nextTurn() {
+                return player.nextTurn();
+            }
+
+            @Override
+            public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+                return player.chooseTickets(options);
+            }
+
+            @Override
+            public int drawSlot() {
+                return player.drawSlot();
+            }
+
+            @Override
+            public Route claimedRoute() {
+                return player.claimedRoute();
+            }
+
+            @Override
+            public SortedBag<Card> initialClaimCards() {
+                return player.initialClaimCards();
+            }
+
+            @Override
+            public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+                return player.chooseAdditionalCards(options);
+            }
+        };
+    }
+}
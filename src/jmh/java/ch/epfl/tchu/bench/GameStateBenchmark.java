@@ -0,0 +1,67 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the transitions of {@link GameState}, chained as in a whole game: each turn, the
+ * current player claims the first route it can, and draws cards or tickets otherwise. The chain
+ * is the same at each invocation, as its generator always has the same seed.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+    // Guard against a chain in which no player ever claims enough routes to end the game.
+    private static final int MAX_TURNS_COUNT = 500;
+
+    private final SortedBag<Ticket> tickets = SortedBag.of(ChMap.tickets());
+
+    @Benchmark
+    public GameState scriptedGame() {
+        Random rng = new Random(Fixtures.SEED);
+        GameState state = GameState.initial(tickets, rng);
+        for (PlayerId id : PlayerId.ALL) {
+            SortedBag<Ticket> drawn = state.topTickets(GameConstants.INITIAL_TICKETS_COUNT);
+            state =
+                    state.withoutTopTickets(GameConstants.INITIAL_TICKETS_COUNT)
+                            .withInitiallyChosenTickets(id, drawn);
+        }
+
+        for (int turn = 0; turn < MAX_TURNS_COUNT && !state.lastTurnBegins(); turn++) {
+            Route route = firstClaimableRoute(state);
+            if (route != null) {
+                SortedBag<Card> cards = state.currentPlayerState().possibleClaimCards(route).get(0);
+                state = state.withClaimedRoute(route, cards);
+            } else if (state.canDrawCards()) {
+                for (int i = 0; i < 2; i++)
+                    state = state.withCardsDeckRecreatedIfNeeded(rng).withBlindlyDrawnCard();
+            } else if (state.canDrawTickets()) {
+                SortedBag<Ticket> drawn = state.topTickets(GameConstants.IN_GAME_TICKETS_COUNT);
+                state = state.withChosenAdditionalTickets(drawn, SortedBag.of(drawn.get(0)));
+            }
+            state = state.forNextTurn();
+        }
+        return state;
+    }
+
+    private static Route firstClaimableRoute(GameState state) {
+        List<Route> claimedRoutes = state.claimedRoutes();
+        for (Route route : ChMap.routes()) {
+            if (!claimedRoutes.contains(route) && state.currentPlayerState().canClaimRoute(route))
+                return route;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the computations on the cards, routes and tickets of a player: the cards with
+ * which routes and tunnels can be claimed, and the points of the tickets at the end of a game.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerStateBenchmark {
+    // Cards in the hand of the player, enough to claim most routes.
+    private static final int HAND_SIZE = 20;
+
+    @Param({"1", "3"})
+    public int additionalCardsCount;
+
+    private PlayerState playerWithCards;
+    private SortedBag<Card> tunnelInitialCards;
+    private PlayerState finalPlayer;
+
+    @Setup
+    public void setUp() {
+        List<Card> cards = new ArrayList<>(GameConstants.ALL_CARDS.toList());
+        Collections.shuffle(cards, new Random(Fixtures.SEED));
+        SortedBag<Card> hand = SortedBag.of(cards.subList(0, HAND_SIZE));
+        playerWithCards = new PlayerState(SortedBag.of(), hand, List.of());
+        // Two cards of the most common car, with which the player attempts to claim a tunnel.
+        Card mostCommon = Card.CARS.get(0);
+        for (Card card : Card.CARS) {
+            if (hand.countOf(card) > hand.countOf(mostCommon)) mostCommon = card;
+        }
+        tunnelInitialCards = SortedBag.of(2, mostCommon);
+        finalPlayer = Fixtures.recordedGame(Fixtures.SEED).finalOwnState();
+    }
+
+    @Benchmark
+    public void routePossibleClaimCards(Blackhole blackhole) {
+        for (Route route : ChMap.routes()) blackhole.consume(route.possibleClaimCards());
+    }
+
+    @Benchmark
+    public void playerPossibleClaimCards(Blackhole blackhole) {
+        for (Route route : ChMap.routes()) {
+            if (playerWithCards.canClaimRoute(route))
+                blackhole.consume(playerWithCards.possibleClaimCards(route));
+        }
+    }
+
+    @Benchmark
+    public List<SortedBag<Card>> possibleAdditionalCards() {
+        return playerWithCards.possibleAdditionalCards(additionalCardsCount, tunnelInitialCards);
+    }
+
+    @Benchmark
+    public int ticketPoints() {
+        return finalPlayer.ticketPoints();
+    }
+}
@@ -0,0 +1,61 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.game.PublicGameState;
+import ch.epfl.tchu.net.Serdes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the (de)serialization of the public states of a game, at its beginning, its middle
+ * and its end, when fewer or more routes are claimed.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerdesBenchmark {
+    @Param({"beginning", "middle", "end"})
+    public String moment;
+
+    private PublicGameState state;
+    private String serializedState;
+
+    @Setup
+    public void setUp() {
+        List<PublicGameState> states = Fixtures.recordedGame(Fixtures.SEED).publicStates();
+        switch (moment) {
+            case "beginning":
+                state = states.get(0);
+                break;
+            case "middle":
+                state = states.get(states.size() / 2);
+                break;
+            default:
+                state = states.get(states.size() - 1);
+        }
+        serializedState = Serdes.publicGameStateSerde.serialize(state);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return Serdes.publicGameStateSerde.serialize(state);
+    }
+
+    @Benchmark
+    public PublicGameState deserialize() {
+        return Serdes.publicGameStateSerde.deserialize(serializedState);
+    }
+
+    @Benchmark
+    public PublicGameState roundTrip() {
+        return Serdes.publicGameStateSerde.deserialize(
+                Serdes.publicGameStateSerde.serialize(state));
+    }
+}
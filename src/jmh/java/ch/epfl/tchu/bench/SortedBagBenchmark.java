@@ -0,0 +1,61 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.Card;
+import ch.epfl.tchu.game.GameConstants;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the operations of {@link SortedBag} used on the cards of the players.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortedBagBenchmark {
+    @Param({"10", "30"})
+    public int handSize;
+
+    @Param({"2", "4"})
+    public int subsetSize;
+
+    private SortedBag<Card> hand;
+    private SortedBag<Card> drawnCards;
+    private SortedBag<Card> playedCards;
+
+    @Setup
+    public void setUp() {
+        List<Card> cards = new ArrayList<>(GameConstants.ALL_CARDS.toList());
+        Collections.shuffle(cards, new Random(Fixtures.SEED));
+        hand = SortedBag.of(cards.subList(0, handSize));
+        drawnCards = SortedBag.of(cards.subList(handSize, handSize + 3));
+        playedCards = SortedBag.of(hand.toList().subList(0, handSize / 2));
+    }
+
+    @Benchmark
+    public SortedBag<Card> union() {
+        return hand.union(drawnCards);
+    }
+
+    @Benchmark
+    public SortedBag<Card> difference() {
+        return hand.difference(playedCards);
+    }
+
+    @Benchmark
+    public Set<SortedBag<Card>> subsetsOfSize() {
+        return hand.subsetsOfSize(subsetSize);
+    }
+}
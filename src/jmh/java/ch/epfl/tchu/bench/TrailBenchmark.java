@@ -0,0 +1,46 @@
+package ch.epfl.tchu.bench;
+
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Route;
+import ch.epfl.tchu.game.Trail;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link Trail#longest}, on the routes of a player at the end of a game and on the
+ * first routes of the map, which are connected enough for the number of trails to explode.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrailBenchmark {
+    @Param({"20", "30", "40"})
+    public int denseRoutesCount;
+
+    private List<Route> realisticRoutes;
+    private List<Route> denseRoutes;
+
+    @Setup
+    public void setUp() {
+        realisticRoutes = Fixtures.recordedGame(Fixtures.SEED).finalOwnState().routes();
+        denseRoutes = List.copyOf(ChMap.routes().subList(0, denseRoutesCount));
+    }
+
+    @Benchmark
+    public Trail longestOfRealisticRoutes() {
+        return Trail.longest(realisticRoutes);
+    }
+
+    @Benchmark
+    public Trail longestOfDenseRoutes() {
+        return Trail.longest(denseRoutes);
+    }
+}
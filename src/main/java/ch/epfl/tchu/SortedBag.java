@@ -1,17 +1,42 @@
 package ch.epfl.tchu;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Multiensemble trié et immuable.
  *
+ * <p>Les multiensembles dont les éléments sont les constantes d'une énumération (p.ex. les cartes)
+ * sont représentés par un tableau des multiplicités, indexé par l'ordinal des constantes : leur
+ * taille et la multiplicité d'un élément sont obtenues en temps constant, et leur union, leur
+ * différence et leur parcours ne créent aucune table. Cette représentation est choisie
+ * automatiquement et ne change rien à l'interface ni à l'égalité des multiensembles.
+ *
  * @param <E> le type des éléments du multiensemble.
  */
 public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
-    // Table associant sa multiplicité à chaque élément de l'ensemble.
-    // Invariant : toutes les multiplicités sont strictement positives (> 0).
+    // Constantes de chaque énumération, obtenues une seule fois (getEnumConstants les copie).
+    private static final ClassValue<Object[]> ENUM_CONSTANTS =
+            new ClassValue<>() {
+                @Override
+                protected Object[] computeValue(Class<?> type) {
+                    return type.getEnumConstants();
+                }
+            };
+
+    // Exactement une des deux représentations est utilisée :
+    // - elements : table associant sa multiplicité à chaque élément de l'ensemble ;
+    // - constants et counts : constantes de l'énumération des éléments (tableau partagé), et
+    //   multiplicité de chacune, indexée par son ordinal.
+    // Invariant : toutes les multiplicités de la table sont strictement positives (> 0), celles du
+    // tableau sont positives ou nulles (>= 0).
     private final SortedMap<E, Integer> elements;
+    private final E[] constants;
+    private final int[] counts;
+    private final int size;
 
     // Construit un multiensemble avec la table des multiplicités donnée.
     // Les multiplicités doivent toutes être strictement positives.
@@ -19,6 +44,41 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
     private SortedBag(SortedMap<E, Integer> elements) {
         assert elements.values().stream().allMatch(n -> n > 0);
         this.elements = Collections.unmodifiableSortedMap(elements);
+        this.constants = null;
+        this.counts = null;
+        this.size = elements.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    // Construit un multiensemble d'éléments d'une énumération avec le tableau des multiplicités
+    // donné, dont la somme vaut size.
+    // Attention: le tableau n'est pas copié et ne doit donc jamais être modifié !
+    private SortedBag(E[] constants, int[] counts, int size) {
+        assert counts.length == constants.length && Arrays.stream(counts).sum() == size;
+        this.elements = null;
+        this.constants = constants;
+        this.counts = counts;
+        this.size = size;
+    }
+
+    // Retourne les constantes de l'énumération de l'élément donné, ou null s'il n'est pas une
+    // constante d'énumération.
+    @SuppressWarnings("unchecked")
+    private static <E> E[] enumConstantsOf(E element) {
+        return element instanceof Enum<?>
+                ? (E[]) ENUM_CONSTANTS.get(((Enum<?>) element).getDeclaringClass())
+                : null;
+    }
+
+    // Retourne l'ordinal de l'élément donné s'il est une des constantes données, -1 sinon.
+    private static int indexOf(Object[] constants, Object element) {
+        if (!(element instanceof Enum<?>)) return -1;
+        var ordinal = ((Enum<?>) element).ordinal();
+        return ordinal < constants.length && constants[ordinal] == element ? ordinal : -1;
+    }
+
+    // Vrai ssi les deux multiensembles sont représentés par des tableaux de la même énumération.
+    private boolean sameEnumAs(SortedBag<E> that) {
+        return counts != null && that.counts != null && constants == that.constants;
     }
 
     /**
@@ -53,7 +113,7 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      */
     public static <E extends Comparable<E>> SortedBag<E> of(int n, E e) {
         Preconditions.checkArgument(0 <= n);
-        return n == 0 ? of() : new SortedBag<>(new TreeMap<>(Map.of(e, n)));
+        return n == 0 ? of() : new Builder<E>().add(n, e).build();
     }
 
     /**
@@ -70,10 +130,7 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      */
     public static <E extends Comparable<E>> SortedBag<E> of(int n1, E e1, int n2, E e2) {
         Preconditions.checkArgument(0 <= n1 && 0 <= n2);
-        var elements = new TreeMap<E, Integer>();
-        if (n1 > 0) elements.put(e1, n1);
-        if (n2 > 0) elements.put(e2, n2);
-        return new SortedBag<>(elements);
+        return new Builder<E>().add(n1, e1).add(n2, e2).build();
     }
 
     /**
@@ -95,7 +152,7 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      * @return vrai ssi le multiensemble est vide.
      */
     public boolean isEmpty() {
-        return elements.isEmpty();
+        return size == 0;
     }
 
     /**
@@ -104,7 +161,7 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      * @return le nombre d'éléments dans le multiensemble.
      */
     public int size() {
-        return elements.values().stream().mapToInt(Integer::intValue).sum();
+        return size;
     }
 
     /**
@@ -114,6 +171,10 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      * @return la multiplicité de <code>element</code>, 0 s'il n'appartient pas au multiensemble
      */
     public int countOf(E element) {
+        if (counts != null) {
+            var index = indexOf(constants, element);
+            return index == -1 ? 0 : counts[index];
+        }
         return elements.getOrDefault(element, 0);
     }
 
@@ -124,7 +185,7 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      * @return vrai ssi <code>element</code> appartient au multiensemble
      */
     public boolean contains(E element) {
-        return elements.containsKey(element);
+        return countOf(element) > 0;
     }
 
     /**
@@ -134,7 +195,13 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      * @return vrai ssi <code>that</code> est un sous-ensemble de <code>this</code>
      */
     public boolean contains(SortedBag<E> that) {
-        return that.elements.entrySet().stream().allMatch(e -> e.getValue() <= countOf(e.getKey()));
+        if (sameEnumAs(that)) {
+            for (int i = 0; i < counts.length; i++) {
+                if (that.counts[i] > counts[i]) return false;
+            }
+            return true;
+        }
+        return that.toMap().entrySet().stream().allMatch(e -> e.getValue() <= countOf(e.getKey()));
     }
 
     /**
@@ -146,6 +213,12 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      */
     public E get(int index) {
         Objects.checkIndex(index, size());
+        if (counts != null) {
+            for (int i = 0; i < counts.length; i++) {
+                if (index < counts[i]) return constants[i];
+                index -= counts[i];
+            }
+        }
         for (var elementsAndCount : elements.entrySet()) {
             var count = elementsAndCount.getValue();
             if (index < count) return elementsAndCount.getKey();
@@ -161,9 +234,14 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      * @return l'union de <code>this</code> et de <code>that</code>
      */
     public SortedBag<E> union(SortedBag<E> that) {
-        var newElements = new TreeMap<>(elements);
-        that.elements.forEach((e, n) -> newElements.merge(e, n, Integer::sum));
-        return new SortedBag<>(newElements);
+        if (that.isEmpty()) return this;
+        if (this.isEmpty()) return that;
+        if (sameEnumAs(that)) {
+            var newCounts = counts.clone();
+            for (int i = 0; i < newCounts.length; i++) newCounts[i] += that.counts[i];
+            return new SortedBag<>(constants, newCounts, size + that.size);
+        }
+        return new Builder<E>().add(this).add(that).build();
     }
 
     /**
@@ -173,8 +251,18 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      * @return la différence entre <code>this</code> et <code>that</code>
      */
     public SortedBag<E> difference(SortedBag<E> that) {
-        var newElements = new TreeMap<>(elements);
-        that.elements.forEach(
+        if (this.isEmpty() || that.isEmpty()) return this;
+        if (sameEnumAs(that)) {
+            var newCounts = new int[counts.length];
+            var newSize = 0;
+            for (int i = 0; i < newCounts.length; i++) {
+                newCounts[i] = Math.max(counts[i] - that.counts[i], 0);
+                newSize += newCounts[i];
+            }
+            return new SortedBag<>(constants, newCounts, newSize);
+        }
+        var newElements = new TreeMap<>(toMap());
+        that.toMap().forEach(
                 (eR, nR) -> newElements.compute(eR, (e, n) -> n != null && n > nR ? n - nR : null));
         return new SortedBag<>(newElements);
     }
@@ -188,15 +276,46 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      *     du multiensemble
      */
     public Set<SortedBag<E>> subsetsOfSize(int size) {
-        Preconditions.checkArgument(0 <= size && size <= size());
-        if (size == 0) return Set.of(SortedBag.of());
+        return subsetsOfSizeStream(size).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
 
-        var result = new HashSet<SortedBag<E>>();
-        for (var e1 : elements.keySet()) {
-            var s1 = SortedBag.of(e1);
-            this.difference(s1).subsetsOfSize(size - 1).forEach(e -> result.add(s1.union(e)));
-        }
-        return result;
+    /**
+     * Retourne tous les sous-ensembles du multiensemble ayant une taille donnée, triés selon le
+     * comparateur donné. Les sous-ensembles étant produits par ordre croissant de multiplicité du
+     * plus grand élément (voir {@link #subsetsOfSizeStream(int)}), les trier selon ce critère ne
+     * fait que les parcourir.
+     *
+     * @param size la taille des sous-ensembles à retourner
+     * @param comparator le comparateur selon lequel trier les sous-ensembles
+     * @return la liste triée des sous-ensembles de <code>this</code> de taille <code>size</code>
+     * @throws IllegalArgumentException si <code>size</code> n'est pas comprise entre 0 et la taille
+     *     du multiensemble
+     */
+    public List<SortedBag<E>> subsetsOfSize(int size, Comparator<? super SortedBag<E>> comparator) {
+        var subsets = subsetsOfSizeStream(size).collect(Collectors.toList());
+        // Tri stable : les sous-ensembles égaux selon le comparateur restent dans l'ordre produit.
+        subsets.sort(comparator);
+        return subsets;
+    }
+
+    /**
+     * Retourne un flot (paresseux) des sous-ensembles du multiensemble ayant une taille donnée.
+     * Les sous-ensembles sont énumérés directement à partir des multiplicités des éléments, chacun
+     * une seule fois : par ordre croissant de multiplicité du plus grand élément, puis de celui qui
+     * le précède, etc.
+     *
+     * @param size la taille des sous-ensembles à retourner
+     * @return un flot des sous-ensembles de <code>this</code> de taille <code>size</code>
+     * @throws IllegalArgumentException si <code>size</code> n'est pas comprise entre 0 et la taille
+     *     du multiensemble
+     */
+    public Stream<SortedBag<E>> subsetsOfSizeStream(int size) {
+        Preconditions.checkArgument(0 <= size && size <= size());
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(
+                        new SubsetsIterator(size),
+                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL),
+                false);
     }
 
     /**
@@ -206,7 +325,7 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      */
     public List<E> toList() {
         var list = new ArrayList<E>(size());
-        elements.forEach((v, n) -> list.addAll(Collections.nCopies(n, v)));
+        forEach(list::add);
         return list;
     }
 
@@ -216,6 +335,7 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      * @return un flot des éléments de <code>this</code>
      */
     public Stream<E> stream() {
+        if (counts != null) return StreamSupport.stream(spliterator(), false);
         var builder = Stream.<E>builder();
         elements.forEach(
                 (v, n) -> {
@@ -231,7 +351,54 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      */
     @Override
     public Iterator<E> iterator() {
-        return stream().iterator();
+        if (counts == null) return stream().iterator();
+        return new Iterator<>() {
+            private int constant = 0;
+            private int remaining = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (remaining == 0 && constant < counts.length) remaining = counts[constant++];
+                return remaining > 0;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                remaining--;
+                return constants[constant - 1];
+            }
+        };
+    }
+
+    /**
+     * Applique l'action donnée à chaque élément du multiensemble, dans l'ordre.
+     *
+     * @param action l'action à appliquer à chaque élément
+     */
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        if (counts == null) {
+            elements.forEach(
+                    (v, n) -> {
+                        for (var i = 0; i < n; i++) action.accept(v);
+                    });
+            return;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            for (int n = 0; n < counts[i]; n++) action.accept(constants[i]);
+        }
+    }
+
+    /**
+     * Retourne un séparateur sur les éléments du multiensemble, dans l'ordre.
+     *
+     * @return un séparateur sur les éléments de <code>this</code>
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(
+                iterator(), size, Spliterator.ORDERED | Spliterator.SORTED | Spliterator.NONNULL);
     }
 
     /**
@@ -240,7 +407,12 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      * @return une table associant sa multiplicité à chaque élément de <code>this</code>
      */
     public Map<E, Integer> toMap() {
-        return elements;
+        if (counts == null) return elements;
+        var map = new TreeMap<E, Integer>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) map.put(constants[i], counts[i]);
+        }
+        return Collections.unmodifiableSortedMap(map);
     }
 
     /**
@@ -250,7 +422,7 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      * @return l'ensemble des éléments du multiensemble.
      */
     public Set<E> toSet() {
-        return elements.keySet();
+        return toMap().keySet();
     }
 
     /**
@@ -260,7 +432,13 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      */
     @Override
     public int hashCode() {
-        return elements.hashCode();
+        if (counts == null) return elements.hashCode();
+        // Même valeur que la table des multiplicités (voir Map.hashCode).
+        var hash = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) hash += constants[i].hashCode() ^ Integer.hashCode(counts[i]);
+        }
+        return hash;
     }
 
     /**
@@ -271,7 +449,12 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
      */
     @Override
     public boolean equals(Object that) {
-        return (that instanceof SortedBag<?>) && (elements.equals(((SortedBag<?>) that).elements));
+        if (!(that instanceof SortedBag<?>)) return false;
+        var thatBag = (SortedBag<?>) that;
+        if (size != thatBag.size) return false;
+        if (counts != null && thatBag.counts != null && constants == thatBag.constants)
+            return Arrays.equals(counts, thatBag.counts);
+        return toMap().equals(thatBag.toMap());
     }
 
     /**
@@ -282,17 +465,109 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
     @Override
     public String toString() {
         var j = new StringJoiner(", ", "{", "}");
-        elements.forEach((e, n) -> j.add((n > 1 ? n + "×" : "") + e));
+        toMap().forEach((e, n) -> j.add((n > 1 ? n + "×" : "") + e));
         return j.toString();
     }
 
+    // Itérateur sur les sous-ensembles d'une taille donnée. Les multiplicités choisies pour les
+    // éléments distincts sont comme les chiffres d'un compteur dont le plus grand élément est le
+    // chiffre de poids fort : chaque sous-ensemble est obtenu du précédent en augmentant le chiffre
+    // de poids le plus faible possible, et en redonnant aux chiffres inférieurs leur plus petite
+    // valeur.
+    private final class SubsetsIterator implements Iterator<SortedBag<E>> {
+        // Pour chaque élément distinct, dans l'ordre : l'élément (ou son ordinal), sa
+        // multiplicité, la somme des multiplicités des éléments qui le précèdent, et sa
+        // multiplicité dans le prochain sous-ensemble.
+        private final List<E> distinctElements = new ArrayList<>();
+        private final int[] available;
+        private final int[] availableBefore;
+        private final int[] chosen;
+        private final int subsetSize;
+        private boolean hasNext = true;
+
+        private SubsetsIterator(int subsetSize) {
+            this.subsetSize = subsetSize;
+            if (counts != null) {
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) distinctElements.add(constants[i]);
+                }
+            } else {
+                distinctElements.addAll(elements.keySet());
+            }
+            var distinctCount = distinctElements.size();
+            available = new int[distinctCount];
+            availableBefore = new int[distinctCount];
+            chosen = new int[distinctCount];
+            for (int i = 0; i < distinctCount; i++) {
+                available[i] = countOf(distinctElements.get(i));
+                if (i > 0) availableBefore[i] = availableBefore[i - 1] + available[i - 1];
+            }
+            fillUpTo(distinctCount - 1, subsetSize);
+        }
+
+        // Donne aux éléments d'index inférieur ou égal à last les plus petites multiplicités
+        // possibles, de somme remaining.
+        private void fillUpTo(int last, int remaining) {
+            for (int i = last; i >= 0; i--) {
+                chosen[i] = Math.max(0, remaining - availableBefore[i]);
+                remaining -= chosen[i];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public SortedBag<E> next() {
+            if (!hasNext) throw new NoSuchElementException();
+            var subset = subsetWithChosenCounts();
+            advance();
+            return subset;
+        }
+
+        private SortedBag<E> subsetWithChosenCounts() {
+            if (counts != null) {
+                var subsetCounts = new int[constants.length];
+                for (int i = 0; i < chosen.length; i++)
+                    subsetCounts[indexOf(constants, distinctElements.get(i))] = chosen[i];
+                return new SortedBag<>(constants, subsetCounts, subsetSize);
+            }
+            var subsetElements = new TreeMap<E, Integer>();
+            for (int i = 0; i < chosen.length; i++) {
+                if (chosen[i] > 0) subsetElements.put(distinctElements.get(i), chosen[i]);
+            }
+            return new SortedBag<>(subsetElements);
+        }
+
+        private void advance() {
+            // Somme des multiplicités choisies pour les éléments précédant l'élément i.
+            var chosenBefore = chosen.length == 0 ? 0 : chosen[0];
+            for (int i = 1; i < chosen.length; i++) {
+                if (chosen[i] < available[i] && chosenBefore > 0) {
+                    chosen[i]++;
+                    fillUpTo(i - 1, chosenBefore - 1);
+                    return;
+                }
+                chosenBefore += chosen[i];
+            }
+            hasNext = false;
+        }
+    }
+
     /**
      * Bâtisseur de multiensemble.
      *
      * @param <E> le type des éléments du multiensemble à bâtir.
      */
     public static final class Builder<E extends Comparable<E>> {
+        // Comme pour le multiensemble, les éléments d'une énumération sont comptés dans un
+        // tableau, choisi au premier élément ajouté.
         private final SortedMap<E, Integer> elements = new TreeMap<>();
+        private E[] constants;
+        private int[] counts;
+        private int size;
 
         /**
          * Ajoute un nombre donné d'occurrences d'un élément au bâtisseur.
@@ -304,7 +579,15 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
          */
         public Builder<E> add(int count, E element) {
             Preconditions.checkArgument(0 <= count);
-            if (count > 0) elements.merge(element, count, Integer::sum);
+            if (count == 0) return this;
+            if (size == 0 && counts == null) {
+                constants = enumConstantsOf(element);
+                if (constants != null) counts = new int[constants.length];
+            }
+            var index = counts == null ? -1 : indexOf(constants, element);
+            if (index != -1) counts[index] += count;
+            else elements.merge(element, count, Integer::sum);
+            size += count;
             return this;
         }
 
@@ -325,7 +608,16 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
          * @return le bâtisseur (<code>this</code>)
          */
         public Builder<E> add(SortedBag<E> that) {
-            that.elements.forEach((e, c) -> elements.merge(e, c, Integer::sum));
+            if (that.counts != null && (size == 0 || that.constants == constants)) {
+                if (counts == null) {
+                    constants = that.constants;
+                    counts = new int[constants.length];
+                }
+                for (int i = 0; i < counts.length; i++) counts[i] += that.counts[i];
+                size += that.size;
+                return this;
+            }
+            that.toMap().forEach((e, c) -> add(c, e));
             return this;
         }
 
@@ -335,7 +627,7 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
          * @return vrai ssi le bâtisseur est actuellement vide.
          */
         public boolean isEmpty() {
-            return elements.isEmpty();
+            return size == 0;
         }
 
         /**
@@ -344,7 +636,7 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
          * @return le nombre d'éléments ajoutés au bâtisseur jusqu'à présent
          */
         public int size() {
-            return elements.values().stream().mapToInt(Integer::intValue).sum();
+            return size;
         }
 
         /**
@@ -353,7 +645,15 @@ public final class SortedBag<E extends Comparable<E>> implements Iterable<E> {
          * @return un multiensemble contenant les éléments ajoutés à <code>this</code>
          */
         public SortedBag<E> build() {
-            return new SortedBag<>(new TreeMap<>(elements));
+            if (counts != null && elements.isEmpty())
+                return new SortedBag<>(constants, counts.clone(), size);
+            var allElements = new TreeMap<>(elements);
+            if (counts != null) {
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) allElements.put(constants[i], counts[i]);
+                }
+            }
+            return new SortedBag<>(allElements);
         }
     }
 }
@@ -0,0 +1,270 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.SortedBag;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Represents all the actions a player can take in the game, as {@link Player}, but without
+ * blocking the caller: the decisions of the player are returned as futures, completed once they
+ * are made. A game played with such players (see {@link Game#playAsync}) holds no thread while
+ * waiting for them.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public interface AsyncPlayer {
+
+    /**
+     * Returns an asynchronous player making the decisions of the given player, on the thread
+     * asking for them: the futures returned are thus already completed.
+     *
+     * @param player the player.
+     * @return the asynchronous player.
+     * @throws NullPointerException if player is null.
+     */
+    static AsyncPlayer of(Player player) {
+        Objects.requireNonNull(player);
+        return new AsyncPlayer() {
+            @Override
+            public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+                player.initPlayers(ownId, playerNames);
+            }
+
+            @Override
+            public void receiveInfo(String info) {
+                player.receiveInfo(info);
+            }
+
+            @Override
+            public void updateState(PublicGameState newState, PlayerState ownState) {
+                player.updateState(newState, ownState);
+            }
+
+            @Override
+            public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+                player.setInitialTicketChoice(tickets);
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Ticket>> chooseInitialTickets() {
+                return CompletableFuture.completedFuture(player.chooseInitialTickets());
+            }
+
+            @Override
+            public CompletableFuture<Player.TurnKind> nextTurn() {
+                return CompletableFuture.completedFuture(player.nextTurn());
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Ticket>> chooseTickets(SortedBag<Ticket> options) {
+                return CompletableFuture.completedFuture(player.chooseTickets(options));
+            }
+
+            @Override
+            public CompletableFuture<Integer> drawSlot() {
+                return CompletableFuture.completedFuture(player.drawSlot());
+            }
+
+            @Override
+            public CompletableFuture<Route> claimedRoute() {
+                return CompletableFuture.completedFuture(player.claimedRoute());
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Card>> initialClaimCards() {
+                return CompletableFuture.completedFuture(player.initialClaimCards());
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Card>> chooseAdditionalCards(
+                    List<SortedBag<Card>> options) {
+                return CompletableFuture.completedFuture(player.chooseAdditionalCards(options));
+            }
+        };
+    }
+
+    /**
+     * Returns a player making the decisions of the given asynchronous player, blocking the thread
+     * asking for them until they are made. The exception failing a decision is thrown as is if it
+     * is unchecked.
+     *
+     * @param player the asynchronous player.
+     * @return the blocking player.
+     * @throws NullPointerException if player is null.
+     */
+    static Player blocking(AsyncPlayer player) {
+        Objects.requireNonNull(player);
+        return new Player() {
+            @Override
+            public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+                player.initPlayers(ownId, playerNames);
+            }
+
+            @Override
+            public void receiveInfo(String info) {
+                player.receiveInfo(info);
+            }
+
+            @Override
+            public void updateState(PublicGameState newState, PlayerState ownState) {
+                player.updateState(newState, ownState);
+            }
+
+            @Override
+            public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+                player.setInitialTicketChoice(tickets);
+            }
+
+            @Override
+            public SortedBag<Ticket> chooseInitialTickets() {
+                return await(player.chooseInitialTickets());
+            }
+
+            @Override
+            public TurnKind nextTurn() {
+                return await(player.nextTurn());
+            }
+
+            @Override
+            public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+                return await(player.chooseTickets(options));
+            }
+
+            @Override
+            public int drawSlot() {
+                return await(player.drawSlot());
+            }
+
+            @Override
+            public Route claimedRoute() {
+                return await(player.claimedRoute());
+            }
+
+            @Override
+            public SortedBag<Card> initialClaimCards() {
+                return await(player.initialClaimCards());
+            }
+
+            @Override
+            public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+                return await(player.chooseAdditionalCards(options));
+            }
+        };
+    }
+
+    /**
+     * Waits for the given decision and returns it.
+     *
+     * @param decision the decision.
+     * @param <T> the type of the decision.
+     * @return the decision made.
+     * @throws IllegalStateException if interrupted while waiting.
+     * @throws CompletionException if the decision failed with a checked exception.
+     */
+    static <T> T await(CompletableFuture<T> decision) {
+        try {
+            return decision.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while awaiting a decision.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new CompletionException(cause);
+        }
+    }
+
+    /**
+     * Called upon when starting the game to communicate the ID of the players as well as the name
+     * of all the players (see {@link Player#initPlayers}).
+     *
+     * @param ownId the players' id
+     * @param playerNames all the names of all the players
+     */
+    void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames);
+
+    /**
+     * Called when an information has to be transmitted to a player under the form of a String.
+     *
+     * @param info information to be transmitted
+     */
+    void receiveInfo(String info);
+
+    /**
+     * Called when the game state changes - to inform the player of the <code>newState</code> as
+     * well as his/her own state.
+     *
+     * @param newState new state of the game
+     * @param ownState the state of the player
+     */
+    void updateState(PublicGameState newState, PlayerState ownState);
+
+    /**
+     * Called at the BEGINNING of the game to communicate the 5 tickets that have been distributed.
+     *
+     * @param tickets 5 tickets distributed
+     */
+    void setInitialTicketChoice(SortedBag<Ticket> tickets);
+
+    /**
+     * Asks the player which of the initial tickets they wish to keep (see {@link
+     * Player#chooseInitialTickets()}).
+     *
+     * @return the future bag of tickets the player wants to keep
+     */
+    CompletableFuture<SortedBag<Ticket>> chooseInitialTickets();
+
+    /**
+     * Asks the player, at the beginning of each round, what action they decide to take.
+     *
+     * @return the future course of action chosen by the player
+     */
+    CompletableFuture<Player.TurnKind> nextTurn();
+
+    /**
+     * Asks the player which of the drawn tickets they keep (see {@link Player#chooseTickets}).
+     *
+     * @param options bag of tickets the player can choose from
+     * @return the future bag of tickets kept
+     */
+    CompletableFuture<SortedBag<Ticket>> chooseTickets(SortedBag<Ticket> options);
+
+    /**
+     * Asks the player where they draw a card from (see {@link Player#drawSlot()}).
+     *
+     * @return the future slot of the card drawn
+     */
+    CompletableFuture<Integer> drawSlot();
+
+    /**
+     * Asks the player which route they try to take over, or null if they give up the claim, in
+     * which case they pass.
+     *
+     * @return the future route the player tries to take over, or null
+     */
+    CompletableFuture<Route> claimedRoute();
+
+    /**
+     * Asks the player which card(s) they initially use to take over the route.
+     *
+     * @return the future initial cards the player uses to take over a route
+     */
+    CompletableFuture<SortedBag<Card>> initialClaimCards();
+
+    /**
+     * Asks the player which additional cards they use to take over a tunnel (see {@link
+     * Player#chooseAdditionalCards}).
+     *
+     * @param options list of cards with which the player can choose to take over a tunnel
+     * @return the future additional cards used, or an empty SortedBag if the player can't or
+     *     does not want to
+     */
+    CompletableFuture<SortedBag<Card>> chooseAdditionalCards(List<SortedBag<Card>> options);
+}
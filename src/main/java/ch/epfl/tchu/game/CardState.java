@@ -74,12 +74,8 @@ public final class CardState extends PublicCardState {
         // in the return statement we make sure we use deck but without the top card as it is
         // removed
         // once it replaces the face up card at index <code>slot</code>
-        return new CardState(
-                faceUpCards,
-                deck.withoutTopCard().size(),
-                discardsSize(),
-                deck.withoutTopCard(),
-                discardCards);
+        Deck<Card> newDeck = deck.withoutTopCard();
+        return new CardState(faceUpCards, newDeck.size(), discardsSize(), newDeck, discardCards);
     }
 
     /**
@@ -101,12 +97,8 @@ public final class CardState extends PublicCardState {
      */
     public CardState withoutTopDeckCard() {
         Preconditions.checkArgument(!isDeckEmpty());
-        return new CardState(
-                faceUpCards(),
-                deck.withoutTopCard().size(),
-                discardsSize(),
-                deck.withoutTopCard(),
-                discardCards);
+        Deck<Card> newDeck = deck.withoutTopCard();
+        return new CardState(faceUpCards(), newDeck.size(), discardsSize(), newDeck, discardCards);
     }
 
     /**
@@ -118,15 +110,14 @@ public final class CardState extends PublicCardState {
      */
     public CardState withDeckRecreatedFromDiscards(Random rng) {
         Preconditions.checkArgument(isDeckEmpty());
-        List<Card> discards = new ArrayList<>(discardCards.toList());
         // creating a shuffled deck from the discards as they're in a SortedBag thanks to
         // Deck.of(...)
         Deck<Card> randomDeckFromDiscards = Deck.of(discardCards, rng);
-        discards.clear();
+        // the discards are now empty
         return new CardState(
                 faceUpCards(),
                 randomDeckFromDiscards.size(),
-                discards.size(),
+                0,
                 randomDeckFromDiscards,
                 SortedBag.of());
     }
@@ -138,9 +129,9 @@ public final class CardState extends PublicCardState {
      * @return cardState with additional cards to the discards.
      */
     public CardState withMoreDiscardedCards(SortedBag<Card> additionalDiscards) {
-        SortedBag.Builder<Card> totalDiscards = new SortedBag.Builder<Card>().add(discardCards);
-        additionalDiscards.stream().forEach(totalDiscards::add);
+        // the union of two bags of cards only adds their counts of each card
+        SortedBag<Card> totalDiscards = discardCards.union(additionalDiscards);
         return new CardState(
-                faceUpCards(), deckSize(), totalDiscards.size(), deck, totalDiscards.build());
+                faceUpCards(), deckSize(), totalDiscards.size(), deck, totalDiscards);
     }
 }
@@ -8,17 +8,22 @@ import java.util.List;
 import java.util.Random;
 
 /**
- * Represents a deck of cards. Immutable.
+ * Represents a deck of cards. Immutable. The decks obtained by removing cards from the top of a deck
+ * share its array of cards, and only differ by the number of cards they see, the top card being the
+ * last one they see.
  *
  * @author Luca Mouchel (324748)
  * @author Hugues Devimeux (327282)
  */
 public final class Deck<C extends Comparable<C>> {
 
-    private final List<C> cards;
+    // Shared between the decks, never modified.
+    private final Object[] cards;
+    private final int size;
 
-    private Deck(List<C> cards) {
+    private Deck(Object[] cards, int size) {
         this.cards = cards;
+        this.size = size;
     }
 
     /**
@@ -32,7 +37,7 @@ public final class Deck<C extends Comparable<C>> {
     public static <C extends Comparable<C>> Deck<C> of(SortedBag<C> cards, Random rng) {
         List<C> shuffledCards = cards.toList();
         Collections.shuffle(shuffledCards, rng);
-        return new Deck<>(shuffledCards);
+        return new Deck<>(shuffledCards.toArray(), shuffledCards.size());
     }
 
     /**
@@ -41,7 +46,7 @@ public final class Deck<C extends Comparable<C>> {
      * @return the size of the Deck.
      */
     public int size() {
-        return cards.size();
+        return size;
     }
 
     /**
@@ -50,7 +55,7 @@ public final class Deck<C extends Comparable<C>> {
      * @return whether the Deck is empty.
      */
     public boolean isEmpty() {
-        return cards.isEmpty();
+        return size == 0;
     }
 
     /**
@@ -61,7 +66,13 @@ public final class Deck<C extends Comparable<C>> {
      */
     public C topCard() {
         Preconditions.checkArgument(!isEmpty());
-        return cards.get(size() - 1);
+        return card(size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private C card(int index) {
+        // Only cards of type C are ever stored in the array.
+        return (C) cards[index];
     }
 
     /**
@@ -73,7 +84,9 @@ public final class Deck<C extends Comparable<C>> {
      */
     public SortedBag<C> topCards(int count) {
         Preconditions.checkArgument(0 <= count && count <= size());
-        return SortedBag.of(this.cards.subList(cards.size() - count, cards.size()));
+        SortedBag.Builder<C> topCards = new SortedBag.Builder<>();
+        for (int i = size - count; i < size; i++) topCards.add(card(i));
+        return topCards.build();
     }
 
     /**
@@ -84,7 +97,7 @@ public final class Deck<C extends Comparable<C>> {
      */
     public Deck<C> withoutTopCard() {
         Preconditions.checkArgument(!isEmpty());
-        return withoutTopCards(1);
+        return new Deck<>(cards, size - 1);
     }
 
     /**
@@ -97,6 +110,6 @@ public final class Deck<C extends Comparable<C>> {
      */
     public Deck<C> withoutTopCards(int count) {
         Preconditions.checkArgument(0 <= count && count <= size());
-        return new Deck<>(cards.subList(0, cards.size() - count));
+        return new Deck<>(cards, size - count);
     }
 }
@@ -4,22 +4,109 @@ import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.gui.Info;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Represents a game of tCHu (aka les Aventuriers du Rail but shhh).
  *
+ * <p>The game is played as a chain of steps, each of them waiting for the decision of a player
+ * (see {@link AsyncPlayer}): it is either played by a single thread, blocked while waiting (see
+ * {@link #run()}), or suspended while waiting and resumed on an executor (see {@link
+ * #playAsync(Executor)}).
+ *
  * @author Luca Mouchel (324748)
  * @author Hugues Devimeux (327282)
  */
-public final class Game {
-    private static final Map<PlayerId, Info> playersInfo = new EnumMap<>(PlayerId.class);
-    private static GameState gameState;
+public final class Game implements Runnable {
+    private final Map<PlayerId, AsyncPlayer> players;
+    private final Map<PlayerId, String> playerNames;
+    private final Map<PlayerId, Info> playersInfo = new EnumMap<>(PlayerId.class);
+    private final Random rng;
+    private final Duration turnTimeout;
+    private final TurnHandler turnHandler = new TurnHandler();
+    private final ReceiveInfoHandler receiveInfoHandler = new ReceiveInfoHandler();
+    private GameState gameState;
+    // Executor the game is resumed on once a decision is made, null if it blocks while waiting.
+    private Executor executor;
+    private int deckRecreationsCount;
+    private GameMetrics metrics = GameMetrics.NONE;
+    // Time spent waiting for decisions since the beginning of the turn. Atomic since the two
+    // initial decisions may be made at once.
+    private final AtomicLong decisionNanos = new AtomicLong();
+    // Points of the players and players getting the longest trail bonus, null until the end.
+    private Map<PlayerId, Integer> finalPoints;
+    private Set<PlayerId> longestTrailPlayers;
+
+    /**
+     * Constructs a game between the two <code>players</code>. Each instance holds its own state,
+     * so several games can be played concurrently in the same JVM. A game can only be played once.
+     *
+     * @param players the two players in the game
+     * @param playerNames name of the two players
+     * @param tickets bag of tickets
+     * @param rng random element
+     * @throws IllegalArgumentException if there are not exactly two players and two names
+     */
+    public Game(
+            Map<PlayerId, Player> players,
+            Map<PlayerId, String> playerNames,
+            SortedBag<Ticket> tickets,
+            Random rng) {
+        this(asyncPlayers(players), playerNames, tickets, rng, null);
+    }
+
+    private Game(
+            Map<PlayerId, AsyncPlayer> players,
+            Map<PlayerId, String> playerNames,
+            SortedBag<Ticket> tickets,
+            Random rng,
+            Duration turnTimeout) {
+        Preconditions.checkArgument(players.size() == 2 && playerNames.size() == 2);
+        Preconditions.checkArgument(
+                turnTimeout == null || turnTimeout.compareTo(Duration.ZERO) > 0);
+        this.players = new EnumMap<>(players);
+        this.playerNames = new EnumMap<>(playerNames);
+        this.rng = Objects.requireNonNull(rng);
+        this.turnTimeout = turnTimeout;
+        this.gameState = GameState.initial(tickets, rng);
+    }
+
+    /**
+     * Constructs a game between the two asynchronous <code>players</code>, each decision of which
+     * must be made within the given delay.
+     *
+     * @param players the two players in the game
+     * @param playerNames name of the two players
+     * @param tickets bag of tickets
+     * @param rng random element
+     * @param turnTimeout the maximal delay of each decision, null if there is none
+     * @return the game
+     * @throws IllegalArgumentException if there are not exactly two players and two names, or if
+     *     turnTimeout is not strictly positive
+     */
+    public static Game ofAsyncPlayers(
+            Map<PlayerId, AsyncPlayer> players,
+            Map<PlayerId, String> playerNames,
+            SortedBag<Ticket> tickets,
+            Random rng,
+            Duration turnTimeout) {
+        return new Game(players, playerNames, tickets, rng, turnTimeout);
+    }
 
-    /** Not instantiable. */
-    private Game() {}
+    private static Map<PlayerId, AsyncPlayer> asyncPlayers(Map<PlayerId, Player> players) {
+        Map<PlayerId, AsyncPlayer> asyncPlayers = new EnumMap<>(PlayerId.class);
+        players.forEach((playerId, player) -> asyncPlayers.put(playerId, AsyncPlayer.of(player)));
+        return asyncPlayers;
+    }
 
     /**
      * Method that makes the two <code>players</code> play the game.
@@ -34,9 +121,87 @@ public final class Game {
             Map<PlayerId, String> playerNames,
             SortedBag<Ticket> tickets,
             Random rng) {
-        gameState = GameState.initial(tickets, rng);
-        Preconditions.checkArgument(players.size() == 2 && playerNames.size() == 2);
+        new Game(players, playerNames, tickets, rng).run();
+    }
+
+    /**
+     * Returns the points of each player at the end of the game, longest trail bonus included.
+     *
+     * @return the final points of the players
+     * @throws IllegalStateException if the game is not over
+     */
+    public Map<PlayerId, Integer> finalPoints() {
+        if (finalPoints == null) throw new IllegalStateException("Game not over.");
+        return finalPoints;
+    }
+
+    /**
+     * Returns the players getting the longest trail bonus at the end of the game: both of them if
+     * their longest trails have the same length.
+     *
+     * @return the players with the longest trail
+     * @throws IllegalStateException if the game is not over
+     */
+    public Set<PlayerId> longestTrailPlayers() {
+        if (longestTrailPlayers == null) throw new IllegalStateException("Game not over.");
+        return longestTrailPlayers;
+    }
+
+    /**
+     * Returns the number of times the deck of cards has been recreated from the discards so far.
+     *
+     * @return the number of reshuffles of the discards
+     */
+    public int deckRecreationsCount() {
+        return deckRecreationsCount;
+    }
 
+    /**
+     * Sets the metrics the measures of the game are given to, {@link GameMetrics#NONE} by
+     * default.
+     *
+     * @param metrics the metrics of the game.
+     * @throws NullPointerException if metrics is null.
+     * @throws IllegalStateException if the game has already been played
+     */
+    public void setMetrics(GameMetrics metrics) {
+        if (!playersInfo.isEmpty()) throw new IllegalStateException("Game already played.");
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Plays the game from its initial state until its end. Blocks the calling thread while waiting
+     * for the players.
+     *
+     * @throws IllegalStateException if the game has already been played
+     * @throws CompletionException if a decision fails with a checked exception, or is not made
+     *     within the timeout of the game
+     */
+    @Override
+    public void run() {
+        // Every step is played by this thread, so the game is over once this returns.
+        AsyncPlayer.await(start(null));
+    }
+
+    /**
+     * Plays the game from its initial state until its end, without blocking: each time a player
+     * has not made their decision yet, the game is suspended without holding any thread, then
+     * resumed on the given executor once the decision is made. The decisions already made (those
+     * of the players of {@link AsyncPlayer#of(Player)} for instance) are followed right away.
+     *
+     * @param executor the executor the game is resumed on.
+     * @return the future of the game, completed once it is over, or exceptionally if a player
+     *     fails or does not make a decision within the timeout of the game (with a {@link
+     *     java.util.concurrent.TimeoutException}).
+     * @throws IllegalStateException if the game has already been played
+     */
+    public CompletableFuture<Void> playAsync(Executor executor) {
+        return start(Objects.requireNonNull(executor));
+    }
+
+    private CompletableFuture<Void> start(Executor executor) {
+        if (!playersInfo.isEmpty()) throw new IllegalStateException("Game already played.");
+        this.executor = executor;
         // putting all of the elements of playerNames in a map where values are of class Info
         // for receiving infos purposes
         playerNames
@@ -45,31 +210,133 @@ public final class Game {
                         (playerId) ->
                                 playersInfo.put(playerId, new Info(playerNames.get(playerId))));
 
-        beginGame(players, playerNames);
+        try {
+            return beginGame(players, playerNames)
+                    .thenCompose(v -> playTurns())
+                    .thenRun(() -> endGame(players, playerNames));
+        } catch (RuntimeException | Error e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Plays the "mid-game" (ie each turn until the last round begins). The turns whose decisions
+     * are already made are played one after the other by the same call, the following ones once
+     * the decision awaited is made.
+     *
+     * @return the future completed after the last turn
+     */
+    private CompletableFuture<Void> playTurns() {
+        CompletableFuture<Void> turnsPlayed = new CompletableFuture<>();
+        playTurnsUntil(turnsPlayed);
+        return turnsPlayed;
+    }
 
-        // the following part represents the "mid-game" (ie each turn until the last round begins)
+    private void playTurnsUntil(CompletableFuture<Void> turnsPlayed) {
         while (true) {
-            Player currentPlayer = players.get(gameState.currentPlayerId());
-            updatePlayerStates(players, gameState);
-            Player.TurnKind turnKindChosenByCurrentPlayer = currentPlayer.nextTurn();
-            switch (turnKindChosenByCurrentPlayer) {
-                case DRAW_TICKETS:
-                    TurnHandler.drawTickets(
-                            players, currentPlayer, playersInfo.get(gameState.currentPlayerId()));
-                    break;
-                case DRAW_CARDS:
-                    TurnHandler.drawCards(
-                            players, currentPlayer, playersInfo.get(gameState.currentPlayerId()), rng);
-                    break;
-                case CLAIM_ROUTE:
-                    TurnHandler.claimRoute(
-                            players, currentPlayer, playersInfo.get(gameState.currentPlayerId()), rng);
-                    break;
+            CompletableFuture<Boolean> lastTurn;
+            try {
+                lastTurn = playTurn();
+            } catch (RuntimeException | Error e) {
+                turnsPlayed.completeExceptionally(e);
+                return;
+            }
+            if (!lastTurn.isDone()) {
+                lastTurn.whenComplete(
+                        (wasLast, e) -> {
+                            if (e != null) turnsPlayed.completeExceptionally(e);
+                            else if (wasLast) turnsPlayed.complete(null);
+                            else playTurnsUntil(turnsPlayed);
+                        });
+                return;
             }
-            if (gameState.lastPlayer() == gameState.currentPlayerId()) break;
-            gameState = nextTurn(players);
+            if (lastTurn.isCompletedExceptionally()) {
+                lastTurn.whenComplete((wasLast, e) -> turnsPlayed.completeExceptionally(e));
+                return;
+            }
+            if (lastTurn.join()) {
+                turnsPlayed.complete(null);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Plays the turn of the current player.
+     *
+     * @return the future telling whether it was the last turn of the game
+     */
+    private CompletableFuture<Boolean> playTurn() {
+        long turnStart = System.nanoTime();
+        decisionNanos.set(0);
+        PlayerId currentPlayerId = gameState.currentPlayerId();
+        AsyncPlayer currentPlayer = players.get(currentPlayerId);
+        updatePlayerStates(players, gameState);
+        CompletableFuture<Player.TurnKind> turnKind = decision(currentPlayer::nextTurn);
+        return turnKind.thenCompose(
+                        turnKindChosenByCurrentPlayer -> {
+                            Info currentPlayerInfo = playersInfo.get(gameState.currentPlayerId());
+                            switch (turnKindChosenByCurrentPlayer) {
+                                case DRAW_TICKETS:
+                                    return turnHandler.drawTickets(
+                                            players, currentPlayer, currentPlayerInfo);
+                                case DRAW_CARDS:
+                                    return turnHandler.drawCards(
+                                            players, currentPlayer, currentPlayerInfo, rng);
+                                case CLAIM_ROUTE:
+                                    return turnHandler.claimRoute(
+                                            players, currentPlayer, currentPlayerInfo, rng);
+                                default:
+                                    throw new IllegalStateException();
+                            }
+                        })
+                .thenApply(
+                        v -> {
+                            boolean wasLast =
+                                    gameState.lastPlayer() == gameState.currentPlayerId();
+                            if (!wasLast) gameState = nextTurn(players);
+                            long decisionTime = decisionNanos.get();
+                            metrics.turnPlayed(
+                                    currentPlayerId,
+                                    turnKind.join(),
+                                    decisionTime,
+                                    System.nanoTime() - turnStart - decisionTime);
+                            return wasLast;
+                        });
+    }
+
+    /**
+     * Asks a player for a decision and returns its future, failing if it is not made within the
+     * timeout of the game. If the game blocks while waiting, the decision is awaited by this call;
+     * otherwise, if it is not made yet, what follows it is played on the executor of the game. The
+     * time until the decision is made is counted as decision time.
+     *
+     * @param asked asks the player for the decision
+     * @param <T> the type of the decision
+     * @return the future of the decision, whose dependent steps are played as described above
+     */
+    private <T> CompletableFuture<T> decision(Supplier<CompletableFuture<T>> asked) {
+        long start = System.nanoTime();
+        CompletableFuture<T> decision = asked.get();
+        if (decision.isDone()) {
+            decisionNanos.addAndGet(System.nanoTime() - start);
+            return decision;
+        }
+        // The future of the player is left untouched by the timeout.
+        if (turnTimeout != null)
+            decision = decision.copy().orTimeout(turnTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        if (executor != null) {
+            return decision.whenComplete(
+                            (d, e) -> decisionNanos.addAndGet(System.nanoTime() - start))
+                    .thenApplyAsync(Function.identity(), executor);
+        }
+        try {
+            return CompletableFuture.completedFuture(AsyncPlayer.await(decision));
+        } catch (RuntimeException | Error e) {
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            decisionNanos.addAndGet(System.nanoTime() - start);
         }
-        endGame(players, playerNames);
     }
 
     /**
@@ -78,16 +345,18 @@ public final class Game {
      *
      * @param players players in the game
      * @param playerNames names of <code>players</code>
+     * @return the future completed once the first player can play
      */
-    private static void beginGame(
-            Map<PlayerId, Player> players, Map<PlayerId, String> playerNames) {
+    private CompletableFuture<Void> beginGame(
+            Map<PlayerId, AsyncPlayer> players, Map<PlayerId, String> playerNames) {
         // initialising both players
         players.forEach((playerId, player) -> player.initPlayers(playerId, playerNames));
-        ReceiveInfoHandler.willPlayFirst(players, playersInfo.get(gameState.currentPlayerId()));
+        receiveInfoHandler.willPlayFirst(players, playersInfo.get(gameState.currentPlayerId()));
         // each player receives 5 tickets and chooses at least 3 from these
-        initialTicketsManagement(players);
-        //  the game can start, the players receive the info that the current player can play
-        ReceiveInfoHandler.canPlay(players);
+        return initialTicketsManagement(players)
+                //  the game can start, the players receive the info that the current player can
+                // play
+                .thenRun(() -> receiveInfoHandler.canPlay(players));
     }
 
     /**
@@ -95,8 +364,9 @@ public final class Game {
      * (5 top tickets) and must pick at least three.
      *
      * @param players use it to <code>setInitialTicketChoice</code> to the player in question
+     * @return the future completed once both players have chosen their tickets
      */
-    private static void initialTicketsManagement(Map<PlayerId, Player> players) {
+    private CompletableFuture<Void> initialTicketsManagement(Map<PlayerId, AsyncPlayer> players) {
         for (PlayerId playerId : players.keySet()) {
             // player gets delivered the top 5 tickets
             SortedBag<Ticket> initialTicketsChoice =
@@ -107,19 +377,33 @@ public final class Game {
         // we update the states before the player can pick desired tickets
         updatePlayerStates(players, gameState);
 
+        // both players are asked at once, so that they can choose at the same time
+        Map<PlayerId, CompletableFuture<SortedBag<Ticket>>> chosenInitialTickets =
+                new EnumMap<>(PlayerId.class);
         for (PlayerId playerId : players.keySet()) {
-            SortedBag<Ticket> chosenInitialTickets = players.get(playerId).chooseInitialTickets();
-            // the player then chooses the tickets they want to keep and we have to remove the top
-            // tickets from the deck of tickets
-            gameState = gameState.withInitiallyChosenTickets(playerId, chosenInitialTickets);
+            chosenInitialTickets.put(
+                    playerId, decision(players.get(playerId)::chooseInitialTickets));
         }
 
-        for (PlayerId playerId : players.keySet()) {
-            ReceiveInfoHandler.chosenTicketsInfo(
-                    players,
-                    playersInfo.get(playerId),
-                    gameState.playerState(playerId).ticketCount());
-        }
+        return CompletableFuture.allOf(
+                        chosenInitialTickets.values().toArray(new CompletableFuture<?>[0]))
+                .thenRun(
+                        () -> {
+                            for (PlayerId playerId : players.keySet()) {
+                                // the player then chooses the tickets they want to keep and we
+                                // have to remove the top tickets from the deck of tickets
+                                SortedBag<Ticket> chosen =
+                                        chosenInitialTickets.get(playerId).join();
+                                gameState = gameState.withInitiallyChosenTickets(playerId, chosen);
+                            }
+
+                            for (PlayerId playerId : players.keySet()) {
+                                receiveInfoHandler.chosenTicketsInfo(
+                                        players,
+                                        playersInfo.get(playerId),
+                                        gameState.playerState(playerId).ticketCount());
+                            }
+                        });
     }
 
     /**
@@ -129,27 +413,48 @@ public final class Game {
      * @param players the players in the game
      * @return a new gameState with the next player that will play
      */
-    private static GameState nextTurn(Map<PlayerId, Player> players) {
+    private GameState nextTurn(Map<PlayerId, AsyncPlayer> players) {
         // the next player will become the current player in relation to the informations received
         if (gameState.lastTurnBegins()) {
-            ReceiveInfoHandler.lastTurnBegins(
+            receiveInfoHandler.lastTurnBegins(
                     gameState, players, playersInfo.get(gameState.currentPlayerId()));
         }
         gameState = gameState.forNextTurn();
         // now the next player becomes the current player so both players receive the info that the
         // current player can play
-        ReceiveInfoHandler.canPlay(players);
+        receiveInfoHandler.canPlay(players);
         return gameState;
     }
 
+    // Recreates the deck from the discards if it is empty, counting it if there are discards to
+    // shuffle: otherwise, the deck stays empty.
+    private void recreateDeckIfNeeded(Random rng) {
+        if (gameState.cardState().isDeckEmpty() && gameState.cardState().discardsSize() > 0) {
+            deckRecreationsCount++;
+            metrics.deckRecreated();
+        }
+        gameState = gameState.withCardsDeckRecreatedIfNeeded(rng);
+    }
+
+    // Whether the current player can claim the route with the initial cards: the route is not
+    // claimed yet, and the cards are among the ones the player could use.
+    private boolean isLegalClaim(Route route, SortedBag<Card> initialClaimCards) {
+        PlayerState playerState = gameState.currentPlayerState();
+        return !gameState.claimedRoutes().contains(route)
+                && playerState.canClaimRoute(route)
+                && playerState.possibleClaimCards(route).contains(initialClaimCards);
+    }
+
     // used to update the player of the states
-    private static void updatePlayerStates(Map<PlayerId, Player> players, GameState gameState) {
+    private void updatePlayerStates(Map<PlayerId, AsyncPlayer> players, GameState gameState) {
         players.forEach(
-                (playerId, player) ->
-                        player.updateState(gameState, gameState.playerState(playerId)));
+                (playerId, player) -> {
+                    player.updateState(gameState, gameState.playerState(playerId));
+                    metrics.stateUpdateSent();
+                });
     }
 
-    private static void endGame(Map<PlayerId, Player> players, Map<PlayerId, String> playerNames) {
+    private void endGame(Map<PlayerId, AsyncPlayer> players, Map<PlayerId, String> playerNames) {
         updatePlayerStates(players, gameState);
 
         Map<PlayerId, Integer> points = new EnumMap<>(PlayerId.class);
@@ -157,35 +462,36 @@ public final class Game {
             points.put(playerId, gameState.playerState(playerId).finalPoints());
         }
 
-        Map<PlayerId, Trail> longestTrails =
-                PlayerId.ALL.stream()
-                        .collect(
-                                Collectors.toMap(
-                                        Function.identity(),
-                                        playerId ->
-                                                Trail.longest(
-                                                        gameState.playerState(playerId).routes())));
-
+        // The lengths are already indexed: the trails are only built for the players getting
+        // the bonus, to be announced.
+        long longestTrailsStart = System.nanoTime();
         int maxLength =
-                longestTrails.values().stream()
-                        .map(Trail::length)
-                        .max(Integer::compareTo)
+                PlayerId.ALL.stream()
+                        .mapToInt(playerId -> gameState.playerState(playerId).longestTrailLength())
+                        .max()
                         .orElse(0);
 
+        Map<PlayerId, Trail> longestTrails = new EnumMap<>(PlayerId.class);
+        for (PlayerId playerId : PlayerId.ALL) {
+            PlayerState playerState = gameState.playerState(playerId);
+            if (playerState.longestTrailLength() == maxLength)
+                longestTrails.put(playerId, Trail.longest(playerState.routes()));
+        }
+        metrics.longestTrailsComputed(System.nanoTime() - longestTrailsStart);
+        Set<PlayerId> withLongestTrail = EnumSet.noneOf(PlayerId.class);
+        withLongestTrail.addAll(longestTrails.keySet());
+
         // Adds the bonus for each player that has the longest trail.
-        longestTrails.entrySet().stream()
-                .filter(playerIdTrailEntry -> playerIdTrailEntry.getValue().length() == maxLength)
-                .forEach(
-                        playerIdTrailEntry -> {
-                            points.computeIfPresent(
-                                    playerIdTrailEntry.getKey(),
-                                    (p, pointsOfPlayer) ->
-                                            pointsOfPlayer + GameConstants.LONGEST_TRAIL_BONUS_POINTS);
-                            ReceiveInfoHandler.longestTrail(
-                                    players,
-                                    playersInfo.get(playerIdTrailEntry.getKey()),
-                                    playerIdTrailEntry.getValue());
-                        });
+        longestTrails.forEach(
+                (playerId, trail) -> {
+                    points.computeIfPresent(
+                            playerId,
+                            (p, pointsOfPlayer) ->
+                                    pointsOfPlayer + GameConstants.LONGEST_TRAIL_BONUS_POINTS);
+                    receiveInfoHandler.longestTrail(players, playersInfo.get(playerId), trail);
+                });
+        finalPoints = Collections.unmodifiableMap(points);
+        longestTrailPlayers = Collections.unmodifiableSet(withLongestTrail);
 
         int maxPoints = Collections.max(points.values());
         Map<PlayerId, Integer> playersWithMaxPoints =
@@ -199,7 +505,7 @@ public final class Game {
         if (playersWithMaxPoints.size() == 1) {
             Map.Entry<PlayerId, Integer> winner = playersWithMaxPoints.entrySet().iterator().next();
             int loserPoints = Collections.min(points.values());
-            ReceiveInfoHandler.playerWon(
+            receiveInfoHandler.playerWon(
                     players, playersInfo.get(winner.getKey()), maxPoints, loserPoints);
             // Several players have the same points => draw.
         } else if (playersWithMaxPoints.size() > 1) {
@@ -207,144 +513,207 @@ public final class Game {
                     playersWithMaxPoints.keySet().stream()
                             .map(playerNames::get)
                             .collect(Collectors.toList());
-            ReceiveInfoHandler.playersHaveDrawn(players, playersWithSamePointsNames, maxPoints);
+            receiveInfoHandler.playersHaveDrawn(players, playersWithSamePointsNames, maxPoints);
         }
     }
 
     /**
-     * Handles the different turns logic.
+     * Handles the different turns logic. Each turn returns the future completed once it is over.
      */
-    private static class TurnHandler {
-        public static void drawTickets(
-                Map<PlayerId, Player> players, Player currentPlayer, Info currentPlayerInfo) {
-            if (gameState.canDrawTickets()) {
-                ReceiveInfoHandler.drewTickets(players, currentPlayerInfo);
-                SortedBag<Ticket> topTicketsInGame =
-                        gameState.topTickets(GameConstants.IN_GAME_TICKETS_COUNT);
-
-                // take the three first of the tickets pile
-                SortedBag<Ticket> retainedTickets = currentPlayer.chooseTickets(topTicketsInGame);
-                // the following method already removes top tickets so we don't
-                // have to take care of it
-                gameState =
-                        gameState.withChosenAdditionalTickets(topTicketsInGame, retainedTickets);
-                ReceiveInfoHandler.chosenTicketsInfo(
-                        players, currentPlayerInfo, retainedTickets.size());
-            } // else nothing
+    private final class TurnHandler {
+        public CompletableFuture<Void> drawTickets(
+                Map<PlayerId, AsyncPlayer> players,
+                AsyncPlayer currentPlayer,
+                Info currentPlayerInfo) {
+            if (!gameState.canDrawTickets()) return CompletableFuture.completedFuture(null);
             // https://discord.com/channels/807922527716114432/807922528310788110/826799128306384926
+
+            receiveInfoHandler.drewTickets(players, currentPlayerInfo);
+            SortedBag<Ticket> topTicketsInGame =
+                    gameState.topTickets(GameConstants.IN_GAME_TICKETS_COUNT);
+
+            // take the three first of the tickets pile
+            return decision(() -> currentPlayer.chooseTickets(topTicketsInGame))
+                    .thenAccept(
+                            retainedTickets -> {
+                                // the following method already removes top tickets so we don't
+                                // have to take care of it
+                                gameState =
+                                        gameState.withChosenAdditionalTickets(
+                                                topTicketsInGame, retainedTickets);
+                                receiveInfoHandler.chosenTicketsInfo(
+                                        players, currentPlayerInfo, retainedTickets.size());
+                            });
         }
 
-        public static void drawCards(
-                Map<PlayerId, Player> players,
-                Player currentPlayer,
+        public CompletableFuture<Void> drawCards(
+                Map<PlayerId, AsyncPlayer> players,
+                AsyncPlayer currentPlayer,
                 Info currentPlayerInfo,
                 Random rng) {
+            if (!gameState.canDrawCards()) return CompletableFuture.completedFuture(null);
             // the player only draws two cards
-            int numberOfPossibleCardsToDraw = 2;
-            if (gameState.canDrawCards()) {
-                for (int i = 0; i < numberOfPossibleCardsToDraw; i++) {
-                // if there aren't enough cards to begin with, we shuffle the bigboi
-                gameState = gameState.withCardsDeckRecreatedIfNeeded(rng);
-                    int indexOfChosenCard = currentPlayer.drawSlot();
-                    // method drawSlot returns -1 if the player picks a card from the
-                    // deck of cards or a number between 0 and 4 if one of the faceUp cards
-                    if (indexOfChosenCard == GameConstants.DECK_SLOT) {
-                        ReceiveInfoHandler.drewBlindCard(players, currentPlayerInfo);
-                        gameState = gameState.withBlindlyDrawnCard();
-                    } else {
-                        ReceiveInfoHandler.drewVisibleCard(
-                                players,
-                                currentPlayerInfo,
-                                gameState.cardState().faceUpCard(indexOfChosenCard));
-                        gameState = gameState.withDrawnFaceUpCard(indexOfChosenCard);
-                    }
-                    gameState = gameState.withCardsDeckRecreatedIfNeeded(rng);
-                    // we update the playerStates after the first card is drawn
-                    updatePlayerStates(players, gameState);
-                }
-            }
+            return drawCard(players, currentPlayer, currentPlayerInfo, rng)
+                    .thenCompose(v -> drawCard(players, currentPlayer, currentPlayerInfo, rng));
+        }
+
+        private CompletableFuture<Void> drawCard(
+                Map<PlayerId, AsyncPlayer> players,
+                AsyncPlayer currentPlayer,
+                Info currentPlayerInfo,
+                Random rng) {
+            // if there aren't enough cards to begin with, we shuffle the bigboi
+            recreateDeckIfNeeded(rng);
+            return decision(currentPlayer::drawSlot)
+                    .thenAccept(
+                            indexOfChosenCard -> {
+                                // method drawSlot returns -1 if the player picks a card from the
+                                // deck of cards or a number between 0 and 4 if one of the faceUp
+                                // cards
+                                if (indexOfChosenCard == GameConstants.DECK_SLOT) {
+                                    receiveInfoHandler.drewBlindCard(players, currentPlayerInfo);
+                                    gameState = gameState.withBlindlyDrawnCard();
+                                } else {
+                                    receiveInfoHandler.drewVisibleCard(
+                                            players,
+                                            currentPlayerInfo,
+                                            gameState.cardState().faceUpCard(indexOfChosenCard));
+                                    gameState = gameState.withDrawnFaceUpCard(indexOfChosenCard);
+                                }
+                                recreateDeckIfNeeded(rng);
+                                // we update the playerStates after the first card is drawn
+                                updatePlayerStates(players, gameState);
+                            });
+        }
+
+        public CompletableFuture<Void> claimRoute(
+                Map<PlayerId, AsyncPlayer> players,
+                AsyncPlayer currentPlayer,
+                Info currentPlayerInfo,
+                Random rng) {
+            return decision(currentPlayer::claimedRoute)
+                    .thenCompose(
+                            claimedRoute -> {
+                                // the player has given up the claim, and thus passes
+                                if (claimedRoute == null)
+                                    return CompletableFuture.completedFuture(null);
+                                return decision(currentPlayer::initialClaimCards)
+                                        .thenCompose(
+                                                initialClaimCards ->
+                                                        claimRoute(
+                                                                players,
+                                                                currentPlayer,
+                                                                currentPlayerInfo,
+                                                                rng,
+                                                                claimedRoute,
+                                                                initialClaimCards));
+                            });
         }
 
-        public static void claimRoute(
-                Map<PlayerId, Player> players, Player currentPlayer, Info currentPlayerInfo, Random rng) {
-            SortedBag<Card> chosenCards;
-            SortedBag<Card> cardsPlayedForTunnelClaim;
-            Route claimedRoute = currentPlayer.claimedRoute();
-            SortedBag<Card> initialClaimCards = currentPlayer.initialClaimCards();
-            boolean canClaimRoute = gameState.currentPlayerState().canClaimRoute(claimedRoute);
+        private CompletableFuture<Void> claimRoute(
+                Map<PlayerId, AsyncPlayer> players,
+                AsyncPlayer currentPlayer,
+                Info currentPlayerInfo,
+                Random rng,
+                Route claimedRoute,
+                SortedBag<Card> initialClaimCards) {
             List<Card> drawnCards = new ArrayList<>();
-            if (!canClaimRoute) return;
+            // an illegal claim, for example one made automatically, is dropped: the player passes
+            if (!isLegalClaim(claimedRoute, initialClaimCards))
+                return CompletableFuture.completedFuture(null);
 
             if (claimedRoute.level().equals(Route.Level.OVERGROUND)) {
                 // players receive the info that the current played has claimed route
-                ReceiveInfoHandler.claimedRoute(
+                receiveInfoHandler.claimedRoute(
                         players, currentPlayerInfo, claimedRoute, initialClaimCards);
                 // adding the claimed route to the current player's claimed routes
                 gameState = gameState.withClaimedRoute(claimedRoute, initialClaimCards);
-            } else {
-                ReceiveInfoHandler.attemptedTunnelClaim(
+                return CompletableFuture.completedFuture(null);
+            }
+
+            receiveInfoHandler.attemptedTunnelClaim(
+                    players, currentPlayerInfo, claimedRoute, initialClaimCards);
+            // in case drawn cards are needed for an attempt to claim a tunnel
+            // the program must add the THREE top deck cards to the drawn cards because when
+            // attempting to claim a tunnel, only three cards are drawn
+            for (int i = 0; i < GameConstants.ADDITIONAL_TUNNEL_CARDS; i++) {
+                recreateDeckIfNeeded(rng);
+                drawnCards.add(gameState.topCard());
+                gameState = gameState.withoutTopCard();
+            }
+            recreateDeckIfNeeded(rng);
+            int amountOfCardsToPlay =
+                    claimedRoute.additionalClaimCardsCount(
+                            initialClaimCards, SortedBag.of(drawnCards));
+
+            if (amountOfCardsToPlay == 0) {
+                receiveInfoHandler.additionalCardsWereDrawnInfo(
+                        players, currentPlayerInfo, drawnCards, 0);
+                // no additional cards to play-> player claims the tunnel directly
+                gameState =
+                        gameState
+                                .withClaimedRoute(claimedRoute, initialClaimCards)
+                                .withMoreDiscardedCards(SortedBag.of(drawnCards));
+                receiveInfoHandler.claimedRoute(
                         players, currentPlayerInfo, claimedRoute, initialClaimCards);
-                // in case drawn cards are needed for an attempt to claim a tunnel
-                // the program must add the THREE top deck cards to the drawn cards because when
-                // attempting to claim a tunnel, only three cards are drawn
-                for (int i = 0; i < GameConstants.ADDITIONAL_TUNNEL_CARDS; i++) {
-                    gameState = gameState.withCardsDeckRecreatedIfNeeded(rng);
-                    drawnCards.add(gameState.topCard());
-                    gameState = gameState.withoutTopCard();
-                }
-                gameState = gameState.withCardsDeckRecreatedIfNeeded(rng);
-                int amountOfCardsToPlay =
-                        claimedRoute.additionalClaimCardsCount(initialClaimCards, SortedBag.of(drawnCards));
-
-                if (amountOfCardsToPlay == 0) {
-                    ReceiveInfoHandler.additionalCardsWereDrawnInfo(
-                            players, currentPlayerInfo, drawnCards, 0);
-                    // no additional cards to play-> player claims the tunnel directly
-                    gameState =
-                            gameState
-                                    .withClaimedRoute(claimedRoute, initialClaimCards)
-                                    .withMoreDiscardedCards(SortedBag.of(drawnCards));
-                    ReceiveInfoHandler.claimedRoute(
-                            players, currentPlayerInfo, claimedRoute, initialClaimCards);
-                } else {
-                    ReceiveInfoHandler.additionalCardsWereDrawnInfo(
-                            players, currentPlayerInfo, drawnCards, amountOfCardsToPlay);
-                    // player must choose which additional cards they want to play when
-                    // attempting to claim tunnel
-                    List<SortedBag<Card>> possibleAdditionalCardsToPlay =
-                            gameState
-                                    .currentPlayerState()
-                                    .possibleAdditionalCards(amountOfCardsToPlay, initialClaimCards);
-                    // possibleAdditionalCardsToPlay empty -> can't take the route
-                    if (possibleAdditionalCardsToPlay.isEmpty()) {
-                        ReceiveInfoHandler.didNotClaimRoute(players, currentPlayerInfo, claimedRoute);
-                    } else {
-                        chosenCards = currentPlayer.chooseAdditionalCards(possibleAdditionalCardsToPlay);
-                        // chosenCards is empty -> does not want to take the route
-                        if (chosenCards.isEmpty()) {
-                            ReceiveInfoHandler.didNotClaimRoute(players, currentPlayerInfo, claimedRoute);
+                metrics.tunnelAttempted(GameMetrics.TunnelOutcome.CLAIMED_WITHOUT_ADDITIONAL_CARDS);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            receiveInfoHandler.additionalCardsWereDrawnInfo(
+                    players, currentPlayerInfo, drawnCards, amountOfCardsToPlay);
+            // player must choose which additional cards they want to play when
+            // attempting to claim tunnel
+            List<SortedBag<Card>> possibleAdditionalCardsToPlay =
+                    gameState
+                            .currentPlayerState()
+                            .possibleAdditionalCards(amountOfCardsToPlay, initialClaimCards);
+            // possibleAdditionalCardsToPlay empty -> can't take the route
+            CompletableFuture<SortedBag<Card>> chosenCards =
+                    possibleAdditionalCardsToPlay.isEmpty()
+                            ? CompletableFuture.completedFuture(SortedBag.of())
+                            : decision(
+                                    () ->
+                                            currentPlayer.chooseAdditionalCards(
+                                                    possibleAdditionalCardsToPlay));
+            return chosenCards.thenAccept(
+                    cards -> {
+                        // cards is empty -> does not want to take the route
+                        if (cards.isEmpty()) {
+                            receiveInfoHandler.didNotClaimRoute(
+                                    players, currentPlayerInfo, claimedRoute);
+                            metrics.tunnelAttempted(
+                                    possibleAdditionalCardsToPlay.isEmpty()
+                                            ? GameMetrics.TunnelOutcome.UNAFFORDABLE
+                                            : GameMetrics.TunnelOutcome.GIVEN_UP);
                         } else {
-                            cardsPlayedForTunnelClaim = initialClaimCards.union(chosenCards);
-                            ReceiveInfoHandler.claimedRoute(
-                                    players, currentPlayerInfo, claimedRoute, cardsPlayedForTunnelClaim);
+                            SortedBag<Card> cardsPlayedForTunnelClaim =
+                                    initialClaimCards.union(cards);
+                            receiveInfoHandler.claimedRoute(
+                                    players,
+                                    currentPlayerInfo,
+                                    claimedRoute,
+                                    cardsPlayedForTunnelClaim);
                             // we have to sum up all the cards played to claim tunnel
                             // withClaimedRoute automatically adds cards to discards
-                            gameState = gameState.withClaimedRoute(claimedRoute, cardsPlayedForTunnelClaim);
+                            gameState =
+                                    gameState.withClaimedRoute(
+                                            claimedRoute, cardsPlayedForTunnelClaim);
+                            metrics.tunnelAttempted(
+                                    GameMetrics.TunnelOutcome.CLAIMED_WITH_ADDITIONAL_CARDS);
                         }
-                    }
-                    // we add the drawn cards to the discards
-                    gameState = gameState.withMoreDiscardedCards(SortedBag.of(drawnCards));
-                }
-            }
+                        // we add the drawn cards to the discards
+                        gameState = gameState.withMoreDiscardedCards(SortedBag.of(drawnCards));
+                    });
         }
     }
 
-    private static class ReceiveInfoHandler {
-        public static void willPlayFirst(Map<PlayerId, Player> players, Info currentPlayer) {
+    private final class ReceiveInfoHandler {
+        public void willPlayFirst(Map<PlayerId, AsyncPlayer> players, Info currentPlayer) {
             players.forEach((playerId, player) -> player.receiveInfo(currentPlayer.willPlayFirst()));
         }
 
-        public static void canPlay(Map<PlayerId, Player> players) {
+        public void canPlay(Map<PlayerId, AsyncPlayer> players) {
             players
                     .values()
                     .forEach(
@@ -352,32 +721,34 @@ public final class Game {
                                     player.receiveInfo(playersInfo.get(gameState.currentPlayerId()).canPlay()));
         }
 
-        public static void chosenTicketsInfo(
-                Map<PlayerId, Player> players, Info currentPlayer, int numberOfAdditionalChosenTickets) {
+        public void chosenTicketsInfo(
+                Map<PlayerId, AsyncPlayer> players,
+                Info currentPlayer,
+                int numberOfAdditionalChosenTickets) {
             players.forEach(
                     (playerId, player) ->
                             player.receiveInfo(currentPlayer.keptTickets(numberOfAdditionalChosenTickets)));
         }
 
-        public static void drewBlindCard(Map<PlayerId, Player> players, Info currentPlayer) {
+        public void drewBlindCard(Map<PlayerId, AsyncPlayer> players, Info currentPlayer) {
             players.forEach(
                     (playerId, allPlayers) -> allPlayers.receiveInfo(currentPlayer.drewBlindCard()));
         }
 
-        public static void drewVisibleCard(
-                Map<PlayerId, Player> players, Info currentPlayer, Card card) {
+        public void drewVisibleCard(
+                Map<PlayerId, AsyncPlayer> players, Info currentPlayer, Card card) {
             players.forEach(
                     (playerId, allPlayers) -> allPlayers.receiveInfo(currentPlayer.drewVisibleCard(card)));
         }
 
-        public static void drewTickets(Map<PlayerId, Player> players, Info currentPlayer) {
+        public void drewTickets(Map<PlayerId, AsyncPlayer> players, Info currentPlayer) {
             players.forEach(
                     (playerId, player) ->
                             player.receiveInfo(currentPlayer.drewTickets(GameConstants.IN_GAME_TICKETS_COUNT)));
         }
 
-        public static void claimedRoute(
-                Map<PlayerId, Player> players,
+        public void claimedRoute(
+                Map<PlayerId, AsyncPlayer> players,
                 Info currentPlayer,
                 Route claimedRoute,
                 SortedBag<Card> cards) {
@@ -386,8 +757,8 @@ public final class Game {
                             allPlayers.receiveInfo(currentPlayer.claimedRoute(claimedRoute, cards)));
         }
 
-        public static void attemptedTunnelClaim(
-                Map<PlayerId, Player> players,
+        public void attemptedTunnelClaim(
+                Map<PlayerId, AsyncPlayer> players,
                 Info currentPlayer,
                 Route claimedRoute,
                 SortedBag<Card> cards) {
@@ -396,42 +767,45 @@ public final class Game {
                             allPlayers.receiveInfo(currentPlayer.attemptsTunnelClaim(claimedRoute, cards)));
         }
 
-        public static void additionalCardsWereDrawnInfo(
-                Map<PlayerId, Player> p, Info cPlayer, List<Card> dCards, int aCards) {
+        public void additionalCardsWereDrawnInfo(
+                Map<PlayerId, AsyncPlayer> p, Info cPlayer, List<Card> dCards, int aCards) {
             p.forEach(
                     (playerId, player) ->
                             player.receiveInfo(cPlayer.drewAdditionalCards(SortedBag.of(dCards), aCards)));
         }
 
-        public static void didNotClaimRoute(
-                Map<PlayerId, Player> players, Info currentPlayer, Route claimedRoute) {
+        public void didNotClaimRoute(
+                Map<PlayerId, AsyncPlayer> players, Info currentPlayer, Route claimedRoute) {
             players.forEach(
                     (playerId, player) -> player.receiveInfo(currentPlayer.didNotClaimRoute(claimedRoute)));
         }
 
-        public static void lastTurnBegins(
-                GameState gameState, Map<PlayerId, Player> players, Info currentPlayer) {
+        public void lastTurnBegins(
+                GameState gameState, Map<PlayerId, AsyncPlayer> players, Info currentPlayer) {
             players.forEach(
                     (playerId, player) ->
                             player.receiveInfo(
                                     currentPlayer.lastTurnBegins(gameState.currentPlayerState().carCount())));
         }
 
-        public static void longestTrail(
-                Map<PlayerId, Player> players, Info playerLongestTrail, Trail longest) {
+        public void longestTrail(
+                Map<PlayerId, AsyncPlayer> players, Info playerLongestTrail, Trail longest) {
             players.forEach(
                     (playerId, player) ->
                             player.receiveInfo(playerLongestTrail.getsLongestTrailBonus(longest)));
         }
 
-        public static void playersHaveDrawn(
-                Map<PlayerId, Player> players, List<String> playerNames, int points) {
+        public void playersHaveDrawn(
+                Map<PlayerId, AsyncPlayer> players, List<String> playerNames, int points) {
 
             players.forEach((playerId, player) -> player.receiveInfo(Info.draw(playerNames, points)));
         }
 
-        public static void playerWon(
-                Map<PlayerId, Player> players, Info winnerInfo, int winnerPoints, int loserPoints) {
+        public void playerWon(
+                Map<PlayerId, AsyncPlayer> players,
+                Info winnerInfo,
+                int winnerPoints,
+                int loserPoints) {
             players.forEach(
                     (playerId, player) -> player.receiveInfo(winnerInfo.won(winnerPoints, loserPoints)));
         }
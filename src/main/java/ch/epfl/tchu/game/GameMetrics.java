@@ -0,0 +1,62 @@
+package ch.epfl.tchu.game;
+
+/**
+ * Receives measures of the games it is given to (see {@link Game#setMetrics}): where the time of
+ * each turn goes, and what the engine does. Every method does nothing by default, so that an
+ * implementation only overrides the measures it is interested in.
+ *
+ * <p>The methods are called by the thread playing the game at the time; an instance given to
+ * several games played at once must thus be thread-safe (see {@link InMemoryGameMetrics}).
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public interface GameMetrics {
+
+    /** Metrics ignoring every measure, those of a game by default. */
+    GameMetrics NONE = new GameMetrics() {};
+
+    /** Enumeration of the ways an attempt to claim a tunnel can end. */
+    enum TunnelOutcome {
+        /** The tunnel is claimed, the cards drawn requiring no additional card. */
+        CLAIMED_WITHOUT_ADDITIONAL_CARDS,
+        /** The tunnel is claimed, the player having played additional cards. */
+        CLAIMED_WITH_ADDITIONAL_CARDS,
+        /** The player could play the additional cards required, but chose not to. */
+        GIVEN_UP,
+        /** The player did not have the additional cards required. */
+        UNAFFORDABLE
+    }
+
+    /**
+     * Called at the end of each turn, with the time spent waiting for the decisions of the player
+     * and the time spent by the engine: playing the turn and sending the states and infos.
+     *
+     * @param playerId the player who played the turn.
+     * @param kind the kind of turn the player chose.
+     * @param decisionNanos the time spent waiting for the decisions, in nanoseconds.
+     * @param engineNanos the rest of the time of the turn, in nanoseconds.
+     */
+    default void turnPlayed(
+            PlayerId playerId, Player.TurnKind kind, long decisionNanos, long engineNanos) {}
+
+    /** Called each time the deck of cards is recreated from the discards. */
+    default void deckRecreated() {}
+
+    /**
+     * Called at the end of each attempt to claim a tunnel.
+     *
+     * @param outcome how the attempt ended.
+     */
+    default void tunnelAttempted(TunnelOutcome outcome) {}
+
+    /** Called each time a state is sent to a player. */
+    default void stateUpdateSent() {}
+
+    /**
+     * Called at the end of the game, once the longest trails of the players are computed.
+     *
+     * @param nanos the time taken to compute them, in nanoseconds.
+     */
+    default void longestTrailsComputed(long nanos) {}
+}
@@ -3,8 +3,6 @@ package ch.epfl.tchu.game;
 import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.SortedBag;
 
-import java.util.EnumMap;
-import java.util.Map;
 import java.util.Random;
 
 /**
@@ -17,17 +15,19 @@ public final class GameState extends PublicGameState {
 
     private final CardState cardState;
     private final Deck<Ticket> deckTickets;
-    private final Map<PlayerId, PlayerState> playerStates;
+    // Indexed by the ordinal of the players and shared with the public state, never modified: a
+    // transition copies these two slots only if it changes one of them.
+    private final PlayerState[] playerStates;
 
     private GameState(
             Deck<Ticket> deckTickets,
             CardState cardState,
             PlayerId currentPlayerId,
-            Map<PlayerId, PlayerState> playerStates,
+            PlayerState[] playerStates,
             PlayerId lastPlayer) {
-        super(deckTickets.size(), cardState, currentPlayerId, Map.copyOf(playerStates), lastPlayer);
+        super(playerStates, deckTickets.size(), cardState, currentPlayerId, lastPlayer);
         this.deckTickets = deckTickets;
-        this.playerStates = Map.copyOf(playerStates);
+        this.playerStates = playerStates;
         this.cardState = cardState;
     }
 
@@ -43,10 +43,10 @@ public final class GameState extends PublicGameState {
      */
     public static GameState initial(SortedBag<Ticket> tickets, Random rng) {
         Deck<Card> deckCards = Deck.of(GameConstants.ALL_CARDS, rng);
-        Map<PlayerId, PlayerState> playerStates = new EnumMap<>(PlayerId.class);
+        PlayerState[] playerStates = new PlayerState[PlayerId.COUNT];
         for (PlayerId player : PlayerId.ALL) {
-            playerStates.put(
-                    player, PlayerState.initial(deckCards.topCards(GameConstants.INITIAL_CARDS_COUNT)));
+            playerStates[player.ordinal()] =
+                    PlayerState.initial(deckCards.topCards(GameConstants.INITIAL_CARDS_COUNT));
             deckCards = deckCards.withoutTopCards(GameConstants.INITIAL_CARDS_COUNT);
         }
 
@@ -66,11 +66,25 @@ public final class GameState extends PublicGameState {
     private GameState GameStateWithSamePlayers(
             Deck<Ticket> deckTickets,
             CardState cardState,
-            Map<PlayerId, PlayerState> playerStates) {
+            PlayerState[] playerStates) {
         return new GameState(
                 deckTickets, cardState, this.currentPlayerId(), playerStates, this.lastPlayer());
     }
 
+    /**
+     * Returns the player states of the receiver, with the state of the given player replaced. The
+     * state of the other player is shared.
+     */
+    private PlayerState[] playerStatesWith(PlayerId playerId, PlayerState playerState) {
+        PlayerState[] newPlayerStates = this.playerStates.clone();
+        newPlayerStates[playerId.ordinal()] = playerState;
+        return newPlayerStates;
+    }
+
+    private PlayerState[] currentPlayerStateWith(PlayerState playerState) {
+        return playerStatesWith(this.currentPlayerId(), playerState);
+    }
+
     /**
      * Returns the complete state of the player.
      *
@@ -78,7 +92,7 @@ public final class GameState extends PublicGameState {
      * @return the complete state of the player.
      */
     public PlayerState playerState(PlayerId playerId) {
-        return this.playerStates.get(playerId);
+        return this.playerStates[playerId.ordinal()];
     }
 
     /**
@@ -87,7 +101,7 @@ public final class GameState extends PublicGameState {
      * @return the complete state of the game.
      */
     public PlayerState currentPlayerState() {
-        return this.playerStates.get(this.currentPlayerId());
+        return this.playerStates[this.currentPlayerId().ordinal()];
     }
 
     // region Cards and Tickets Methods
@@ -184,13 +198,14 @@ public final class GameState extends PublicGameState {
      */
     public GameState withInitiallyChosenTickets(
             PlayerId playerId, SortedBag<Ticket> chosenTickets) {
-        Preconditions.checkArgument(this.playerStates.get(playerId).ticketCount() == 0);
+        PlayerState playerState = playerState(playerId);
+        Preconditions.checkArgument(playerState.ticketCount() == 0);
         // NOTE : this method does not modify the deck of tickets, and it's intended. cf paper.
-        EnumMap<PlayerId, PlayerState> tempPlayerState = new EnumMap<>(this.playerStates);
         // Update the playerState for the given PlayerId.
-        tempPlayerState.computeIfPresent(
-                playerId, (id, playerState) -> playerState.withAddedTickets(chosenTickets));
-        return GameStateWithSamePlayers(this.deckTickets, this.cardState, tempPlayerState);
+        return GameStateWithSamePlayers(
+                this.deckTickets,
+                this.cardState,
+                playerStatesWith(playerId, playerState.withAddedTickets(chosenTickets)));
     }
 
     /**
@@ -207,15 +222,12 @@ public final class GameState extends PublicGameState {
             SortedBag<Ticket> drawnTickets, SortedBag<Ticket> chosenTickets) {
         Preconditions.checkArgument(drawnTickets.contains(chosenTickets));
 
-        EnumMap<PlayerId, PlayerState> tempPlayerState = new EnumMap<>(this.playerStates);
         // Change the player state corresponding to the current player to a state with added
         // tickets.
-        tempPlayerState.computeIfPresent(
-                this.currentPlayerId(), (id, state) -> state.withAddedTickets(chosenTickets));
         return GameStateWithSamePlayers(
                 this.deckTickets.withoutTopCards(drawnTickets.size()),
                 this.cardState,
-                tempPlayerState);
+                currentPlayerStateWith(currentPlayerState().withAddedTickets(chosenTickets)));
     }
 
     /**
@@ -228,13 +240,12 @@ public final class GameState extends PublicGameState {
      *     returns false.
      */
     public GameState withDrawnFaceUpCard(int slot) {
-        EnumMap<PlayerId, PlayerState> tempPlayerState = new EnumMap<>(this.playerStates);
         // Add a card to the playerState corresponding to the current player.
-        tempPlayerState.computeIfPresent(
-                this.currentPlayerId(),
-                (id, playerState) -> playerState.withAddedCard(cardState.faceUpCard(slot)));
+        PlayerState[] newPlayerStates =
+                currentPlayerStateWith(
+                        currentPlayerState().withAddedCard(cardState.faceUpCard(slot)));
         return GameStateWithSamePlayers(
-                this.deckTickets, this.cardState.withDrawnFaceUpCard(slot), tempPlayerState);
+                this.deckTickets, this.cardState.withDrawnFaceUpCard(slot), newPlayerStates);
     }
 
     /**
@@ -246,13 +257,11 @@ public final class GameState extends PublicGameState {
      *     returns false.
      */
     public GameState withBlindlyDrawnCard() {
-        EnumMap<PlayerId, PlayerState> tempPlayerState = new EnumMap<>(this.playerStates);
         // Add a card to the playerState corresponding to the current player.
-        tempPlayerState.computeIfPresent(
-                this.currentPlayerId(),
-                (id, playerState) -> playerState.withAddedCard(cardState.topDeckCard()));
+        PlayerState[] newPlayerStates =
+                currentPlayerStateWith(currentPlayerState().withAddedCard(cardState.topDeckCard()));
         return GameStateWithSamePlayers(
-                this.deckTickets, this.cardState.withoutTopDeckCard(), tempPlayerState);
+                this.deckTickets, this.cardState.withoutTopDeckCard(), newPlayerStates);
     }
 
     /**
@@ -264,13 +273,11 @@ public final class GameState extends PublicGameState {
      * @return The new State.
      */
     public GameState withClaimedRoute(Route route, SortedBag<Card> cards) {
-        EnumMap<PlayerId, PlayerState> tempPlayerState = new EnumMap<>(this.playerStates);
-        // Add a card to the playerState corresponding to the current player.
-        tempPlayerState.computeIfPresent(
-                this.currentPlayerId(),
-                (id, playerState) -> playerState.withClaimedRoute(route, cards));
+        // Add the route to the playerState corresponding to the current player.
+        PlayerState[] newPlayerStates =
+                currentPlayerStateWith(currentPlayerState().withClaimedRoute(route, cards));
         return GameStateWithSamePlayers(
-                this.deckTickets, this.cardState.withMoreDiscardedCards(cards), tempPlayerState);
+                this.deckTickets, this.cardState.withMoreDiscardedCards(cards), newPlayerStates);
     }
 
     // endregion
@@ -0,0 +1,231 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics keeping their measures in memory: counters of the events of the games, and histograms
+ * of the times measured. Thread-safe, so a single instance can measure all the games of a
+ * server.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class InMemoryGameMetrics implements GameMetrics {
+    private final Histogram decisionTimes = new Histogram();
+    private final Histogram engineTimes = new Histogram();
+    private final Histogram longestTrailsTimes = new Histogram();
+    private final Map<Player.TurnKind, LongAdder> turnsCounts =
+            new EnumMap<>(Player.TurnKind.class);
+    private final Map<TunnelOutcome, LongAdder> tunnelsCounts = new EnumMap<>(TunnelOutcome.class);
+    private final LongAdder deckRecreations = new LongAdder();
+    private final LongAdder stateUpdates = new LongAdder();
+
+    /** Constructs metrics without any measure yet. */
+    public InMemoryGameMetrics() {
+        for (Player.TurnKind kind : Player.TurnKind.ALL) turnsCounts.put(kind, new LongAdder());
+        for (TunnelOutcome outcome : TunnelOutcome.values())
+            tunnelsCounts.put(outcome, new LongAdder());
+    }
+
+    @Override
+    public void turnPlayed(
+            PlayerId playerId, Player.TurnKind kind, long decisionNanos, long engineNanos) {
+        turnsCounts.get(kind).increment();
+        decisionTimes.record(decisionNanos);
+        engineTimes.record(engineNanos);
+    }
+
+    @Override
+    public void deckRecreated() {
+        deckRecreations.increment();
+    }
+
+    @Override
+    public void tunnelAttempted(TunnelOutcome outcome) {
+        tunnelsCounts.get(outcome).increment();
+    }
+
+    @Override
+    public void stateUpdateSent() {
+        stateUpdates.increment();
+    }
+
+    @Override
+    public void longestTrailsComputed(long nanos) {
+        longestTrailsTimes.record(nanos);
+    }
+
+    /**
+     * Returns the times spent waiting for the decisions of the players, one per turn.
+     *
+     * @return the decision times.
+     */
+    public Histogram decisionTimes() {
+        return decisionTimes;
+    }
+
+    /**
+     * Returns the times spent by the engine, one per turn.
+     *
+     * @return the engine times.
+     */
+    public Histogram engineTimes() {
+        return engineTimes;
+    }
+
+    /**
+     * Returns the times taken to compute the longest trails, one per game.
+     *
+     * @return the longest trails times.
+     */
+    public Histogram longestTrailsTimes() {
+        return longestTrailsTimes;
+    }
+
+    /**
+     * Returns the number of turns of the given kind played.
+     *
+     * @param kind the kind of turn.
+     * @return the number of turns.
+     */
+    public long turnsCount(Player.TurnKind kind) {
+        return turnsCounts.get(kind).sum();
+    }
+
+    /**
+     * Returns the number of times the deck was recreated from the discards.
+     *
+     * @return the number of reshuffles.
+     */
+    public long deckRecreationsCount() {
+        return deckRecreations.sum();
+    }
+
+    /**
+     * Returns the number of attempts to claim a tunnel which ended in the given way.
+     *
+     * @param outcome the outcome of the attempts.
+     * @return the number of attempts.
+     */
+    public long tunnelAttemptsCount(TunnelOutcome outcome) {
+        return tunnelsCounts.get(outcome).sum();
+    }
+
+    /**
+     * Returns the number of states sent to the players.
+     *
+     * @return the number of state updates.
+     */
+    public long stateUpdatesCount() {
+        return stateUpdates.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder metrics = new StringBuilder();
+        metrics.append("turns:");
+        turnsCounts.forEach(
+                (kind, count) -> metrics.append(' ').append(kind).append('=').append(count));
+        metrics.append(String.format("%ndecision time: %s", decisionTimes));
+        metrics.append(String.format("%nengine time: %s", engineTimes));
+        metrics.append(String.format("%nlongest trails time: %s", longestTrailsTimes));
+        metrics.append(String.format("%ntunnels:"));
+        tunnelsCounts.forEach(
+                (outcome, count) -> metrics.append(' ').append(outcome).append('=').append(count));
+        metrics.append(String.format(
+                "%ndeck recreations: %d, state updates: %d",
+                deckRecreationsCount(), stateUpdatesCount()));
+        return metrics.toString();
+    }
+
+    /**
+     * Histogram of durations, in nanoseconds, each bucket holding the durations with the same
+     * highest bit: the percentiles are thus known within a factor of 2, with a constant memory.
+     */
+    public static final class Histogram {
+        private static final int BUCKETS_COUNT = Long.SIZE;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        private Histogram() {}
+
+        // Bucket i holds the durations between 2^(i-1) (inclusive) and 2^i (exclusive), bucket 0
+        // the null (or negative) ones.
+        private void record(long nanos) {
+            long value = Math.max(0, nanos);
+            counts.incrementAndGet(BUCKETS_COUNT - Long.numberOfLeadingZeros(value));
+            count.increment();
+            sum.add(value);
+        }
+
+        /**
+         * Returns the number of durations recorded.
+         *
+         * @return the number of durations.
+         */
+        public long count() {
+            return count.sum();
+        }
+
+        /**
+         * Returns the sum of the durations recorded, in nanoseconds.
+         *
+         * @return the total duration.
+         */
+        public long totalNanos() {
+            return sum.sum();
+        }
+
+        /**
+         * Returns the mean of the durations recorded, in nanoseconds.
+         *
+         * @return the mean duration, 0 if none is recorded.
+         */
+        public double meanNanos() {
+            long count = count();
+            return count == 0 ? 0 : (double) totalNanos() / count;
+        }
+
+        /**
+         * Returns an upper bound of the given percentile of the durations recorded, at most twice
+         * the percentile.
+         *
+         * @param percentile the percentile, between 0 and 100.
+         * @return the upper bound of the percentile, in nanoseconds, 0 if nothing is recorded.
+         * @throws IllegalArgumentException if the percentile is not between 0 and 100.
+         */
+        public long percentileNanos(double percentile) {
+            Preconditions.checkArgument(0 <= percentile && percentile <= 100);
+            long[] snapshot = new long[BUCKETS_COUNT];
+            long total = 0;
+            for (int i = 0; i < BUCKETS_COUNT; i++) {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS_COUNT; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) return i == 0 ? 0 : (1L << i) - 1;
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "count=%d mean=%.1fus p50<%.1fus p99<%.1fus",
+                    count(),
+                    meanNanos() / 1e3,
+                    percentileNanos(50) / 1e3,
+                    percentileNanos(99) / 1e3);
+        }
+    }
+}
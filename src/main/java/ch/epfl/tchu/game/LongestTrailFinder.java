@@ -0,0 +1,492 @@
+package ch.epfl.tchu.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the longest {@link Trail} of a set of routes by a depth-first search on the routes.
+ *
+ * <p>The routes are indexed once: stations get dense indices, each station knows its incident
+ * routes, and the routes used by the trail being built are stored in a bit set. The search
+ * backtracks in place, so no intermediate trail is ever allocated.
+ *
+ * <p>The search space is cut down with the following facts:
+ *
+ * <ul>
+ *   <li>a longest trail can not be extended, so if it is not closed, both its ends are stations
+ *       whose routes are all used an odd number of times, i.e. stations of odd degree;
+ *   <li>a closed longest trail uses every route of its connected component (otherwise it could
+ *       be rotated and extended), so it is only searched in components without odd stations;
+ *   <li>the routes left unused by a trail pair up the odd stations of its component, except the
+ *       two ends of the trail, so they weigh at least as much as a minimum matching of these
+ *       stations by shortest paths. This bounds the trails leaving each start station: the most
+ *       promising start stations are tried first, and the search stops once a trail reaches the
+ *       bound of its start station;
+ *   <li>the same bound, over the unused routes still reachable from its tip, cuts a branch as soon
+ *       as it can not make the trail longer than the best one found so far;
+ *   <li>the length of a trail only depends on the routes it uses, so a trail using the same routes
+ *       and ending at the same station as an already explored one can not do any better, and is
+ *       not explored again.
+ * </ul>
+ *
+ * <p>These cuts only shorten the search in practice: it remains exponential in the number of
+ * routes in the worst case (see {@link Trail#longest}).
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+final class LongestTrailFinder {
+    private static final int VISITED_STATES_MIN_ROUTES = 12;
+    // Above these numbers of odd stations, matching them exactly costs more than it saves: once
+    // per start station, and once per explored branch.
+    private static final int START_MATCHED_STATIONS_MAX = 18;
+    private static final int BRANCH_MATCHED_STATIONS_MAX = 10;
+    private static final int UNREACHABLE = Integer.MAX_VALUE / 4;
+
+    private final List<Route> routes;
+    private final Station[] stations;
+    // For each route (by its index in routes): its two stations (dense indices) and its length.
+    private final int[] routeStation1;
+    private final int[] routeStation2;
+    private final int[] routeLength;
+    // For each station (by its dense index): the indices of the routes it belongs to.
+    private final int[][] incidentRoutes;
+    // For each station: its connected component. For each component: its total length, and
+    // whether it contains a station of odd degree.
+    private final int[] componentOfStation;
+    private final int[] componentLength;
+    private final boolean[] componentHasOddStation;
+    private final int componentCount;
+
+    // Search state, reused across the whole search.
+    private final long[] usedRoutes;
+    private final VisitedStates visitedStates;
+    private final long[] countedRoutes;
+    private final boolean[] reachedStations;
+    private final int[] stationsToVisit;
+    private final int[] currentPath;
+    private final int[] bestPath;
+    private final int[] matchedStations;
+    // For each matched station, a known minimum of the weight of the routes leading to its pair.
+    private final int[] matchedStationsReach;
+    // Shortest distances between stations, computed when first needed.
+    private int[][] distances;
+    private int[][] matchingWeights;
+    private int currentStart;
+    private int targetLength;
+    private int bestStart;
+    private int bestLength;
+    private int bestSize;
+
+    /**
+     * Indexes the given routes.
+     *
+     * @param routes the routes the trail can be made of.
+     */
+    LongestTrailFinder(List<Route> routes) {
+        this.routes = List.copyOf(routes);
+        int routeCount = this.routes.size();
+        this.routeStation1 = new int[routeCount];
+        this.routeStation2 = new int[routeCount];
+        this.routeLength = new int[routeCount];
+
+        // Stations are identified by their id, as everywhere else in the game.
+        Map<Integer, Integer> denseIndexOfStation = new HashMap<>();
+        List<Station> stationsList = new ArrayList<>();
+        int[] degrees = new int[2 * routeCount];
+        for (int i = 0; i < routeCount; i++) {
+            Route route = this.routes.get(i);
+            routeStation1[i] = denseIndex(route.station1(), denseIndexOfStation, stationsList);
+            routeStation2[i] = denseIndex(route.station2(), denseIndexOfStation, stationsList);
+            routeLength[i] = route.length();
+            degrees[routeStation1[i]]++;
+            degrees[routeStation2[i]]++;
+        }
+        this.stations = stationsList.toArray(new Station[0]);
+
+        // Incident routes are stored in the order of the given list.
+        this.incidentRoutes = new int[stations.length][];
+        for (int s = 0; s < stations.length; s++) incidentRoutes[s] = new int[degrees[s]];
+        int[] filled = new int[stations.length];
+        for (int i = 0; i < routeCount; i++) {
+            incidentRoutes[routeStation1[i]][filled[routeStation1[i]]++] = i;
+            incidentRoutes[routeStation2[i]][filled[routeStation2[i]]++] = i;
+        }
+
+        int words = (routeCount + Long.SIZE - 1) / Long.SIZE;
+        this.usedRoutes = new long[words];
+        // Small sets of routes are searched fast enough without it.
+        this.visitedStates =
+                VISITED_STATES_MIN_ROUTES <= routeCount && routeCount <= Long.SIZE
+                        ? new VisitedStates()
+                        : null;
+        this.countedRoutes = new long[words];
+        this.reachedStations = new boolean[stations.length];
+        this.stationsToVisit = new int[stations.length];
+        this.currentPath = new int[routeCount];
+        this.bestPath = new int[routeCount];
+        this.matchedStations = new int[stations.length];
+        this.matchedStationsReach = new int[stations.length];
+
+        this.componentOfStation = new int[stations.length];
+        this.componentLength = new int[stations.length];
+        this.componentHasOddStation = new boolean[stations.length];
+        Arrays.fill(componentOfStation, -1);
+        int components = 0;
+        for (int s = 0; s < stations.length; s++) {
+            if (componentOfStation[s] == -1) labelComponent(s, components++);
+        }
+        this.componentCount = components;
+        for (int i = 0; i < routeCount; i++)
+            componentLength[componentOfStation[routeStation1[i]]] += routeLength[i];
+    }
+
+    /** Labels every station connected to <code>from</code> with the given component. */
+    private void labelComponent(int from, int component) {
+        int toVisit = 0;
+        stationsToVisit[toVisit++] = from;
+        componentOfStation[from] = component;
+        while (toVisit > 0) {
+            int station = stationsToVisit[--toVisit];
+            if (incidentRoutes[station].length % 2 == 1) componentHasOddStation[component] = true;
+            for (int route : incidentRoutes[station]) {
+                int other = opposite(route, station);
+                if (componentOfStation[other] == -1) {
+                    componentOfStation[other] = component;
+                    stationsToVisit[toVisit++] = other;
+                }
+            }
+        }
+    }
+
+    private static int denseIndex(
+            Station station, Map<Integer, Integer> denseIndexOfStation, List<Station> stations) {
+        Integer index = denseIndexOfStation.get(station.id());
+        if (index != null) return index;
+        denseIndexOfStation.put(station.id(), stations.size());
+        stations.add(station);
+        return stations.size() - 1;
+    }
+
+    /**
+     * Returns the longest trail made of the indexed routes. If there are several longest trails,
+     * returns the first one found, trying the start stations from the one with the best bound,
+     * then in the order they appear in the given routes, and the routes leaving a station in the
+     * order of the given list.
+     *
+     * @return the longest trail.
+     */
+    Trail longest() {
+        if (routes.isEmpty()) return new Trail(null, null, Collections.emptyList());
+        search();
+        List<Route> trailRoutes = new ArrayList<>(bestSize);
+        int station = bestStart;
+        for (int i = 0; i < bestSize; i++) {
+            trailRoutes.add(routes.get(bestPath[i]));
+            station = opposite(bestPath[i], station);
+        }
+        return new Trail(stations[bestStart], stations[station], trailRoutes);
+    }
+
+    /**
+     * Returns the length of the longest trail made of the indexed routes, without building it.
+     *
+     * @return the length of the longest trail.
+     */
+    int longestLength() {
+        if (routes.isEmpty()) return 0;
+        search();
+        return bestLength;
+    }
+
+    private void search() {
+        int[] startBound = startBounds();
+        Integer[] starts = new Integer[stations.length];
+        for (int s = 0; s < stations.length; s++) starts[s] = s;
+        // Stable sort: stations with equal bounds keep their order.
+        Arrays.sort(starts, (s1, s2) -> Integer.compare(startBound[s2], startBound[s1]));
+
+        bestLength = 0;
+        bestSize = 0;
+        for (int start : starts) {
+            if (startBound[start] <= bestLength) break;
+            targetLength = startBound[start];
+            currentStart = start;
+            extend(start, 0, 0);
+        }
+    }
+
+    /**
+     * Returns, for each station, an upper bound of the length of the trails starting from it:
+     * the total length of its component minus the minimum weight of the routes such a trail must
+     * leave unused, or -1 if no longest trail starts from it.
+     */
+    private int[] startBounds() {
+        int[] bounds = new int[stations.length];
+        for (int component = 0; component < componentCount; component++) {
+            int oddCount = 0;
+            for (int s = 0; s < stations.length; s++) {
+                if (componentOfStation[s] != component) continue;
+                boolean odd = incidentRoutes[s].length % 2 == 1;
+                if (odd) oddCount++;
+                bounds[s] =
+                        odd || !componentHasOddStation[component]
+                                ? componentLength[component]
+                                : -1;
+            }
+            if (oddCount <= 2) continue;
+
+            int count = 0;
+            for (int s = 0; s < stations.length; s++) {
+                if (componentOfStation[s] == component && incidentRoutes[s].length % 2 == 1) {
+                    matchedStationsReach[count] = 0;
+                    matchedStations[count++] = s;
+                }
+            }
+            // The start is one end of the trail, the other end is left unmatched.
+            if (count <= START_MATCHED_STATIONS_MAX) {
+                // A single pass matches every subset, in particular all the stations but one.
+                minimumMatchingWeight(count);
+                int all = (1 << count) - 1;
+                for (int i = 0; i < count; i++)
+                    bounds[matchedStations[i]] -= matchingWeights[1][all & ~(1 << i)];
+            } else {
+                for (int i = 0; i < count; i++) {
+                    int start = matchedStations[i];
+                    matchedStations[i] = matchedStations[count - 1];
+                    bounds[start] -= matchingWeight(count - 1, 0);
+                    matchedStations[count - 1] = matchedStations[i];
+                    matchedStations[i] = start;
+                }
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns the length of the shortest path between every pair of stations (Floyd-Warshall),
+     * over all the routes. It is never longer than a path over the routes still unused.
+     */
+    private int[][] shortestDistances() {
+        if (distances != null) return distances;
+        distances = new int[stations.length][stations.length];
+        for (int s = 0; s < stations.length; s++) {
+            Arrays.fill(distances[s], UNREACHABLE);
+            distances[s][s] = 0;
+        }
+        for (int route = 0; route < routeLength.length; route++) {
+            int s1 = routeStation1[route];
+            int s2 = routeStation2[route];
+            distances[s1][s2] = Math.min(distances[s1][s2], routeLength[route]);
+            distances[s2][s1] = distances[s1][s2];
+        }
+        for (int k = 0; k < stations.length; k++) {
+            for (int i = 0; i < stations.length; i++) {
+                for (int j = 0; j < stations.length; j++) {
+                    distances[i][j] =
+                            Math.min(distances[i][j], distances[i][k] + distances[k][j]);
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Returns a lower bound of the weight of a matching of the first <code>count</code> matched
+     * stations, leaving at most one of them unmatched: the exact minimum if there are at most
+     * <code>maxExact</code> stations, otherwise half the sum of the distances from each station to
+     * its nearest possible pair, but the largest.
+     */
+    private int matchingWeight(int count, int maxExact) {
+        if (count <= 1) return 0;
+        if (count <= maxExact) return minimumMatchingWeight(count);
+        int[][] distances = shortestDistances();
+        int reachSum = 0;
+        int reachMax = 0;
+        for (int i = 0; i < count; i++) {
+            int[] distancesFromStation = distances[matchedStations[i]];
+            int nearest = UNREACHABLE;
+            for (int j = 0; j < count; j++) {
+                if (j != i) nearest = Math.min(nearest, distancesFromStation[matchedStations[j]]);
+            }
+            int reach = Math.max(nearest, matchedStationsReach[i]);
+            reachSum += reach;
+            reachMax = Math.max(reachMax, reach);
+        }
+        return (reachSum - reachMax + 1) / 2;
+    }
+
+    /**
+     * Returns the minimum weight of a matching of the first <code>count</code> matched stations,
+     * leaving at most one of them (the unknown end of the trail) unmatched, two stations weighing
+     * the length of the shortest path between them. Computed over the subsets of the stations:
+     * <code>weights[u][subset]</code> is the minimum weight of a matching of the subset leaving at
+     * most <code>u</code> stations unmatched.
+     */
+    private int minimumMatchingWeight(int count) {
+        int[][] distances = shortestDistances();
+        if (matchingWeights == null || matchingWeights[0].length < 1 << count)
+            matchingWeights = new int[2][1 << count];
+        int[][] weights = matchingWeights;
+        for (int subset = 1; subset < 1 << count; subset++) {
+            int first = Integer.numberOfTrailingZeros(subset);
+            int rest = subset & ~(1 << first);
+            int[] distancesFromFirst = distances[matchedStations[first]];
+            int allMatched = UNREACHABLE;
+            int oneUnmatched = weights[0][rest];
+            for (int others = rest; others != 0; others &= others - 1) {
+                int second = Integer.numberOfTrailingZeros(others);
+                int distance = distancesFromFirst[matchedStations[second]];
+                int remaining = rest & ~(1 << second);
+                allMatched = Math.min(allMatched, distance + weights[0][remaining]);
+                oneUnmatched = Math.min(oneUnmatched, distance + weights[1][remaining]);
+            }
+            weights[0][subset] = allMatched;
+            weights[1][subset] = oneUnmatched;
+        }
+        return weights[1][(1 << count) - 1];
+    }
+
+    /**
+     * Extends the current trail, made of <code>size</code> routes of total <code>length</code> and
+     * ending at <code>tip</code>, with every unused route leaving <code>tip</code>.
+     */
+    private void extend(int tip, int size, int length) {
+        if (length > bestLength) {
+            bestLength = length;
+            bestSize = size;
+            bestStart = currentStart;
+            System.arraycopy(currentPath, 0, bestPath, 0, size);
+        }
+        if (visitedStates != null && !visitedStates.add(usedRoutes[0], tip)) return;
+        if (length + extensionBound(tip) <= bestLength) return;
+
+        for (int route : incidentRoutes[tip]) {
+            if (isSet(usedRoutes, route)) continue;
+            set(usedRoutes, route);
+            currentPath[size] = route;
+            extend(opposite(route, tip), size + 1, length + routeLength[route]);
+            clear(usedRoutes, route);
+            // Nothing can beat a trail reaching the bound of its component.
+            if (bestLength == targetLength) return;
+        }
+    }
+
+    /**
+     * Returns an upper bound of what the current trail, ending at <code>tip</code>, can still
+     * gain: the total length of the unused routes reachable from the tip, minus what must be left
+     * unused: once the trail is over, the routes left unused among the reachable ones pair up
+     * their stations of odd degree, the tip and the end of the trail toggled.
+     */
+    private int extensionBound(int tip) {
+        Arrays.fill(countedRoutes, 0L);
+        Arrays.fill(reachedStations, false);
+        int toVisit = 0;
+        stationsToVisit[toVisit++] = tip;
+        reachedStations[tip] = true;
+        int reachableLength = 0;
+        int matched = 0;
+        while (toVisit > 0) {
+            int station = stationsToVisit[--toVisit];
+            int unusedDegree = 0;
+            int shortest = Integer.MAX_VALUE;
+            for (int route : incidentRoutes[station]) {
+                if (isSet(usedRoutes, route)) continue;
+                unusedDegree++;
+                shortest = Math.min(shortest, routeLength[route]);
+                if (isSet(countedRoutes, route)) continue;
+                set(countedRoutes, route);
+                reachableLength += routeLength[route];
+                int other = opposite(route, station);
+                if (!reachedStations[other]) {
+                    reachedStations[other] = true;
+                    stationsToVisit[toVisit++] = other;
+                }
+            }
+            // The tip is toggled: it is matched if the rest of the trail leaves it evenly.
+            if ((station == tip) != (unusedDegree % 2 == 1)) {
+                // Its pair is reached through one of its unused routes.
+                matchedStationsReach[matched] = shortest;
+                matchedStations[matched++] = station;
+            }
+        }
+        return reachableLength - matchingWeight(matched, BRANCH_MATCHED_STATIONS_MAX);
+    }
+
+    private int opposite(int route, int station) {
+        return routeStation1[route] == station ? routeStation2[route] : routeStation1[route];
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index / Long.SIZE] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index / Long.SIZE] |= 1L << index;
+    }
+
+    private static void clear(long[] bits, int index) {
+        bits[index / Long.SIZE] &= ~(1L << index);
+    }
+
+    /**
+     * Set of the explored states of the search, i.e. pairs of (used routes, tip station). Open
+     * addressing table over primitive arrays; once full, states are no longer remembered, which
+     * only makes the search slower.
+     */
+    private static final class VisitedStates {
+        private static final int INITIAL_CAPACITY = 1 << 10;
+        private static final int MAX_CAPACITY = 1 << 20;
+
+        private long[] usedRoutes = new long[INITIAL_CAPACITY];
+        // Tip station + 1, so that 0 marks an empty slot.
+        private int[] tips = new int[INITIAL_CAPACITY];
+        private int size;
+
+        /**
+         * Adds the given state to the set.
+         *
+         * @return false if the state was already in the set.
+         */
+        boolean add(long used, int tip) {
+            int slot = slotOf(usedRoutes, tips, used, tip);
+            if (tips[slot] != 0) return false;
+            if (2 * size >= tips.length) {
+                if (tips.length == MAX_CAPACITY) return true;
+                grow();
+                slot = slotOf(usedRoutes, tips, used, tip);
+            }
+            usedRoutes[slot] = used;
+            tips[slot] = tip + 1;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] oldUsedRoutes = usedRoutes;
+            int[] oldTips = tips;
+            usedRoutes = new long[2 * oldTips.length];
+            tips = new int[2 * oldTips.length];
+            for (int i = 0; i < oldTips.length; i++) {
+                if (oldTips[i] == 0) continue;
+                int slot = slotOf(usedRoutes, tips, oldUsedRoutes[i], oldTips[i] - 1);
+                usedRoutes[slot] = oldUsedRoutes[i];
+                tips[slot] = oldTips[i];
+            }
+        }
+
+        /** Returns the slot holding the given state, or the empty slot where it belongs. */
+        private static int slotOf(long[] usedRoutes, int[] tips, long used, int tip) {
+            long hash = (used ^ ((long) tip << 58)) * 0x9E3779B97F4A7C15L;
+            int mask = tips.length - 1;
+            int slot = (int) (hash ^ (hash >>> 32)) & mask;
+            while (tips[slot] != 0 && (tips[slot] != tip + 1 || usedRoutes[slot] != used))
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ch.epfl.tchu.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the stations and routes of a map, built once so that the lookups done on every state
+ * update are constant time instead of scans of the route list: dense integer ids of the stations
+ * and routes (their position in the lists given), routes between two stations, partner of each
+ * double route and routes leaving each station. Immutable.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class MapIndex {
+    private final List<Station> stations;
+    private final List<Route> routes;
+    // Routes and stations don't redefine equals, so these tables map each instance to its id.
+    private final Map<Route, Integer> idOfRoute = new HashMap<>();
+    private final Map<Station, Integer> idOfStation = new HashMap<>();
+    // Routes between two stations, by station pair (see pairKey).
+    private final Map<Long, List<Route>> routesBetween = new HashMap<>();
+    // For each route id: id of the other route of the double route, -1 if the route is simple.
+    private final int[] doublePartner;
+    // For each station id: the routes leaving the station.
+    private final List<List<Route>> routesFrom;
+
+    /**
+     * Indexes the given stations and routes. Every station of the routes must be in the list of
+     * stations.
+     *
+     * @param stations the stations of the map.
+     * @param routes the routes of the map.
+     * @throws IllegalArgumentException if a station of a route is not in <code>stations</code>.
+     */
+    public MapIndex(List<Station> stations, List<Route> routes) {
+        this.stations = List.copyOf(stations);
+        this.routes = List.copyOf(routes);
+        for (int i = 0; i < this.stations.size(); i++)
+            idOfStation.putIfAbsent(this.stations.get(i), i);
+
+        List<List<Route>> routesFromStation = new ArrayList<>();
+        for (int i = 0; i < this.stations.size(); i++) routesFromStation.add(new ArrayList<>());
+        this.doublePartner = new int[this.routes.size()];
+        Arrays.fill(doublePartner, -1);
+        for (int i = 0; i < this.routes.size(); i++) {
+            Route route = this.routes.get(i);
+            idOfRoute.putIfAbsent(route, i);
+            routesFromStation.get(checkedIdOf(route.station1())).add(route);
+            routesFromStation.get(checkedIdOf(route.station2())).add(route);
+
+            List<Route> parallelRoutes =
+                    routesBetween.computeIfAbsent(pairKey(route), key -> new ArrayList<>());
+            if (!parallelRoutes.isEmpty()) {
+                int partner = idOfRoute.get(parallelRoutes.get(0));
+                doublePartner[i] = partner;
+                doublePartner[partner] = i;
+            }
+            parallelRoutes.add(route);
+        }
+        routesBetween.replaceAll((key, between) -> List.copyOf(between));
+        List<List<Route>> immutableRoutesFrom = new ArrayList<>();
+        for (List<Route> from : routesFromStation) immutableRoutesFrom.add(List.copyOf(from));
+        this.routesFrom = Collections.unmodifiableList(immutableRoutesFrom);
+    }
+
+    /**
+     * Returns the index of the map of Switzerland, {@link ChMap}. Built the first time it is asked.
+     *
+     * @return the index of ChMap.
+     */
+    public static MapIndex ch() {
+        return ChMapIndex.INDEX;
+    }
+
+    // Holder: ChMap is only indexed when first needed, once its routes are built.
+    private static final class ChMapIndex {
+        private static final MapIndex INDEX = new MapIndex(ChMap.stations(), ChMap.routes());
+    }
+
+    private int checkedIdOf(Station station) {
+        Integer id = idOfStation.get(station);
+        if (id == null) throw new IllegalArgumentException("Unknown station: " + station.name());
+        return id;
+    }
+
+    // Stations are identified by their id, as everywhere else in the game; the pair is unordered.
+    private static long pairKey(Station station1, Station station2) {
+        int min = Math.min(station1.id(), station2.id());
+        int max = Math.max(station1.id(), station2.id());
+        return ((long) min << Integer.SIZE) | max;
+    }
+
+    private static long pairKey(Route route) {
+        return pairKey(route.station1(), route.station2());
+    }
+
+    /**
+     * Returns the indexed routes, in the order of their ids.
+     *
+     * @return the routes of the map.
+     */
+    public List<Route> routes() {
+        return routes;
+    }
+
+    /**
+     * Returns the indexed stations, in the order of their ids.
+     *
+     * @return the stations of the map.
+     */
+    public List<Station> stations() {
+        return stations;
+    }
+
+    /**
+     * Returns the id of the given route, i.e. its position in {@link #routes()}.
+     *
+     * @param route the route.
+     * @return the id of the route, -1 if it is not part of the map.
+     */
+    public int idOf(Route route) {
+        return idOfRoute.getOrDefault(route, -1);
+    }
+
+    /**
+     * Returns the id of the given station, i.e. its position in {@link #stations()}.
+     *
+     * @param station the station.
+     * @return the id of the station, -1 if it is not part of the map.
+     */
+    public int idOf(Station station) {
+        return idOfStation.getOrDefault(station, -1);
+    }
+
+    /**
+     * Returns the route with the given id.
+     *
+     * @param id the id of the route.
+     * @return the route with the given id.
+     * @throws IndexOutOfBoundsException if there is no route with that id.
+     */
+    public Route route(int id) {
+        return routes.get(id);
+    }
+
+    /**
+     * Returns the routes linking the two given stations, in either direction.
+     *
+     * @param station1 one of the stations.
+     * @param station2 the other station.
+     * @return the routes between the two stations, empty if there is none.
+     */
+    public List<Route> routesBetween(Station station1, Station station2) {
+        return routesBetween.getOrDefault(pairKey(station1, station2), List.of());
+    }
+
+    /**
+     * Returns the other route of the double route the given route is part of.
+     *
+     * @param route the route.
+     * @return the other route linking the same stations, null if the route is simple or not part
+     *     of the map.
+     */
+    public Route doublePartnerOf(Route route) {
+        int id = idOf(route);
+        return id == -1 || doublePartner[id] == -1 ? null : routes.get(doublePartner[id]);
+    }
+
+    /**
+     * Returns true if another route of the map links the same stations as the given route.
+     *
+     * @param route the route.
+     * @return whether the route is part of a double route.
+     */
+    public boolean isPartOfDouble(Route route) {
+        int id = idOf(route);
+        if (id != -1) return doublePartner[id] != -1;
+        // A route built outside of the map can still double one of its routes.
+        return !routesBetween(route.station1(), route.station2()).isEmpty();
+    }
+
+    /**
+     * Returns the routes leaving the given station.
+     *
+     * @param station the station.
+     * @return the routes one of whose stations is <code>station</code>, empty if it is not part
+     *     of the map.
+     */
+    public List<Route> routesFrom(Station station) {
+        int id = idOf(station);
+        return id == -1 ? List.of() : routesFrom.get(id);
+    }
+}
@@ -0,0 +1,178 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.SortedBag;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of the games being played by a server. Each game is a separate {@link Game}
+ * instance run on the given executor, so any number of matches can be hosted by the same JVM.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class MatchRegistry {
+    private final ExecutorService executor;
+    private final Map<Integer, Future<?>> runningMatches = new ConcurrentHashMap<>();
+    private final AtomicInteger nextMatchId = new AtomicInteger();
+    private final Runnable onMatchOver;
+    private final GameMetrics metrics;
+
+    /**
+     * Constructs a registry whose matches are run by the given executor.
+     *
+     * @param executor the executor running the games. Can't be null.
+     * @throws NullPointerException if executor is null.
+     */
+    public MatchRegistry(ExecutorService executor) {
+        this(executor, () -> {});
+    }
+
+    /**
+     * Constructs a registry whose matches are run by the given executor, and that calls
+     * <code>onMatchOver</code> each time a match ends (normally, with an error or cancelled), once
+     * the thread running it is done with it.
+     *
+     * @param executor the executor running the games. Can't be null.
+     * @param onMatchOver called once at the end of each match. Can't be null.
+     * @throws NullPointerException if executor or onMatchOver is null.
+     */
+    public MatchRegistry(ExecutorService executor, Runnable onMatchOver) {
+        this(executor, onMatchOver, GameMetrics.NONE);
+    }
+
+    /**
+     * Constructs a registry whose matches are run by the given executor, and that calls
+     * <code>onMatchOver</code> each time a match ends. The measures of every match are given to
+     * the same metrics, which must thus be thread-safe.
+     *
+     * @param executor the executor running the games. Can't be null.
+     * @param onMatchOver called once at the end of each match. Can't be null.
+     * @param metrics the metrics of the matches. Can't be null.
+     * @throws NullPointerException if executor, onMatchOver or metrics is null.
+     */
+    public MatchRegistry(ExecutorService executor, Runnable onMatchOver, GameMetrics metrics) {
+        this.executor = Objects.requireNonNull(executor);
+        this.onMatchOver = Objects.requireNonNull(onMatchOver);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Starts a new game between the two <code>players</code>. Does not block.
+     *
+     * @param players the two players in the game
+     * @param playerNames name of the two players
+     * @param tickets bag of tickets
+     * @param rng random element. Must not be shared with another match.
+     * @return the future of the match, completed when the game ends.
+     * @throws IllegalArgumentException if there are not exactly two players and two names
+     * @throws RejectedExecutionException if the executor does not accept the match
+     */
+    public Future<?> start(
+            Map<PlayerId, Player> players,
+            Map<PlayerId, String> playerNames,
+            SortedBag<Ticket> tickets,
+            Random rng) {
+        return start(players, playerNames, tickets, rng, failure -> {});
+    }
+
+    /**
+     * Starts a new game between the two <code>players</code>, and calls <code>onOver</code> once
+     * it ends, before <code>onMatchOver</code>. Does not block.
+     *
+     * @param players the two players in the game
+     * @param playerNames name of the two players
+     * @param tickets bag of tickets
+     * @param rng random element. Must not be shared with another match.
+     * @param onOver called once at the end of the match, with the exception it ended with (a
+     *     {@link CancellationException} if it was cancelled), or null if it ended normally. Can't
+     *     be null.
+     * @return the future of the match, completed when the game ends.
+     * @throws IllegalArgumentException if there are not exactly two players and two names
+     * @throws NullPointerException if onOver is null
+     * @throws RejectedExecutionException if the executor does not accept the match
+     */
+    public Future<?> start(
+            Map<PlayerId, Player> players,
+            Map<PlayerId, String> playerNames,
+            SortedBag<Ticket> tickets,
+            Random rng,
+            Consumer<Throwable> onOver) {
+        Objects.requireNonNull(onOver);
+        int matchId = nextMatchId.getAndIncrement();
+        Game game = new Game(players, playerNames, tickets, rng);
+        game.setMetrics(metrics);
+        FutureTask<Void> match =
+                new FutureTask<>(game, null) {
+                    @Override
+                    public void run() {
+                        try {
+                            super.run();
+                            onOver.accept(failure());
+                        } finally {
+                            // The match is forgotten once its thread is done with the game,
+                            // whatever the outcome: a cancelled match may still be blocked on a
+                            // player until then. A match cancelled before it starts ends here too.
+                            runningMatches.remove(matchId);
+                            onMatchOver.run();
+                        }
+                    }
+
+                    // Called once the match is done, and thus never blocks.
+                    private Throwable failure() {
+                        try {
+                            get();
+                            return null;
+                        } catch (ExecutionException e) {
+                            return e.getCause();
+                        } catch (CancellationException | InterruptedException e) {
+                            return e;
+                        }
+                    }
+                };
+        runningMatches.put(matchId, match);
+        try {
+            executor.execute(match);
+        } catch (RejectedExecutionException e) {
+            runningMatches.remove(matchId);
+            throw e;
+        }
+        return match;
+    }
+
+    /**
+     * Returns the number of matches started and not yet over, a cancelled match being counted
+     * until the thread running it is done with it.
+     *
+     * @return the number of running matches.
+     */
+    public int runningMatchesCount() {
+        return runningMatches.size();
+    }
+
+    /**
+     * Interrupts every running match and stops accepting new ones.
+     *
+     * @param timeout maximum time to wait for the matches to stop.
+     * @param unit unit of <code>timeout</code>.
+     * @return true if every match has stopped before the timeout.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        runningMatches.values().forEach(match -> match.cancel(true));
+        return executor.awaitTermination(timeout, unit);
+    }
+}
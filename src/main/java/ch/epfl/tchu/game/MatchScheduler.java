@@ -0,0 +1,206 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Schedules matches with a bounded number of games played at the same time. Every {@link Player}
+ * method blocks the thread running the match (network reads, GUI queues...), so each match is run
+ * on its own thread; when the runtime supports virtual threads, they are used so that idle players
+ * do not hold a platform thread.
+ *
+ * <p>When the cap is reached, {@link #submit} blocks until a match ends (back-pressure) and {@link
+ * #trySubmit} refuses the match.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class MatchScheduler {
+    private final int maxConcurrentMatches;
+    private final Semaphore availableSlots;
+    private final MatchRegistry registry;
+
+    /**
+     * Constructs a scheduler running at most <code>maxConcurrentMatches</code> matches at the same
+     * time, on threads given by {@link #defaultThreadFactory()}.
+     *
+     * @param maxConcurrentMatches maximum number of matches played at the same time.
+     * @throws IllegalArgumentException if maxConcurrentMatches is not strictly positive.
+     */
+    public MatchScheduler(int maxConcurrentMatches) {
+        this(maxConcurrentMatches, defaultThreadFactory());
+    }
+
+    /**
+     * Constructs a scheduler running at most <code>maxConcurrentMatches</code> matches at the same
+     * time, each match on a new thread made by the given factory.
+     *
+     * @param maxConcurrentMatches maximum number of matches played at the same time.
+     * @param threadFactory factory of the threads running the matches. Can't be null.
+     * @throws IllegalArgumentException if maxConcurrentMatches is not strictly positive.
+     * @throws NullPointerException if threadFactory is null.
+     */
+    public MatchScheduler(int maxConcurrentMatches, ThreadFactory threadFactory) {
+        Preconditions.checkArgument(maxConcurrentMatches > 0);
+        this.maxConcurrentMatches = maxConcurrentMatches;
+        this.availableSlots = new Semaphore(maxConcurrentMatches);
+        // The pool itself is unbounded: the semaphore is the only cap on the number of matches.
+        ExecutorService executor =
+                Executors.newCachedThreadPool(Objects.requireNonNull(threadFactory));
+        this.registry = new MatchRegistry(executor, availableSlots::release);
+    }
+
+    /**
+     * Returns a factory of virtual threads if the runtime supports them (Java 21+), otherwise a
+     * factory of daemon platform threads.
+     *
+     * @return the default factory of match threads.
+     */
+    public static ThreadFactory defaultThreadFactory() {
+        try {
+            // Looked up reflectively: the project still compiles against Java 11.
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder =
+                    builderClass
+                            .getMethod("name", String.class, long.class)
+                            .invoke(builder, "tchu-match-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return runnable -> {
+                Thread thread = new Thread(runnable, "tchu-match");
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    /**
+     * Starts a new match, waiting for a free slot if the maximum number of matches is reached.
+     *
+     * @param players the two players in the game
+     * @param playerNames name of the two players
+     * @param tickets bag of tickets
+     * @param rng random element. Must not be shared with another match.
+     * @return the future of the match, completed when the game ends.
+     * @throws InterruptedException if interrupted while waiting for a free slot.
+     * @throws IllegalArgumentException if there are not exactly two players and two names
+     * @throws RejectedExecutionException if the scheduler has been shut down
+     */
+    public Future<?> submit(
+            Map<PlayerId, Player> players,
+            Map<PlayerId, String> playerNames,
+            SortedBag<Ticket> tickets,
+            Random rng)
+            throws InterruptedException {
+        return submit(players, playerNames, tickets, rng, failure -> {});
+    }
+
+    /**
+     * Starts a new match, waiting for a free slot if the maximum number of matches is reached,
+     * and calls <code>onOver</code> once it ends, before its slot is freed (see {@link
+     * MatchRegistry#start(Map, Map, SortedBag, Random, Consumer)}).
+     *
+     * @param players the two players in the game
+     * @param playerNames name of the two players
+     * @param tickets bag of tickets
+     * @param rng random element. Must not be shared with another match.
+     * @param onOver called once at the end of the match, with the exception it ended with, or
+     *     null if it ended normally. Can't be null.
+     * @return the future of the match, completed when the game ends.
+     * @throws InterruptedException if interrupted while waiting for a free slot.
+     * @throws IllegalArgumentException if there are not exactly two players and two names
+     * @throws NullPointerException if onOver is null
+     * @throws RejectedExecutionException if the scheduler has been shut down
+     */
+    public Future<?> submit(
+            Map<PlayerId, Player> players,
+            Map<PlayerId, String> playerNames,
+            SortedBag<Ticket> tickets,
+            Random rng,
+            Consumer<Throwable> onOver)
+            throws InterruptedException {
+        Objects.requireNonNull(onOver);
+        availableSlots.acquire();
+        return startInAcquiredSlot(players, playerNames, tickets, rng, onOver);
+    }
+
+    /**
+     * Starts a new match only if a slot is free. Never blocks.
+     *
+     * @param players the two players in the game
+     * @param playerNames name of the two players
+     * @param tickets bag of tickets
+     * @param rng random element. Must not be shared with another match.
+     * @return the future of the match, or an empty optional if too many matches are running.
+     * @throws IllegalArgumentException if there are not exactly two players and two names
+     * @throws RejectedExecutionException if the scheduler has been shut down
+     */
+    public Optional<Future<?>> trySubmit(
+            Map<PlayerId, Player> players,
+            Map<PlayerId, String> playerNames,
+            SortedBag<Ticket> tickets,
+            Random rng) {
+        if (!availableSlots.tryAcquire()) return Optional.empty();
+        return Optional.of(startInAcquiredSlot(players, playerNames, tickets, rng, failure -> {}));
+    }
+
+    private Future<?> startInAcquiredSlot(
+            Map<PlayerId, Player> players,
+            Map<PlayerId, String> playerNames,
+            SortedBag<Ticket> tickets,
+            Random rng,
+            Consumer<Throwable> onOver) {
+        try {
+            // The slot is given back by the registry when the match ends.
+            return registry.start(players, playerNames, tickets, rng, onOver);
+        } catch (RuntimeException e) {
+            // The match never started, so the registry will not give the slot back.
+            availableSlots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the maximum number of matches played at the same time.
+     *
+     * @return the maximum number of matches played at the same time.
+     */
+    public int maxConcurrentMatches() {
+        return maxConcurrentMatches;
+    }
+
+    /**
+     * Returns the number of matches currently played.
+     *
+     * @return the number of running matches.
+     */
+    public int runningMatchesCount() {
+        return registry.runningMatchesCount();
+    }
+
+    /**
+     * Interrupts every running match and stops accepting new ones.
+     *
+     * @param timeout maximum time to wait for the matches to stop.
+     * @param unit unit of <code>timeout</code>.
+     * @return true if every match has stopped before the timeout.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        return registry.shutdown(timeout, unit);
+    }
+}
@@ -79,9 +79,9 @@ public interface Player {
 
     /**
      * Called when the player has decided (attempted to) take over a route - to know which route it
-     * is.
+     * is. A player giving up the claim returns null, and then passes.
      *
-     * @return the route the player has tried to take over
+     * @return the route the player has tried to take over, or null
      */
     Route claimedRoute();
 
@@ -13,9 +13,12 @@ import java.util.stream.Collectors;
  * @author Luca Mouchel (324748)
  */
 public final class PlayerState extends PublicPlayerState {
+    // Bag of each card alone, by ordinal, so that adding a card only copies the counts once.
+    private static final List<SortedBag<Card>> SINGLE_CARDS =
+            Card.ALL.stream().map(SortedBag::of).collect(Collectors.toUnmodifiableList());
+
     private final SortedBag<Ticket> tickets;
     private final SortedBag<Card> cards;
-    private final List<Route> routes;
 
     /**
      * Constructs the state of a player having tickets, cards and routes.
@@ -25,8 +28,24 @@ public final class PlayerState extends PublicPlayerState {
      * @param routes  The routes of the player.
      */
     public PlayerState(SortedBag<Ticket> tickets, SortedBag<Card> cards, List<Route> routes) {
-        super(tickets.size(), cards.size(), routes);
-        this.routes = List.copyOf(routes);
+        this(tickets, cards, RouteList.of(routes), TrailIndex.of(routes));
+    }
+
+    /**
+     * Constructs the state of a player having tickets, cards and routes, whose trails are already
+     * indexed. The routes are shared, not copied.
+     *
+     * @param tickets    The tickets of the player.
+     * @param cards      The cards of the player.
+     * @param routes     The routes of the player.
+     * @param trailIndex The index of the trails made of <code>routes</code>.
+     */
+    private PlayerState(
+            SortedBag<Ticket> tickets,
+            SortedBag<Card> cards,
+            RouteList routes,
+            TrailIndex trailIndex) {
+        super(tickets.size(), cards.size(), routes, trailIndex);
         this.tickets = tickets;
         this.cards = cards;
     }
@@ -69,7 +88,11 @@ public final class PlayerState extends PublicPlayerState {
      * @return The new state.
      */
     public PlayerState withAddedTickets(SortedBag<Ticket> newTickets) {
-        return new PlayerState(this.tickets().union(newTickets), this.cards(), this.routes());
+        return new PlayerState(
+                this.tickets().union(newTickets),
+                this.cards(),
+                this.routeList(),
+                this.trailIndex());
     }
 
     /**
@@ -79,7 +102,11 @@ public final class PlayerState extends PublicPlayerState {
      * @return The state.
      */
     public PlayerState withAddedCard(Card card) {
-        return new PlayerState(this.tickets(), this.cards.union(SortedBag.of(card)), this.routes());
+        return new PlayerState(
+                this.tickets(),
+                this.cards.union(SINGLE_CARDS.get(card.ordinal())),
+                this.routeList(),
+                this.trailIndex());
     }
 
     /**
@@ -90,8 +117,7 @@ public final class PlayerState extends PublicPlayerState {
      * @return Whether the player can take the route.
      */
     public boolean canClaimRoute(Route route) {
-        return this.carCount() >= route.length()
-                && route.possibleClaimCards().stream().anyMatch(this.cards::contains);
+        return this.carCount() >= route.length() && route.canBeClaimedWith(this.cards);
     }
 
     /**
@@ -149,26 +175,27 @@ public final class PlayerState extends PublicPlayerState {
                                 .collect(Collectors.toList()));
         if (cardsCanBePlayedAdditionally.size() < additionalCardsCount)
             return Collections.emptyList();
-        List<SortedBag<Card>> subsetsOfCardsPossiblyPlayed =
-                new ArrayList<>(cardsCanBePlayedAdditionally.subsetsOfSize(additionalCardsCount));
-        subsetsOfCardsPossiblyPlayed.sort(
-                Comparator.comparingInt(cs -> cs.countOf(Card.LOCOMOTIVE)));
-        return subsetsOfCardsPossiblyPlayed;
+        // The locomotive being the last card, the subsets are generated in the right order.
+        return cardsCanBePlayedAdditionally.subsetsOfSize(
+                additionalCardsCount, Comparator.comparingInt(cs -> cs.countOf(Card.LOCOMOTIVE)));
     }
 
     /**
      * Returns an identical state to the receiver, except that the player has additionally seized
      * the given route with the given cards. It means that the player sees the route ADDED and the
-     * claimCard SUBTRACTED from them.
+     * claimCard SUBTRACTED from them. The routes already claimed are shared with the receiver, and
+     * only the trails going through the route are indexed again.
      *
      * @param route      The route the player is taking.
      * @param claimCards The cards used to seize the route.
      * @return The new PlayerState.
      */
     public PlayerState withClaimedRoute(Route route, SortedBag<Card> claimCards) {
-        List<Route> newRoutes = new ArrayList<>(this.routes());
-        newRoutes.add(route);
-        return new PlayerState(this.tickets(), this.cards.difference(claimCards), newRoutes);
+        return new PlayerState(
+                this.tickets(),
+                this.cards.difference(claimCards),
+                this.routeList().with(route),
+                this.trailIndex().withRoute(route));
     }
 
     /**
@@ -177,16 +204,11 @@ public final class PlayerState extends PublicPlayerState {
      * @return The number of points.
      */
     public int ticketPoints() {
-        // Compute the maxID so StationPartition has a sufficient size.
-        int maxID =
-                this.routes.stream()
-                        .mapToInt(route -> Math.max(route.station1().id(), route.station2().id()))
-                        .max()
-                        .orElse(0);
-        StationPartition.Builder builder = new StationPartition.Builder(maxID + 1);
-        this.routes.forEach((route) -> builder.connect(route.station1(), route.station2()));
-        StationPartition playerPartition = builder.build();
-        return this.tickets.stream().mapToInt(ticket -> ticket.points(playerPartition)).sum();
+        // The index of the trails already knows the connected stations: no partition is built.
+        int points = 0;
+        for (Map.Entry<Ticket, Integer> ticket : this.tickets.toMap().entrySet())
+            points += ticket.getValue() * ticket.getKey().points(this.trailIndex());
+        return points;
     }
 
     /**
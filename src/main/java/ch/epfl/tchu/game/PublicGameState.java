@@ -2,7 +2,7 @@ package ch.epfl.tchu.game;
 
 import ch.epfl.tchu.Preconditions;
 
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -18,7 +18,8 @@ public class PublicGameState {
     private final int ticketsCount;
     private final PublicCardState cardState;
     private final PlayerId currentPlayerId;
-    private final Map<PlayerId, PublicPlayerState> playerState;
+    // Indexed by the ordinal of the players, never modified.
+    private final PublicPlayerState[] playerStates;
     private final PlayerId lastPlayer;
 
     /**
@@ -39,18 +40,48 @@ public class PublicGameState {
             PlayerId currentPlayerId,
             Map<PlayerId, PublicPlayerState> playerState,
             PlayerId lastPlayer) {
+        this(toArray(playerState), ticketsCount, cardState, currentPlayerId, lastPlayer);
+    }
+
+    /**
+     * Constructs the public part of the state of the game, from the player states indexed by the
+     * ordinal of the players. The array is not copied: it must not be modified afterwards. Its
+     * parameters are ordered differently from the public constructor, so that a null map passed to
+     * the latter is never taken for an array.
+     *
+     * @param playerStates Public player states, indexed by {@link PlayerId#ordinal()}.
+     * @param ticketsCount Number of tickets.
+     * @param cardState The PUBLIC state of the cards. Must be non null.
+     * @param currentPlayerId The ID of the current player. Must be non null.
+     * @param lastPlayer The last player who has played.
+     * @throws IllegalArgumentException if the deckSize or ticketsCount is strictly negative.
+     * @throws NullPointerException if either cardState or currentPlayerId is null.
+     */
+    PublicGameState(
+            PublicPlayerState[] playerStates,
+            int ticketsCount,
+            PublicCardState cardState,
+            PlayerId currentPlayerId,
+            PlayerId lastPlayer) {
         Preconditions.checkArgument(cardState.deckSize() >= 0);
-        Preconditions.checkArgument(playerState.keySet().size() == 2);
         Preconditions.checkArgument(ticketsCount >= 0);
 
         this.ticketsCount = ticketsCount;
         this.cardState = Objects.requireNonNull(cardState);
         this.currentPlayerId = Objects.requireNonNull(currentPlayerId);
-        this.playerState = Map.copyOf(Objects.requireNonNull(playerState));
+        this.playerStates = playerStates;
         // Last player can be null.
         this.lastPlayer = lastPlayer;
     }
 
+    private static PublicPlayerState[] toArray(Map<PlayerId, PublicPlayerState> playerState) {
+        Preconditions.checkArgument(playerState.keySet().size() == PlayerId.COUNT);
+        PublicPlayerState[] playerStates = new PublicPlayerState[PlayerId.COUNT];
+        for (PlayerId playerId : PlayerId.ALL)
+            playerStates[playerId.ordinal()] = Objects.requireNonNull(playerState.get(playerId));
+        return playerStates;
+    }
+
     /**
      * Return the size of the ticket deck.
      *
@@ -104,7 +135,7 @@ public class PublicGameState {
      * @return The public part of the player state of the given identity.
      */
     public PublicPlayerState playerState(PlayerId playerId) {
-        return this.playerState.get(playerId);
+        return this.playerStates[playerId.ordinal()];
     }
 
     /**
@@ -113,7 +144,7 @@ public class PublicGameState {
      * @return The public part of the current player's state,
      */
     public PublicPlayerState currentPlayerState() {
-        return this.playerState.get(this.currentPlayerId);
+        return this.playerStates[this.currentPlayerId.ordinal()];
     }
 
     /**
@@ -122,9 +153,8 @@ public class PublicGameState {
      * @return The roads.
      */
     public List<Route> claimedRoutes() {
-        return this.playerState.values().stream()
-                .map(PublicPlayerState::routes) // Collect the routes of the publicPlayerStates.
-                .flatMap(Collection::stream) // flat the bigboi
+        return Arrays.stream(this.playerStates)
+                .flatMap(state -> state.routes().stream()) // Collect the routes of the players.
                 .distinct() // remove duplicates
                 .collect(Collectors.toList());
     }
@@ -13,10 +13,9 @@ import java.util.List;
  */
 public class PublicPlayerState {
     private final int ticketCount;
-    private final List<Route> routes;
+    private final RouteList routes;
     private final int cardCount;
-    private final int claimPoints;
-    private final int carCount;
+    private final TrailIndex trailIndex;
 
     /**
      * Constructs the public state of a player who has the given number of tickets and cards, and
@@ -28,14 +27,27 @@ public class PublicPlayerState {
      * @throws IllegalArgumentException If ticketCount or cardCount is negative?
      */
     public PublicPlayerState(int ticketCount, int cardCount, List<Route> routes) {
+        this(ticketCount, cardCount, RouteList.of(routes), TrailIndex.of(routes));
+    }
+
+    /**
+     * Constructs the public state of a player who has the given number of tickets and cards, and
+     * has seized the given routes, whose trails are already indexed. The routes are not copied.
+     *
+     * @param ticketCount Amount of tickets the player has.
+     * @param cardCount Amount of Cards the player has.
+     * @param routes Routes the player has.
+     * @param trailIndex Index of the trails made of <code>routes</code>.
+     * @throws IllegalArgumentException If ticketCount or cardCount is negative?
+     */
+    PublicPlayerState(
+            int ticketCount, int cardCount, RouteList routes, TrailIndex trailIndex) {
         // Check if the ticketCount and cardCount are both >= 0.
         Preconditions.checkArgument(Math.min(ticketCount, cardCount) >= 0);
         this.cardCount = cardCount;
         this.ticketCount = ticketCount;
-        this.routes = List.copyOf(routes);
-        this.claimPoints = this.routes.stream().mapToInt(Route::claimPoints).sum();
-        this.carCount =
-                GameConstants.INITIAL_CAR_COUNT - this.routes.stream().mapToInt(Route::length).sum();
+        this.routes = routes;
+        this.trailIndex = trailIndex;
     }
 
     /**
@@ -71,7 +83,7 @@ public class PublicPlayerState {
      * @return the number of construction points the player obtained.
      */
     public int claimPoints() {
-        return this.claimPoints;
+        return this.routes.claimPoints();
     }
 
     /**
@@ -80,6 +92,35 @@ public class PublicPlayerState {
      * @return the number of wagons the player has.
      */
     public int carCount() {
-        return this.carCount;
+        return GameConstants.INITIAL_CAR_COUNT - this.routes.totalLength();
+    }
+
+    /**
+     * Returns the length of the longest trail the player can make with their routes, i.e. the one
+     * that would get the longest trail bonus if the game ended now. The trails are indexed as the
+     * routes are claimed, so this is cheap to call on every update.
+     *
+     * @return the length of the longest trail of the player.
+     */
+    public int longestTrailLength() {
+        return this.trailIndex.longestTrailLength();
+    }
+
+    /**
+     * Returns the routes which the player has, as the list routes can be added to.
+     *
+     * @return the routes which the player has.
+     */
+    RouteList routeList() {
+        return this.routes;
+    }
+
+    /**
+     * Returns the index of the trails made of the routes of the player.
+     *
+     * @return the index of the trails of the player.
+     */
+    TrailIndex trailIndex() {
+        return this.trailIndex;
     }
 }
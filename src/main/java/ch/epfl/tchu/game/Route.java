@@ -21,6 +21,10 @@ public final class Route {
     private final int length;
     private final Level level;
     private final Color color;
+    // Computed once: the routes are built when the map is loaded, then only shared.
+    private final List<SortedBag<Card>> possibleClaimCards;
+    // Car cards that can be used to claim the route, in addition to locomotives for tunnels.
+    private final List<Card> claimCars;
 
     /** Enum defines the type of route. */
     public enum Level {
@@ -52,6 +56,8 @@ public final class Route {
         Preconditions.checkArgument(!(station1.equals(station2)));
         Preconditions.checkArgument(
                 length >= GameConstants.MIN_ROUTE_LENGTH && length <= GameConstants.MAX_ROUTE_LENGTH);
+        this.claimCars = color == null ? Card.CARS : List.of(Card.of(color));
+        this.possibleClaimCards = List.copyOf(computePossibleClaimCards());
     }
 
     /**
@@ -130,11 +136,34 @@ public final class Route {
     }
 
     /**
-     * Returns List of all the possible cards one can use to take over a route.
+     * Returns List of all the possible cards one can use to take over a route. The list is
+     * computed once, when the route is built, and can not be modified.
      *
      * @return possible claim cards (playable cards)
      */
     public List<SortedBag<Card>> possibleClaimCards() {
+        return this.possibleClaimCards;
+    }
+
+    /**
+     * Returns true if the given cards contain at least one of the {@link #possibleClaimCards()}
+     * of the route. Only compares the number of cards of each usable color with the length of the
+     * route, without going through the claim cards.
+     *
+     * @param cards the cards of the player.
+     * @return whether the route can be claimed with some of the given cards.
+     */
+    public boolean canBeClaimedWith(SortedBag<Card> cards) {
+        // Locomotives complete the cards of a single color, on tunnels only.
+        int locomotives = level == Level.UNDERGROUND ? cards.countOf(Card.LOCOMOTIVE) : 0;
+        if (locomotives >= length) return true;
+        for (Card car : claimCars) {
+            if (cards.countOf(car) + locomotives >= length) return true;
+        }
+        return false;
+    }
+
+    private List<SortedBag<Card>> computePossibleClaimCards() {
         List<Card> cardList = new ArrayList<>();
         List<SortedBag<Card>> cardBag = new ArrayList<>();
 
@@ -237,8 +266,6 @@ public final class Route {
 	 * @return whether the route is part of a double route.
 	 */
 	public boolean isPartOfDouble() {
-		return ChMap.routes().stream()
-			.anyMatch(routeTemp ->
-				!routeTemp.equals(this) && routeTemp.stations().equals(this.stations()));
+		return MapIndex.ch().isPartOfDouble(this);
 	}
 }
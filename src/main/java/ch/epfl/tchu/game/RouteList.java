@@ -0,0 +1,135 @@
+package ch.epfl.tchu.game;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable list of the routes of a player, to which a route can be added without copying the
+ * routes already there. The lists obtained by adding routes one after the other share the same
+ * array: each one only sees its first <code>size</code> elements, and a route is written in place
+ * if no other list has already used the next slot; otherwise the array is copied. The total
+ * length and the claim points of the routes are kept along with them, as is the set of the routes
+ * of {@link ChMap}, a bit per route id (see {@link MapIndex#ch()}), so that whether a route is in
+ * the list is known in constant time.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+final class RouteList extends AbstractList<Route> implements RandomAccess {
+    private static final RouteList EMPTY = new RouteList(new Buffer(0), 0, 0, 0, new long[0]);
+
+    private final Buffer buffer;
+    private final int size;
+    private final int totalLength;
+    private final int claimPoints;
+    // Bit i of word i / 64 set iff the route of id i of ChMap is in the list; the words beyond the
+    // array are 0. Shared by the lists with the same routes of ChMap.
+    private final long[] mapRouteIds;
+
+    private RouteList(
+            Buffer buffer, int size, int totalLength, int claimPoints, long[] mapRouteIds) {
+        this.buffer = buffer;
+        this.size = size;
+        this.totalLength = totalLength;
+        this.claimPoints = claimPoints;
+        this.mapRouteIds = mapRouteIds;
+    }
+
+    /**
+     * Returns a list of the given routes, which are copied.
+     *
+     * @param routes the routes.
+     * @return the list of the routes.
+     * @throws NullPointerException if one of the routes is null.
+     */
+    static RouteList of(List<Route> routes) {
+        if (routes instanceof RouteList) return (RouteList) routes;
+        RouteList list = EMPTY;
+        for (Route route : routes) list = list.with(route);
+        return list;
+    }
+
+    /**
+     * Returns a list identical to this one, with the given route added at the end.
+     *
+     * @param route the route to add.
+     * @return the new list.
+     * @throws NullPointerException if the route is null.
+     */
+    RouteList with(Route route) {
+        Objects.requireNonNull(route);
+        Buffer target = buffer;
+        // Only the first list to grow from a given size can write in the shared array.
+        if (size == target.routes.length || !target.used.compareAndSet(size, size + 1)) {
+            target = new Buffer(Math.max(2 * size, 8));
+            System.arraycopy(buffer.routes, 0, target.routes, 0, size);
+            target.used.set(size + 1);
+        }
+        target.routes[size] = route;
+        return new RouteList(
+                target,
+                size + 1,
+                totalLength + route.length(),
+                claimPoints + route.claimPoints(),
+                withId(mapRouteIds, MapIndex.ch().idOf(route)));
+    }
+
+    // The given set with the given route id added, the same set if the route is not of ChMap.
+    private static long[] withId(long[] ids, int id) {
+        if (id == -1) return ids;
+        long[] newIds = Arrays.copyOf(ids, Math.max(ids.length, (id >>> 6) + 1));
+        newIds[id >>> 6] |= 1L << id;
+        return newIds;
+    }
+
+    /**
+     * Returns the sum of the lengths of the routes.
+     *
+     * @return the total length of the routes.
+     */
+    int totalLength() {
+        return totalLength;
+    }
+
+    /**
+     * Returns the sum of the claim points of the routes.
+     *
+     * @return the claim points of the routes.
+     */
+    int claimPoints() {
+        return claimPoints;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Route)) return false;
+        int id = MapIndex.ch().idOf((Route) o);
+        if (id == -1) return super.contains(o);
+        return (id >>> 6) < mapRouteIds.length && (mapRouteIds[id >>> 6] & (1L << id)) != 0;
+    }
+
+    @Override
+    public Route get(int index) {
+        Objects.checkIndex(index, size);
+        return buffer.routes[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Array shared by the lists, with the number of its slots already written. */
+    private static final class Buffer {
+        private final Route[] routes;
+        private final AtomicInteger used = new AtomicInteger();
+
+        private Buffer(int capacity) {
+            this.routes = new Route[capacity];
+        }
+    }
+}
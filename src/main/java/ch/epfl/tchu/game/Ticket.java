@@ -78,9 +78,12 @@ public final class Ticket implements Comparable<Ticket> {
         // Because Trip.points already returns negative values depending on the connectivity, we can
         // simply take the maximum of all the points of all the trips.
 
-        // On the technical side: This maps the trips List to a List of int corresponding to the
-        // points of each trip. Then it computes the max.
-        return trips.stream().mapToInt(trip -> trip.points(connectivity)).max().orElse(0);
+        // On the technical side: the trips are looped over without a stream, as the points of
+        // the tickets are computed for every state a player evaluates.
+        if (trips.isEmpty()) return 0;
+        int max = Integer.MIN_VALUE;
+        for (Trip trip : trips) max = Math.max(max, trip.points(connectivity));
+        return max;
     }
 
     /**
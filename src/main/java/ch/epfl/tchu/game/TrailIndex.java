@@ -0,0 +1,133 @@
+package ch.epfl.tchu.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index of the trails a player can make with their routes, updated route by route as they are
+ * claimed. The routes are grouped by connected component (a trail never leaves its component),
+ * and the length of the longest trail of a component is computed the first time it is asked, then
+ * kept. Adding a route only creates a new component for the stations it connects: the other ones,
+ * and their longest trail, are shared with the previous index. As the components are those of
+ * the stations connected by the routes, the index also tells which stations are connected.
+ * Immutable.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+final class TrailIndex implements StationConnectivity {
+    private static final TrailIndex EMPTY = new TrailIndex(new Component[0], List.of());
+
+    // Component of each station, indexed by its id as everywhere else in the game; null if no
+    // route reaches the station, or if its id is beyond the array.
+    private final Component[] componentOfStation;
+    private final List<Component> components;
+    // Computed when first asked, -1 until then. Computing it twice gives the same value.
+    private int longestTrailLength = -1;
+
+    private TrailIndex(Component[] componentOfStation, List<Component> components) {
+        this.componentOfStation = componentOfStation;
+        this.components = components;
+    }
+
+    /**
+     * Returns the index of the given routes.
+     *
+     * @param routes the routes of the player.
+     * @return the index of the routes.
+     */
+    static TrailIndex of(List<Route> routes) {
+        TrailIndex index = EMPTY;
+        for (Route route : routes) index = index.withRoute(route);
+        return index;
+    }
+
+    /**
+     * Returns an index identical to this one, with the given route added. Only the component of
+     * the route is new.
+     *
+     * @param route the route to add.
+     * @return the new index.
+     */
+    TrailIndex withRoute(Route route) {
+        Component component1 = componentOf(route.station1());
+        Component component2 = componentOf(route.station2());
+
+        List<Route> mergedRoutes = new ArrayList<>();
+        List<Component> newComponents = new ArrayList<>(components);
+        if (component1 != null) {
+            mergedRoutes.addAll(component1.routes);
+            newComponents.remove(component1);
+        }
+        if (component2 != null && component2 != component1) {
+            mergedRoutes.addAll(component2.routes);
+            newComponents.remove(component2);
+        }
+        mergedRoutes.add(route);
+        Component merged = new Component(mergedRoutes);
+        newComponents.add(merged);
+
+        int maxId = Math.max(route.station1().id(), route.station2().id());
+        Component[] newComponentOfStation =
+                Arrays.copyOf(
+                        componentOfStation, Math.max(componentOfStation.length, maxId + 1));
+        for (Route mergedRoute : mergedRoutes) {
+            newComponentOfStation[mergedRoute.station1().id()] = merged;
+            newComponentOfStation[mergedRoute.station2().id()] = merged;
+        }
+        return new TrailIndex(newComponentOfStation, List.copyOf(newComponents));
+    }
+
+    private Component componentOf(Station station) {
+        int id = station.id();
+        return id < componentOfStation.length ? componentOfStation[id] : null;
+    }
+
+    /**
+     * Returns true if the two stations are the same, or are connected by the indexed routes, as
+     * would a {@link StationPartition} built from them.
+     *
+     * @param s1 First Station.
+     * @param s2 Second station.
+     * @return Whether the two stations are connected.
+     */
+    @Override
+    public boolean connected(Station s1, Station s2) {
+        if (s1.id() == s2.id()) return true;
+        Component component = componentOf(s1);
+        return component != null && component == componentOf(s2);
+    }
+
+    /**
+     * Returns the length of the longest trail of the indexed routes. Only the components not yet
+     * asked are searched, so this is constant time once a route's component has been computed.
+     *
+     * @return the length of the longest trail, 0 if there is no route.
+     */
+    int longestTrailLength() {
+        if (longestTrailLength == -1) {
+            int longest = 0;
+            for (Component component : components)
+                longest = Math.max(longest, component.longestTrailLength());
+            longestTrailLength = longest;
+        }
+        return longestTrailLength;
+    }
+
+    /** Connected set of routes. Compared by identity. */
+    private static final class Component {
+        private final List<Route> routes;
+        private int longestTrailLength = -1;
+
+        private Component(List<Route> routes) {
+            this.routes = List.copyOf(routes);
+        }
+
+        private int longestTrailLength() {
+            if (longestTrailLength == -1)
+                longestTrailLength = new LongestTrailFinder(routes).longestLength();
+            return longestTrailLength;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import ch.epfl.tchu.game.PlayerId;
 import ch.epfl.tchu.net.NetConstants;
 import ch.epfl.tchu.net.ProfileImagesUtils;
 import ch.epfl.tchu.net.RemotePlayerClient;
+import ch.epfl.tchu.net.WireFormat;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
@@ -13,6 +14,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.Socket;
 import java.net.URL;
+import java.time.Duration;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Objects;
@@ -66,7 +68,12 @@ public final class ClientMain extends Application {
                                 new RemotePlayerClient(
                                                 new GraphicalPlayerAdapter(),
                                                 finalIpTarget,
-                                                finalPort)
+                                                finalPort,
+                                                WireFormat.ALL,
+                                                true,
+                                                Duration.ofMillis(
+                                                        NetConstants.Network
+                                                                .SERVER_TIMEOUT_MILLIS))
                                         .run())
                 .start();
     }
@@ -105,26 +105,33 @@ public final class ObservableGameState {
                     .set((int) playerState.cards().stream().filter(c -> c.equals(card)).count());
         }
 
-        Set<List<Station>> stationsOfDoubleClaimedRoutes = newGameState.claimedRoutes().stream()
-                .filter(Route::isPartOfDouble)
-                .map(Route::stations).collect(Collectors.toSet());
-        for (Route route : ChMap.routes()) {
+        MapIndex mapIndex = MapIndex.ch();
+        boolean[] claimed = new boolean[mapIndex.routes().size()];
+        for (Route route : newGameState.claimedRoutes()) {
+            int id = mapIndex.idOf(route);
+            if (id != -1) claimed[id] = true;
+        }
+        for (int id = 0; id < claimed.length; id++) {
+            Route route = mapIndex.route(id);
 
             // Setting the last property
             // We create 3 booleans which are conditions to be met in order to claim a route.
             boolean playerIsCurrentPlayer = newGameState.currentPlayerId().equals(correspondingPlayer);
+            Route doublePartner = mapIndex.doublePartnerOf(route);
             boolean routeIsNotClaimed =
-                    !newGameState.claimedRoutes().contains(route)
+                    !claimed[id]
 							// The player can't take a a part of a double route which one part has been claimed.
-                            && !stationsOfDoubleClaimedRoutes.contains(route.stations());
+                            && (doublePartner == null || !claimed[mapIndex.idOf(doublePartner)]);
             boolean canClaimRoute = playerState.canClaimRoute(route);
-			playerCanClaimRoute.get(ChMap.routes().indexOf(route)).set(playerIsCurrentPlayer && routeIsNotClaimed && canClaimRoute);
+			playerCanClaimRoute.get(id).set(playerIsCurrentPlayer && routeIsNotClaimed && canClaimRoute);
+		}
 
-            for (PlayerId playerId : PlayerId.ALL) {
-                if (newGameState.playerState(playerId).routes().contains(route))
-                    allRoutesOwners.get(route).set(playerId);
+        for (PlayerId playerId : PlayerId.ALL) {
+            for (Route route : newGameState.playerState(playerId).routes()) {
+                ObjectProperty<PlayerId> owner = allRoutesOwners.get(route);
+                if (owner != null) owner.set(playerId);
             }
-		}
+        }
 	}
 
     //Private methods to create lists or maps comprised of n elements of
@@ -275,7 +282,7 @@ public final class ObservableGameState {
      * @return true if the player can claim the route, else false
      */
     public ReadOnlyBooleanProperty playerCanClaimRoute(Route route) {
-        return playerCanClaimRoute.get(ChMap.routes().indexOf(route));
+        return playerCanClaimRoute.get(MapIndex.ch().idOf(route));
     }
 
 
@@ -8,6 +8,7 @@ import ch.epfl.tchu.game.PlayerId;
 import ch.epfl.tchu.net.NetConstants;
 import ch.epfl.tchu.net.ProfileImagesUtils;
 import ch.epfl.tchu.net.RemotePlayerProxy;
+import ch.epfl.tchu.net.WireFormat;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
@@ -19,6 +20,7 @@ import java.io.OutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.URL;
+import java.time.Duration;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
@@ -77,7 +79,15 @@ public final class ServerMain extends Application {
 
             // Handle image retrieving and send back
             players.put(PlayerId.PLAYER_1, new GraphicalPlayerAdapter());
-            players.put(PlayerId.PLAYER_2, new RemotePlayerProxy(serverSocket.accept()));
+            RemotePlayerProxy proxy =
+                    new RemotePlayerProxy(
+                            serverSocket.accept(),
+                            WireFormat.ALL,
+                            Duration.ofMillis(NetConstants.Network.FLUSH_DELAY_MILLIS),
+                            true);
+            proxy.startHeartbeats(
+                    Duration.ofMillis(NetConstants.Network.HEARTBEAT_INTERVAL_MILLIS));
+            players.put(PlayerId.PLAYER_2, proxy);
         }
 
         new Thread(
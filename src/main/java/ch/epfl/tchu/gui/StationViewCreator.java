@@ -1,6 +1,7 @@
 package ch.epfl.tchu.gui;
 
 import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.MapIndex;
 import ch.epfl.tchu.game.Station;
 import ch.epfl.tchu.game.Ticket;
 import javafx.scene.Group;
@@ -12,7 +13,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static ch.epfl.tchu.game.ChMap.stations;
 import static ch.epfl.tchu.gui.GuiConstants.*;
 
 /**
@@ -52,7 +52,7 @@ final class StationViewCreator {
             // we set the id as the name of the station but normalized (without any accents) as the
             // CSS
             // files don't read accents correctly.
-            circle.setId(ChMap.normalizedStationNames().get(stations().indexOf(station)));
+            circle.setId(ChMap.normalizedStationNames().get(MapIndex.ch().idOf(station)));
             stationsCircleList.add(circle);
             stationCircle.getChildren().add(circle);
             stationCircle.setOnMouseClicked(
@@ -73,9 +73,9 @@ final class StationViewCreator {
                     // The circle's id is the stations' name but without accents so we check the
                     // equality with the from station but normalized.
                     String fromStationName =
-                            ChMap.normalizedStationNames().get(stations().indexOf(from));
+                            ChMap.normalizedStationNames().get(MapIndex.ch().idOf(from));
                     String toStationName =
-                            ChMap.normalizedStationNames().get(stations().indexOf(to));
+                            ChMap.normalizedStationNames().get(MapIndex.ch().idOf(to));
                     List<Circle> itineraryList =
                             stationsCircleList.stream()
                                     .filter(
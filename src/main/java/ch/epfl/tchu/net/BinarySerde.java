@@ -0,0 +1,218 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Representation of a binary serde, the compact counterpart of {@link Serde}: values are written
+ * to and read from a {@link ByteBuffer}, integers as variable-length integers (7 bits per byte,
+ * the high bit telling whether another byte follows), and the elements of a list given to {@link
+ * #oneOf(List)} by their index.
+ *
+ * @param <T> type of the serde
+ * @author Luca Mouchel (324748)
+ * @author Hugues Devimeux (327282)
+ */
+public interface BinarySerde<T> {
+
+    /**
+     * Writes the given object at the position of the buffer, and advances it.
+     *
+     * @param buffer the buffer to write into
+     * @param object of type {@code T} to serialize
+     * @throws java.nio.BufferOverflowException if the buffer has not enough space remaining
+     */
+    void write(ByteBuffer buffer, T object);
+
+    /**
+     * Reads an object at the position of the buffer, and advances it.
+     *
+     * @param buffer the buffer to read from
+     * @return the deserialized object
+     * @throws java.nio.BufferUnderflowException if the buffer ends before the object
+     */
+    T read(ByteBuffer buffer);
+
+    /**
+     * Creates a simple binary serde given the writer and the reader.
+     *
+     * @param writer writes an object of type {@code T} into a buffer
+     * @param reader reads an object of type {@code T} from a buffer
+     * @param <T> type of the object to (de)serialize
+     * @return binary serde of type {@code T}
+     */
+    static <T> BinarySerde<T> of(BiConsumer<ByteBuffer, T> writer, Function<ByteBuffer, T> reader) {
+        Objects.requireNonNull(writer);
+        Objects.requireNonNull(reader);
+        return new BinarySerde<>() {
+            @Override
+            public void write(ByteBuffer buffer, T object) {
+                writer.accept(buffer, object);
+            }
+
+            @Override
+            public T read(ByteBuffer buffer) {
+                return reader.apply(buffer);
+            }
+        };
+    }
+
+    /**
+     * Given a list, returns the binary serde of its elements, each written as its index in the list
+     * plus one; null is written as 0.
+     *
+     * @param objList to (de)serialize its elements
+     * @param <T> type of the object to (de)serialize
+     * @return binary serde corresponding to a list
+     * @throws IllegalArgumentException if the list in argument is empty, or when writing an object
+     *     which is not in the list, or reading an index which is not in the list
+     */
+    static <T> BinarySerde<T> oneOf(List<T> objList) {
+        Preconditions.checkArgument(!objList.isEmpty());
+        List<T> objects = List.copyOf(objList);
+        // Index of the first occurrence of each object.
+        Map<T, Integer> indexOf = new HashMap<>();
+        for (int i = 0; i < objects.size(); i++) indexOf.putIfAbsent(objects.get(i), i);
+        return of(
+                (buffer, t) -> {
+                    if (t == null) {
+                        writeVarInt(buffer, 0);
+                        return;
+                    }
+                    Integer index = indexOf.get(t);
+                    Preconditions.checkArgument(index != null);
+                    writeVarInt(buffer, index + 1);
+                },
+                buffer -> {
+                    int index = readVarInt(buffer);
+                    if (index == 0) return null;
+                    Preconditions.checkArgument(index <= objects.size());
+                    return objects.get(index - 1);
+                });
+    }
+
+    /**
+     * Returns a binary serde capable of (de)serializing lists of values (de)serialized by {@code
+     * serde}: the size of the list, followed by its elements.
+     *
+     * @param serde to use to (de)serialize the elements
+     * @param <T> type of the object to (de)serialize
+     * @return a binary serde capable of (de)serializing lists of values
+     */
+    static <T> BinarySerde<List<T>> listOf(BinarySerde<T> serde) {
+        return of(
+                (buffer, list) -> {
+                    writeVarInt(buffer, list.size());
+                    for (T t : list) serde.write(buffer, t);
+                },
+                buffer -> {
+                    int size = readVarInt(buffer);
+                    // The size is only a hint: a corrupted one must not allocate a huge list.
+                    List<T> list = new ArrayList<>(Math.min(size, buffer.remaining()));
+                    for (int i = 0; i < size; i++) list.add(serde.read(buffer));
+                    return list;
+                });
+    }
+
+    /**
+     * Returns a binary serde capable of (de)serializing bags of values (de)serialized by {@code
+     * serde}: the number of distinct elements of the bag, followed by each of them and its
+     * multiplicity.
+     *
+     * @param serde to use to (de)serialize the elements
+     * @param <T> type of the object to (de)serialize
+     * @return a binary serde capable of (de)serializing bags of values
+     */
+    static <T extends Comparable<T>> BinarySerde<SortedBag<T>> bagOf(BinarySerde<T> serde) {
+        return of(
+                (buffer, bag) -> {
+                    Map<T, Integer> counts = bag.toMap();
+                    writeVarInt(buffer, counts.size());
+                    counts.forEach(
+                            (t, count) -> {
+                                serde.write(buffer, t);
+                                writeVarInt(buffer, count);
+                            });
+                },
+                buffer -> {
+                    int distinct = readVarInt(buffer);
+                    SortedBag.Builder<T> builder = new SortedBag.Builder<>();
+                    for (int i = 0; i < distinct; i++) {
+                        T t = serde.read(buffer);
+                        builder.add(readVarInt(buffer), t);
+                    }
+                    return builder.build();
+                });
+    }
+
+    /**
+     * Writes the given non-negative integer as a variable-length integer (see {@link
+     * #writeUnsignedVarInt(ByteBuffer, int)}).
+     *
+     * @param buffer the buffer to write into
+     * @param value the integer to write
+     * @throws IllegalArgumentException if the integer is negative
+     */
+    static void writeVarInt(ByteBuffer buffer, int value) {
+        Preconditions.checkArgument(value >= 0);
+        writeUnsignedVarInt(buffer, value);
+    }
+
+    /**
+     * Reads a non-negative integer written by {@link #writeVarInt(ByteBuffer, int)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the integer read
+     * @throws IllegalArgumentException if the bytes read are not a valid non-negative integer
+     */
+    static int readVarInt(ByteBuffer buffer) {
+        int value = readUnsignedVarInt(buffer);
+        Preconditions.checkArgument(value >= 0);
+        return value;
+    }
+
+    /**
+     * Writes the 32 bits of the given integer, seen as unsigned, as a variable-length integer: 7
+     * bits per byte, least significant first, the high bit of each byte but the last being set.
+     *
+     * @param buffer the buffer to write into
+     * @param bits the bits to write
+     */
+    static void writeUnsignedVarInt(ByteBuffer buffer, int bits) {
+        while ((bits & ~0x7F) != 0) {
+            buffer.put((byte) ((bits & 0x7F) | 0x80));
+            bits >>>= 7;
+        }
+        buffer.put((byte) bits);
+    }
+
+    /**
+     * Reads the 32 bits written by {@link #writeUnsignedVarInt(ByteBuffer, int)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the bits read
+     * @throws IllegalArgumentException if the bytes read are not a valid variable-length integer
+     */
+    static int readUnsignedVarInt(ByteBuffer buffer) {
+        int bits = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte b = buffer.get();
+            bits |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                // The fifth byte can only hold the 4 remaining bits.
+                Preconditions.checkArgument(shift < 28 || (b & 0x70) == 0);
+                return bits;
+            }
+        }
+        throw new IllegalArgumentException("Variable-length integer too long.");
+    }
+}
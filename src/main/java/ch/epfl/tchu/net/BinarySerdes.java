@@ -0,0 +1,151 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+
+/**
+ * Class with all the binary serdes, the counterparts of the ones of {@link Serdes}, with the same
+ * names. Cards, routes, tickets and player ids are written as their index in {@link Card#ALL},
+ * {@link ChMap#routes()}, {@link ChMap#tickets()} and {@link PlayerId#ALL}, so that most of them
+ * take a single byte.
+ *
+ * @author Luca Mouchel (324748)
+ * @author Hugues Devimeux (327282)
+ */
+public final class BinarySerdes {
+
+    /** Not instantiable. */
+    private BinarySerdes() {}
+
+    /**
+     * Binary serde for integers. Zigzag encoded, so that small negative integers (such as the
+     * slot of the deck, -1) also take a single byte.
+     */
+    public static final BinarySerde<Integer> intSerde =
+            BinarySerde.of(
+                    (buffer, i) -> BinarySerde.writeUnsignedVarInt(buffer, (i << 1) ^ (i >> 31)),
+                    buffer -> {
+                        int zigzag = BinarySerde.readUnsignedVarInt(buffer);
+                        return (zigzag >>> 1) ^ -(zigzag & 1);
+                    });
+    /** Binary serde for Strings: their length in bytes, followed by their UTF-8 bytes. */
+    public static final BinarySerde<String> stringSerde =
+            BinarySerde.of(
+                    (buffer, str) -> {
+                        byte[] bytes = str.getBytes(NetConstants.Serdes.ENCODING);
+                        BinarySerde.writeVarInt(buffer, bytes.length);
+                        buffer.put(bytes);
+                    },
+                    buffer -> {
+                        int length = BinarySerde.readVarInt(buffer);
+                        Preconditions.checkArgument(length <= buffer.remaining());
+                        byte[] bytes = new byte[length];
+                        buffer.get(bytes);
+                        return new String(bytes, NetConstants.Serdes.ENCODING);
+                    });
+    /** Binary serde for PlayerId */
+    public static final BinarySerde<PlayerId> playerIdSerde = BinarySerde.oneOf(PlayerId.ALL);
+    /** Binary serde for TurnKind */
+    public static final BinarySerde<Player.TurnKind> turnKindSerde =
+            BinarySerde.oneOf(Player.TurnKind.ALL);
+    /** Binary serde for Cards */
+    public static final BinarySerde<Card> cardSerde = BinarySerde.oneOf(Card.ALL);
+    /** Binary serde for routes */
+    public static final BinarySerde<Route> routeSerde = BinarySerde.oneOf(ChMap.routes());
+    /** Binary serde for Tickets */
+    public static final BinarySerde<Ticket> ticketSerde = BinarySerde.oneOf(ChMap.tickets());
+    /** Binary serde for Lists of strings */
+    public static final BinarySerde<List<String>> stringListSerde =
+            BinarySerde.listOf(stringSerde);
+    /** Binary serde for Lists of cards */
+    public static final BinarySerde<List<Card>> cardListSerde = BinarySerde.listOf(cardSerde);
+    /** Binary serde for Lists of routes */
+    public static final BinarySerde<List<Route>> routeListSerde = BinarySerde.listOf(routeSerde);
+    /** Binary serde for sorted bags of cards */
+    public static final BinarySerde<SortedBag<Card>> cardBagSerde = BinarySerde.bagOf(cardSerde);
+    /** Binary serde for sorted bags of tickets */
+    public static final BinarySerde<SortedBag<Ticket>> ticketBagSerde =
+            BinarySerde.bagOf(ticketSerde);
+    /** Binary serde for Lists of SortedBags of cards */
+    public static final BinarySerde<List<SortedBag<Card>>> listOfCardBagSerde =
+            BinarySerde.listOf(cardBagSerde);
+    /** Binary serde for public card states: face up cards, deck size and discards size. */
+    public static final BinarySerde<PublicCardState> publicCardStateSerde =
+            BinarySerde.of(
+                    (buffer, publicCardState) -> {
+                        cardListSerde.write(buffer, publicCardState.faceUpCards());
+                        BinarySerde.writeVarInt(buffer, publicCardState.deckSize());
+                        BinarySerde.writeVarInt(buffer, publicCardState.discardsSize());
+                    },
+                    buffer ->
+                            new PublicCardState(
+                                    cardListSerde.read(buffer),
+                                    BinarySerde.readVarInt(buffer),
+                                    BinarySerde.readVarInt(buffer)));
+    /** Binary serde for public player states: ticket count, card count and routes. */
+    public static final BinarySerde<PublicPlayerState> publicPlayerStateSerde =
+            BinarySerde.of(
+                    (buffer, publicPlayerState) -> {
+                        BinarySerde.writeVarInt(buffer, publicPlayerState.ticketCount());
+                        BinarySerde.writeVarInt(buffer, publicPlayerState.cardCount());
+                        routeListSerde.write(buffer, publicPlayerState.routes());
+                    },
+                    buffer ->
+                            new PublicPlayerState(
+                                    BinarySerde.readVarInt(buffer),
+                                    BinarySerde.readVarInt(buffer),
+                                    routeListSerde.read(buffer)));
+    /** Binary serde for PlayerStates: tickets, cards and routes. */
+    public static final BinarySerde<PlayerState> playerStateSerde =
+            BinarySerde.of(
+                    (buffer, playerState) -> {
+                        ticketBagSerde.write(buffer, playerState.tickets());
+                        cardBagSerde.write(buffer, playerState.cards());
+                        routeListSerde.write(buffer, playerState.routes());
+                    },
+                    buffer ->
+                            new PlayerState(
+                                    ticketBagSerde.read(buffer),
+                                    cardBagSerde.read(buffer),
+                                    routeListSerde.read(buffer)));
+    /**
+     * Binary serde for public game states: tickets count, card state, current player, the states
+     * of PLAYER_1 and PLAYER_2, and the last player (null while unknown).
+     */
+    public static final BinarySerde<PublicGameState> publicGameStateSerde =
+            BinarySerde.of(
+                    (buffer, publicGameState) -> {
+                        BinarySerde.writeVarInt(buffer, publicGameState.ticketsCount());
+                        publicCardStateSerde.write(buffer, publicGameState.cardState());
+                        playerIdSerde.write(buffer, publicGameState.currentPlayerId());
+                        publicPlayerStateSerde.write(
+                                buffer, publicGameState.playerState(PLAYER_1));
+                        publicPlayerStateSerde.write(
+                                buffer, publicGameState.playerState(PLAYER_2));
+                        playerIdSerde.write(buffer, publicGameState.lastPlayer());
+                    },
+                    BinarySerdes::readPublicGameState);
+
+    private static PublicGameState readPublicGameState(ByteBuffer buffer) {
+        // The arguments of the constructor are read in the order they are written.
+        int ticketsCount = BinarySerde.readVarInt(buffer);
+        PublicCardState cardState = publicCardStateSerde.read(buffer);
+        PlayerId currentPlayerId = playerIdSerde.read(buffer);
+        PublicPlayerState firstPS = publicPlayerStateSerde.read(buffer);
+        PublicPlayerState secondPS = publicPlayerStateSerde.read(buffer);
+        return new PublicGameState(
+                ticketsCount,
+                cardState,
+                currentPlayerId,
+                Map.of(PLAYER_1, firstPS, PLAYER_2, secondPS),
+                playerIdSerde.read(buffer));
+    }
+}
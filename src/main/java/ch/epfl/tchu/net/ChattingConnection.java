@@ -23,6 +23,7 @@ public abstract class ChattingConnection {
 
     public void send(String data) throws IOException {
         chatThread.out.writeObject(stringSerde.serialize(data));
+        chatThread.out.flush();
     }
 
     protected abstract boolean isServer();
@@ -43,8 +44,24 @@ public abstract class ChattingConnection {
                                 ? new ServerSocket(NetConstants.Network.CHAT_DEFAULT_PORT)
                                 : null;
                 Socket socket = isServer() ? server.accept() : new Socket(getIP(), getPort());
-                ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
-                ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+                boolean compressed =
+                        isServer()
+                                ? MessageChannel.acceptCompression(socket, true)
+                                : MessageChannel.offerCompression(socket);
+                ObjectOutputStream out =
+                        new ObjectOutputStream(
+                                compressed
+                                        ? CompressedStreams.compressing(
+                                                socket.getOutputStream(),
+                                                NetConstants.Network.COMPRESSION_THRESHOLD)
+                                        : socket.getOutputStream());
+                // The header of the stream must reach the other end before it is read.
+                out.flush();
+                ObjectInputStream in =
+                        new ObjectInputStream(
+                                compressed
+                                        ? CompressedStreams.decompressing(socket.getInputStream())
+                                        : socket.getInputStream());
                 this.socket = socket;
                 this.out = out;
                 while (true) {
@@ -0,0 +1,261 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Streams compressing what is written between two flushes into a chunk, and decompressing these
+ * chunks. The bytes of a chunk are compressed only if there are at least as many as the threshold
+ * given, with a deflate context shared by all the chunks of the stream, so that what repeats from
+ * one chunk to the next (states, infos...) takes only a few bytes.
+ *
+ * <p>Each chunk is written as its length, shifted left by one bit, whose lowest bit tells whether
+ * it is compressed, as a variable-length integer, followed by its bytes.
+ *
+ * @author Luca Mouchel (324748)
+ * @author Hugues Devimeux (327282)
+ */
+final class CompressedStreams {
+
+    private CompressedStreams() {}
+
+    /**
+     * Returns a stream writing to the given one the bytes written to it, in a chunk at each flush.
+     *
+     * @param out the stream the chunks are written to.
+     * @param threshold the minimal number of bytes of a chunk for it to be compressed.
+     * @return the compressing stream.
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    static OutputStream compressing(OutputStream out, int threshold) {
+        Preconditions.checkArgument(threshold >= 0);
+        return new CompressingOutputStream(new BufferedOutputStream(out), threshold);
+    }
+
+    /**
+     * Returns a stream reading the chunks of the given one, written by a stream of {@link
+     * #compressing(OutputStream, int)}.
+     *
+     * @param in the stream the chunks are read from.
+     * @return the decompressing stream.
+     */
+    static InputStream decompressing(InputStream in) {
+        return new DecompressingInputStream(new BufferedInputStream(in));
+    }
+
+    private static final class CompressingOutputStream extends FilterOutputStream {
+        private final int threshold;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        private byte[] compressed = new byte[NetConstants.Network.INITIAL_BINARY_BUFFER_SIZE];
+        private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + 1);
+
+        private CompressingOutputStream(OutputStream out, int threshold) {
+            super(out);
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            chunk.write(b);
+            if (chunk.size() >= NetConstants.Network.MAX_MESSAGE_SIZE) writeChunk();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int written =
+                        Math.min(len, NetConstants.Network.MAX_MESSAGE_SIZE - chunk.size());
+                chunk.write(b, off, written);
+                if (chunk.size() >= NetConstants.Network.MAX_MESSAGE_SIZE) writeChunk();
+                off += written;
+                len -= written;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (chunk.size() > 0) writeChunk();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void writeChunk() throws IOException {
+            byte[] bytes = chunk.toByteArray();
+            chunk.reset();
+            if (bytes.length < threshold) {
+                writeHeader(bytes.length, false);
+                out.write(bytes);
+                return;
+            }
+
+            deflater.setInput(bytes);
+            int length = 0;
+            while (true) {
+                // The chunk can then be decompressed whole, without the following ones.
+                length +=
+                        deflater.deflate(
+                                compressed,
+                                length,
+                                compressed.length - length,
+                                Deflater.SYNC_FLUSH);
+                if (length < compressed.length) break;
+                byte[] larger = new byte[2 * compressed.length];
+                System.arraycopy(compressed, 0, larger, 0, length);
+                compressed = larger;
+            }
+            writeHeader(length, true);
+            out.write(compressed, 0, length);
+        }
+
+        private void writeHeader(int length, boolean isCompressed) throws IOException {
+            header.clear();
+            BinarySerde.writeVarInt(header, length << 1 | (isCompressed ? 1 : 0));
+            out.write(header.array(), 0, header.position());
+        }
+    }
+
+    private static final class DecompressingInputStream extends FilterInputStream {
+        private final Inflater inflater = new Inflater();
+        private byte[] compressed = new byte[NetConstants.Network.INITIAL_BINARY_BUFFER_SIZE];
+        // Bytes of the chunk read, from position to limit.
+        private byte[] decompressed = new byte[NetConstants.Network.INITIAL_BINARY_BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        private DecompressingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && !readChunk()) return -1;
+            return decompressed[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (position == limit && !readChunk()) return -1;
+            int read = Math.min(len, limit - position);
+            System.arraycopy(decompressed, position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0 || position == limit && !readChunk()) return 0;
+            int skipped = (int) Math.min(n, limit - position);
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                inflater.end();
+            }
+        }
+
+        /** Reads the next non-empty chunk; returns false if the end of the stream is reached. */
+        private boolean readChunk() throws IOException {
+            do {
+                int header = readHeader();
+                if (header == -1) return false;
+                int length = header >>> 1;
+                if ((header & 1) == 0) {
+                    if (decompressed.length < length) decompressed = new byte[length];
+                    readFully(decompressed, length);
+                    limit = length;
+                } else {
+                    if (compressed.length < length) compressed = new byte[length];
+                    readFully(compressed, length);
+                    limit = inflate(length);
+                }
+                position = 0;
+            } while (limit == 0);
+            return true;
+        }
+
+        private int inflate(int length) throws IOException {
+            inflater.setInput(compressed, 0, length);
+            int inflated = 0;
+            try {
+                while (true) {
+                    if (inflated > NetConstants.Network.MAX_MESSAGE_SIZE)
+                        throw new ZipException("Decompressed chunk too large.");
+                    if (inflated == decompressed.length) {
+                        byte[] larger = new byte[2 * decompressed.length];
+                        System.arraycopy(decompressed, 0, larger, 0, inflated);
+                        decompressed = larger;
+                    }
+                    int read =
+                            inflater.inflate(
+                                    decompressed, inflated, decompressed.length - inflated);
+                    inflated += read;
+                    // Some output may still be pending once the whole input is consumed.
+                    if (read > 0) continue;
+                    if (inflater.needsInput()) return inflated;
+                    if (inflater.finished() || inflater.needsDictionary())
+                        throw new ZipException("Unexpected end of the compressed stream.");
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+        }
+
+        // The length of the chunk and whether it is compressed, -1 at the end of the stream.
+        private int readHeader() throws IOException {
+            int header = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.read();
+                if (b == -1) {
+                    if (shift == 0) return -1;
+                    throw new EOFException("Truncated chunk header.");
+                }
+                if (shift >= Integer.SIZE) throw new ZipException("Invalid chunk header.");
+                header |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) break;
+            }
+            // A compressed chunk may be slightly longer than its bytes, if they don't compress.
+            if (header < 0 || header >>> 1 > 2 * NetConstants.Network.MAX_MESSAGE_SIZE)
+                throw new ZipException("Invalid chunk length.");
+            return header;
+        }
+
+        private void readFully(byte[] b, int length) throws IOException {
+            for (int read = 0; read < length; ) {
+                int n = in.read(b, read, length - read);
+                if (n == -1) throw new EOFException("Truncated chunk.");
+                read += n;
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package ch.epfl.tchu.net;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures of the messages exchanged through a connection, for each {@link MessageId}: the
+ * messages and bytes sent and received, the time spent serializing and deserializing them, the
+ * time spent waiting on the other end, and the writes to the network. Thread-safe.
+ *
+ * <p>On the side of the server (see {@link RemotePlayerProxy#metrics()}), a message is sent and
+ * its response, if any, received; on the side of the client (see {@link
+ * RemotePlayerClient#metrics()}), the message is received and its response sent. The sizes are
+ * those of the messages framed, before the compression of the stream, if any.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class ConnectionMetrics {
+    private static final MessageId[] MESSAGE_IDS = MessageId.values();
+
+    // Measures of each message, at the index of its ordinal times FIELDS_COUNT plus the field.
+    private static final int SENT = 0;
+    private static final int SENT_BYTES = 1;
+    private static final int RECEIVED = 2;
+    private static final int RECEIVED_BYTES = 3;
+    private static final int SERIALIZATION_NANOS = 4;
+    private static final int DESERIALIZATION_NANOS = 5;
+    private static final int WAIT_NANOS = 6;
+    private static final int FLUSHES = 7;
+    private static final int FIELDS_COUNT = 8;
+
+    private final AtomicLongArray measures =
+            new AtomicLongArray(MESSAGE_IDS.length * FIELDS_COUNT);
+    private volatile boolean closed;
+
+    ConnectionMetrics() {}
+
+    /** Counts a message or response sent, serialized in the given time. */
+    void sent(MessageId messageId, int bytes, long serializationNanos) {
+        add(messageId, SENT, 1);
+        add(messageId, SENT_BYTES, bytes);
+        add(messageId, SERIALIZATION_NANOS, serializationNanos);
+    }
+
+    /** Counts a message or response received after waiting for it the given time. */
+    void received(MessageId messageId, int bytes, long waitNanos) {
+        add(messageId, RECEIVED, 1);
+        add(messageId, RECEIVED_BYTES, bytes);
+        add(messageId, WAIT_NANOS, waitNanos);
+    }
+
+    /** Counts the time taken to read an argument of a message or response received. */
+    void deserialized(MessageId messageId, long nanos) {
+        add(messageId, DESERIALIZATION_NANOS, nanos);
+    }
+
+    /** Counts a write to the network, following the sending of the given message. */
+    void flushed(MessageId messageId) {
+        add(messageId, FLUSHES, 1);
+    }
+
+    /** Marks the connection as closed. */
+    void close() {
+        closed = true;
+    }
+
+    private void add(MessageId messageId, int field, long value) {
+        measures.addAndGet(messageId.ordinal() * FIELDS_COUNT + field, Math.max(0, value));
+    }
+
+    /**
+     * Returns whether the connection is known to be closed, in which case the measures no longer
+     * change.
+     *
+     * @return whether the connection is closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns the measures taken so far. The messages exchanged meanwhile may be partly counted.
+     *
+     * @return the snapshot of the measures.
+     */
+    public Snapshot snapshot() {
+        long[] values = new long[measures.length()];
+        for (int i = 0; i < values.length; i++) values[i] = measures.get(i);
+        return new Snapshot(values);
+    }
+
+    /** Measures of a connection at a given moment (see {@link #snapshot()}). Immutable. */
+    public static final class Snapshot {
+        private final long[] values;
+
+        private Snapshot(long[] values) {
+            this.values = values;
+        }
+
+        private long get(MessageId messageId, int field) {
+            return values[messageId.ordinal() * FIELDS_COUNT + field];
+        }
+
+        /**
+         * Returns the number of times the given message, or its response on the side of the
+         * client, has been sent.
+         *
+         * @param messageId the message.
+         * @return the number of messages sent.
+         */
+        public long sentCount(MessageId messageId) {
+            return get(messageId, SENT);
+        }
+
+        /**
+         * Returns the total number of messages, or responses on the side of the client, sent.
+         *
+         * @return the number of messages sent.
+         */
+        public long sentCount() {
+            long sent = 0;
+            for (MessageId messageId : MESSAGE_IDS) sent += sentCount(messageId);
+            return sent;
+        }
+
+        /**
+         * Returns the number of bytes sent for the given message.
+         *
+         * @param messageId the message.
+         * @return the bytes sent.
+         */
+        public long sentBytes(MessageId messageId) {
+            return get(messageId, SENT_BYTES);
+        }
+
+        /**
+         * Returns the number of times the given message, or its response on the side of the
+         * server, has been received.
+         *
+         * @param messageId the message.
+         * @return the number of messages received.
+         */
+        public long receivedCount(MessageId messageId) {
+            return get(messageId, RECEIVED);
+        }
+
+        /**
+         * Returns the number of bytes received for the given message.
+         *
+         * @param messageId the message.
+         * @return the bytes received.
+         */
+        public long receivedBytes(MessageId messageId) {
+            return get(messageId, RECEIVED_BYTES);
+        }
+
+        /**
+         * Returns the time spent writing the arguments of the given message, or of its response
+         * on the side of the client, and framing it.
+         *
+         * @param messageId the message.
+         * @return the serialization time, in nanoseconds.
+         */
+        public long serializationNanos(MessageId messageId) {
+            return get(messageId, SERIALIZATION_NANOS);
+        }
+
+        /**
+         * Returns the time spent reading the arguments of the given message, or of its response
+         * on the side of the server.
+         *
+         * @param messageId the message.
+         * @return the deserialization time, in nanoseconds.
+         */
+        public long deserializationNanos(MessageId messageId) {
+            return get(messageId, DESERIALIZATION_NANOS);
+        }
+
+        /**
+         * Returns the time spent waiting on the other end for the given message: on the side of
+         * the server, from the write of the message to the reception of its response, and on the
+         * side of the client, blocked until the message is received.
+         *
+         * @param messageId the message.
+         * @return the time waiting on the other end, in nanoseconds.
+         */
+        public long waitNanos(MessageId messageId) {
+            return get(messageId, WAIT_NANOS);
+        }
+
+        /**
+         * Returns the number of writes to the network following the sending of the given
+         * message, the last one of the batch written.
+         *
+         * @param messageId the message.
+         * @return the number of flushes.
+         */
+        public long flushesCount(MessageId messageId) {
+            return get(messageId, FLUSHES);
+        }
+
+        /**
+         * Returns the total number of writes to the network.
+         *
+         * @return the number of flushes.
+         */
+        public long flushesCount() {
+            long flushes = 0;
+            for (MessageId messageId : MESSAGE_IDS) flushes += flushesCount(messageId);
+            return flushes;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder snapshot = new StringBuilder();
+            snapshot.append(String.format(
+                    "%-24s %8s %10s %8s %10s %10s %10s %12s %8s",
+                    "message",
+                    "sent",
+                    "sent (B)",
+                    "received",
+                    "recv (B)",
+                    "ser (us)",
+                    "deser (us)",
+                    "wait (ms)",
+                    "flushes"));
+            for (MessageId messageId : MESSAGE_IDS) {
+                if (sentCount(messageId) == 0 && receivedCount(messageId) == 0) continue;
+                snapshot.append(String.format(
+                        "%n%-24s %8d %10d %8d %10d %10.1f %10.1f %12.3f %8d",
+                        messageId,
+                        sentCount(messageId),
+                        sentBytes(messageId),
+                        receivedCount(messageId),
+                        receivedBytes(messageId),
+                        serializationNanos(messageId) / 1e3,
+                        deserializationNanos(messageId) / 1e3,
+                        waitNanos(messageId) / 1e6,
+                        flushesCount(messageId)));
+            }
+            return snapshot.toString();
+        }
+    }
+}
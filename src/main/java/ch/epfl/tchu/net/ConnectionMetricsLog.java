@@ -0,0 +1,137 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Log file to which the measures of the connections registered are appended periodically (see
+ * {@link ConnectionMetrics#snapshot()}), so that the slow clients of a server can be found
+ * afterwards. A connection closed is dumped a last time, then forgotten.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class ConnectionMetricsLog implements Closeable {
+    private final BufferedWriter writer;
+    private final ScheduledExecutorService dumper;
+    // The connections registered, by name, guarded by this log.
+    private final Map<String, ConnectionMetrics> connections = new LinkedHashMap<>();
+    private int registered;
+    private boolean closed;
+
+    /**
+     * Constructs a log appending the measures of the connections registered to the given file,
+     * created if needed, every interval until it is closed.
+     *
+     * @param file the log file.
+     * @param interval the delay between two dumps of the measures.
+     * @throws IllegalArgumentException if interval is not positive.
+     * @throws UncheckedIOException if the file can't be opened.
+     */
+    public ConnectionMetricsLog(Path file, Duration interval) {
+        Preconditions.checkArgument(!interval.isNegative() && !interval.isZero());
+        try {
+            this.writer =
+                    Files.newBufferedWriter(
+                            file,
+                            StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.dumper =
+                Executors.newSingleThreadScheduledExecutor(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "tchu-metrics-log");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        long nanos = interval.toNanos();
+        // A failure to write stops the dumps, as it would most likely happen again.
+        dumper.scheduleWithFixedDelay(this::dump, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registers the measures of a connection, dumped from now on under the given name, made
+     * unique if another connection is registered with it.
+     *
+     * @param name the name of the connection, for example the address of the peer.
+     * @param metrics the measures of the connection.
+     * @throws NullPointerException if name or metrics is null.
+     */
+    public synchronized void register(String name, ConnectionMetrics metrics) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(metrics);
+        registered++;
+        connections.put(connections.containsKey(name) ? name + "#" + registered : name, metrics);
+    }
+
+    /**
+     * Appends the measures of the connections registered to the file right away.
+     *
+     * @throws IllegalStateException if the log is closed.
+     * @throws UncheckedIOException if the file can't be written.
+     */
+    public synchronized void dump() {
+        if (closed) throw new IllegalStateException("The log is closed.");
+        try {
+            writer.write(String.format(
+                    "%s: %d connection(s)%n", Instant.now(), connections.size()));
+            Iterator<Map.Entry<String, ConnectionMetrics>> entries =
+                    connections.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, ConnectionMetrics> entry = entries.next();
+                ConnectionMetrics metrics = entry.getValue();
+                // Read before the snapshot, so that the last measures of a connection are dumped.
+                boolean connectionClosed = metrics.isClosed();
+                writer.write(String.format(
+                        "%s%s%n%s%n",
+                        entry.getKey(),
+                        connectionClosed ? " (closed)" : "",
+                        metrics.snapshot()));
+                if (connectionClosed) entries.remove();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Dumps the measures a last time, and closes the file.
+     *
+     * @throws UncheckedIOException if the file can't be written or closed.
+     */
+    @Override
+    public void close() {
+        dumper.shutdownNow();
+        synchronized (this) {
+            if (closed) return;
+            try (writer) {
+                dump();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                closed = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+/**
+ * What is done when a remote player has not made a decision by its deadline (see {@link
+ * RemotePlayerProxy#setDecisionDeadline}): if this policy returns normally, the decision is made
+ * for the player, automatically; if it throws an exception, the decision fails with it, which ends
+ * the game, and the connection to the player is closed.
+ *
+ * @author Luca Mouchel (324748)
+ * @author Hugues Devimeux (327282)
+ */
+@FunctionalInterface
+public interface ExpiryPolicy {
+
+    /**
+     * Makes the expired decisions automatically: the player passes or draws from the deck. An
+     * expired claim of a route is dropped, whether its route or its cards have expired. A player
+     * letting {@link NetConstants.Network#MAX_CONSECUTIVE_EXPIRIES} decisions in a row expire
+     * forfeits (see {@link #automatic(int)}).
+     */
+    ExpiryPolicy AUTOMATIC = automatic(NetConstants.Network.MAX_CONSECUTIVE_EXPIRIES);
+
+    /** Makes the player forfeit the game at its first expired decision. */
+    ExpiryPolicy FORFEIT =
+            (player, request) -> {
+                throw new IllegalStateException("No response in time to " + request + ".");
+            };
+
+    /**
+     * Returns a policy making the expired decisions automatically (see {@link #AUTOMATIC}), until
+     * the player has let the given number of decisions in a row expire, at which point it
+     * forfeits. A player which has gone silent is thus disconnected eventually: until then, a
+     * thread keeps waiting for its late response if its connection can't be read asynchronously.
+     *
+     * @param maxConsecutiveExpiries the number of expired decisions in a row making the player
+     *     forfeit.
+     * @return the policy.
+     * @throws IllegalArgumentException if maxConsecutiveExpiries is not positive.
+     */
+    static ExpiryPolicy automatic(int maxConsecutiveExpiries) {
+        Preconditions.checkArgument(maxConsecutiveExpiries > 0);
+        return (player, request) -> {
+            if (player.consecutiveExpiriesCount() >= maxConsecutiveExpiries)
+                throw new IllegalStateException(
+                        "No response in time to " + maxConsecutiveExpiries + " decisions.");
+        };
+    }
+
+    /**
+     * Called when the given player has not answered the given message by its deadline, before its
+     * decision is made automatically.
+     *
+     * @param player the player whose decision has expired.
+     * @param request the message not answered in time.
+     * @throws RuntimeException to make the decision fail rather than make it automatically.
+     */
+    void onExpiry(RemotePlayerProxy player, MessageId request);
+}
@@ -17,6 +17,7 @@ import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.Socket;
 import java.net.URL;
+import java.time.Duration;
 import java.util.Objects;
 
 public class MainMenuClientController {
@@ -104,6 +105,15 @@ public class MainMenuClientController {
 
     private Thread clientThread(String ip, int port) {
         return new Thread(
-                () -> new RemotePlayerClient(new GraphicalPlayerAdapter(), ip, port).run());
+                () ->
+                        new RemotePlayerClient(
+                                        new GraphicalPlayerAdapter(),
+                                        ip,
+                                        port,
+                                        WireFormat.ALL,
+                                        true,
+                                        Duration.ofMillis(
+                                                NetConstants.Network.SERVER_TIMEOUT_MILLIS))
+                                .run());
     }
 }
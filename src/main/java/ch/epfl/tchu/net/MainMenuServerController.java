@@ -2,7 +2,7 @@ package ch.epfl.tchu.net;
 
 import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.game.ChMap;
-import ch.epfl.tchu.game.Game;
+import ch.epfl.tchu.game.MatchRegistry;
 import ch.epfl.tchu.game.Player;
 import ch.epfl.tchu.game.PlayerId;
 import ch.epfl.tchu.gui.GraphicalPlayerAdapter;
@@ -23,15 +23,19 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.*;
+import java.time.Duration;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Executors;
 
 public class MainMenuServerController {
     private static final String WAITING_FOR_CONNECTION = "En attente d'une connexion";
     private static final String CONNECTION_ESTABLISHED = "Un joueur est connecté!";
     public static boolean checkBoxSelected;
+    // Shared by every controller, so that a single server process can host several games.
+    private static final MatchRegistry matches = new MatchRegistry(Executors.newCachedThreadPool());
     private final ServerSocket serverSocket = new ServerSocket(NetConstants.Network.DEFAULT_PORT);
     Map<PlayerId, String> playersNames = new HashMap<>();
     Map<PlayerId, Player> players = new HashMap<>();
@@ -93,9 +97,17 @@ public class MainMenuServerController {
                             }
 
 
-                                players.put(
-                                        PlayerId.PLAYER_2,
-                                        new RemotePlayerProxy(serverSocket.accept()));
+                                RemotePlayerProxy proxy =
+                                        new RemotePlayerProxy(
+                                                serverSocket.accept(),
+                                                WireFormat.ALL,
+                                                Duration.ofMillis(
+                                                        NetConstants.Network.FLUSH_DELAY_MILLIS),
+                                                true);
+                                proxy.startHeartbeats(
+                                        Duration.ofMillis(
+                                                NetConstants.Network.HEARTBEAT_INTERVAL_MILLIS));
+                                players.put(PlayerId.PLAYER_2, proxy);
                                 play.setDisable(false);
                             } catch (IOException e) {
                                 e.printStackTrace();
@@ -110,7 +122,7 @@ public class MainMenuServerController {
         String[] names = configureNames();
         PlayerId.ALL.forEach(playerId -> playersNames.put(playerId, names[playerId.ordinal()]));
         scaleButton(play);
-        serverThread().start();
+        startMatch();
         play.setDisable(true);
     }
 
@@ -131,14 +143,8 @@ public class MainMenuServerController {
                 .setContents(new StringSelection(IpField.getText()), null);
     }
 
-    private Thread serverThread() {
-        return new Thread(
-                () ->
-                        Game.play(
-                                players,
-                                playersNames,
-                                SortedBag.of(ChMap.tickets()),
-                                new Random()));
+    private void startMatch() {
+        matches.start(players, playersNames, SortedBag.of(ChMap.tickets()), new Random());
     }
 
     private void scaleButton(Button button) {
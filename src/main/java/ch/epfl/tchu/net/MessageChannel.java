@@ -0,0 +1,735 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Connection through which the messages of {@link MessageId} and their responses are exchanged, in
+ * one of the {@link WireFormat}s. A message or response is written by beginning it, writing its
+ * arguments in order and sending it; it is read by receiving it whole, then reading its arguments
+ * in order. Not thread safe.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+abstract class MessageChannel {
+
+    /**
+     * Returns a channel exchanging messages through the given socket in the given format.
+     *
+     * @param format the format of the messages.
+     * @param socket the socket.
+     * @return the channel.
+     * @throws UncheckedIOException if the streams of the socket can't be opened.
+     */
+    static MessageChannel of(WireFormat format, Socket socket) {
+        try {
+            return of(format, socket.getInputStream(), socket.getOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a channel reading messages from the given stream and writing messages to the other
+     * one, in the given format.
+     *
+     * @param format the format of the messages.
+     * @param in the stream the messages are read from.
+     * @param out the stream the messages are written to.
+     * @return the channel.
+     */
+    static MessageChannel of(WireFormat format, InputStream in, OutputStream out) {
+        switch (format) {
+            case TEXT:
+                return new TextChannel(in, out);
+            case BINARY:
+                return new BinaryChannel(in, out);
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of the message or response at the position of the buffer, or -1
+     * if the buffer does not contain it whole yet. Does not change the position of the buffer.
+     *
+     * @param format the format of the messages.
+     * @param buffer the bytes received, from its position to its limit.
+     * @return the length of the first message or response, or -1 if it is incomplete.
+     * @throws IllegalArgumentException if the message is longer than allowed.
+     */
+    static int completeLength(WireFormat format, ByteBuffer buffer) {
+        switch (format) {
+            case TEXT:
+                byte endOfLine = (byte) NetConstants.Network.CHAR_END_MESSAGE.charAt(0);
+                for (int i = buffer.position(); i < buffer.limit(); i++) {
+                    if (buffer.get(i) == endOfLine) return i + 1 - buffer.position();
+                }
+                Preconditions.checkArgument(
+                        buffer.remaining() <= NetConstants.Network.MAX_MESSAGE_SIZE);
+                return -1;
+            case BINARY:
+                int length = 0;
+                for (int i = 0; buffer.position() + i < buffer.limit(); i++) {
+                    Preconditions.checkArgument(i <= Integer.BYTES);
+                    int b = buffer.get(buffer.position() + i);
+                    length |= (b & 0x7F) << (7 * i);
+                    if ((b & 0x80) == 0) {
+                        Preconditions.checkArgument(
+                                0 <= length && length <= NetConstants.Network.MAX_MESSAGE_SIZE);
+                        // The length of the frame, then the frame itself.
+                        int total = i + 1 + length;
+                        return buffer.remaining() < total ? -1 : total;
+                    }
+                }
+                return -1;
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Client side of the choice of the format: offers the given formats, by order of preference,
+     * along with the compression if asked, and returns a channel in the format chosen by the
+     * server, compressed if the server accepts it too.
+     *
+     * @param socket the socket connected to the server.
+     * @param offered the formats supported by the client, by order of preference.
+     * @param compression whether the client offers to compress the messages.
+     * @return the channel connected to the server.
+     * @throws IllegalStateException if the server accepts none of the formats offered.
+     * @throws UncheckedIOException if the connection fails.
+     */
+    static MessageChannel offerFormats(
+            Socket socket, List<WireFormat> offered, boolean compression) {
+        Preconditions.checkArgument(!offered.isEmpty());
+        try {
+            OutputStream out = socket.getOutputStream();
+            String formats =
+                    offered.stream()
+                            .map(WireFormat::name)
+                            .collect(
+                                    Collectors.joining(
+                                            NetConstants.Network.SEPARATOR_WIRE_FORMATS));
+            // Servers which don't know the compression ignore it, as any unknown format.
+            out.write(
+                    handshakeLine(
+                            compression
+                                    ? formats
+                                            + NetConstants.Network.SEPARATOR_WIRE_FORMATS
+                                            + NetConstants.Network.COMPRESSION_DEFLATE
+                                    : formats));
+            out.flush();
+            List<String> chosen = readAsciiLine(socket.getInputStream());
+            if (chosen.isEmpty() || chosen.get(0).isEmpty())
+                throw new IllegalStateException("The server accepts none of " + offered);
+            return of(
+                    WireFormat.valueOf(chosen.get(0)),
+                    socket,
+                    compression
+                            && chosen.subList(1, chosen.size())
+                                    .contains(NetConstants.Network.COMPRESSION_DEFLATE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Server side of the choice of the format: reads the formats offered by the client, answers
+     * with the first of them which is accepted, along with the compression if both ends accept it,
+     * and returns a channel in this format.
+     *
+     * @param socket the socket connected to the client.
+     * @param accepted the formats supported by the server.
+     * @param compression whether the server accepts to compress the messages.
+     * @return the channel connected to the client.
+     * @throws IllegalStateException if none of the formats offered is accepted.
+     * @throws UncheckedIOException if the connection fails.
+     */
+    static MessageChannel acceptFormat(
+            Socket socket, Collection<WireFormat> accepted, boolean compression) {
+        try {
+            List<String> offered = readAsciiLine(socket.getInputStream());
+            Optional<WireFormat> chosen = chooseFormat(offered, accepted);
+            boolean compressed =
+                    compression && offered.contains(NetConstants.Network.COMPRESSION_DEFLATE);
+            OutputStream out = socket.getOutputStream();
+            out.write(answerLine(chosen, compressed));
+            out.flush();
+            WireFormat format =
+                    chosen.orElseThrow(
+                            () ->
+                                    new IllegalStateException(
+                                            "The client offers none of " + accepted));
+            return of(format, socket, compressed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Client side of the choice of the compression alone, for connections whose messages have a
+     * single format: offers the compression, and returns whether the server accepts it.
+     *
+     * @param socket the socket connected to the server.
+     * @return whether the messages are compressed.
+     * @throws UncheckedIOException if the connection fails.
+     */
+    static boolean offerCompression(Socket socket) {
+        try {
+            OutputStream out = socket.getOutputStream();
+            out.write(handshakeLine(NetConstants.Network.COMPRESSION_DEFLATE));
+            out.flush();
+            return readAsciiLine(socket.getInputStream())
+                    .contains(NetConstants.Network.COMPRESSION_DEFLATE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Server side of the choice of the compression alone (see {@link #offerCompression(Socket)}):
+     * reads the offer of the client, and answers whether the messages are compressed.
+     *
+     * @param socket the socket connected to the client.
+     * @param compression whether the server accepts to compress the messages.
+     * @return whether the messages are compressed.
+     * @throws UncheckedIOException if the connection fails.
+     */
+    static boolean acceptCompression(Socket socket, boolean compression) {
+        try {
+            List<String> offered = readAsciiLine(socket.getInputStream());
+            boolean compressed =
+                    compression && offered.contains(NetConstants.Network.COMPRESSION_DEFLATE);
+            OutputStream out = socket.getOutputStream();
+            out.write(
+                    handshakeLine(
+                            compressed
+                                    ? NetConstants.Network.COMPRESSION_DEFLATE
+                                    : NetConstants.Serdes.DEFAULT_VALUE_EMPTINESS));
+            out.flush();
+            return compressed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a channel exchanging messages through the given socket in the given format, once the
+     * format has been chosen, the messages written at once being compressed in chunks if asked
+     * (see {@link CompressedStreams}).
+     */
+    private static MessageChannel of(WireFormat format, Socket socket, boolean compressed)
+            throws IOException {
+        if (!compressed) return of(format, socket);
+        return of(
+                format,
+                CompressedStreams.decompressing(socket.getInputStream()),
+                CompressedStreams.compressing(
+                        socket.getOutputStream(), NetConstants.Network.COMPRESSION_THRESHOLD));
+    }
+
+    /**
+     * Returns the first of the offered formats which is accepted, if any.
+     *
+     * @param offered the names of the formats offered by the client, by order of preference.
+     * @param accepted the formats supported by the server.
+     * @return the format chosen.
+     */
+    static Optional<WireFormat> chooseFormat(
+            List<String> offered, Collection<WireFormat> accepted) {
+        // The formats unknown to this version of the game are ignored.
+        return offered.stream()
+                .filter(name -> accepted.stream().anyMatch(f -> f.name().equals(name)))
+                .map(WireFormat::valueOf)
+                .findFirst();
+    }
+
+    /**
+     * Returns the line answering the offer of the client with the chosen format, empty if none,
+     * followed by the compression if the messages are compressed.
+     *
+     * @param chosen the format chosen.
+     * @param compressed whether the messages are compressed.
+     * @return the bytes of the line.
+     */
+    static byte[] answerLine(Optional<WireFormat> chosen, boolean compressed) {
+        String format =
+                chosen.map(WireFormat::name).orElse(NetConstants.Serdes.DEFAULT_VALUE_EMPTINESS);
+        return handshakeLine(
+                compressed && chosen.isPresent()
+                        ? format
+                                + NetConstants.Network.SEPARATOR_WIRE_FORMATS
+                                + NetConstants.Network.COMPRESSION_DEFLATE
+                        : format);
+    }
+
+    private static byte[] handshakeLine(String formats) {
+        return (NetConstants.Network.HANDSHAKE_GREETING
+                        + NetConstants.Network.SEPARATOR_COMPONENT_MESSAGE
+                        + formats
+                        + NetConstants.Network.CHAR_END_MESSAGE)
+                .getBytes(NetConstants.Network.ENCODING);
+    }
+
+    // The lines of the handshake are read byte by byte, without buffering, so that the stream can
+    // then be read by the channel from the first byte following them.
+    private static List<String> readAsciiLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != NetConstants.Network.CHAR_END_MESSAGE.charAt(0)) {
+            if (b == -1) throw new EOFException("Connection closed during the handshake.");
+            line.write(b);
+        }
+        return parseHandshakeLine(line.toString(NetConstants.Network.ENCODING.name()));
+    }
+
+    /**
+     * Returns the names of the formats of a line of the handshake, without its end of line.
+     *
+     * @param received the line received.
+     * @return the names of the formats, in order.
+     * @throws IllegalStateException if the line is not a line of the handshake.
+     */
+    static List<String> parseHandshakeLine(String received) {
+        int greetingEnd =
+                TextRegions.indexOf(
+                        received,
+                        NetConstants.Network.SEPARATOR_COMPONENT_MESSAGE,
+                        0,
+                        received.length());
+        String greeting = received.substring(0, greetingEnd);
+        if (!greeting.equals(NetConstants.Network.HANDSHAKE_GREETING))
+            throw new IllegalStateException("Unexpected handshake: " + greeting);
+        if (greetingEnd == received.length()) return List.of();
+
+        int[] formats =
+                TextRegions.split(
+                        received,
+                        NetConstants.Network.SEPARATOR_WIRE_FORMATS,
+                        greetingEnd + NetConstants.Network.SEPARATOR_COMPONENT_MESSAGE.length(),
+                        received.length());
+        List<String> names = new ArrayList<>(formats.length / 2);
+        for (int i = 0; i < formats.length; i += 2)
+            names.add(received.substring(formats[i], formats[i + 1]));
+        return names;
+    }
+
+    // Closes both streams, the second one even if closing the first one fails.
+    private static void closeBoth(Closeable first, Closeable second) {
+        try (second) {
+            first.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Begins a message.
+     *
+     * @param messageId the id of the message.
+     * @return this channel.
+     */
+    abstract MessageChannel begin(MessageId messageId);
+
+    /**
+     * Begins the response to a message.
+     *
+     * @return this channel.
+     */
+    abstract MessageChannel beginResponse();
+
+    /**
+     * Writes the next argument of the message or response begun.
+     *
+     * @param serde the serdes of the argument.
+     * @param value the argument.
+     * @param <T> the type of the argument.
+     * @return this channel.
+     */
+    abstract <T> MessageChannel write(WireSerde<T> serde, T value);
+
+    /**
+     * Sends the message or response begun, and the ones sent buffered before it. Blocking.
+     *
+     * @throws UncheckedIOException if the connection fails.
+     */
+    void send() {
+        sendBuffered();
+        flush();
+    }
+
+    /**
+     * Sends the message or response begun without flushing it: it is only sent, along with the
+     * following ones, by the next {@link #send()} or {@link #flush()} (or once the buffer of the
+     * channel is full).
+     *
+     * @throws UncheckedIOException if the connection fails.
+     */
+    abstract void sendBuffered();
+
+    /**
+     * Sends the messages and responses sent buffered, if any. Blocking.
+     *
+     * @throws UncheckedIOException if the connection fails.
+     */
+    abstract void flush();
+
+    /**
+     * Receives the next message. Blocking.
+     *
+     * @return the id of the message, null if the connection has been closed.
+     * @throws UncheckedIOException if the connection fails.
+     */
+    abstract MessageId receive();
+
+    /**
+     * Receives the response to the last message sent. Blocking.
+     *
+     * @throws IllegalStateException if the connection has been closed.
+     * @throws UncheckedIOException if the connection fails.
+     */
+    abstract void receiveResponse();
+
+    /**
+     * Receives the response to the last message sent, without blocking if the channel supports
+     * it: the future is completed once the response is received. By default, the response is
+     * received by this call, the future being then already completed.
+     *
+     * @return the future completed once the response can be read, exceptionally if the
+     *     connection has been closed or fails.
+     */
+    CompletableFuture<Void> receiveResponseAsync() {
+        try {
+            receiveResponse();
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Returns whether the responses are received without blocking by {@link
+     * #receiveResponseAsync()}. If not, a message can still be sent by a thread while another
+     * thread receives a response.
+     *
+     * @return whether the responses are received asynchronously.
+     */
+    boolean receivesResponsesAsync() {
+        return false;
+    }
+
+    /**
+     * Closes the connection, making the response awaited, if any, fail.
+     *
+     * @throws UncheckedIOException if the connection fails to close.
+     */
+    abstract void close();
+
+    /**
+     * Reads the next argument of the message or response received.
+     *
+     * @param serde the serdes of the argument.
+     * @param <T> the type of the argument.
+     * @return the argument.
+     */
+    abstract <T> T read(WireSerde<T> serde);
+
+    /**
+     * Returns the number of bytes of the last message or response sent, its framing included but
+     * before any compression of the stream.
+     *
+     * @return the size of the last message sent, 0 if none has been sent.
+     */
+    abstract int sentSize();
+
+    /**
+     * Returns the number of bytes of the last message or response received, its framing included
+     * but after any decompression of the stream.
+     *
+     * @return the size of the last message received, 0 if none has been received.
+     */
+    abstract int receivedSize();
+
+    /** Lines of text: the message id and its arguments separated by spaces. */
+    private static final class TextChannel extends MessageChannel {
+        private final InputStream in;
+        private final OutputStream out;
+        private final BufferedReader reader;
+        private final BufferedWriter writer;
+        private final StringBuilder line = new StringBuilder();
+        private boolean firstArgument;
+        // Line received, and index of its next argument, the arguments being read in place.
+        private String received = "";
+        private int nextArgument = 1;
+        // The lines are ASCII, one byte per character, and end with a single character.
+        private int sentSize;
+        private int receivedSize;
+
+        private TextChannel(InputStream in, OutputStream out) {
+            this.in = in;
+            this.out = out;
+            this.reader =
+                    new BufferedReader(new InputStreamReader(in, NetConstants.Network.ENCODING));
+            this.writer =
+                    new BufferedWriter(new OutputStreamWriter(out, NetConstants.Network.ENCODING));
+        }
+
+        @Override
+        MessageChannel begin(MessageId messageId) {
+            line.setLength(0);
+            line.append(Objects.requireNonNull(messageId).name())
+                    .append(NetConstants.Network.SEPARATOR_COMPONENT_MESSAGE);
+            firstArgument = true;
+            return this;
+        }
+
+        @Override
+        MessageChannel beginResponse() {
+            line.setLength(0);
+            firstArgument = true;
+            return this;
+        }
+
+        @Override
+        <T> MessageChannel write(WireSerde<T> serde, T value) {
+            if (!firstArgument) line.append(NetConstants.Network.SEPARATOR_COMPONENT_MESSAGE);
+            serde.text().serializeTo(value, line);
+            firstArgument = false;
+            return this;
+        }
+
+        @Override
+        void sendBuffered() {
+            try {
+                writer.write(line.append(NetConstants.Network.CHAR_END_MESSAGE).toString());
+                sentSize = line.length();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void flush() {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        MessageId receive() {
+            received = readLine();
+            if (received == null) return null;
+            int idEnd =
+                    TextRegions.indexOf(
+                            received,
+                            NetConstants.Network.SEPARATOR_COMPONENT_MESSAGE,
+                            0,
+                            received.length());
+            nextArgument = idEnd + NetConstants.Network.SEPARATOR_COMPONENT_MESSAGE.length();
+            return MessageId.valueOf(received.substring(0, idEnd));
+        }
+
+        @Override
+        void receiveResponse() {
+            received = readLine();
+            if (received == null)
+                throw new IllegalStateException("Expected response from network but gets nothing.");
+            nextArgument = 0;
+        }
+
+        @Override
+        void close() {
+            // The streams read and written by other threads are closed, not their readers.
+            closeBoth(out, in);
+        }
+
+        private String readLine() {
+            try {
+                String line = reader.readLine();
+                if (line != null)
+                    receivedSize = line.length() + NetConstants.Network.CHAR_END_MESSAGE.length();
+                return line;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        <T> T read(WireSerde<T> serde) {
+            if (nextArgument > received.length()) throw new NoSuchElementException();
+            int end =
+                    TextRegions.indexOf(
+                            received,
+                            NetConstants.Network.SEPARATOR_COMPONENT_MESSAGE,
+                            nextArgument,
+                            received.length());
+            T argument = serde.text().deserializeFrom(received, nextArgument, end);
+            nextArgument = end + NetConstants.Network.SEPARATOR_COMPONENT_MESSAGE.length();
+            return argument;
+        }
+
+        @Override
+        int sentSize() {
+            return sentSize;
+        }
+
+        @Override
+        int receivedSize() {
+            return receivedSize;
+        }
+    }
+
+    /**
+     * Frames of bytes: the length of the frame, followed by the message id and the arguments, or
+     * by the response.
+     */
+    private static final class BinaryChannel extends MessageChannel {
+        private static final MessageId[] MESSAGE_IDS = MessageId.values();
+
+        private final DataInputStream in;
+        private final OutputStream out;
+        private ByteBuffer outBuffer =
+                ByteBuffer.allocate(NetConstants.Network.INITIAL_BINARY_BUFFER_SIZE);
+        private ByteBuffer inBuffer =
+                ByteBuffer.allocate(NetConstants.Network.INITIAL_BINARY_BUFFER_SIZE);
+        // Length of a frame, written before it.
+        private final ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES + 1);
+        // Sizes of the last frames sent and received, their lengths included.
+        private int sentSize;
+        private int receivedSize;
+
+        private BinaryChannel(InputStream in, OutputStream out) {
+            this.in = new DataInputStream(new BufferedInputStream(in));
+            this.out = new BufferedOutputStream(out);
+        }
+
+        @Override
+        MessageChannel begin(MessageId messageId) {
+            outBuffer.clear();
+            BinarySerde.writeVarInt(outBuffer, Objects.requireNonNull(messageId).ordinal());
+            return this;
+        }
+
+        @Override
+        MessageChannel beginResponse() {
+            outBuffer.clear();
+            return this;
+        }
+
+        @Override
+        <T> MessageChannel write(WireSerde<T> serde, T value) {
+            int start = outBuffer.position();
+            while (true) {
+                try {
+                    serde.binary().write(outBuffer, value);
+                    return this;
+                } catch (BufferOverflowException e) {
+                    // The argument is written again from its start in a larger buffer.
+                    ByteBuffer larger = ByteBuffer.allocate(2 * outBuffer.capacity());
+                    larger.put(outBuffer.array(), 0, start);
+                    outBuffer = larger;
+                }
+            }
+        }
+
+        @Override
+        void sendBuffered() {
+            Preconditions.checkArgument(
+                    outBuffer.position() <= NetConstants.Network.MAX_MESSAGE_SIZE);
+            lengthBuffer.clear();
+            BinarySerde.writeVarInt(lengthBuffer, outBuffer.position());
+            try {
+                out.write(lengthBuffer.array(), 0, lengthBuffer.position());
+                out.write(outBuffer.array(), 0, outBuffer.position());
+                sentSize = lengthBuffer.position() + outBuffer.position();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void flush() {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        MessageId receive() {
+            if (!receiveFrame()) return null;
+            int ordinal = BinarySerde.readVarInt(inBuffer);
+            Preconditions.checkArgument(ordinal < MESSAGE_IDS.length);
+            return MESSAGE_IDS[ordinal];
+        }
+
+        @Override
+        void receiveResponse() {
+            if (!receiveFrame())
+                throw new IllegalStateException("Expected response from network but gets nothing.");
+        }
+
+        /** Reads the next frame in the input buffer; returns false if the connection is closed. */
+        private boolean receiveFrame() {
+            try {
+                int first = in.read();
+                if (first == -1) return false;
+                // Length of the frame, as a variable-length integer whose first byte is read.
+                int length = first & 0x7F;
+                int lengthSize = 1;
+                for (int shift = 7; (first & 0x80) != 0; shift += 7, lengthSize++) {
+                    Preconditions.checkArgument(shift < Integer.SIZE);
+                    first = in.readUnsignedByte();
+                    length |= (first & 0x7F) << shift;
+                }
+                Preconditions.checkArgument(
+                        0 <= length && length <= NetConstants.Network.MAX_MESSAGE_SIZE);
+                if (inBuffer.capacity() < length) inBuffer = ByteBuffer.allocate(length);
+                inBuffer.clear();
+                in.readFully(inBuffer.array(), 0, length);
+                inBuffer.limit(length);
+                receivedSize = lengthSize + length;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void close() {
+            closeBoth(out, in);
+        }
+
+        @Override
+        <T> T read(WireSerde<T> serde) {
+            try {
+                return serde.binary().read(inBuffer);
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("Truncated binary message.", e);
+            }
+        }
+
+        @Override
+        int sentSize() {
+            return sentSize;
+        }
+
+        @Override
+        int receivedSize() {
+            return receivedSize;
+        }
+    }
+}
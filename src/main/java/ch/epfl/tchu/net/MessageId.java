@@ -17,5 +17,27 @@ public enum MessageId {
     DRAW_SLOT,
     ROUTE,
     CARDS,
-    CHOOSE_ADDITIONAL_CARDS
+    CHOOSE_ADDITIONAL_CARDS,
+    UPDATE_STATE_DELTA,
+    HEARTBEAT;
+
+    /**
+     * Returns whether the message expects a response from the player, its decision.
+     *
+     * @return whether the message expects a response.
+     */
+    public boolean expectsResponse() {
+        switch (this) {
+            case CHOOSE_INITIAL_TICKETS:
+            case NEXT_TURN:
+            case CHOOSE_TICKETS:
+            case DRAW_SLOT:
+            case ROUTE:
+            case CARDS:
+            case CHOOSE_ADDITIONAL_CARDS:
+                return true;
+            default:
+                return false;
+        }
+    }
 }
@@ -0,0 +1,173 @@
+package ch.epfl.tchu.net;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Channel exchanging the messages through another one, while measuring them in {@link
+ * ConnectionMetrics}. Not thread safe, as the channel measured: only the response to a message can
+ * be received by a thread while another one sends the next messages.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+final class MeteredChannel extends MessageChannel {
+    private final MessageChannel channel;
+    private final ConnectionMetrics metrics;
+    // Message or response being written, the message it answers for a response, and the time
+    // spent serializing it so far.
+    private MessageId writing;
+    private boolean responding;
+    private long serializationNanos;
+    // Message last sent, the one its flush is counted for.
+    private MessageId lastSent;
+    // Message expecting a response sent last, and when it was flushed, -1 until then.
+    private volatile MessageId request;
+    private volatile long requestFlushNanos = -1;
+    // Message whose arguments are read: the one received last, or the request last answered.
+    private volatile MessageId reading;
+
+    /**
+     * Constructs a channel measuring the messages exchanged through the given one.
+     *
+     * @param channel the channel measured.
+     * @param metrics the measures of the connection.
+     */
+    MeteredChannel(MessageChannel channel, ConnectionMetrics metrics) {
+        this.channel = Objects.requireNonNull(channel);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    @Override
+    MessageChannel begin(MessageId messageId) {
+        channel.begin(messageId);
+        writing = messageId;
+        responding = false;
+        serializationNanos = 0;
+        return this;
+    }
+
+    @Override
+    MessageChannel beginResponse() {
+        channel.beginResponse();
+        writing = reading;
+        responding = true;
+        serializationNanos = 0;
+        return this;
+    }
+
+    @Override
+    <T> MessageChannel write(WireSerde<T> serde, T value) {
+        // Each argument is timed alone: a response may be begun before its decision is made.
+        long start = System.nanoTime();
+        channel.write(serde, value);
+        serializationNanos += System.nanoTime() - start;
+        return this;
+    }
+
+    @Override
+    void sendBuffered() {
+        long start = System.nanoTime();
+        channel.sendBuffered();
+        serializationNanos += System.nanoTime() - start;
+        metrics.sent(writing, channel.sentSize(), serializationNanos);
+        lastSent = writing;
+        if (!responding && writing.expectsResponse()) {
+            requestFlushNanos = -1;
+            request = writing;
+        }
+    }
+
+    @Override
+    void flush() {
+        channel.flush();
+        if (lastSent == null) return;
+        metrics.flushed(lastSent);
+        if (request != null && requestFlushNanos < 0) requestFlushNanos = System.nanoTime();
+    }
+
+    @Override
+    MessageId receive() {
+        long start = System.nanoTime();
+        MessageId messageId;
+        try {
+            messageId = channel.receive();
+        } catch (RuntimeException e) {
+            metrics.close();
+            throw e;
+        }
+        if (messageId == null) {
+            metrics.close();
+            return null;
+        }
+        metrics.received(messageId, channel.receivedSize(), System.nanoTime() - start);
+        reading = messageId;
+        return messageId;
+    }
+
+    @Override
+    void receiveResponse() {
+        try {
+            channel.receiveResponse();
+        } catch (RuntimeException e) {
+            metrics.close();
+            throw e;
+        }
+        responseReceived();
+    }
+
+    @Override
+    CompletableFuture<Void> receiveResponseAsync() {
+        return channel.receiveResponseAsync()
+                .whenComplete(
+                        (v, failure) -> {
+                            if (failure == null) responseReceived();
+                            else metrics.close();
+                        });
+    }
+
+    // Counts the response to the last request, waited for since the request was flushed.
+    private void responseReceived() {
+        MessageId answered = request;
+        if (answered == null) return;
+        long flushNanos = requestFlushNanos;
+        metrics.received(
+                answered,
+                channel.receivedSize(),
+                flushNanos < 0 ? 0 : System.nanoTime() - flushNanos);
+        reading = answered;
+    }
+
+    @Override
+    boolean receivesResponsesAsync() {
+        return channel.receivesResponsesAsync();
+    }
+
+    @Override
+    void close() {
+        try {
+            channel.close();
+        } finally {
+            metrics.close();
+        }
+    }
+
+    @Override
+    <T> T read(WireSerde<T> serde) {
+        long start = System.nanoTime();
+        T argument = channel.read(serde);
+        MessageId messageId = reading;
+        if (messageId != null) metrics.deserialized(messageId, System.nanoTime() - start);
+        return argument;
+    }
+
+    @Override
+    int sentSize() {
+        return channel.sentSize();
+    }
+
+    @Override
+    int receivedSize() {
+        return channel.receivedSize();
+    }
+}
@@ -32,6 +32,26 @@ public final class NetConstants {
         public static final String CHAR_END_MESSAGE = "\n";
         /* Character used to separate the components in the network messages.*/
         public static final String SEPARATOR_COMPONENT_MESSAGE = " ";
+        /* First word of the lines exchanged to choose the wire format when connecting. */
+        public static final String HANDSHAKE_GREETING = "HELLO";
+        /* Character used to separate the wire formats offered by the client. */
+        public static final String SEPARATOR_WIRE_FORMATS = ",";
+        /* Maximal size in bytes of a message: the line of a text one, the frame of a binary one. */
+        public static final int MAX_MESSAGE_SIZE = 1 << 20;
+        /* Initial size in bytes of the buffer in which binary messages are written. */
+        public static final int INITIAL_BINARY_BUFFER_SIZE = 1 << 10;
+        /* Name offered along with the wire formats to compress the messages, if both ends agree. */
+        public static final String COMPRESSION_DEFLATE = "DEFLATE";
+        /* Minimal size in bytes of the messages written at once for them to be compressed. */
+        public static final int COMPRESSION_THRESHOLD = 32;
+        /* Maximal delay in milliseconds of the messages expecting no response, sent in batches. */
+        public static final int FLUSH_DELAY_MILLIS = 5;
+        /* Delay in milliseconds without any message after which the server sends a heartbeat. */
+        public static final int HEARTBEAT_INTERVAL_MILLIS = 10_000;
+        /* Delay in milliseconds without any message after which a client gives up the server. */
+        public static final int SERVER_TIMEOUT_MILLIS = 3 * HEARTBEAT_INTERVAL_MILLIS;
+        /* Number of decisions in a row a player can let expire before forfeiting the game. */
+        public static final int MAX_CONSECUTIVE_EXPIRIES = 3;
 
         private Network() {}
     }
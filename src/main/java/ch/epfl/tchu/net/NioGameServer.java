@@ -0,0 +1,588 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.AsyncPlayer;
+import ch.epfl.tchu.game.ChMap;
+import ch.epfl.tchu.game.Game;
+import ch.epfl.tchu.game.GameMetrics;
+import ch.epfl.tchu.game.MatchScheduler;
+import ch.epfl.tchu.game.Player;
+import ch.epfl.tchu.game.PlayerId;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Game server hosting any number of player connections on a single selector thread. The clients
+ * connect as with {@link RemotePlayerProxy#RemotePlayerProxy(java.net.Socket, Collection)}, by
+ * choosing the format of the messages first; each of them is then given as a {@link Player} by
+ * {@link #awaitPlayer()}. The compression offered by the clients is declined.
+ *
+ * <p>The selector thread only moves bytes: the messages are serialized by the threads of the
+ * matches calling the players, and a response is awaited as a future completed by the selector
+ * thread once the response is whole. The threads of the matches, which are virtual with a {@link
+ * MatchScheduler} when the runtime supports them, are thus the only ones blocked by slow clients.
+ * The matches of {@link #hostAsyncMatches} are not even blocked: they are suspended while waiting
+ * for a response, and resumed on their executor once it is whole.
+ *
+ * @author Luca Mouchel (324748)
+ * @author Hugues Devimeux (327282)
+ */
+public final class NioGameServer implements Closeable {
+    // Capacity of the input buffer of a connection, enough for any message or response.
+    private static final int MAX_INPUT_SIZE =
+            NetConstants.Network.MAX_MESSAGE_SIZE + Integer.BYTES + 1;
+
+    private final Collection<WireFormat> accepted;
+    private final Duration flushDelay;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread selectorThread;
+    // Connections with bytes to write, whose interest in writing must be set by the selector.
+    private final Queue<Connection> writing = new ConcurrentLinkedQueue<>();
+    // Players whose format has been chosen; empty once the server is closed.
+    private final BlockingQueue<Optional<Player>> players = new LinkedBlockingQueue<>();
+    private volatile boolean open = true;
+    // Deadlines and heartbeats of the players connecting from now on, null if there are none.
+    private volatile Duration decisionTimeout;
+    private volatile ExpiryPolicy expiryPolicy;
+    private volatile Duration heartbeatInterval;
+    // Log of the measures of the connections of the players connecting from now on, if any.
+    private volatile ConnectionMetricsLog metricsLog;
+
+    /**
+     * Constructs a server listening on the given port, and starts its selector thread.
+     *
+     * @param port the port to listen on, 0 for any free port.
+     * @param accepted the formats the messages can be exchanged in.
+     * @throws IllegalArgumentException if accepted is empty.
+     * @throws UncheckedIOException if the port can't be listened on.
+     */
+    public NioGameServer(int port, Collection<WireFormat> accepted) {
+        this(port, accepted, null);
+    }
+
+    /**
+     * Constructs a server listening on the given port, whose players are in batching mode if
+     * flushDelay is not null (see {@link RemotePlayerProxy}), and starts its selector thread.
+     *
+     * @param port the port to listen on, 0 for any free port.
+     * @param accepted the formats the messages can be exchanged in.
+     * @param flushDelay the maximal delay of the messages expecting no response, null to send
+     *     each message right away.
+     * @throws IllegalArgumentException if accepted is empty, or if flushDelay is negative.
+     * @throws UncheckedIOException if the port can't be listened on.
+     */
+    public NioGameServer(int port, Collection<WireFormat> accepted, Duration flushDelay) {
+        Preconditions.checkArgument(!accepted.isEmpty());
+        Preconditions.checkArgument(flushDelay == null || !flushDelay.isNegative());
+        this.accepted = List.copyOf(accepted);
+        this.flushDelay = flushDelay;
+        try {
+            this.selector = Selector.open();
+            this.serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.selectorThread = new Thread(this::select, "tchu-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port.
+     */
+    public int port() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Sets the deadline of the decisions of the players connecting from now on, and what is done
+     * when it expires (see {@link RemotePlayerProxy#setDecisionDeadline}).
+     *
+     * @param timeout the maximal delay of each decision.
+     * @param policy what is done when a decision expires.
+     * @throws IllegalArgumentException if timeout is not positive.
+     * @throws NullPointerException if timeout or policy is null.
+     */
+    public void setDecisionDeadline(Duration timeout, ExpiryPolicy policy) {
+        Preconditions.checkArgument(!timeout.isNegative() && !timeout.isZero());
+        this.expiryPolicy = Objects.requireNonNull(policy);
+        this.decisionTimeout = timeout;
+    }
+
+    /**
+     * Makes the players connecting from now on send heartbeats to their clients (see {@link
+     * RemotePlayerProxy#startHeartbeats}).
+     *
+     * @param interval the delay without any message after which a heartbeat is sent.
+     * @throws IllegalArgumentException if interval is not positive.
+     */
+    public void setHeartbeatInterval(Duration interval) {
+        Preconditions.checkArgument(!interval.isNegative() && !interval.isZero());
+        this.heartbeatInterval = interval;
+    }
+
+    /**
+     * Registers the measures of the connections of the players connecting from now on to the
+     * given log, under the addresses of their clients (see {@link RemotePlayerProxy#metrics()}).
+     *
+     * @param log the log of the measures.
+     * @throws NullPointerException if log is null.
+     */
+    public void setMetricsLog(ConnectionMetricsLog log) {
+        this.metricsLog = Objects.requireNonNull(log);
+    }
+
+    /**
+     * Returns the next player whose client has connected and chosen the format of the messages,
+     * waiting for one if needed.
+     *
+     * @return the player.
+     * @throws InterruptedException if interrupted while waiting.
+     * @throws IllegalStateException if the server is closed.
+     */
+    public Player awaitPlayer() throws InterruptedException {
+        Optional<Player> player = players.take();
+        if (player.isEmpty()) {
+            // Given back so that every thread waiting for a player learns the server is closed.
+            players.add(player);
+            throw new IllegalStateException("The server is closed.");
+        }
+        return player.get();
+    }
+
+    /**
+     * Pairs the players as they connect and plays a match between each pair on the scheduler,
+     * until the server is closed. The connections of the players are closed once their match
+     * ends, whatever its outcome; a match ending with an error has it logged.
+     *
+     * @param scheduler the scheduler of the matches.
+     * @throws InterruptedException if interrupted while waiting for players or for a free slot.
+     */
+    public void hostMatches(MatchScheduler scheduler) throws InterruptedException {
+        try {
+            while (true) {
+                Map<PlayerId, Player> match = new EnumMap<>(PlayerId.class);
+                for (PlayerId playerId : PlayerId.ALL) match.put(playerId, awaitPlayer());
+                scheduler.submit(
+                        match,
+                        defaultNames(),
+                        SortedBag.of(ChMap.tickets()),
+                        new Random(),
+                        failure -> endMatch(match.values(), failure));
+            }
+        } catch (IllegalStateException e) {
+            if (open) throw e;
+        }
+    }
+
+    /**
+     * Pairs the players as they connect and plays a match between each pair without blocking any
+     * thread (see {@link Game#playAsync}), until the server is closed. The connections of the
+     * players are closed once their match ends, as with {@link #hostMatches}.
+     *
+     * @param executor the executor the matches are resumed on once a response is received.
+     * @param turnTimeout the maximal delay of each decision, null if there is none.
+     * @throws InterruptedException if interrupted while waiting for players.
+     */
+    public void hostAsyncMatches(Executor executor, Duration turnTimeout)
+            throws InterruptedException {
+        hostAsyncMatches(executor, turnTimeout, GameMetrics.NONE);
+    }
+
+    /**
+     * Pairs the players as they connect and plays a match between each pair without blocking any
+     * thread (see {@link #hostAsyncMatches(Executor, Duration)}), the measures of every match
+     * being given to the same metrics, which must thus be thread-safe.
+     *
+     * @param executor the executor the matches are resumed on once a response is received.
+     * @param turnTimeout the maximal delay of each decision, null if there is none.
+     * @param metrics the metrics of the matches.
+     * @throws InterruptedException if interrupted while waiting for players.
+     * @throws NullPointerException if metrics is null.
+     */
+    public void hostAsyncMatches(Executor executor, Duration turnTimeout, GameMetrics metrics)
+            throws InterruptedException {
+        Objects.requireNonNull(metrics);
+        try {
+            while (true) {
+                List<Player> players = new ArrayList<>();
+                Map<PlayerId, AsyncPlayer> match = new EnumMap<>(PlayerId.class);
+                for (PlayerId playerId : PlayerId.ALL) {
+                    RemotePlayerProxy player = (RemotePlayerProxy) awaitPlayer();
+                    players.add(player);
+                    match.put(playerId, player.async());
+                }
+                Game game =
+                        Game.ofAsyncPlayers(
+                                match,
+                                defaultNames(),
+                                SortedBag.of(ChMap.tickets()),
+                                new Random(),
+                                turnTimeout);
+                game.setMetrics(metrics);
+                game.playAsync(executor).whenComplete((v, failure) -> endMatch(players, failure));
+            }
+        } catch (IllegalStateException e) {
+            if (open) throw e;
+        }
+    }
+
+    /**
+     * Logs the error the match ended with, if any, and closes the connections of its players, so
+     * that neither their sockets nor their heartbeats outlive it.
+     */
+    private static void endMatch(Collection<Player> players, Throwable failure) {
+        if (failure instanceof CompletionException) failure = failure.getCause();
+        if (failure != null) failure.printStackTrace();
+        for (Player player : players) ((RemotePlayerProxy) player).close();
+    }
+
+    private static Map<PlayerId, String> defaultNames() {
+        Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+        for (PlayerId playerId : PlayerId.ALL)
+            names.put(playerId, NetConstants.Network.DEFAULT_NAMES.get(playerId.ordinal()));
+        return names;
+    }
+
+    /** Stops the server: closes every connection, failing the responses awaited. */
+    @Override
+    public void close() {
+        open = false;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        players.add(Optional.empty());
+    }
+
+    // Loop of the selector thread.
+    private void select() {
+        try (selector;
+                serverChannel) {
+            while (open) {
+                selector.select();
+                Connection connection;
+                while ((connection = writing.poll()) != null) connection.enableWriting();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        handle(key);
+                    }
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() != null) ((Connection) key.attachment()).close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    private void handle(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) connection.read();
+            if (key.isValid() && key.isWritable()) connection.write();
+        } catch (IOException | RuntimeException e) {
+            // A failing or misbehaving client only loses its own connection.
+            connection.close();
+        }
+    }
+
+    /** Connection to a client, whose bytes are read and written by the selector thread. */
+    private final class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer in =
+                ByteBuffer.allocate(NetConstants.Network.INITIAL_BINARY_BUFFER_SIZE);
+        private final Queue<ByteBuffer> out = new ConcurrentLinkedQueue<>();
+        // Null until the format has been chosen.
+        private WireFormat format;
+        private boolean closeWhenWritten;
+
+        // Responses received and not yet awaited, and responses awaited and not yet received.
+        private final Deque<byte[]> received = new ArrayDeque<>();
+        private final Deque<CompletableFuture<byte[]>> awaited = new ArrayDeque<>();
+        private boolean closed;
+        // Measures of the player, null until the format has been chosen.
+        private volatile ConnectionMetrics metrics;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void read() throws IOException {
+            if (!in.hasRemaining()) {
+                if (in.capacity() >= MAX_INPUT_SIZE) throw new IOException("Message too long.");
+                ByteBuffer larger =
+                        ByteBuffer.allocate(Math.min(2 * in.capacity(), MAX_INPUT_SIZE));
+                in.flip();
+                in = larger.put(in);
+            }
+            if (channel.read(in) == -1) {
+                close();
+                return;
+            }
+            in.flip();
+            int length;
+            while (in.hasRemaining()
+                    && (length = MessageChannel.completeLength(formatOfNext(), in)) >= 0) {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                if (format == null) {
+                    chooseFormat(bytes);
+                } else {
+                    receive(bytes);
+                }
+            }
+            in.compact();
+        }
+
+        // The handshake is a line of text, whatever the format then chosen.
+        private WireFormat formatOfNext() {
+            return format == null ? WireFormat.TEXT : format;
+        }
+
+        private void chooseFormat(byte[] line) {
+            String offered =
+                    new String(line, 0, line.length - 1, NetConstants.Network.ENCODING);
+            Optional<WireFormat> chosen =
+                    MessageChannel.chooseFormat(
+                            MessageChannel.parseHandshakeLine(offered), accepted);
+            // The messages are framed by the selector thread, and thus never compressed.
+            send(MessageChannel.answerLine(chosen, false));
+            if (chosen.isEmpty()) {
+                closeWhenWritten = true;
+                return;
+            }
+            format = chosen.get();
+            RemotePlayerProxy player =
+                    new RemotePlayerProxy(new NioChannel(this, format), true, flushDelay);
+            Duration timeout = decisionTimeout;
+            if (timeout != null) player.setDecisionDeadline(timeout, expiryPolicy);
+            Duration interval = heartbeatInterval;
+            if (interval != null) player.startHeartbeats(interval);
+            metrics = player.metrics();
+            ConnectionMetricsLog log = metricsLog;
+            if (log != null)
+                log.register(String.valueOf(channel.socket().getRemoteSocketAddress()), metrics);
+            players.add(Optional.of(player));
+        }
+
+        private void write() throws IOException {
+            ByteBuffer next;
+            while ((next = out.peek()) != null) {
+                channel.write(next);
+                if (next.hasRemaining()) return;
+                out.remove();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            if (closeWhenWritten) close();
+        }
+
+        // Called by the selector thread, once asked to by send.
+        private void enableWriting() {
+            if (key.isValid()) key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+
+        /** Queues the bytes to be written by the selector thread. Called by any thread. */
+        void send(byte[] bytes) {
+            synchronized (this) {
+                if (closed) throw new UncheckedIOException(new ClosedChannelException());
+            }
+            out.add(ByteBuffer.wrap(bytes));
+            writing.add(this);
+            selector.wakeup();
+        }
+
+        private synchronized void receive(byte[] response) {
+            CompletableFuture<byte[]> next = awaited.poll();
+            if (next == null) {
+                received.add(response);
+            } else {
+                next.complete(response);
+            }
+        }
+
+        /**
+         * Returns the future of the next response of the client. Called by any thread.
+         *
+         * @return the next response, failing if the connection is closed before it is received.
+         */
+        synchronized CompletableFuture<byte[]> nextResponse() {
+            byte[] response = received.poll();
+            if (response != null) return CompletableFuture.completedFuture(response);
+            CompletableFuture<byte[]> future = new CompletableFuture<>();
+            if (closed) {
+                future.completeExceptionally(
+                        new IllegalStateException(
+                                "Expected response from network but gets nothing."));
+            } else {
+                awaited.add(future);
+            }
+            return future;
+        }
+
+        /** Closes the connection, failing the responses awaited. Called by any thread. */
+        void close() {
+            synchronized (this) {
+                closed = true;
+                CompletableFuture<byte[]> future;
+                while ((future = awaited.poll()) != null) {
+                    future.completeExceptionally(
+                            new IllegalStateException(
+                                    "Expected response from network but gets nothing."));
+                }
+            }
+            if (metrics != null) metrics.close();
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // The connection is dropped anyway.
+            }
+        }
+    }
+
+    /**
+     * Channel of a connection of the server: the messages are written to an array of bytes queued
+     * to the connection when flushed, and the responses are read from the arrays of bytes it
+     * receives.
+     */
+    private static final class NioChannel extends MessageChannel {
+        private final Connection connection;
+        private final WireFormat format;
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private final MessageChannel writer;
+        private MessageChannel reader;
+
+        private NioChannel(Connection connection, WireFormat format) {
+            this.connection = connection;
+            this.format = format;
+            this.writer = MessageChannel.of(format, InputStream.nullInputStream(), written);
+        }
+
+        @Override
+        MessageChannel begin(MessageId messageId) {
+            writer.begin(messageId);
+            return this;
+        }
+
+        @Override
+        MessageChannel beginResponse() {
+            throw new UnsupportedOperationException("The server sends no response.");
+        }
+
+        @Override
+        <T> MessageChannel write(WireSerde<T> serde, T value) {
+            writer.write(serde, value);
+            return this;
+        }
+
+        @Override
+        void sendBuffered() {
+            // Written whole to the array, which is only given to the connection when flushed.
+            writer.send();
+        }
+
+        @Override
+        void flush() {
+            if (written.size() == 0) return;
+            connection.send(written.toByteArray());
+            written.reset();
+        }
+
+        @Override
+        MessageId receive() {
+            throw new UnsupportedOperationException("The server receives responses only.");
+        }
+
+        @Override
+        void receiveResponse() {
+            AsyncPlayer.await(receiveResponseAsync());
+        }
+
+        @Override
+        CompletableFuture<Void> receiveResponseAsync() {
+            // Completed by the selector thread, which thus only reads the few bytes of a response.
+            return connection
+                    .nextResponse()
+                    .thenAccept(
+                            response -> {
+                                reader =
+                                        MessageChannel.of(
+                                                format,
+                                                new ByteArrayInputStream(response),
+                                                OutputStream.nullOutputStream());
+                                reader.receiveResponse();
+                            });
+        }
+
+        @Override
+        boolean receivesResponsesAsync() {
+            return true;
+        }
+
+        @Override
+        void close() {
+            connection.close();
+        }
+
+        @Override
+        <T> T read(WireSerde<T> serde) {
+            return reader.read(serde);
+        }
+
+        @Override
+        int sentSize() {
+            return writer.sentSize();
+        }
+
+        @Override
+        int receivedSize() {
+            return reader == null ? 0 : reader.receivedSize();
+        }
+    }
+}
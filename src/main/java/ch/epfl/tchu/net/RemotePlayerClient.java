@@ -1,14 +1,16 @@
 package ch.epfl.tchu.net;
 
-import ch.epfl.tchu.game.Player;
-import ch.epfl.tchu.game.PlayerId;
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.Socket;
+import java.time.Duration;
 import java.util.*;
-import java.util.regex.Pattern;
 
-import static ch.epfl.tchu.net.Serdes.*;
+import static ch.epfl.tchu.net.WireSerde.*;
 
 /**
  * Represents a remote player.
@@ -21,47 +23,134 @@ public final class RemotePlayerClient {
     private final Player player;
     private final String host;
     private final int port;
+    // Empty if the format is not chosen with the server, the messages being then in TEXT.
+    private final List<WireFormat> offeredFormats;
+    private final boolean compression;
+    // Maximal delay between two messages of the server, null if there is none.
+    private final Duration serverTimeout;
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+    // The states last received, the ones the deltas received are relative to, and whether they
+    // are the ones sent, false once a delta could not be applied until whole states are received.
+    private PublicGameState lastState;
+    private PlayerState lastOwnState;
+    private boolean statesSynchronized = true;
 
+    /**
+     * Constructs a client exchanging messages in the {@link WireFormat#TEXT} format, without
+     * choosing it with the server first.
+     *
+     * @param player The player the messages are for.
+     * @param host The host of the server.
+     * @param port The port of the server.
+     */
     public RemotePlayerClient(Player player, String host, int port) {
+        this(player, host, port, List.of());
+    }
+
+    /**
+     * Constructs a client choosing the format of the messages with the server when connecting:
+     * the server must accept one of the given formats (see {@link
+     * RemotePlayerProxy#RemotePlayerProxy(java.net.Socket, Collection)}).
+     *
+     * @param player The player the messages are for.
+     * @param host The host of the server.
+     * @param port The port of the server.
+     * @param offeredFormats The formats supported, by order of preference.
+     */
+    public RemotePlayerClient(
+            Player player, String host, int port, List<WireFormat> offeredFormats) {
+        this(player, host, port, offeredFormats, false);
+    }
+
+    /**
+     * Constructs a client choosing the format of the messages with the server when connecting
+     * (see {@link #RemotePlayerClient(Player, String, int, List)}), and offering to compress them
+     * if asked: they are then compressed if the server accepts it too.
+     *
+     * @param player The player the messages are for.
+     * @param host The host of the server.
+     * @param port The port of the server.
+     * @param offeredFormats The formats supported, by order of preference.
+     * @param compression Whether to offer to compress the messages.
+     */
+    public RemotePlayerClient(
+            Player player,
+            String host,
+            int port,
+            List<WireFormat> offeredFormats,
+            boolean compression) {
+        this(player, host, port, offeredFormats, compression, null);
+    }
+
+    /**
+     * Constructs a client choosing the format of the messages with the server when connecting,
+     * and compressing them if asked and accepted (see {@link #RemotePlayerClient(Player, String,
+     * int, List, boolean)}), which gives up the server once it has sent nothing for the given
+     * timeout. The server should thus send heartbeats more often (see {@link
+     * RemotePlayerProxy#startHeartbeats}).
+     *
+     * @param player The player the messages are for.
+     * @param host The host of the server.
+     * @param port The port of the server.
+     * @param offeredFormats The formats supported, by order of preference.
+     * @param compression Whether to offer to compress the messages.
+     * @param serverTimeout The maximal delay between two messages of the server, null if there is
+     *     none.
+     * @throws IllegalArgumentException if serverTimeout is not positive.
+     */
+    public RemotePlayerClient(
+            Player player,
+            String host,
+            int port,
+            List<WireFormat> offeredFormats,
+            boolean compression,
+            Duration serverTimeout) {
+        Preconditions.checkArgument(
+                serverTimeout == null || !serverTimeout.isNegative() && !serverTimeout.isZero());
         this.player = player;
         this.host = host;
         this.port = port;
+        this.offeredFormats = List.copyOf(offeredFormats);
+        this.compression = compression;
+        this.serverTimeout = serverTimeout;
+    }
+
+    /**
+     * Returns the measures of the messages exchanged with the server so far, for each message.
+     * They can be read while the client runs.
+     *
+     * @return the measures of the connection.
+     */
+    public ConnectionMetrics metrics() {
+        return metrics;
     }
 
-    /** Run the client. Handles the game process through the network. */
+    /**
+     * Run the client. Handles the game process through the network.
+     *
+     * @throws UncheckedIOException if the connection fails, or if the server has sent nothing for
+     *     the timeout.
+     */
     public void run() {
 
-        try (Socket socket = new Socket(host, port);
-             BufferedReader inReader =
-                        new BufferedReader(
-                                new InputStreamReader(socket.getInputStream(), NetConstants.Network.ENCODING));
-             BufferedWriter outWriter =
-                        new BufferedWriter(
-                                new OutputStreamWriter(
-                                        socket.getOutputStream(), NetConstants.Network.ENCODING))) {
-
-            String respFromNetwork = inReader.readLine();
-
-            while (respFromNetwork != null) {
-                List<String> splitResp =
-                        new ArrayList<>(
-                                Arrays.asList(
-                                        respFromNetwork.split(
-                                                Pattern.quote(NetConstants.Network.SEPARATOR_COMPONENT_MESSAGE), -1)));
-                MessageId messageId = MessageId.valueOf(splitResp.remove(0));
-                Optional<String> toSendBack = handleClientResponse(messageId, splitResp);
-                toSendBack.ifPresent(
-                        s1 -> {
-                            try {
-                                outWriter.write(s1);
-                                outWriter.write(NetConstants.Network.CHAR_END_MESSAGE);
-                                outWriter.flush();
-                            } catch (IOException e) {
-                                throw new UncheckedIOException(e);
-                            }
-                        });
-                // Response for the next iteration.
-                respFromNetwork = inReader.readLine();
+        try (Socket socket = new Socket(host, port)) {
+            // Waiting for the player does not count, only waiting for the server.
+            if (serverTimeout != null)
+                socket.setSoTimeout(
+                        (int) Math.max(1, Math.min(Integer.MAX_VALUE, serverTimeout.toMillis())));
+            MessageChannel channel =
+                    new MeteredChannel(
+                            offeredFormats.isEmpty()
+                                    ? MessageChannel.of(WireFormat.TEXT, socket)
+                                    : MessageChannel.offerFormats(
+                                            socket, offeredFormats, compression),
+                            metrics);
+
+            MessageId messageId = channel.receive();
+            while (messageId != null) {
+                handleClientResponse(messageId, channel);
+                // Message for the next iteration.
+                messageId = channel.receive();
             }
 
         } catch (IOException e) {
@@ -70,60 +159,106 @@ public final class RemotePlayerClient {
     }
 
     /**
-     * Handles the communication through the network and return an Optional that depicts whether the
-     * client should send back something to the server.
+     * Handles the communication through the network: reads the arguments of the message received,
+     * and sends back the response if the message expects one.
      *
      * @param messageId The type of message.
-     * @param args The arguments SERIALIZED.
-     * @return An optional present if there is a value to return.
+     * @param channel The channel the message has been received from.
      * @throws IllegalStateException if messageId is not registered.
      */
-    private Optional<String> handleClientResponse(MessageId messageId, List<String> args) {
+    private void handleClientResponse(MessageId messageId, MessageChannel channel) {
         switch (messageId) {
             case INIT_PLAYERS:
+                PlayerId ownId = channel.read(playerIdSerde);
 				EnumMap<PlayerId, String> playerDeserialized = new EnumMap<>(PlayerId.class);
-				List<String> playerNames = stringListSerde.deserialize(args.get(1));
+				List<String> playerNames = channel.read(stringListSerde);
                 for (int i = 0; i < PlayerId.COUNT; i++) {
                     playerDeserialized.put(PlayerId.ALL.get(i), playerNames.get(i));
                 }
 
-                player.initPlayers(
-                        playerIdSerde.deserialize(args.get(0)),
-                        playerDeserialized);
-
-                return Optional.empty();
+                player.initPlayers(ownId, playerDeserialized);
+                break;
             case RECEIVE_INFO:
-                player.receiveInfo(stringSerde.deserialize(args.get(0)));
-                return Optional.empty();
+                player.receiveInfo(channel.read(stringSerde));
+                break;
             case UPDATE_STATE:
-                player.updateState(
-                        publicGameStateSerde.deserialize(args.get(0)),
-                        playerStateSerde.deserialize(args.get(1)));
-                return Optional.empty();
+                lastState = channel.read(publicGameStateSerde);
+                lastOwnState = channel.read(playerStateSerde);
+                statesSynchronized = true;
+                player.updateState(lastState, lastOwnState);
+                break;
+            case UPDATE_STATE_DELTA:
+                StateDelta delta = channel.read(StateDelta.serde);
+                updateState(delta);
+                break;
+            case HEARTBEAT:
+                break;
             case SET_INITIAL_TICKETS:
-                player.setInitialTicketChoice(ticketBagSerde.deserialize(args.get(0)));
-                return Optional.empty();
+                player.setInitialTicketChoice(channel.read(ticketBagSerde));
+                break;
             case CHOOSE_INITIAL_TICKETS:
-                return Optional.of(ticketBagSerde.serialize(player.chooseInitialTickets()));
+                beginResponse(channel)
+                        .write(ticketBagSerde, player.chooseInitialTickets())
+                        .send();
+                break;
             case NEXT_TURN:
-                return Optional.of(turnKindSerde.serialize(player.nextTurn()));
+                beginResponse(channel).write(turnKindSerde, player.nextTurn()).send();
+                break;
             case CHOOSE_TICKETS:
-                return Optional.of(
-                        ticketBagSerde.serialize(
-                                player.chooseTickets(ticketBagSerde.deserialize(args.get(0)))));
+                SortedBag<Ticket> options = channel.read(ticketBagSerde);
+                beginResponse(channel)
+                        .write(ticketBagSerde, player.chooseTickets(options))
+                        .send();
+                break;
             case DRAW_SLOT:
-                return Optional.of(intSerde.serialize(player.drawSlot()));
+                beginResponse(channel).write(intSerde, player.drawSlot()).send();
+                break;
             case ROUTE:
-                return Optional.of(routeSerde.serialize(player.claimedRoute()));
+                beginResponse(channel).write(routeSerde, player.claimedRoute()).send();
+                break;
             case CARDS:
-                return Optional.of(cardBagSerde.serialize(player.initialClaimCards()));
+                beginResponse(channel).write(cardBagSerde, player.initialClaimCards()).send();
+                break;
             case CHOOSE_ADDITIONAL_CARDS:
-                return Optional.of(
-                        cardBagSerde.serialize(
-                                player.chooseAdditionalCards(
-                                        listOfCardBagSerde.deserialize(args.get(0)))));
+                List<SortedBag<Card>> cardOptions = channel.read(listOfCardBagSerde);
+                beginResponse(channel)
+                        .write(cardBagSerde, player.chooseAdditionalCards(cardOptions))
+                        .send();
+                break;
             default:
                 throw new IllegalStateException();
         }
     }
+
+    /**
+     * Rebuilds the states from the delta and gives them to the player. A delta which can't be
+     * applied to the last states is ignored, and the server asked for whole states instead (see
+     * {@link #beginResponse(MessageChannel)}).
+     */
+    private void updateState(StateDelta delta) {
+        // The states rebuilt from a delta skipped would not be the ones sent either.
+        if (!statesSynchronized || lastState == null) {
+            statesSynchronized = false;
+            return;
+        }
+        try {
+            lastState = delta.applyTo(lastState);
+            lastOwnState = delta.applyTo(lastOwnState);
+        } catch (IllegalArgumentException e) {
+            statesSynchronized = false;
+            return;
+        }
+        player.updateState(lastState, lastOwnState);
+    }
+
+    /**
+     * Begins the response to the message received. When the format has been chosen with the
+     * server, and thus deltas may be received, the response first acknowledges the states
+     * received: 1 if they could all be applied, 0 if the next ones must be sent whole.
+     */
+    private MessageChannel beginResponse(MessageChannel channel) {
+        channel.beginResponse();
+        if (!offeredFormats.isEmpty()) channel.write(intSerde, statesSynchronized ? 1 : 0);
+        return channel;
+    }
 }
@@ -1,165 +1,657 @@
 package ch.epfl.tchu.net;
 
+import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.game.*;
 
-import java.io.*;
+import java.io.Closeable;
+import java.io.UncheckedIOException;
 import java.net.Socket;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-import static ch.epfl.tchu.net.Serdes.*;
+import static ch.epfl.tchu.net.WireSerde.*;
 
 /**
  * Represents a proxy player. Meant to be used by {@link ch.epfl.tchu.game.Game} as a normal Player.
  *
+ * <p>In batching mode, the messages which expect no response (infos, states...) are not sent
+ * right away, but along with the next message expecting one, or once the given delay has expired,
+ * so that the several messages of a turn take a single write to the network.
+ *
+ * <p>A deadline can be set to the decisions of the player: once it expires, the decision is made
+ * automatically or fails, as decided by an {@link ExpiryPolicy}. A client choosing the format can
+ * also be sent heartbeats when no message has been sent for a while, so that the client notices a
+ * dead server and the proxy a dead client, whose pending decision then fails.
+ *
  * @author Hugues Devimeux (327282)
  * @author Luca Mouchel (324748)
  */
-public final class RemotePlayerProxy implements Player {
+public final class RemotePlayerProxy implements Player, Closeable {
+    // Schedules the flushes of the proxies in batching mode and their heartbeats, and hands them
+    // to the writer: it never writes itself, since a write blocks as long as the client does not
+    // read, which must only hold up the messages of that client.
+    private static final ScheduledExecutorService FLUSHER =
+            Executors.newSingleThreadScheduledExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "tchu-flusher");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+    // Writes the flushes and heartbeats scheduled by the flusher.
+    private static final ExecutorService WRITER =
+            Executors.newCachedThreadPool(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "tchu-writer");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+    // Receives the responses awaited with a deadline, when the channel blocks to receive them.
+    private static final ExecutorService READER =
+            Executors.newCachedThreadPool(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "tchu-reader");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
 
-    // NOTE : these are never closed, and this is intended since this class will in theory be run
-    // during the WHOLE programme.
-    private final BufferedWriter writer;
-    private final BufferedReader reader;
+    // Closed by close, once the game is over, or when the player forfeits.
+    private final MessageChannel channel;
+    // Whether the client knows UPDATE_STATE_DELTA and HEARTBEAT, which it does if it has chosen
+    // the format.
+    private final boolean sendsDeltas;
+    // The states last sent, the ones the next delta is relative to. Also read by the thread making
+    // an expired decision, as are the initial tickets.
+    private volatile PublicGameState lastState;
+    private volatile PlayerState lastOwnState;
+    private volatile SortedBag<Ticket> initialTickets;
+    // Whether the client could not apply a delta, and must thus be sent the whole states next.
+    private final AtomicBoolean wholeStatesRequested = new AtomicBoolean();
+    // Maximal delay of a message expecting no response, null if each message is sent right away.
+    private final Duration flushDelay;
+    // Number of messages sent buffered and not yet flushed, guarded by the channel.
+    private int buffered;
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+    // Maximal delay of a decision and what is done once it expires, null if there is none.
+    private volatile Duration decisionTimeout;
+    private volatile ExpiryPolicy expiryPolicy;
+    private final AtomicInteger consecutiveExpiries = new AtomicInteger();
+    // Response received last when they are received by the reader, guarded by this proxy.
+    private CompletableFuture<?> lastRead = CompletableFuture.completedFuture(null);
+    // Response awaited, failed if the connection is found dead by a heartbeat.
+    private volatile CompletableFuture<?> awaited = CompletableFuture.completedFuture(null);
+    private volatile long lastFlushNanos = System.nanoTime();
+    // Set while holding the lock of the channel, and cancelled by close without it, so that a
+    // write blocked on a slow client does not delay the closing.
+    private volatile ScheduledFuture<?> heartbeats;
+    // Whether a heartbeat is being written, so that a client not reading holds a single writer.
+    private final AtomicBoolean heartbeating = new AtomicBoolean();
 
     /**
-     * Constructor for {@link RemotePlayerProxy}.
+     * Constructor for {@link RemotePlayerProxy}. The messages are exchanged in the {@link
+     * WireFormat#TEXT} format, without choosing it with the client first.
      *
      * @param socket The sockets that will be used to communicate online.
      * @throws NullPointerException if socket is null.
      */
     public RemotePlayerProxy(Socket socket) {
-        Objects.requireNonNull(socket);
-        try {
-            this.writer =
-                    new BufferedWriter(
-                            new OutputStreamWriter(
-                                    socket.getOutputStream(), NetConstants.Network.ENCODING));
-            this.reader =
-                    new BufferedReader(
-                            new InputStreamReader(socket.getInputStream(), NetConstants.Network.ENCODING));
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        this(MessageChannel.of(WireFormat.TEXT, Objects.requireNonNull(socket)), false, null);
+    }
+
+    /**
+     * Constructor for {@link RemotePlayerProxy} choosing the format of the messages with the
+     * client, which must offer its formats when connecting (see {@link
+     * RemotePlayerClient#RemotePlayerClient(Player, String, int, List)}). Blocking. Once the
+     * first state has been sent, only its changes are sent (see {@link
+     * MessageId#UPDATE_STATE_DELTA}), until the client answers that it could not apply them: the
+     * next state is then sent whole.
+     *
+     * @param socket The sockets that will be used to communicate online.
+     * @param accepted The formats the messages can be exchanged in.
+     * @throws NullPointerException if socket is null.
+     * @throws IllegalStateException if the client offers none of the accepted formats.
+     */
+    public RemotePlayerProxy(Socket socket, Collection<WireFormat> accepted) {
+        this(socket, accepted, null);
+    }
+
+    /**
+     * Constructor for {@link RemotePlayerProxy} choosing the format of the messages with the
+     * client (see {@link #RemotePlayerProxy(Socket, Collection)}), in batching mode if flushDelay
+     * is not null. Blocking.
+     *
+     * @param socket The sockets that will be used to communicate online.
+     * @param accepted The formats the messages can be exchanged in.
+     * @param flushDelay The maximal delay of the messages expecting no response, null to send
+     *     each message right away.
+     * @throws NullPointerException if socket is null.
+     * @throws IllegalArgumentException if flushDelay is negative.
+     * @throws IllegalStateException if the client offers none of the accepted formats.
+     */
+    public RemotePlayerProxy(Socket socket, Collection<WireFormat> accepted, Duration flushDelay) {
+        this(socket, accepted, flushDelay, false);
+    }
+
+    /**
+     * Constructor for {@link RemotePlayerProxy} choosing the format of the messages with the
+     * client, in batching mode if flushDelay is not null (see {@link #RemotePlayerProxy(Socket,
+     * Collection, Duration)}), the messages being compressed if asked and if the client offers it
+     * too. Blocking.
+     *
+     * @param socket The sockets that will be used to communicate online.
+     * @param accepted The formats the messages can be exchanged in.
+     * @param flushDelay The maximal delay of the messages expecting no response, null to send
+     *     each message right away.
+     * @param compression Whether to accept to compress the messages.
+     * @throws NullPointerException if socket is null.
+     * @throws IllegalArgumentException if flushDelay is negative.
+     * @throws IllegalStateException if the client offers none of the accepted formats.
+     */
+    public RemotePlayerProxy(
+            Socket socket,
+            Collection<WireFormat> accepted,
+            Duration flushDelay,
+            boolean compression) {
+        this(
+                MessageChannel.acceptFormat(Objects.requireNonNull(socket), accepted, compression),
+                true,
+                flushDelay);
+    }
+
+    /**
+     * Constructor for {@link RemotePlayerProxy} exchanging the messages through the given channel.
+     *
+     * @param channel The channel connected to the client.
+     * @param sendsDeltas Whether the client has chosen the format, and thus knows {@link
+     *     MessageId#UPDATE_STATE_DELTA}.
+     * @param flushDelay The maximal delay of the messages expecting no response, null to send
+     *     each message right away.
+     * @throws IllegalArgumentException if flushDelay is negative.
+     */
+    RemotePlayerProxy(MessageChannel channel, boolean sendsDeltas, Duration flushDelay) {
+        Preconditions.checkArgument(flushDelay == null || !flushDelay.isNegative());
+        this.channel = new MeteredChannel(channel, metrics);
+        this.sendsDeltas = sendsDeltas;
+        this.flushDelay = flushDelay;
+    }
+
+    /**
+     * Sets the deadline of the decisions asked from now on: once it expires, the policy is called
+     * and the decision is either made automatically or fails (see {@link ExpiryPolicy}). A
+     * response received late is ignored.
+     *
+     * @param timeout the maximal delay of each decision, from the moment it is asked.
+     * @param policy what is done when a decision expires.
+     * @throws IllegalArgumentException if timeout is not positive.
+     * @throws NullPointerException if timeout or policy is null.
+     */
+    public void setDecisionDeadline(Duration timeout, ExpiryPolicy policy) {
+        Preconditions.checkArgument(!timeout.isNegative() && !timeout.isZero());
+        this.expiryPolicy = Objects.requireNonNull(policy);
+        this.decisionTimeout = timeout;
+    }
+
+    /**
+     * Sends a {@link MessageId#HEARTBEAT} to the client each time no message has been sent for the
+     * given interval, until the connection fails or the proxy is closed; the decision awaited, if
+     * any, fails in the first case.
+     *
+     * @param interval the delay without any message after which a heartbeat is sent.
+     * @throws IllegalArgumentException if interval is not positive.
+     * @throws IllegalStateException if the client has not chosen the format, and thus does not
+     *     know heartbeats, or if the heartbeats are already started.
+     */
+    public void startHeartbeats(Duration interval) {
+        Preconditions.checkArgument(!interval.isNegative() && !interval.isZero());
+        if (!sendsDeltas) throw new IllegalStateException("The client does not know heartbeats.");
+        long nanos = interval.toNanos();
+        synchronized (channel) {
+            if (heartbeats != null) throw new IllegalStateException("Heartbeats already started.");
+            // Checked twice per interval, so that no more than 1.5 intervals pass without message.
+            heartbeats =
+                    FLUSHER.scheduleWithFixedDelay(
+                            () -> heartbeatLater(nanos),
+                            nanos / 2,
+                            nanos / 2,
+                            TimeUnit.NANOSECONDS);
         }
     }
 
+    /**
+     * Returns the number of decisions in a row the player has let expire, the one expiring
+     * included when called by an {@link ExpiryPolicy}.
+     *
+     * @return the number of decisions expired since the last one made in time.
+     */
+    public int consecutiveExpiriesCount() {
+        return consecutiveExpiries.get();
+    }
+
+    /**
+     * Returns the number of messages sent so far (see {@link
+     * ConnectionMetrics.Snapshot#sentCount()}).
+     *
+     * @return the number of messages sent.
+     */
+    public long sentMessagesCount() {
+        return metrics.snapshot().sentCount();
+    }
+
+    /**
+     * Returns the number of writes to the network so far, each of them sending one message
+     * (outside of the batching mode) or more. The number of messages per write is thus {@link
+     * #sentMessagesCount()} divided by this number (see {@link
+     * ConnectionMetrics.Snapshot#flushesCount()}).
+     *
+     * @return the number of flushes.
+     */
+    public long flushesCount() {
+        return metrics.snapshot().flushesCount();
+    }
+
+    /**
+     * Returns the measures of the messages exchanged with the client so far, for each message.
+     *
+     * @return the measures of the connection.
+     */
+    public ConnectionMetrics metrics() {
+        return metrics;
+    }
+
     @Override
     public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
         Map<PlayerId, String> orderedMap = new EnumMap<>(playerNames);
-        sendInNetwork(
-                MessageId.INIT_PLAYERS,
-                List.of(
-                        playerIdSerde.serialize(ownId),
-                        stringListSerde.serialize(new ArrayList<>(orderedMap.values()))));
+        synchronized (channel) {
+            channel.begin(MessageId.INIT_PLAYERS)
+                    .write(playerIdSerde, ownId)
+                    .write(stringListSerde, new ArrayList<>(orderedMap.values()));
+            sendOneWay();
+        }
     }
 
     @Override
     public void receiveInfo(String info) {
-        sendInNetwork(MessageId.RECEIVE_INFO, List.of(stringSerde.serialize(info)));
+        synchronized (channel) {
+            channel.begin(MessageId.RECEIVE_INFO).write(stringSerde, info);
+            sendOneWay();
+        }
     }
 
     @Override
     public void updateState(PublicGameState newState, PlayerState ownState) {
-        sendInNetwork(
-                MessageId.UPDATE_STATE,
-                List.of(
-                        publicGameStateSerde.serialize(newState),
-                        playerStateSerde.serialize(ownState)));
+        // The whole states are sent first, whenever they can't be rebuilt from the last ones, and
+        // once the client has failed to do so.
+        StateDelta delta =
+                sendsDeltas && lastState != null && !wholeStatesRequested.getAndSet(false)
+                        ? StateDelta.between(lastState, lastOwnState, newState, ownState)
+                        : null;
+        synchronized (channel) {
+            if (delta == null) {
+                channel.begin(MessageId.UPDATE_STATE)
+                        .write(publicGameStateSerde, newState)
+                        .write(playerStateSerde, ownState);
+            } else {
+                channel.begin(MessageId.UPDATE_STATE_DELTA).write(StateDelta.serde, delta);
+            }
+            sendOneWay();
+        }
+        lastState = newState;
+        lastOwnState = ownState;
     }
 
     @Override
     public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
-        sendInNetwork(MessageId.SET_INITIAL_TICKETS, List.of(ticketBagSerde.serialize(tickets)));
+        initialTickets = tickets;
+        synchronized (channel) {
+            channel.begin(MessageId.SET_INITIAL_TICKETS).write(ticketBagSerde, tickets);
+            sendOneWay();
+        }
     }
 
     @Override
     public SortedBag<Ticket> chooseInitialTickets() {
-        sendInNetwork(MessageId.CHOOSE_INITIAL_TICKETS);
-        return ticketBagSerde.deserialize(readFromNetwork());
+        return AsyncPlayer.await(chooseInitialTicketsAsync());
     }
 
     @Override
     public TurnKind nextTurn() {
-        sendInNetwork(MessageId.NEXT_TURN);
-        return turnKindSerde.deserialize(readFromNetwork());
+        return AsyncPlayer.await(nextTurnAsync());
     }
 
     @Override
     public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
-        sendInNetwork(MessageId.CHOOSE_TICKETS, List.of(ticketBagSerde.serialize(options)));
-        return ticketBagSerde.deserialize(readFromNetwork());
+        return AsyncPlayer.await(chooseTicketsAsync(options));
     }
 
     @Override
     public int drawSlot() {
-        sendInNetwork(MessageId.DRAW_SLOT);
-        return intSerde.deserialize(readFromNetwork());
+        return AsyncPlayer.await(drawSlotAsync());
     }
 
     @Override
     public Route claimedRoute() {
-        sendInNetwork(MessageId.ROUTE);
-        return routeSerde.deserialize(readFromNetwork());
+        return AsyncPlayer.await(claimedRouteAsync());
     }
 
     @Override
     public SortedBag<Card> initialClaimCards() {
-        sendInNetwork(MessageId.CARDS);
-        return cardBagSerde.deserialize(readFromNetwork());
+        return AsyncPlayer.await(initialClaimCardsAsync());
     }
 
     @Override
     public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
-        sendInNetwork(
-                MessageId.CHOOSE_ADDITIONAL_CARDS, List.of(listOfCardBagSerde.serialize(options)));
-        return cardBagSerde.deserialize(readFromNetwork());
-    }
-
-	/**
-	 * Reads the network and return a string corresponding to the response.
-	 *
-	 * @return The response.
-	 * @throws IllegalStateException if the end of the stream has been reached
-	 */
-	private String readFromNetwork() {
-        String returnValue;
-        try {
-            returnValue = reader.readLine();
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        return AsyncPlayer.await(chooseAdditionalCardsAsync(options));
+    }
+
+    private CompletableFuture<SortedBag<Ticket>> chooseInitialTicketsAsync() {
+        return request(
+                MessageId.CHOOSE_INITIAL_TICKETS,
+                ticketBagSerde,
+                () -> SortedBag.of(initialTickets.toList().subList(0, 3)));
+    }
+
+    private CompletableFuture<TurnKind> nextTurnAsync() {
+        return request(
+                MessageId.NEXT_TURN,
+                turnKindSerde,
+                () -> lastState.canDrawCards() ? TurnKind.DRAW_CARDS : TurnKind.DRAW_TICKETS);
+    }
+
+    private CompletableFuture<SortedBag<Ticket>> chooseTicketsAsync(SortedBag<Ticket> options) {
+        return request(
+                MessageId.CHOOSE_TICKETS,
+                ticketBagSerde,
+                options,
+                ticketBagSerde,
+                () -> SortedBag.of(options.get(0)));
+    }
+
+    private CompletableFuture<Integer> drawSlotAsync() {
+        return request(MessageId.DRAW_SLOT, intSerde, () -> GameConstants.DECK_SLOT);
+    }
+
+    private CompletableFuture<Route> claimedRouteAsync() {
+        // The claim is given up: the route answered late may differ from any route chosen here,
+        // and its cards would then claim the wrong one.
+        return request(MessageId.ROUTE, routeSerde, () -> null);
+    }
+
+    private CompletableFuture<SortedBag<Card>> initialClaimCardsAsync() {
+        // No cards, which the game rejects: the claim is dropped.
+        return request(MessageId.CARDS, cardBagSerde, SortedBag::of);
+    }
+
+    private CompletableFuture<SortedBag<Card>> chooseAdditionalCardsAsync(
+            List<SortedBag<Card>> options) {
+        // The tunnel is given up.
+        return request(
+                MessageId.CHOOSE_ADDITIONAL_CARDS,
+                listOfCardBagSerde,
+                options,
+                cardBagSerde,
+                SortedBag::of);
+    }
+
+    /**
+     * Sends the message begun, which expects no response: right away, or in batching mode once
+     * the next message expecting a response is sent or the delay has expired. Must be called while
+     * holding the lock of the channel.
+     */
+    private void sendOneWay() {
+        if (flushDelay == null) {
+            channel.send();
+            flushed();
+            return;
         }
-        if (returnValue == null) {
-            throw new IllegalStateException("Expected response from network but gets nothing.");
+        channel.sendBuffered();
+        buffered++;
+        // The first message of a batch decides when the batch is sent at the latest. The batch
+        // is only flushed once, so a client not reading holds a single writer.
+        if (buffered == 1)
+            FLUSHER.schedule(
+                    () -> WRITER.execute(this::flushExpired),
+                    flushDelay.toNanos(),
+                    TimeUnit.NANOSECONDS);
+    }
+
+    // Called by the writer once the delay of a batch has expired.
+    private void flushExpired() {
+        synchronized (channel) {
+            if (buffered == 0) return;
+            try {
+                channel.flush();
+            } catch (UncheckedIOException e) {
+                // The failure is known by the next message sent by the game.
+                return;
+            }
+            flushed();
+        }
+    }
+
+    // Notes a write to the network. Must be called while holding the lock of the channel.
+    private void flushed() {
+        buffered = 0;
+        lastFlushNanos = System.nanoTime();
+    }
+
+    // Called by the flusher, has the writer send a heartbeat if nothing has been sent for the
+    // interval, unless the previous one is still being written.
+    private void heartbeatLater(long intervalNanos) {
+        if (System.nanoTime() - lastFlushNanos < intervalNanos) return;
+        if (!heartbeating.compareAndSet(false, true)) return;
+        WRITER.execute(
+                () -> {
+                    try {
+                        heartbeat(intervalNanos);
+                    } finally {
+                        heartbeating.set(false);
+                    }
+                });
+    }
+
+    // Called by the writer, sends a heartbeat if nothing has been sent for the interval.
+    private void heartbeat(long intervalNanos) {
+        synchronized (channel) {
+            if (System.nanoTime() - lastFlushNanos < intervalNanos) return;
+            try {
+                channel.begin(MessageId.HEARTBEAT);
+                channel.send();
+            } catch (RuntimeException e) {
+                heartbeats.cancel(false);
+                awaited.completeExceptionally(e);
+                return;
+            }
+            flushed();
         }
-        return returnValue;
     }
 
     /**
-     * Sends in the network the passed messageId and eventual args in the right format. Blocking.
+     * Sends the message without argument, along with the ones waiting to be sent, and returns the
+     * future response, deserialized.
      *
-     * @param messageId The message Id. Can't be null.
+     * @param messageId The message, expecting a response.
+     * @param serde The serdes of the response.
+     * @param automatic The decision made if the deadline expires.
+     * @return The future response, failing with an {@link IllegalStateException} if the end of the
+     *     stream has been reached.
      */
-    private void sendInNetwork(MessageId messageId) {
-        sendInNetwork(messageId, Collections.emptyList());
+    private <T> CompletableFuture<T> request(
+            MessageId messageId, WireSerde<T> serde, Supplier<T> automatic) {
+        return request(messageId, null, null, serde, automatic);
     }
 
     /**
-     * Sends in the network the passed messageId and eventual args in the right format. Blocking.
+     * Sends the message with its argument, along with the ones waiting to be sent, and returns the
+     * future response, deserialized.
      *
-     * @param messageId The message Id. Can't be null.
-     * @param serializedArgs The args serialized. Can't be null but can be empty.
+     * @param messageId The message, expecting a response.
+     * @param argumentSerde The serdes of the argument, null if there is none.
+     * @param argument The argument.
+     * @param serde The serdes of the response.
+     * @param automatic The decision made if the deadline expires.
+     * @return The future response, failing with an {@link IllegalStateException} if the end of the
+     *     stream has been reached.
+     */
+    private <A, T> CompletableFuture<T> request(
+            MessageId messageId,
+            WireSerde<A> argumentSerde,
+            A argument,
+            WireSerde<T> serde,
+            Supplier<T> automatic) {
+        synchronized (channel) {
+            channel.begin(messageId);
+            if (argumentSerde != null) channel.write(argumentSerde, argument);
+            channel.send();
+            flushed();
+        }
+        Duration timeout = decisionTimeout;
+        // Read outside of the lock, so that the writer is never blocked by a slow client.
+        CompletableFuture<T> response =
+                timeout == null || channel.receivesResponsesAsync()
+                        ? channel.receiveResponseAsync().thenApply(v -> readResponse(serde))
+                        : readLater(serde);
+        awaited = response;
+        if (timeout == null) return response;
+        return response.copy()
+                .orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS)
+                .handle((decision, failure) -> expired(messageId, decision, failure, automatic))
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * Receives the response on the reader, once the previous ones are received: the ones received
+     * late are thus skipped.
+     */
+    private <T> CompletableFuture<T> readLater(WireSerde<T> serde) {
+        synchronized (this) {
+            CompletableFuture<T> response =
+                    lastRead.handle((v, failure) -> null)
+                            .thenApplyAsync(
+                                    v -> {
+                                        channel.receiveResponse();
+                                        return readResponse(serde);
+                                    },
+                                    READER);
+            lastRead = response;
+            return response;
+        }
+    }
+
+    /**
+     * Reads the response received, preceded by the acknowledgement of the states sent if the client
+     * knows deltas: the next state is sent whole if it could not apply them. Also called for the
+     * responses received late, so that their acknowledgements are not lost.
+     */
+    private <T> T readResponse(WireSerde<T> serde) {
+        if (sendsDeltas && channel.read(intSerde) == 0) wholeStatesRequested.set(true);
+        return channel.read(serde);
+    }
+
+    // The decision if it is made in time; otherwise, the one of the expiry policy.
+    private <T> CompletableFuture<T> expired(
+            MessageId messageId, T decision, Throwable failure, Supplier<T> automatic) {
+        if (failure == null) {
+            consecutiveExpiries.set(0);
+            return CompletableFuture.completedFuture(decision);
+        }
+        if (failure instanceof CompletionException) failure = failure.getCause();
+        if (!(failure instanceof TimeoutException)) return CompletableFuture.failedFuture(failure);
+        consecutiveExpiries.incrementAndGet();
+        try {
+            expiryPolicy.onExpiry(this, messageId);
+            return CompletableFuture.completedFuture(automatic.get());
+        } catch (RuntimeException e) {
+            // The player forfeits: the thread receiving its response, if any, is released.
+            close();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Stops the heartbeats and closes the connection to the client, failing the decision awaited,
+     * if any. Meant to be called once the game is over, whatever its outcome: nothing is sent to
+     * the client afterwards. Does nothing if already closed.
      */
-    private void sendInNetwork(MessageId messageId, List<String> serializedArgs) {
+    @Override
+    public void close() {
+        ScheduledFuture<?> heartbeats = this.heartbeats;
+        if (heartbeats != null) heartbeats.cancel(false);
         try {
-            this.writer.write(Objects.requireNonNull(messageId).name() + NetConstants.Network.SEPARATOR_COMPONENT_MESSAGE);
-            if (serializedArgs.size() > 0) {
-                this.writer.write(
-                        String.join(NetConstants.Network.SEPARATOR_COMPONENT_MESSAGE, Objects.requireNonNull(serializedArgs)));
-            }
-            this.writer.write(NetConstants.Network.CHAR_END_MESSAGE);
-            this.writer.flush();
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+            channel.close();
+        } catch (UncheckedIOException e) {
+            // The connection is dropped anyway.
         }
     }
+
+    /**
+     * Returns this player as an asynchronous one, exchanging the same messages through the same
+     * connection. Its decisions are awaited without blocking any thread when the connection
+     * supports it (see {@link NioGameServer}), and by the thread asking for them otherwise.
+     *
+     * @return the asynchronous player.
+     */
+    public AsyncPlayer async() {
+        return new AsyncPlayer() {
+            @Override
+            public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+                RemotePlayerProxy.this.initPlayers(ownId, playerNames);
+            }
+
+            @Override
+            public void receiveInfo(String info) {
+                RemotePlayerProxy.this.receiveInfo(info);
+            }
+
+            @Override
+            public void updateState(PublicGameState newState, PlayerState ownState) {
+                RemotePlayerProxy.this.updateState(newState, ownState);
+            }
+
+            @Override
+            public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+                RemotePlayerProxy.this.setInitialTicketChoice(tickets);
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Ticket>> chooseInitialTickets() {
+                return chooseInitialTicketsAsync();
+            }
+
+            @Override
+            public CompletableFuture<TurnKind> nextTurn() {
+                return nextTurnAsync();
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Ticket>> chooseTickets(SortedBag<Ticket> options) {
+                return chooseTicketsAsync(options);
+            }
+
+            @Override
+            public CompletableFuture<Integer> drawSlot() {
+                return drawSlotAsync();
+            }
+
+            @Override
+            public CompletableFuture<Route> claimedRoute() {
+                return claimedRouteAsync();
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Card>> initialClaimCards() {
+                return initialClaimCardsAsync();
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Card>> chooseAdditionalCards(
+                    List<SortedBag<Card>> options) {
+                return chooseAdditionalCardsAsync(options);
+            }
+        };
+    }
 }
@@ -3,17 +3,26 @@ package ch.epfl.tchu.net;
 import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.SortedBag;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Representation of a Serde (serialized or deserialized object).
  *
+ * <p>Besides Strings, a serde can write to any {@link Appendable} and read a region of any {@link
+ * CharSequence}, so that the serdes of composite objects don't create a String for each of their
+ * parts. The serdes built by {@link #of(Writer, Reader)}, {@link #oneOf(List)}, {@link
+ * #listOf(Serde, String)} and {@link #bagOf(Serde, String)} do so, their String methods being
+ * wrappers of the streaming ones.
+ *
  * @param <T> type of the serde
  * @author Luca Mouchel (324748)
  * @author Hugues Devimeux (327282)
@@ -36,6 +45,71 @@ public interface Serde<T> {
      */
     T deserialize(String s);
 
+    /**
+     * Serialization of object of type T at the end of the given output. By default, appends the
+     * result of {@link #serialize(Object)}.
+     *
+     * @param object of type {@code T} to serialize
+     * @param out where to append the serialized string
+     * @throws UncheckedIOException if the output fails
+     */
+    default void serializeTo(T object, Appendable out) {
+        try {
+            out.append(serialize(object));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deserialization of the characters of {@code text} from index {@code start} (inclusive) to
+     * index {@code end} (exclusive) into an object of type T. By default, deserializes that region
+     * with {@link #deserialize(String)}.
+     *
+     * @param text containing the serialized string
+     * @param start index of the first character of the serialized string
+     * @param end index following the last character of the serialized string
+     * @return deserialized object
+     */
+    default T deserializeFrom(CharSequence text, int start, int end) {
+        return deserialize(text.subSequence(start, end).toString());
+    }
+
+    /**
+     * Writes objects of type T at the end of an output.
+     *
+     * @param <T> type of the object to serialize
+     */
+    @FunctionalInterface
+    interface Writer<T> {
+        /**
+         * Appends the serialization of the object to the output.
+         *
+         * @param object to serialize
+         * @param out where to append the serialized string
+         * @throws IOException if the output fails
+         */
+        void write(T object, Appendable out) throws IOException;
+    }
+
+    /**
+     * Reads objects of type T from a region of characters.
+     *
+     * @param <T> type of the object to deserialize
+     */
+    @FunctionalInterface
+    interface Reader<T> {
+        /**
+         * Deserializes the characters of text from start (inclusive) to end (exclusive).
+         *
+         * @param text containing the serialized string
+         * @param start index of the first character of the serialized string
+         * @param end index following the last character of the serialized string
+         * @return deserialized object
+         */
+        T read(CharSequence text, int start, int end);
+    }
+
     /**
      * Creates a simple serde given the serializer and the deserializer.
      *
@@ -70,6 +144,45 @@ public interface Serde<T> {
         };
     }
 
+    /**
+     * Creates a serde given the streaming serializer and deserializer, its String methods being
+     * wrappers of them.
+     *
+     * @param writer appends the serialization of an object of type {@code T} to an output
+     * @param reader deserializes a region of characters into an object of type {@code T}
+     * @param <T> type of the object to (de)serialize
+     * @return Serde of type {@code T}
+     */
+    static <T> Serde<T> of(Writer<T> writer, Reader<T> reader) {
+        return new Serde<>() {
+            @Override
+            public String serialize(T object) {
+                StringBuilder out = new StringBuilder();
+                serializeTo(object, out);
+                return out.toString();
+            }
+
+            @Override
+            public T deserialize(String s) {
+                return reader.read(s, 0, s.length());
+            }
+
+            @Override
+            public void serializeTo(T object, Appendable out) {
+                try {
+                    writer.write(object, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public T deserializeFrom(CharSequence text, int start, int end) {
+                return reader.read(text, start, end);
+            }
+        };
+    }
+
     /**
      * Given a list, returns the serializer of its elements.
      *
@@ -80,15 +193,18 @@ public interface Serde<T> {
      */
     static <T> Serde<T> oneOf(List<T> objList) {
         Preconditions.checkArgument(!objList.isEmpty());
-        Function<T, String> serialize = (T t) -> {
-        	if (t == null) return NetConstants.Serdes.DEFAULT_VALUE_EMPTINESS;
-        	return String.valueOf(objList.indexOf(t));
-		};
-        Function<String, T> deserialize = (String s) -> {
-        	if (s.equals(NetConstants.Serdes.DEFAULT_VALUE_EMPTINESS)) return null;
-        	return objList.get(Integer.parseInt(s));
-		};
-        return Serde.of(serialize, deserialize);
+        // Index of the first occurrence of each object, as indexOf would return, without a scan.
+        Map<T, String> indexOf = new HashMap<>();
+        for (int i = 0; i < objList.size(); i++)
+            indexOf.putIfAbsent(objList.get(i), String.valueOf(i));
+        return Serde.of(
+                (T t, Appendable out) -> {
+                    if (t != null) out.append(indexOf.getOrDefault(t, "-1"));
+                },
+                (text, start, end) -> {
+                    if (start == end) return null;
+                    return objList.get(Integer.parseInt(text, start, end, 10));
+                });
     }
 
     /**
@@ -103,35 +219,15 @@ public interface Serde<T> {
      */
     static <T> Serde<List<T>> listOf(Serde<T> serde, String separator) {
         Objects.requireNonNull(separator);
-        return new Serde<>() {
-            /**
-             * Returns a Serialized string where each element of the parameter is separated by
-             * {@code separator}.
-             *
-             * @param listToSerialize each element is serialized and joined into a string
-             * @return a serialized string
-             */
-            @Override
-
-            public String serialize(List<T> listToSerialize) {
-            	if (listToSerialize.isEmpty()) return NetConstants.Serdes.DEFAULT_VALUE_EMPTINESS;
-                return Serde.serializeList(serde, listToSerialize, separator);
-            }
-
-            /**
-             * Returns a deserialized string in the form of a list.
-             *
-             * @param s of type {@code String to deserialize into type {@code List<T>
-             * @return a list that's been deserialized from the string s
-             */
-            @Override
-            public List<T> deserialize(String s) {
-            	if (s.equals(NetConstants.Serdes.DEFAULT_VALUE_EMPTINESS)) return Collections.emptyList();
-                return Arrays.stream(s.split(Pattern.quote(separator), -1))
-                        .map(serde::deserialize)
-                        .collect(Collectors.toList());
-            }
-        };
+        return Serde.of(
+                (List<T> listToSerialize, Appendable out) ->
+                        serializeList(serde, listToSerialize, separator, out),
+                (text, start, end) -> {
+                    if (start == end) return Collections.emptyList();
+                    List<T> list = new ArrayList<>();
+                    deserializeList(serde, text, start, end, separator, list::add);
+                    return list;
+                });
     }
 
     /**
@@ -144,51 +240,64 @@ public interface Serde<T> {
      * @return a serde capable of (de)serializing bags of (de)serialized values
      */
     static <T extends Comparable<T>> Serde<SortedBag<T>> bagOf(Serde<T> serde, String separator) {
-        return new Serde<>() {
-            /**
-             * Returns a Serialized string where each element of the parameter is separated by
-             * {@code separator}.
-             *
-             * @param bagToSerialize each element is serialized and joined into a string
-             * @return a serialized string
-             */
-            @Override
-            public String serialize(SortedBag<T> bagToSerialize) {
-				if (bagToSerialize.isEmpty()) return NetConstants.Serdes.DEFAULT_VALUE_EMPTINESS;
-				return Serde.serializeList(serde, bagToSerialize.toList(), separator);
-            }
-
-            /**
-             * Returns a deserialized string in the form of a Sorted Bag.
-             *
-             * @param s of type {@code String} to deserialize into type SortedBag<T>
-             * @return a bag that's been deserialized from the string s
-             */
-            @Override
-            public SortedBag<T> deserialize(String s) {
-            	if (s.equals(NetConstants.Serdes.DEFAULT_VALUE_EMPTINESS)) return SortedBag.of();
-            	List<String> splitString = Arrays.asList(s.split(Pattern.quote(separator), -1));
-                return SortedBag.of(
-                        splitString.stream().map(serde::deserialize).collect(Collectors.toList()));
-            }
-        };
+        return Serde.of(
+                (SortedBag<T> bagToSerialize, Appendable out) ->
+                        serializeList(serde, bagToSerialize, separator, out),
+                (text, start, end) -> {
+                    if (start == end) return SortedBag.of();
+                    SortedBag.Builder<T> bag = new SortedBag.Builder<>();
+                    deserializeList(serde, text, start, end, separator, bag::add);
+                    return bag.build();
+                });
     }
 
     /**
      * Private method in charge of serializing lists.
-	 * If the list is empty, returns an empty string.
+     * If the list is empty, appends nothing.
      *
      * @param serde to use to (de)serialize
-     * @param listToSerialize serialize each element and join them in a string
+     * @param elements serialize each element and join them in the output
      * @param separator character to separate each element of the list
+     * @param out where to append the serialized elements
+     * @param <T> type of the object to (de)serialize
+     * @throws IOException if the output fails
+     */
+    private static <T> void serializeList(
+            Serde<T> serde, Iterable<T> elements, String separator, Appendable out)
+            throws IOException {
+        boolean first = true;
+        for (T element : elements) {
+            if (!first) out.append(separator);
+            serde.serializeTo(element, out);
+            first = false;
+        }
+    }
+
+    /**
+     * Private method in charge of deserializing lists: deserializes each region of the text
+     * between two separators, in order, without creating a String for each of them.
+     *
+     * @param serde to use to (de)serialize
+     * @param text containing the serialized list
+     * @param start index of the first character of the serialized list
+     * @param end index following the last character of the serialized list
+     * @param separator character separating each element of the list
+     * @param consumer receiving each deserialized element
      * @param <T> type of the object to (de)serialize
-     * @return a String that's been serialized from the list
      */
-    private static <T> String serializeList(
-            Serde<T> serde, List<T> listToSerialize, String separator) {
-		// If the list is empty, this will return an empty string.
-        return listToSerialize.stream()
-                .map(serde::serialize)
-                .collect(Collectors.joining(separator));
+    private static <T> void deserializeList(
+            Serde<T> serde,
+            CharSequence text,
+            int start,
+            int end,
+            String separator,
+            Consumer<T> consumer) {
+        int elementStart = start;
+        while (true) {
+            int elementEnd = TextRegions.indexOf(text, separator, elementStart, end);
+            consumer.accept(serde.deserializeFrom(text, elementStart, elementEnd));
+            if (elementEnd == end) return;
+            elementStart = elementEnd + separator.length();
+        }
     }
 }
@@ -1,15 +1,16 @@
 package ch.epfl.tchu.net;
 
+import ch.epfl.tchu.Preconditions;
 import ch.epfl.tchu.SortedBag;
 import ch.epfl.tchu.game.*;
 
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
 import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static ch.epfl.tchu.net.TextRegions.fields;
 
 /**
  * Class with all the useful Serdes.
@@ -21,18 +22,31 @@ public final class Serdes {
 
     /** Serde for integers */
     public static final Serde<Integer> intSerde =
-            Serde.of(i -> Integer.toString(i), Integer::parseInt);
+            Serde.of(
+                    (Integer i, Appendable out) -> out.append(Integer.toString(i)),
+                    (text, start, end) -> Integer.parseInt(text, start, end, 10));
 
     /** Not instantiable. */
     private Serdes() {}
     /** Serde for Strings using Base64 class */
     public static final Serde<String> stringSerde =
             Serde.of(
-                    obj -> Base64.getEncoder().encodeToString(obj.getBytes(NetConstants.Serdes.ENCODING)),
-                    str ->
-                            new String(
-                                    Base64.getDecoder().decode(str.getBytes()),
-                                    NetConstants.Serdes.ENCODING));
+                    (String obj, Appendable out) ->
+                            out.append(
+                                    Base64.getEncoder()
+                                            .encodeToString(
+                                                    obj.getBytes(NetConstants.Serdes.ENCODING))),
+                    (text, start, end) -> {
+                        // The Base64 alphabet is ASCII, each character being a single byte.
+                        byte[] encoded = new byte[end - start];
+                        for (int i = start; i < end; i++) {
+                            char c = text.charAt(i);
+                            Preconditions.checkArgument(c < 0x80);
+                            encoded[i - start] = (byte) c;
+                        }
+                        return new String(
+                                Base64.getDecoder().decode(encoded), NetConstants.Serdes.ENCODING);
+                    });
     /** Serde for PlayerId */
     public static final Serde<PlayerId> playerIdSerde = Serde.oneOf(PlayerId.ALL);
     /** Serde for TurnKind */
@@ -63,99 +77,119 @@ public final class Serdes {
     /** Serde for public card states to separate with ";" */
     public static final Serde<PublicCardState> publicCardStateSerde =
             Serde.of(
-                    (publicCardState) -> // join each element from the constructor of Public
-                            // cardState with ";"
-                            String.join(
-								NetConstants.Serdes.SEPARATOR_2,
-                                    cardListSerde.serialize(publicCardState.faceUpCards()),
-                                    intSerde.serialize(publicCardState.deckSize()),
-                                    intSerde.serialize(publicCardState.discardsSize())),
-                    (str) -> {
-                        // to deserialize, split the string with ";" and deserialize each element
-                        // the numbers 0,1,2 are indexes to correspond to the index of the
-                        // attributes of the constructor of the class PublicCardState -
+                    (PublicCardState publicCardState, Appendable out) -> {
+                        // append each element from the constructor of PublicCardState, separated
+                        // by ";"
+                        cardListSerde.serializeTo(publicCardState.faceUpCards(), out);
+                        out.append(NetConstants.Serdes.SEPARATOR_2);
+                        intSerde.serializeTo(publicCardState.deckSize(), out);
+                        out.append(NetConstants.Serdes.SEPARATOR_2);
+                        intSerde.serializeTo(publicCardState.discardsSize(), out);
+                    },
+                    (text, start, end) -> {
+                        // to deserialize, find the 3 fields separated by ";" and deserialize each
+                        // of them in place. the numbers 0,1,2 are indexes to correspond to the
+                        // index of the attributes of the constructor of the class PublicCardState
                         // ie index 0 -> attribute List<Cards>faceUpCards -> use of cardListSerde
-                        String[] elements = str.split(Pattern.quote(NetConstants.Serdes.SEPARATOR_2), -1);
+                        int[] fields = fields(text, NetConstants.Serdes.SEPARATOR_2, start, end, 3);
                         return new PublicCardState(
-                                cardListSerde.deserialize(elements[0]),
-                                intSerde.deserialize(elements[1]),
-                                intSerde.deserialize(elements[2]));
+                                field(cardListSerde, text, fields, 0),
+                                field(intSerde, text, fields, 1),
+                                field(intSerde, text, fields, 2));
                     });
     /** Serde for public player states to separate with ";" */
     public static final Serde<PublicPlayerState> publicPlayerStateSerde =
-            // same principle as the previous Serde, join each serialized item
-            // from the constructor of PublicPlayerState by ";"
+            // same principle as the previous Serde, append each serialized item
+            // from the constructor of PublicPlayerState separated by ";"
             Serde.of(
-                    (publicPlayerState) ->
-                            String.join(
-								NetConstants.Serdes.SEPARATOR_2,
-                                    intSerde.serialize(publicPlayerState.ticketCount()),
-                                    intSerde.serialize(publicPlayerState.cardCount()),
-                                    routeListSerde.serialize(publicPlayerState.routes())),
-                    (str) -> {
-                        // same principle as the previous Serde, split the string with ";"
-                        // and deserialize each element. the numbers 0,1,2 are indexes
+                    (PublicPlayerState publicPlayerState, Appendable out) -> {
+                        intSerde.serializeTo(publicPlayerState.ticketCount(), out);
+                        out.append(NetConstants.Serdes.SEPARATOR_2);
+                        intSerde.serializeTo(publicPlayerState.cardCount(), out);
+                        out.append(NetConstants.Serdes.SEPARATOR_2);
+                        routeListSerde.serializeTo(publicPlayerState.routes(), out);
+                    },
+                    (text, start, end) -> {
+                        // same principle as the previous Serde, find the fields separated by ";"
+                        // and deserialize each of them. the numbers 0,1,2 are indexes
                         // that correspond to the index of the attributes of the constructor
-                        // of the class PublicCardState
-                        String[] elements = str.split(Pattern.quote(NetConstants.Serdes.SEPARATOR_2), -1);
+                        // of the class PublicPlayerState
+                        int[] fields = fields(text, NetConstants.Serdes.SEPARATOR_2, start, end, 3);
                         return new PublicPlayerState(
-                                intSerde.deserialize(elements[0]),
-                                intSerde.deserialize(elements[1]),
-                                routeListSerde.deserialize(elements[2]));
+                                field(intSerde, text, fields, 0),
+                                field(intSerde, text, fields, 1),
+                                field(routeListSerde, text, fields, 2));
                     });
     /** Serde for PlayerStates to separate with ";" */
     public static final Serde<PlayerState> playerStateSerde =
             // functions in the same way as the previous Serdes.
             Serde.of(
-                    (playerState) ->
-                            String.join(
-								NetConstants.Serdes.SEPARATOR_2,
-                                    ticketBagSerde.serialize(playerState.tickets()),
-                                    cardBagSerde.serialize(playerState.cards()),
-                                    routeListSerde.serialize(playerState.routes())),
-                    (str) -> {
-                        String[] elements = str.split(Pattern.quote(NetConstants.Serdes.SEPARATOR_2), -1);
+                    (PlayerState playerState, Appendable out) -> {
+                        ticketBagSerde.serializeTo(playerState.tickets(), out);
+                        out.append(NetConstants.Serdes.SEPARATOR_2);
+                        cardBagSerde.serializeTo(playerState.cards(), out);
+                        out.append(NetConstants.Serdes.SEPARATOR_2);
+                        routeListSerde.serializeTo(playerState.routes(), out);
+                    },
+                    (text, start, end) -> {
+                        int[] fields = fields(text, NetConstants.Serdes.SEPARATOR_2, start, end, 3);
                         return new PlayerState(
-                                ticketBagSerde.deserialize(elements[0]),
-                                cardBagSerde.deserialize(elements[1]),
-                                routeListSerde.deserialize(elements[2]));
+                                field(ticketBagSerde, text, fields, 0),
+                                field(cardBagSerde, text, fields, 1),
+                                field(routeListSerde, text, fields, 2));
                     });
     /** Serde for public game states to separate with ":" */
     public static final Serde<PublicGameState> publicGameStateSerde =
-            Serde.of( // same principle, join each serialized element with ":"
+            Serde.of( // same principle, append each serialized element separated by ":"
                     // there is a certain order to serialize elements in so we can use hard
                     // coded elements such as PLAYER_1: Cf paper
-                    (publicGameState) ->
-                            String.join(
-								NetConstants.Serdes.SEPARATOR_3,
-                                    intSerde.serialize(publicGameState.ticketsCount()),
-                                    publicCardStateSerde.serialize(publicGameState.cardState()),
-                                    playerIdSerde.serialize(publicGameState.currentPlayerId()),
-                                    publicPlayerStateSerde.serialize(
-                                            publicGameState.playerState(PLAYER_1)),
-                                    publicPlayerStateSerde.serialize(
-                                            publicGameState.playerState(PLAYER_2)),
-                                    playerIdSerde.serialize(publicGameState.lastPlayer())),
-      
-                    (str) -> {
-                        // we split the string but now we have an array of 5 elements
-                        // in order, these are the attributes of the constructor of
-                        // PublicGameState.java
+                    (PublicGameState publicGameState, Appendable out) -> {
+                        intSerde.serializeTo(publicGameState.ticketsCount(), out);
+                        out.append(NetConstants.Serdes.SEPARATOR_3);
+                        publicCardStateSerde.serializeTo(publicGameState.cardState(), out);
+                        out.append(NetConstants.Serdes.SEPARATOR_3);
+                        playerIdSerde.serializeTo(publicGameState.currentPlayerId(), out);
+                        out.append(NetConstants.Serdes.SEPARATOR_3);
+                        publicPlayerStateSerde.serializeTo(
+                                publicGameState.playerState(PLAYER_1), out);
+                        out.append(NetConstants.Serdes.SEPARATOR_3);
+                        publicPlayerStateSerde.serializeTo(
+                                publicGameState.playerState(PLAYER_2), out);
+                        out.append(NetConstants.Serdes.SEPARATOR_3);
+                        playerIdSerde.serializeTo(publicGameState.lastPlayer(), out);
+                    },
+                    (text, start, end) -> {
+                        // we find the 6 fields separated by ":", in order, these are the
+                        // attributes of the constructor of PublicGameState.java
                         // index 0 -> int ticketsCount, index 1 -> PublicCardState
                         // index 2 -> currentPlayerId, index 3,4 -> publicPlayerStates to
                         // put into a map. index 5 -> lastPlayerId
-                        String[] elements = str.split(Pattern.quote(NetConstants.Serdes.SEPARATOR_3), -1);
-                        PublicPlayerState firstPS = publicPlayerStateSerde.deserialize(elements[3]);
-                        PublicPlayerState secondPS =
-                                publicPlayerStateSerde.deserialize(elements[4]);
-                        // An empty string is deserialized as a null player.
+                        int[] fields = fields(text, NetConstants.Serdes.SEPARATOR_3, start, end, 6);
+                        PublicPlayerState firstPS = field(publicPlayerStateSerde, text, fields, 3);
+                        PublicPlayerState secondPS = field(publicPlayerStateSerde, text, fields, 4);
+                        // An empty field is deserialized as a null player.
                         Map<PlayerId, PublicPlayerState> map =
                                 Map.of(PLAYER_1, firstPS, PLAYER_2, secondPS);
                         return new PublicGameState(
-                                intSerde.deserialize(elements[0]),
-                                publicCardStateSerde.deserialize(elements[1]),
-                                playerIdSerde.deserialize(elements[2]),
+                                field(intSerde, text, fields, 0),
+                                field(publicCardStateSerde, text, fields, 1),
+                                field(playerIdSerde, text, fields, 2),
                                 map,
-                                playerIdSerde.deserialize(elements[5]));
+                                field(playerIdSerde, text, fields, 5));
                     });
+
+    /**
+     * Deserializes the field of the given index, whose bounds have been found by {@link
+     * TextRegions#fields(CharSequence, String, int, int, int)}.
+     *
+     * @param serde to use to deserialize the field
+     * @param text containing the field
+     * @param fields bounds of the fields
+     * @param index of the field
+     * @param <T> type of the field
+     * @return the deserialized field
+     */
+    private static <T> T field(Serde<T> serde, CharSequence text, int[] fields, int index) {
+        return serde.deserializeFrom(text, fields[2 * index], fields[2 * index + 1]);
+    }
 }
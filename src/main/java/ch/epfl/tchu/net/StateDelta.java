@@ -0,0 +1,288 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Changes between two successive states sent to a player, so that the second one can be rebuilt
+ * from the first one: the counts which changed, the face-up cards replaced, the routes claimed
+ * since, and the cards and tickets the player gained or lost. Each field is null if it did not
+ * change. Immutable.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+final class StateDelta {
+    // Indices of the fields, in the order they are (de)serialized.
+    private static final int TICKETS_COUNT = 0;
+    // The 5 face-up cards, null for the slots which did not change.
+    private static final int FACE_UP_CARDS = 1;
+    private static final int DECK_SIZE = 2;
+    private static final int DISCARDS_SIZE = 3;
+    private static final int CURRENT_PLAYER = 4;
+    private static final int LAST_PLAYER = 5;
+    // The ticket count, card count and claimed routes of the players, by ordinal.
+    private static final int PLAYER_FIELDS = 6;
+    private static final int TICKET_COUNT = 0;
+    private static final int CARD_COUNT = 1;
+    private static final int ADDED_ROUTES = 2;
+    private static final int FIELDS_PER_PLAYER = 3;
+    // The tickets, cards and routes of the player the state is sent to.
+    private static final int OWN_ADDED_TICKETS = PLAYER_FIELDS + FIELDS_PER_PLAYER * PlayerId.COUNT;
+    private static final int OWN_ADDED_CARDS = OWN_ADDED_TICKETS + 1;
+    private static final int OWN_REMOVED_CARDS = OWN_ADDED_TICKETS + 2;
+    private static final int OWN_ADDED_ROUTES = OWN_ADDED_TICKETS + 3;
+    private static final int FIELD_COUNT = OWN_ADDED_TICKETS + 4;
+
+    private static final List<WireSerde<?>> FIELD_SERDES = fieldSerdes();
+
+    /**
+     * Serdes of the deltas. In text, the fields are separated by ":", an empty field being
+     * unchanged; in binary, a bit set tells which fields follow.
+     */
+    static final WireSerde<StateDelta> serde =
+            WireSerde.of(
+                    Serde.of(StateDelta::serialize, StateDelta::deserialize),
+                    BinarySerde.of(StateDelta::write, StateDelta::read));
+
+    private final Object[] fields;
+
+    private StateDelta(Object[] fields) {
+        this.fields = fields;
+    }
+
+    private static List<WireSerde<?>> fieldSerdes() {
+        WireSerde<?>[] serdes = new WireSerde<?>[FIELD_COUNT];
+        serdes[TICKETS_COUNT] = WireSerde.intSerde;
+        serdes[FACE_UP_CARDS] = WireSerde.cardListSerde;
+        serdes[DECK_SIZE] = WireSerde.intSerde;
+        serdes[DISCARDS_SIZE] = WireSerde.intSerde;
+        serdes[CURRENT_PLAYER] = WireSerde.playerIdSerde;
+        serdes[LAST_PLAYER] = WireSerde.playerIdSerde;
+        for (PlayerId playerId : PlayerId.ALL) {
+            serdes[playerField(playerId, TICKET_COUNT)] = WireSerde.intSerde;
+            serdes[playerField(playerId, CARD_COUNT)] = WireSerde.intSerde;
+            serdes[playerField(playerId, ADDED_ROUTES)] = WireSerde.routeListSerde;
+        }
+        serdes[OWN_ADDED_TICKETS] = WireSerde.ticketBagSerde;
+        serdes[OWN_ADDED_CARDS] = WireSerde.cardBagSerde;
+        serdes[OWN_REMOVED_CARDS] = WireSerde.cardBagSerde;
+        serdes[OWN_ADDED_ROUTES] = WireSerde.routeListSerde;
+        return List.of(serdes);
+    }
+
+    private static int playerField(PlayerId playerId, int field) {
+        return PLAYER_FIELDS + FIELDS_PER_PLAYER * playerId.ordinal() + field;
+    }
+
+    /**
+     * Returns the changes between the given states, or null if the new states can't be rebuilt
+     * from the old ones with changes only, e.g. if routes or tickets have been removed.
+     *
+     * @param oldState the state last sent.
+     * @param oldOwnState the state of the player last sent.
+     * @param newState the new state.
+     * @param newOwnState the new state of the player.
+     * @return the changes between the states, null if they must be sent whole.
+     */
+    static StateDelta between(
+            PublicGameState oldState,
+            PlayerState oldOwnState,
+            PublicGameState newState,
+            PlayerState newOwnState) {
+        Object[] fields = new Object[FIELD_COUNT];
+        fields[TICKETS_COUNT] = changed(oldState.ticketsCount(), newState.ticketsCount());
+        List<Card> oldFaceUpCards = oldState.cardState().faceUpCards();
+        List<Card> newFaceUpCards = newState.cardState().faceUpCards();
+        if (!oldFaceUpCards.equals(newFaceUpCards)) {
+            List<Card> faceUpCards = new ArrayList<>(newFaceUpCards.size());
+            for (int slot = 0; slot < newFaceUpCards.size(); slot++) {
+                Card card = newFaceUpCards.get(slot);
+                faceUpCards.add(card.equals(oldFaceUpCards.get(slot)) ? null : card);
+            }
+            fields[FACE_UP_CARDS] = faceUpCards;
+        }
+        fields[DECK_SIZE] =
+                changed(oldState.cardState().deckSize(), newState.cardState().deckSize());
+        fields[DISCARDS_SIZE] =
+                changed(oldState.cardState().discardsSize(), newState.cardState().discardsSize());
+        fields[CURRENT_PLAYER] = changed(oldState.currentPlayerId(), newState.currentPlayerId());
+        if (newState.lastPlayer() == null && oldState.lastPlayer() != null) return null;
+        fields[LAST_PLAYER] = changed(oldState.lastPlayer(), newState.lastPlayer());
+
+        for (PlayerId playerId : PlayerId.ALL) {
+            PublicPlayerState oldPlayer = oldState.playerState(playerId);
+            PublicPlayerState newPlayer = newState.playerState(playerId);
+            fields[playerField(playerId, TICKET_COUNT)] =
+                    changed(oldPlayer.ticketCount(), newPlayer.ticketCount());
+            fields[playerField(playerId, CARD_COUNT)] =
+                    changed(oldPlayer.cardCount(), newPlayer.cardCount());
+            if (!startsWith(newPlayer.routes(), oldPlayer.routes())) return null;
+            fields[playerField(playerId, ADDED_ROUTES)] =
+                    addedRoutes(oldPlayer.routes(), newPlayer.routes());
+        }
+
+        if (!newOwnState.tickets().contains(oldOwnState.tickets())) return null;
+        fields[OWN_ADDED_TICKETS] =
+                nonEmpty(newOwnState.tickets().difference(oldOwnState.tickets()));
+        fields[OWN_ADDED_CARDS] = nonEmpty(newOwnState.cards().difference(oldOwnState.cards()));
+        fields[OWN_REMOVED_CARDS] = nonEmpty(oldOwnState.cards().difference(newOwnState.cards()));
+        if (!startsWith(newOwnState.routes(), oldOwnState.routes())) return null;
+        fields[OWN_ADDED_ROUTES] = addedRoutes(oldOwnState.routes(), newOwnState.routes());
+        return new StateDelta(fields);
+    }
+
+    private static <T> T changed(T oldValue, T newValue) {
+        return Objects.equals(oldValue, newValue) ? null : newValue;
+    }
+
+    private static <T extends Comparable<T>> SortedBag<T> nonEmpty(SortedBag<T> bag) {
+        return bag.isEmpty() ? null : bag;
+    }
+
+    // Whether the old routes are the first ones of the new routes.
+    private static boolean startsWith(List<Route> newRoutes, List<Route> oldRoutes) {
+        return newRoutes.size() >= oldRoutes.size()
+                && newRoutes.subList(0, oldRoutes.size()).equals(oldRoutes);
+    }
+
+    // The routes claimed since, null if there are none.
+    private static List<Route> addedRoutes(List<Route> oldRoutes, List<Route> newRoutes) {
+        return newRoutes.size() == oldRoutes.size()
+                ? null
+                : List.copyOf(newRoutes.subList(oldRoutes.size(), newRoutes.size()));
+    }
+
+    /**
+     * Returns the new public state of the game, rebuilt from the old one.
+     *
+     * @param oldState the state the changes are relative to.
+     * @return the new state.
+     */
+    PublicGameState applyTo(PublicGameState oldState) {
+        PublicCardState oldCardState = oldState.cardState();
+        List<Card> faceUpCards = new ArrayList<>(oldCardState.faceUpCards());
+        List<Card> changedFaceUpCards = field(FACE_UP_CARDS);
+        if (changedFaceUpCards != null) {
+            for (int slot = 0; slot < faceUpCards.size(); slot++) {
+                Card card = changedFaceUpCards.get(slot);
+                if (card != null) faceUpCards.set(slot, card);
+            }
+        }
+        PublicCardState cardState =
+                new PublicCardState(
+                        faceUpCards,
+                        fieldOr(DECK_SIZE, oldCardState.deckSize()),
+                        fieldOr(DISCARDS_SIZE, oldCardState.discardsSize()));
+
+        Map<PlayerId, PublicPlayerState> playerStates = new EnumMap<>(PlayerId.class);
+        for (PlayerId playerId : PlayerId.ALL) {
+            PublicPlayerState oldPlayer = oldState.playerState(playerId);
+            List<Route> addedRoutes = field(playerField(playerId, ADDED_ROUTES));
+            playerStates.put(
+                    playerId,
+                    new PublicPlayerState(
+                            fieldOr(playerField(playerId, TICKET_COUNT), oldPlayer.ticketCount()),
+                            fieldOr(playerField(playerId, CARD_COUNT), oldPlayer.cardCount()),
+                            withAdded(oldPlayer.routes(), addedRoutes)));
+        }
+        return new PublicGameState(
+                fieldOr(TICKETS_COUNT, oldState.ticketsCount()),
+                cardState,
+                fieldOr(CURRENT_PLAYER, oldState.currentPlayerId()),
+                playerStates,
+                fieldOr(LAST_PLAYER, oldState.lastPlayer()));
+    }
+
+    /**
+     * Returns the new state of the player, rebuilt from the old one.
+     *
+     * @param oldOwnState the state of the player the changes are relative to.
+     * @return the new state of the player.
+     */
+    PlayerState applyTo(PlayerState oldOwnState) {
+        SortedBag<Card> cards =
+                oldOwnState
+                        .cards()
+                        .difference(fieldOr(OWN_REMOVED_CARDS, SortedBag.of()))
+                        .union(fieldOr(OWN_ADDED_CARDS, SortedBag.of()));
+        return new PlayerState(
+                oldOwnState.tickets().union(fieldOr(OWN_ADDED_TICKETS, SortedBag.of())),
+                cards,
+                withAdded(oldOwnState.routes(), field(OWN_ADDED_ROUTES)));
+    }
+
+    private static List<Route> withAdded(List<Route> routes, List<Route> addedRoutes) {
+        if (addedRoutes == null) return routes;
+        List<Route> allRoutes = new ArrayList<>(routes);
+        allRoutes.addAll(addedRoutes);
+        return allRoutes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T field(int index) {
+        // The type of each field is the one of its serde in FIELD_SERDES.
+        return (T) fields[index];
+    }
+
+    private <T> T fieldOr(int index, T unchanged) {
+        T value = field(index);
+        return value == null ? unchanged : value;
+    }
+
+    // Serialization of the fields, each one by its serde.
+
+    @SuppressWarnings("unchecked")
+    private static <T> WireSerde<T> serdeOf(int index) {
+        return (WireSerde<T>) FIELD_SERDES.get(index);
+    }
+
+    private static void serialize(StateDelta delta, Appendable out) throws IOException {
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if (i > 0) out.append(NetConstants.Serdes.SEPARATOR_3);
+            // An unchanged field is empty.
+            if (delta.fields[i] != null) serdeOf(i).text().serializeTo(delta.fields[i], out);
+        }
+    }
+
+    private static StateDelta deserialize(CharSequence text, int start, int end) {
+        int[] bounds =
+                TextRegions.fields(text, NetConstants.Serdes.SEPARATOR_3, start, end, FIELD_COUNT);
+        Object[] fields = new Object[FIELD_COUNT];
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            int fieldStart = bounds[2 * i];
+            int fieldEnd = bounds[2 * i + 1];
+            if (fieldStart < fieldEnd)
+                fields[i] = serdeOf(i).text().deserializeFrom(text, fieldStart, fieldEnd);
+        }
+        return new StateDelta(fields);
+    }
+
+    private static void write(ByteBuffer buffer, StateDelta delta) {
+        int present = 0;
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if (delta.fields[i] != null) present |= 1 << i;
+        }
+        BinarySerde.writeVarInt(buffer, present);
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if (delta.fields[i] != null) serdeOf(i).binary().write(buffer, delta.fields[i]);
+        }
+    }
+
+    private static StateDelta read(ByteBuffer buffer) {
+        int present = BinarySerde.readVarInt(buffer);
+        Object[] fields = new Object[FIELD_COUNT];
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if ((present & (1 << i)) != 0) fields[i] = serdeOf(i).binary().read(buffer);
+        }
+        return new StateDelta(fields);
+    }
+}
@@ -0,0 +1,102 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Tokenizer of the text protocol: finds the separators in regions of serialized text and returns
+ * the bounds of the fields between them, so that the serdes deserialize the parts of composite
+ * objects in place instead of splitting the text into Strings with regular expressions.
+ *
+ * @author Luca Mouchel (324748)
+ * @author Hugues Devimeux (327282)
+ */
+final class TextRegions {
+
+    /** Not instantiable. */
+    private TextRegions() {}
+
+    /**
+     * Returns the index of the first occurrence of the separator in the region of the text, or the
+     * end of the region if there is none.
+     *
+     * @param text to search in
+     * @param separator to search for
+     * @param start index from which to search
+     * @param end index following the last character of the region
+     * @return the index of the separator, or {@code end}
+     */
+    static int indexOf(CharSequence text, String separator, int start, int end) {
+        if (separator.length() == 1) {
+            // All the separators of the protocol are single characters.
+            char c = separator.charAt(0);
+            for (int i = start; i < end; i++) {
+                if (text.charAt(i) == c) return i;
+            }
+            return end;
+        }
+        int last = end - separator.length();
+        search:
+        for (int i = start; i <= last; i++) {
+            for (int j = 0; j < separator.length(); j++) {
+                if (text.charAt(i + j) != separator.charAt(j)) continue search;
+            }
+            return i;
+        }
+        return end;
+    }
+
+    /**
+     * Returns the bounds of all the fields of the region of the text, separated by the separator,
+     * found in a single pass: field i goes from index {@code bounds[2 * i]} (inclusive) to index
+     * {@code bounds[2 * i + 1]} (exclusive). An empty region has a single empty field, as {@link
+     * String#split(String, int)} with a negative limit would return.
+     *
+     * @param text to split
+     * @param separator separating the fields
+     * @param start index of the first character of the region
+     * @param end index following the last character of the region
+     * @return the bounds of the fields
+     */
+    static int[] split(CharSequence text, String separator, int start, int end) {
+        int[] bounds = new int[8];
+        int count = 0;
+        int fieldStart = start;
+        while (true) {
+            int fieldEnd = indexOf(text, separator, fieldStart, end);
+            if (2 * count + 2 > bounds.length) bounds = Arrays.copyOf(bounds, 2 * bounds.length);
+            bounds[2 * count] = fieldStart;
+            bounds[2 * count + 1] = fieldEnd;
+            count++;
+            if (fieldEnd == end) return Arrays.copyOf(bounds, 2 * count);
+            fieldStart = fieldEnd + separator.length();
+        }
+    }
+
+    /**
+     * Returns the bounds of the first {@code count} fields of the region of the text, separated by
+     * the separator: field i goes from index {@code bounds[2 * i]} (inclusive) to index {@code
+     * bounds[2 * i + 1]} (exclusive). The last field ends at the following separator, if any.
+     *
+     * @param text to split
+     * @param separator separating the fields
+     * @param start index of the first character of the region
+     * @param end index following the last character of the region
+     * @param count number of fields
+     * @return the bounds of the fields
+     * @throws IllegalArgumentException if the region has less than {@code count} fields
+     */
+    static int[] fields(CharSequence text, String separator, int start, int end, int count) {
+        int[] bounds = new int[2 * count];
+        int fieldStart = start;
+        for (int i = 0; i < count; i++) {
+            Preconditions.checkArgument(fieldStart <= end);
+            int fieldEnd = indexOf(text, separator, fieldStart, end);
+            bounds[2 * i] = fieldStart;
+            bounds[2 * i + 1] = fieldEnd;
+            fieldStart = fieldEnd + separator.length();
+        }
+        return bounds;
+    }
+}
@@ -0,0 +1,21 @@
+package ch.epfl.tchu.net;
+
+import java.util.List;
+
+/**
+ * Enumeration of the formats in which the messages can be exchanged through the network. The
+ * format is chosen when the client connects: it offers the formats it supports, by order of
+ * preference, and the server picks the first one it accepts.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public enum WireFormat {
+    /** Lines of ASCII text, the arguments being serialized by {@link Serdes}. */
+    TEXT,
+    /** Length-prefixed frames of bytes, the arguments being serialized by {@link BinarySerdes}. */
+    BINARY;
+
+    /** Stocks every element of the enum in a List, the most compact format first. */
+    public static final List<WireFormat> ALL = List.of(BINARY, TEXT);
+}
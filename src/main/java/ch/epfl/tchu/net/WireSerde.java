@@ -0,0 +1,91 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.List;
+
+/**
+ * Pair of a text serde and a binary serde of the same type, so that a message can be written in
+ * either {@link WireFormat}. Holds the pairs of all the types exchanged by the players.
+ *
+ * @param <T> type of the serde
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+final class WireSerde<T> {
+    /** Serdes for integers */
+    static final WireSerde<Integer> intSerde = of(Serdes.intSerde, BinarySerdes.intSerde);
+    /** Serdes for Strings */
+    static final WireSerde<String> stringSerde = of(Serdes.stringSerde, BinarySerdes.stringSerde);
+    /** Serdes for PlayerId */
+    static final WireSerde<PlayerId> playerIdSerde =
+            of(Serdes.playerIdSerde, BinarySerdes.playerIdSerde);
+    /** Serdes for TurnKind */
+    static final WireSerde<Player.TurnKind> turnKindSerde =
+            of(Serdes.turnKindSerde, BinarySerdes.turnKindSerde);
+    /** Serdes for routes */
+    static final WireSerde<Route> routeSerde = of(Serdes.routeSerde, BinarySerdes.routeSerde);
+    /** Serdes for Lists of cards */
+    static final WireSerde<List<Card>> cardListSerde =
+            of(Serdes.cardListSerde, BinarySerdes.cardListSerde);
+    /** Serdes for Lists of routes */
+    static final WireSerde<List<Route>> routeListSerde =
+            of(Serdes.routeListSerde, BinarySerdes.routeListSerde);
+    /** Serdes for Lists of strings */
+    static final WireSerde<List<String>> stringListSerde =
+            of(Serdes.stringListSerde, BinarySerdes.stringListSerde);
+    /** Serdes for sorted bags of cards */
+    static final WireSerde<SortedBag<Card>> cardBagSerde =
+            of(Serdes.cardBagSerde, BinarySerdes.cardBagSerde);
+    /** Serdes for sorted bags of tickets */
+    static final WireSerde<SortedBag<Ticket>> ticketBagSerde =
+            of(Serdes.ticketBagSerde, BinarySerdes.ticketBagSerde);
+    /** Serdes for Lists of SortedBags of cards */
+    static final WireSerde<List<SortedBag<Card>>> listOfCardBagSerde =
+            of(Serdes.listOfCardBagSerde, BinarySerdes.listOfCardBagSerde);
+    /** Serdes for PlayerStates */
+    static final WireSerde<PlayerState> playerStateSerde =
+            of(Serdes.playerStateSerde, BinarySerdes.playerStateSerde);
+    /** Serdes for public game states */
+    static final WireSerde<PublicGameState> publicGameStateSerde =
+            of(Serdes.publicGameStateSerde, BinarySerdes.publicGameStateSerde);
+
+    private final Serde<T> text;
+    private final BinarySerde<T> binary;
+
+    private WireSerde(Serde<T> text, BinarySerde<T> binary) {
+        this.text = text;
+        this.binary = binary;
+    }
+
+    /**
+     * Returns the pair of the given serdes.
+     *
+     * @param text the serde used in the {@link WireFormat#TEXT} format.
+     * @param binary the serde used in the {@link WireFormat#BINARY} format.
+     * @param <T> type of the serdes.
+     * @return the pair of serdes.
+     */
+    static <T> WireSerde<T> of(Serde<T> text, BinarySerde<T> binary) {
+        return new WireSerde<>(text, binary);
+    }
+
+    /**
+     * Returns the serde used in the {@link WireFormat#TEXT} format.
+     *
+     * @return the text serde.
+     */
+    Serde<T> text() {
+        return text;
+    }
+
+    /**
+     * Returns the serde used in the {@link WireFormat#BINARY} format.
+     *
+     * @return the binary serde.
+     */
+    BinarySerde<T> binary() {
+        return binary;
+    }
+}
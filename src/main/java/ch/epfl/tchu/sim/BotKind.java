@@ -0,0 +1,32 @@
+package ch.epfl.tchu.sim;
+
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Enumeration of the kinds of bots.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public enum BotKind {
+    RANDOM(RandomBot::new),
+    GREEDY(rng -> new GreedyBot()),
+    TICKETS(rng -> new TicketBot());
+
+    private final Function<Random, BotPlayer> factory;
+
+    BotKind(Function<Random, BotPlayer> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Returns a new bot of this kind.
+     *
+     * @param rng the random generator of the bot, if it makes random decisions.
+     * @return the bot.
+     */
+    public BotPlayer newPlayer(Random rng) {
+        return factory.apply(rng);
+    }
+}
@@ -0,0 +1,189 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Player making its decisions by itself, to play games without any interaction (see {@link
+ * SelfPlaySimulator}). It keeps the last states it has received, claims the route chosen by
+ * {@link #target()} if there is one, and draws cards otherwise; the routes are claimed with the
+ * cards using the fewest locomotives.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public abstract class BotPlayer implements Player {
+    /** Index of the map the bots play on. */
+    protected static final MapIndex MAP = MapIndex.ch();
+
+    private PlayerId ownId;
+    private PublicGameState state;
+    private PlayerState ownState;
+    private SortedBag<Ticket> initialTickets;
+    // Route chosen at the beginning of the turn, null if the player does not claim any.
+    private Route target;
+
+    /**
+     * Returns the route the player claims this turn, among {@link #claimableRoutes()}, or null if
+     * it does something else.
+     *
+     * @return the route claimed, or null.
+     */
+    protected abstract Route target();
+
+    /**
+     * Returns the tickets the player keeps among the given ones.
+     *
+     * @param options the tickets offered.
+     * @param minCount the minimal number of tickets to keep.
+     * @return the tickets kept, at least <code>minCount</code> of the options.
+     */
+    protected abstract SortedBag<Ticket> keptTickets(SortedBag<Ticket> options, int minCount);
+
+    /**
+     * Returns what the player does when it claims no route: by default, it draws cards if it can,
+     * and tickets otherwise.
+     *
+     * @return the kind of turn, other than claiming a route.
+     */
+    protected TurnKind drawingTurn() {
+        return state.canDrawCards() || !state.canDrawTickets()
+                ? TurnKind.DRAW_CARDS
+                : TurnKind.DRAW_TICKETS;
+    }
+
+    /**
+     * Returns the id of the player.
+     *
+     * @return the id of the player.
+     */
+    protected final PlayerId ownId() {
+        return ownId;
+    }
+
+    /**
+     * Returns the last state of the game received.
+     *
+     * @return the state of the game.
+     */
+    protected final PublicGameState state() {
+        return state;
+    }
+
+    /**
+     * Returns the last state of the player received.
+     *
+     * @return the state of the player.
+     */
+    protected final PlayerState ownState() {
+        return ownState;
+    }
+
+    /**
+     * Returns whether each route of the map, by its id in {@link #MAP}, is claimed.
+     *
+     * @return the claimed routes, by id.
+     */
+    protected final boolean[] claimedRouteIds() {
+        boolean[] claimed = new boolean[MAP.routes().size()];
+        for (Route route : state.claimedRoutes()) claimed[MAP.idOf(route)] = true;
+        return claimed;
+    }
+
+    /**
+     * Returns the routes the player can claim: those which are not claimed, nor is the other route
+     * of their double, and for which it has enough cars and cards.
+     *
+     * @return the claimable routes, in the order of the map.
+     */
+    protected final List<Route> claimableRoutes() {
+        boolean[] claimed = claimedRouteIds();
+        List<Route> claimable = new ArrayList<>();
+        for (int id = 0; id < claimed.length; id++) {
+            Route route = MAP.route(id);
+            Route partner = MAP.doublePartnerOf(route);
+            if (!claimed[id]
+                    && (partner == null || !claimed[MAP.idOf(partner)])
+                    && ownState.canClaimRoute(route)) {
+                claimable.add(route);
+            }
+        }
+        return claimable;
+    }
+
+    /**
+     * Returns the points of the given ticket if its stations are connected: the most of its
+     * trips.
+     *
+     * @param ticket the ticket.
+     * @return the value of the ticket.
+     */
+    protected static int value(Ticket ticket) {
+        int value = 0;
+        for (Trip trip : ticket.getTrips()) value = Math.max(value, trip.points());
+        return value;
+    }
+
+    @Override
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+        this.ownId = ownId;
+    }
+
+    @Override
+    public void receiveInfo(String info) {}
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {
+        this.state = newState;
+        this.ownState = ownState;
+    }
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+        this.initialTickets = tickets;
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        return keptTickets(
+                initialTickets,
+                GameConstants.INITIAL_TICKETS_COUNT - GameConstants.DISCARDABLE_TICKETS_COUNT);
+    }
+
+    @Override
+    public TurnKind nextTurn() {
+        target = target();
+        return target != null ? TurnKind.CLAIM_ROUTE : drawingTurn();
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        return keptTickets(
+                options,
+                GameConstants.IN_GAME_TICKETS_COUNT - GameConstants.DISCARDABLE_TICKETS_COUNT);
+    }
+
+    @Override
+    public int drawSlot() {
+        return GameConstants.DECK_SLOT;
+    }
+
+    @Override
+    public Route claimedRoute() {
+        return target;
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        return ownState.possibleClaimCards(target).get(0);
+    }
+
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        return options.get(0);
+    }
+}
@@ -0,0 +1,36 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.Route;
+import ch.epfl.tchu.game.Ticket;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Bot claiming the route worth the most points it can claim whenever it can, drawing cards from
+ * the deck otherwise. It keeps as few tickets as it can, those worth the fewest points, since it
+ * does not try to connect their stations.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class GreedyBot extends BotPlayer {
+
+    @Override
+    protected Route target() {
+        Route best = null;
+        for (Route route : claimableRoutes()) {
+            if (best == null || route.claimPoints() > best.claimPoints()) best = route;
+        }
+        return best;
+    }
+
+    @Override
+    protected SortedBag<Ticket> keptTickets(SortedBag<Ticket> options, int minCount) {
+        List<Ticket> tickets = new ArrayList<>(options.toList());
+        tickets.sort(Comparator.comparingInt(BotPlayer::value));
+        return SortedBag.of(tickets.subList(0, minCount));
+    }
+}
@@ -0,0 +1,60 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Bot making random decisions among the legal ones: it claims a random route half of the time it
+ * can, draws random cards, and keeps a random number of random tickets.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class RandomBot extends BotPlayer {
+    private final Random rng;
+
+    /**
+     * Constructs a bot making its decisions with the given random generator.
+     *
+     * @param rng the random generator, not to be shared with another thread.
+     * @throws NullPointerException if rng is null.
+     */
+    public RandomBot(Random rng) {
+        this.rng = Objects.requireNonNull(rng);
+    }
+
+    @Override
+    protected Route target() {
+        List<Route> claimable = claimableRoutes();
+        if (claimable.isEmpty() || rng.nextBoolean()) return null;
+        return claimable.get(rng.nextInt(claimable.size()));
+    }
+
+    @Override
+    protected SortedBag<Ticket> keptTickets(SortedBag<Ticket> options, int minCount) {
+        List<Ticket> tickets = new ArrayList<>(options.toList());
+        Collections.shuffle(tickets, rng);
+        int count = minCount + rng.nextInt(tickets.size() - minCount + 1);
+        return SortedBag.of(tickets.subList(0, count));
+    }
+
+    @Override
+    public int drawSlot() {
+        // The deck or one of the face-up cards.
+        int slot = rng.nextInt(GameConstants.FACE_UP_CARDS_COUNT + 1);
+        return slot == GameConstants.FACE_UP_CARDS_COUNT ? GameConstants.DECK_SLOT : slot;
+    }
+
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        int choice = rng.nextInt(options.size() + 1);
+        // Gives up the tunnel once in a while.
+        return choice == options.size() ? SortedBag.of() : options.get(choice);
+    }
+}
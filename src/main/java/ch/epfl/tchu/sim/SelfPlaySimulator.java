@@ -0,0 +1,114 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays many games between bots, without any interface nor network, on several threads at once,
+ * to compare the bots and measure the throughput of the game engine. Each game is reproducible:
+ * its random generator and those of its bots only depend on the seed of the simulation and on
+ * the index of the game, whatever the thread playing it.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class SelfPlaySimulator {
+    private static final int DEFAULT_GAMES_COUNT = 1000;
+    private static final long DEFAULT_SEED = 2021;
+
+    private SelfPlaySimulator() {}
+
+    /**
+     * Plays the given number of games between the given bots, on the given number of threads.
+     *
+     * @param gamesCount the number of games to play.
+     * @param bots the kind of bot of each player.
+     * @param threadsCount the number of threads playing the games.
+     * @param seed the seed from which the random generators of the games are derived.
+     * @return the results of the games.
+     * @throws IllegalArgumentException if the number of games is negative, if there are not
+     *     exactly two bots, or if the number of threads is not strictly positive.
+     * @throws RuntimeException if a game fails, with the exception it failed with.
+     */
+    public static SimulationReport simulate(
+            int gamesCount, Map<PlayerId, BotKind> bots, int threadsCount, long seed) {
+        Preconditions.checkArgument(gamesCount >= 0);
+        Preconditions.checkArgument(bots.size() == PlayerId.COUNT);
+        Preconditions.checkArgument(threadsCount > 0);
+
+        SimulationReport report = new SimulationReport(bots);
+        Map<PlayerId, String> names = new EnumMap<>(PlayerId.class);
+        for (PlayerId id : PlayerId.ALL) names.put(id, id + " (" + bots.get(id) + ")");
+        SortedBag<Ticket> tickets = SortedBag.of(ChMap.tickets());
+
+        // Each thread plays the next game not played yet until there is none left.
+        AtomicInteger nextGame = new AtomicInteger();
+        Runnable worker =
+                () -> {
+                    for (int i = nextGame.getAndIncrement();
+                            i < gamesCount;
+                            i = nextGame.getAndIncrement()) {
+                        Random seeds = new Random(seed + i);
+                        Random rng = new Random(seeds.nextLong());
+                        Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+                        for (PlayerId id : PlayerId.ALL)
+                            players.put(id, bots.get(id).newPlayer(new Random(seeds.nextLong())));
+                        Game game = new Game(players, names, tickets, rng);
+                        game.run();
+                        report.record(game);
+                    }
+                };
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+        long start = System.nanoTime();
+        try {
+            CompletableFuture<?>[] workers = new CompletableFuture<?>[threadsCount];
+            for (int i = 0; i < threadsCount; i++)
+                workers[i] = CompletableFuture.runAsync(worker, executor);
+            CompletableFuture.allOf(workers).join();
+        } catch (CompletionException e) {
+            // Stops the other threads at their next game.
+            nextGame.set(gamesCount);
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+        report.setElapsed(Duration.ofNanos(System.nanoTime() - start));
+        return report;
+    }
+
+    /**
+     * Plays games between two bots and prints their results. The arguments are, all optional: the
+     * number of games, the bots of the two players (see {@link BotKind}), the number of threads
+     * and the seed.
+     *
+     * @param args the arguments of the simulation.
+     */
+    public static void main(String[] args) {
+        int gamesCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES_COUNT;
+        BotKind bot1 = args.length > 1 ? BotKind.valueOf(args[1]) : BotKind.GREEDY;
+        BotKind bot2 = args.length > 2 ? BotKind.valueOf(args[2]) : BotKind.TICKETS;
+        int threadsCount =
+                args.length > 3
+                        ? Integer.parseInt(args[3])
+                        : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_SEED;
+
+        System.out.println(
+                simulate(
+                        gamesCount,
+                        Map.of(PlayerId.PLAYER_1, bot1, PlayerId.PLAYER_2, bot2),
+                        threadsCount,
+                        seed));
+    }
+}
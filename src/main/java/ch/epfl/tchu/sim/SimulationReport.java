@@ -0,0 +1,186 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.game.Game;
+import ch.epfl.tchu.game.PlayerId;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Results of the games played by a {@link SelfPlaySimulator}: the wins, points and longest trail
+ * bonuses of each player, and how fast the games were played.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class SimulationReport {
+    private final Map<PlayerId, BotKind> bots;
+    private final Map<PlayerId, Integer> winsCounts = new EnumMap<>(PlayerId.class);
+    private final Map<PlayerId, Long> pointsSums = new EnumMap<>(PlayerId.class);
+    private final Map<PlayerId, Integer> longestTrailCounts = new EnumMap<>(PlayerId.class);
+    private int gamesCount;
+    private int drawsCount;
+    private long deckRecreationsSum;
+    private int reshuffledGamesCount;
+    private Duration elapsed = Duration.ZERO;
+
+    SimulationReport(Map<PlayerId, BotKind> bots) {
+        this.bots = new EnumMap<>(bots);
+        for (PlayerId id : PlayerId.ALL) {
+            winsCounts.put(id, 0);
+            pointsSums.put(id, 0L);
+            longestTrailCounts.put(id, 0);
+        }
+    }
+
+    // Adds the results of the given game, which is over.
+    synchronized void record(Game game) {
+        Map<PlayerId, Integer> points = game.finalPoints();
+        int points1 = points.get(PlayerId.PLAYER_1);
+        int points2 = points.get(PlayerId.PLAYER_2);
+        if (points1 == points2) drawsCount++;
+        else {
+            PlayerId winner = points1 > points2 ? PlayerId.PLAYER_1 : PlayerId.PLAYER_2;
+            winsCounts.merge(winner, 1, Integer::sum);
+        }
+
+        points.forEach((id, p) -> pointsSums.merge(id, (long) p, Long::sum));
+        Set<PlayerId> longestTrailPlayers = game.longestTrailPlayers();
+        longestTrailPlayers.forEach(id -> longestTrailCounts.merge(id, 1, Integer::sum));
+        deckRecreationsSum += game.deckRecreationsCount();
+        if (game.deckRecreationsCount() > 0) reshuffledGamesCount++;
+        gamesCount++;
+    }
+
+    synchronized void setElapsed(Duration elapsed) {
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Returns the kind of bot of the given player.
+     *
+     * @param id the player.
+     * @return the kind of bot of the player.
+     */
+    public BotKind bot(PlayerId id) {
+        return bots.get(id);
+    }
+
+    /**
+     * Returns the number of games played.
+     *
+     * @return the number of games.
+     */
+    public synchronized int gamesCount() {
+        return gamesCount;
+    }
+
+    /**
+     * Returns the time taken to play all the games.
+     *
+     * @return the duration of the simulation.
+     */
+    public synchronized Duration elapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the number of games played per second.
+     *
+     * @return the throughput of the simulation.
+     */
+    public synchronized double gamesPerSecond() {
+        return elapsed.isZero() ? 0 : gamesCount * 1e9 / elapsed.toNanos();
+    }
+
+    /**
+     * Returns the number of games won by the given player.
+     *
+     * @param id the player.
+     * @return the number of wins of the player.
+     */
+    public synchronized int winsCount(PlayerId id) {
+        return winsCounts.get(id);
+    }
+
+    /**
+     * Returns the share of the games won by the given player.
+     *
+     * @param id the player.
+     * @return the win rate of the player, between 0 and 1.
+     */
+    public synchronized double winRate(PlayerId id) {
+        return share(winsCounts.get(id));
+    }
+
+    /**
+     * Returns the number of games in which both players have the same points.
+     *
+     * @return the number of draws.
+     */
+    public synchronized int drawsCount() {
+        return drawsCount;
+    }
+
+    /**
+     * Returns the average final points of the given player.
+     *
+     * @param id the player.
+     * @return the average points of the player.
+     */
+    public synchronized double averagePoints(PlayerId id) {
+        return gamesCount == 0 ? 0 : (double) pointsSums.get(id) / gamesCount;
+    }
+
+    /**
+     * Returns the share of the games in which the given player gets the longest trail bonus.
+     *
+     * @param id the player.
+     * @return the longest trail rate of the player, between 0 and 1.
+     */
+    public synchronized double longestTrailRate(PlayerId id) {
+        return share(longestTrailCounts.get(id));
+    }
+
+    /**
+     * Returns the average number of times the deck is recreated from the discards in a game.
+     *
+     * @return the average number of reshuffles.
+     */
+    public synchronized double averageDeckRecreations() {
+        return gamesCount == 0 ? 0 : (double) deckRecreationsSum / gamesCount;
+    }
+
+    /**
+     * Returns the share of the games in which the deck is recreated at least once.
+     *
+     * @return the reshuffle rate, between 0 and 1.
+     */
+    public synchronized double reshuffleRate() {
+        return share(reshuffledGamesCount);
+    }
+
+    private double share(int count) {
+        return gamesCount == 0 ? 0 : (double) count / gamesCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(
+                "%d games in %.3f s (%.1f games/s)%n",
+                gamesCount, elapsed.toNanos() / 1e9, gamesPerSecond()));
+        for (PlayerId id : PlayerId.ALL) {
+            report.append(String.format(
+                    "%s (%s): %.1f%% wins, %.1f points, %.1f%% longest trails%n",
+                    id, bots.get(id), 100 * winRate(id), averagePoints(id),
+                    100 * longestTrailRate(id)));
+        }
+        report.append(String.format(
+                "%d draws, %.2f reshuffles per game, %.1f%% games reshuffled",
+                drawsCount, averageDeckRecreations(), 100 * reshuffleRate()));
+        return report.toString();
+    }
+}
@@ -0,0 +1,177 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+
+import java.util.*;
+
+/**
+ * Bot trying to connect the stations of its tickets: it claims the routes of the cheapest paths
+ * between them, in cars still to lay, starting with the tickets worth the most points. It draws
+ * the face-up cards of the colors of these routes, keeps the tickets it is the closest to
+ * connecting, and draws new ones once its tickets are connected.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class TicketBot extends BotPlayer {
+    // Cars below which no more tickets are drawn, as they would probably not be connected.
+    private static final int MIN_CAR_COUNT_FOR_TICKETS = 12;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    // Routes missing to connect the tickets, computed at the beginning of each turn.
+    private List<Route> missingRoutes = List.of();
+
+    @Override
+    protected Route target() {
+        missingRoutes = missingRoutes(ownState().tickets());
+        List<Route> claimable = claimableRoutes();
+        for (Route route : missingRoutes) {
+            if (claimable.contains(route)) return route;
+        }
+        if (!missingRoutes.isEmpty() || wantsTickets()) return null;
+        // Nothing left to connect: the routes worth the most points.
+        Route best = null;
+        for (Route route : claimable) {
+            if (best == null || route.claimPoints() > best.claimPoints()) best = route;
+        }
+        return best;
+    }
+
+    @Override
+    protected TurnKind drawingTurn() {
+        return missingRoutes.isEmpty() && wantsTickets()
+                ? TurnKind.DRAW_TICKETS
+                : super.drawingTurn();
+    }
+
+    private boolean wantsTickets() {
+        return state().canDrawTickets() && ownState().carCount() >= MIN_CAR_COUNT_FOR_TICKETS;
+    }
+
+    @Override
+    protected SortedBag<Ticket> keptTickets(SortedBag<Ticket> options, int minCount) {
+        boolean[] claimed = claimedRouteIds();
+        boolean[] owned = ownedRouteIds();
+        Map<Ticket, Integer> costs = new HashMap<>();
+        for (Ticket ticket : options.toSet())
+            costs.put(ticket, cheapestPath(ticket, claimed, owned).cost);
+        List<Ticket> tickets = new ArrayList<>(options.toList());
+        tickets.sort(Comparator.comparingInt(costs::get));
+
+        // The cheapest tickets, and the following ones while the cars they need are left.
+        int carsLeft = ownState().carCount();
+        int count = 0;
+        for (Ticket ticket : tickets) {
+            int cost = costs.get(ticket);
+            if (count >= minCount && (cost == UNREACHABLE || cost > carsLeft)) break;
+            if (cost != UNREACHABLE) carsLeft -= cost;
+            count++;
+        }
+        return SortedBag.of(tickets.subList(0, count));
+    }
+
+    @Override
+    public int drawSlot() {
+        Set<Color> neededColors = EnumSet.noneOf(Color.class);
+        for (Route route : missingRoutes) {
+            if (route.color() != null) neededColors.add(route.color());
+        }
+        for (int slot : GameConstants.FACE_UP_CARD_SLOTS) {
+            Card card = state().cardState().faceUpCard(slot);
+            if (card == Card.LOCOMOTIVE || neededColors.contains(card.color())) return slot;
+        }
+        return GameConstants.DECK_SLOT;
+    }
+
+    private boolean[] ownedRouteIds() {
+        boolean[] owned = new boolean[MAP.routes().size()];
+        for (Route route : ownState().routes()) owned[MAP.idOf(route)] = true;
+        return owned;
+    }
+
+    // The routes to claim to connect the tickets, those worth the most points first.
+    private List<Route> missingRoutes(SortedBag<Ticket> tickets) {
+        boolean[] claimed = claimedRouteIds();
+        boolean[] owned = ownedRouteIds();
+        List<Ticket> byValue = new ArrayList<>(tickets.toSet());
+        byValue.sort(Comparator.comparingInt(BotPlayer::value).reversed());
+        Set<Route> missing = new LinkedHashSet<>();
+        for (Ticket ticket : byValue) {
+            Path path = cheapestPath(ticket, claimed, owned);
+            if (path.cost == UNREACHABLE) continue;
+            for (Route route : path.routes) {
+                if (!owned[MAP.idOf(route)]) missing.add(route);
+            }
+        }
+        return new ArrayList<>(missing);
+    }
+
+    /** Path between the stations of a trip, and the number of cars still to lay on it. */
+    private static final class Path {
+        private final int cost;
+        private final List<Route> routes;
+
+        private Path(int cost, List<Route> routes) {
+            this.cost = cost;
+            this.routes = routes;
+        }
+    }
+
+    // The cheapest path connecting one of the trips of the ticket, which all leave from the same
+    // station: the routes owned cost nothing, and those claimed by the other player can't be used.
+    private Path cheapestPath(Ticket ticket, boolean[] claimed, boolean[] owned) {
+        Station from = ticket.getTrips().get(0).from();
+        int stationCount = MAP.stations().size();
+        int[] costs = new int[stationCount];
+        Route[] lastRoutes = new Route[stationCount];
+        boolean[] done = new boolean[stationCount];
+        Arrays.fill(costs, UNREACHABLE);
+        costs[MAP.idOf(from)] = 0;
+
+        // Dijkstra's algorithm, quadratic since the map is small.
+        while (true) {
+            int next = -1;
+            for (int id = 0; id < stationCount; id++) {
+                boolean reached = !done[id] && costs[id] != UNREACHABLE;
+                if (reached && (next == -1 || costs[id] < costs[next])) next = id;
+            }
+            if (next == -1) break;
+            done[next] = true;
+            Station station = MAP.stations().get(next);
+            for (Route route : MAP.routesFrom(station)) {
+                int routeCost = cost(route, claimed, owned);
+                if (routeCost == UNREACHABLE) continue;
+                int opposite = MAP.idOf(route.stationOpposite(station));
+                if (costs[next] + routeCost < costs[opposite]) {
+                    costs[opposite] = costs[next] + routeCost;
+                    lastRoutes[opposite] = route;
+                }
+            }
+        }
+
+        Station closest = null;
+        for (Trip trip : ticket.getTrips()) {
+            if (closest == null || costs[MAP.idOf(trip.to())] < costs[MAP.idOf(closest)])
+                closest = trip.to();
+        }
+        int cost = costs[MAP.idOf(closest)];
+        if (cost == UNREACHABLE) return new Path(UNREACHABLE, List.of());
+        List<Route> routes = new ArrayList<>();
+        for (Station station = closest; MAP.idOf(station) != MAP.idOf(from); ) {
+            Route route = lastRoutes[MAP.idOf(station)];
+            routes.add(route);
+            station = route.stationOpposite(station);
+        }
+        return new Path(cost, routes);
+    }
+
+    // The cars still to lay on the route, UNREACHABLE if it can't be claimed by the player.
+    private static int cost(Route route, boolean[] claimed, boolean[] owned) {
+        int id = MAP.idOf(route);
+        if (owned[id]) return 0;
+        if (claimed[id]) return UNREACHABLE;
+        Route partner = MAP.doublePartnerOf(route);
+        return partner != null && claimed[MAP.idOf(partner)] ? UNREACHABLE : route.length();
+    }
+}
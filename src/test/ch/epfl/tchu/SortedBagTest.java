@@ -0,0 +1,120 @@
+package ch.epfl.tchu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.epfl.tchu.game.Card;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+class SortedBagTest {
+    private final SortedBag<Card> cards =
+            SortedBag.of(List.of(Card.RED, Card.LOCOMOTIVE, Card.BLUE, Card.RED));
+
+    @Test
+    void enumBagCountsAndOrdersItsElements() {
+        assertEquals(4, cards.size());
+        assertEquals(2, cards.countOf(Card.RED));
+        assertEquals(0, cards.countOf(Card.GREEN));
+        assertEquals(List.of(Card.BLUE, Card.RED, Card.RED, Card.LOCOMOTIVE), cards.toList());
+        assertEquals(Card.RED, cards.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> cards.get(4));
+
+        List<Card> iterated = new ArrayList<>();
+        for (Card card : cards) iterated.add(card);
+        assertEquals(cards.toList(), iterated);
+        assertEquals(Map.of(Card.BLUE, 1, Card.RED, 2, Card.LOCOMOTIVE, 1), cards.toMap());
+        assertEquals("{BLUE, 2×RED, LOCOMOTIVE}", cards.toString());
+    }
+
+    @Test
+    void enumBagUnionAndDifferenceWorkLikeTheGeneralCase() {
+        SortedBag<Card> other = SortedBag.of(1, Card.RED, 2, Card.GREEN);
+        assertEquals(
+                SortedBag.of(
+                        List.of(
+                                Card.BLUE,
+                                Card.GREEN,
+                                Card.GREEN,
+                                Card.RED,
+                                Card.RED,
+                                Card.RED,
+                                Card.LOCOMOTIVE)),
+                cards.union(other));
+        assertEquals(
+                SortedBag.of(List.of(Card.BLUE, Card.RED, Card.LOCOMOTIVE)),
+                cards.difference(other));
+        assertTrue(cards.contains(SortedBag.of(2, Card.RED)));
+        assertFalse(cards.contains(other));
+    }
+
+    @Test
+    void emptiedEnumBagEqualsEmptyBag() {
+        SortedBag<Card> emptied = cards.difference(cards);
+        assertTrue(emptied.isEmpty());
+        assertEquals(SortedBag.of(), emptied);
+        assertEquals(SortedBag.of().hashCode(), emptied.hashCode());
+    }
+
+    @Test
+    void enumBagHashCodeIsTheOneOfItsMap() {
+        assertEquals(new TreeMap<>(cards.toMap()).hashCode(), cards.hashCode());
+        assertEquals(
+                SortedBag.of(List.of(Card.RED, Card.RED, Card.BLUE, Card.LOCOMOTIVE)).hashCode(),
+                cards.hashCode());
+    }
+
+    @Test
+    void builderCountsEnumElements() {
+        SortedBag.Builder<Card> builder = new SortedBag.Builder<>();
+        assertTrue(builder.isEmpty());
+        builder.add(cards).add(3, Card.BLACK).add(Card.RED);
+        assertEquals(8, builder.size());
+        assertEquals(3, builder.build().countOf(Card.RED));
+    }
+
+    @Test
+    void subsetsOfSizeAreDistinctAndOrderedByTheLargestElement() {
+        SortedBag<Card> bag = cards.union(SortedBag.of(2, Card.LOCOMOTIVE, 1, Card.GREEN));
+        List<SortedBag<Card>> subsets = bag.subsetsOfSizeStream(3).collect(Collectors.toList());
+        assertEquals(Set.copyOf(subsets).size(), subsets.size());
+        assertEquals(bag.subsetsOfSize(3), Set.copyOf(subsets));
+        for (int i = 1; i < subsets.size(); i++) {
+            assertTrue(
+                    subsets.get(i - 1).countOf(Card.LOCOMOTIVE)
+                            <= subsets.get(i).countOf(Card.LOCOMOTIVE));
+        }
+        // {BLUE, GREEN, 2×RED, 3×LOCOMOTIVE}: 3 locomotives, or 2 and one of 3 colors, or 1 and
+        // one of 4 pairs, or one of 3 triples.
+        assertEquals(11, subsets.size());
+        assertEquals(SortedBag.of(3, Card.LOCOMOTIVE), subsets.get(subsets.size() - 1));
+        assertEquals(Set.of(SortedBag.of()), bag.subsetsOfSize(0));
+    }
+
+    @Test
+    void subsetsOfSizeCanBeSortedByAComparator() {
+        List<SortedBag<Card>> subsets =
+                cards.subsetsOfSize(2, Comparator.comparingInt(bag -> -bag.countOf(Card.RED)));
+        assertEquals(SortedBag.of(2, Card.RED), subsets.get(0));
+        assertEquals(4, subsets.size());
+    }
+
+    @Test
+    void generalBagStillWorks() {
+        SortedBag<Integer> integers = SortedBag.of(List.of(3, 1, 3, 2));
+        assertEquals(4, integers.size());
+        assertEquals(3, integers.get(2));
+        assertEquals(SortedBag.of(List.of(1, 2)), integers.difference(SortedBag.of(2, 3)));
+        assertEquals(6, integers.union(SortedBag.of(2, 5)).size());
+    }
+}
@@ -0,0 +1,258 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.SortedBag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncPlayerTest {
+    private static final Map<PlayerId, String> NAMES =
+            Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles");
+
+    // Player claiming the first route it can, drawing cards otherwise, keeping the tickets offered
+    // and giving up tunnels; logs what it receives.
+    private static class FirstChoicePlayer extends StubPlayer {
+        private final List<String> log = new ArrayList<>();
+        private PublicGameState state;
+        private PlayerState ownState;
+        private SortedBag<Ticket> initialTickets;
+        private Route target;
+
+        @Override
+        public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+            log.add(ownId + " " + playerNames);
+        }
+
+        @Override
+        public void receiveInfo(String info) {
+            log.add(info);
+        }
+
+        @Override
+        public void updateState(PublicGameState newState, PlayerState ownState) {
+            this.state = newState;
+            this.ownState = ownState;
+            log.add(newState.cardState().faceUpCards() + " " + ownState.cards());
+        }
+
+        @Override
+        public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+            initialTickets = tickets;
+        }
+
+        @Override
+        public SortedBag<Ticket> chooseInitialTickets() {
+            return SortedBag.of(initialTickets.toList().subList(0, 3));
+        }
+
+        @Override
+        public TurnKind nextTurn() {
+            target =
+                    ChMap.routes().stream()
+                            .filter(r -> !state.claimedRoutes().contains(r))
+                            .filter(ownState::canClaimRoute)
+                            .findFirst()
+                            .orElse(null);
+            if (target != null) return TurnKind.CLAIM_ROUTE;
+            return state.canDrawCards() ? TurnKind.DRAW_CARDS : TurnKind.DRAW_TICKETS;
+        }
+
+        @Override
+        public int drawSlot() {
+            return state.cardState().deckSize() > 0 ? GameConstants.DECK_SLOT : 0;
+        }
+
+        @Override
+        public Route claimedRoute() {
+            return target;
+        }
+
+        @Override
+        public SortedBag<Card> initialClaimCards() {
+            return ownState.possibleClaimCards(target).get(0);
+        }
+    }
+
+    // Makes the decisions of the given player later, on the given executor.
+    private static AsyncPlayer deferred(Player player, Executor executor) {
+        AsyncPlayer now = AsyncPlayer.of(player);
+        return new AsyncPlayer() {
+            private <T> CompletableFuture<T> later(Supplier<CompletableFuture<T>> decision) {
+                return CompletableFuture.supplyAsync(() -> decision.get().join(), executor);
+            }
+
+            @Override
+            public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+                now.initPlayers(ownId, playerNames);
+            }
+
+            @Override
+            public void receiveInfo(String info) {
+                now.receiveInfo(info);
+            }
+
+            @Override
+            public void updateState(PublicGameState newState, PlayerState ownState) {
+                now.updateState(newState, ownState);
+            }
+
+            @Override
+            public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+                now.setInitialTicketChoice(tickets);
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Ticket>> chooseInitialTickets() {
+                return later(now::chooseInitialTickets);
+            }
+
+            @Override
+            public CompletableFuture<Player.TurnKind> nextTurn() {
+                return later(now::nextTurn);
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Ticket>> chooseTickets(SortedBag<Ticket> options) {
+                return later(() -> now.chooseTickets(options));
+            }
+
+            @Override
+            public CompletableFuture<Integer> drawSlot() {
+                return later(now::drawSlot);
+            }
+
+            @Override
+            public CompletableFuture<Route> claimedRoute() {
+                return later(now::claimedRoute);
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Card>> initialClaimCards() {
+                return later(now::initialClaimCards);
+            }
+
+            @Override
+            public CompletableFuture<SortedBag<Card>> chooseAdditionalCards(
+                    List<SortedBag<Card>> options) {
+                return later(() -> now.chooseAdditionalCards(options));
+            }
+        };
+    }
+
+    private static List<List<String>> logsOfBlockingGame(int seed) {
+        FirstChoicePlayer player1 = new FirstChoicePlayer();
+        FirstChoicePlayer player2 = new FirstChoicePlayer();
+        Game.play(
+                Map.of(PlayerId.PLAYER_1, player1, PlayerId.PLAYER_2, player2),
+                NAMES,
+                SortedBag.of(ChMap.tickets()),
+                new Random(seed));
+        return List.of(player1.log, player2.log);
+    }
+
+    @Test
+    void asyncGamesArePlayedAsBlockingOnes() throws Exception {
+        ExecutorService deciders = Executors.newFixedThreadPool(4);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<CompletableFuture<Void>> games = new ArrayList<>();
+            List<List<FirstChoicePlayer>> players = new ArrayList<>();
+            for (int seed = 0; seed < 8; seed++) {
+                FirstChoicePlayer player1 = new FirstChoicePlayer();
+                FirstChoicePlayer player2 = new FirstChoicePlayer();
+                players.add(List.of(player1, player2));
+                games.add(
+                        Game.ofAsyncPlayers(
+                                        Map.of(
+                                                PlayerId.PLAYER_1,
+                                                deferred(player1, deciders),
+                                                PlayerId.PLAYER_2,
+                                                deferred(player2, deciders)),
+                                        NAMES,
+                                        SortedBag.of(ChMap.tickets()),
+                                        new Random(seed),
+                                        Duration.ofMinutes(1))
+                                .playAsync(executor));
+            }
+            // The games are played at the same time by the single thread of the executor.
+            for (int seed = 0; seed < 8; seed++) {
+                games.get(seed).get(1, TimeUnit.MINUTES);
+                assertEquals(
+                        logsOfBlockingGame(seed),
+                        List.of(players.get(seed).get(0).log, players.get(seed).get(1).log));
+            }
+        } finally {
+            deciders.shutdown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void blockingPlayersOfAsyncPlayersMakeTheSameDecisions() {
+        ExecutorService deciders = Executors.newSingleThreadExecutor();
+        try {
+            FirstChoicePlayer player1 = new FirstChoicePlayer();
+            FirstChoicePlayer player2 = new FirstChoicePlayer();
+            Game.play(
+                    Map.of(
+                            PlayerId.PLAYER_1,
+                            AsyncPlayer.blocking(deferred(player1, deciders)),
+                            PlayerId.PLAYER_2,
+                            AsyncPlayer.blocking(AsyncPlayer.of(player2))),
+                    NAMES,
+                    SortedBag.of(ChMap.tickets()),
+                    new Random(3));
+            assertEquals(logsOfBlockingGame(3), List.of(player1.log, player2.log));
+        } finally {
+            deciders.shutdown();
+        }
+    }
+
+    @Test
+    void gamesFailIfADecisionIsNotMadeInTime() {
+        // The decisions of this player are never made.
+        AsyncPlayer silent = deferred(new FirstChoicePlayer(), runnable -> {});
+        CompletableFuture<Void> game =
+                Game.ofAsyncPlayers(
+                                Map.of(
+                                        PlayerId.PLAYER_1,
+                                        silent,
+                                        PlayerId.PLAYER_2,
+                                        AsyncPlayer.of(new FirstChoicePlayer())),
+                                NAMES,
+                                SortedBag.of(ChMap.tickets()),
+                                new Random(1),
+                                Duration.ofMillis(50))
+                        .playAsync(Runnable::run);
+        ExecutionException e = assertThrows(ExecutionException.class, game::get);
+        assertTrue(e.getCause() instanceof TimeoutException);
+    }
+
+    @Test
+    void failuresOfBlockingPlayersAreThrownAsIs() {
+        Player failing =
+                new FirstChoicePlayer() {
+                    @Override
+                    public TurnKind nextTurn() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+        assertThrows(
+                UnsupportedOperationException.class,
+                () ->
+                        Game.play(
+                                Map.of(
+                                        PlayerId.PLAYER_1,
+                                        failing,
+                                        PlayerId.PLAYER_2,
+                                        failing),
+                                NAMES,
+                                SortedBag.of(ChMap.tickets()),
+                                new Random(1)));
+    }
+}
@@ -75,4 +75,22 @@ public class DeckTest {
         topCards = deck.withoutTopCards(3);
         assertTrue(topCards.isEmpty());
     }
+
+    @Test
+    void decksSharingCardsDoNotAffectEachOther() {
+        Deck<Card> full = Deck.of(GameConstants.ALL_CARDS, new Random(2));
+        Deck<Card> drawn = full;
+        SortedBag.Builder<Card> drawnCards = new SortedBag.Builder<>();
+        while (!drawn.isEmpty()) {
+            drawnCards.add(drawn.topCard());
+            drawn = drawn.withoutTopCard();
+        }
+        assertEquals(GameConstants.ALL_CARDS, drawnCards.build());
+        assertEquals(GameConstants.ALL_CARDS.size(), full.size());
+        assertEquals(GameConstants.ALL_CARDS, full.topCards(full.size()));
+        assertEquals(full.topCards(5), full.withoutTopCards(0).topCards(5));
+        assertEquals(
+                full.topCards(4).difference(full.topCards(3)).get(0),
+                full.withoutTopCards(3).topCard());
+    }
 }
@@ -1,6 +1,7 @@
 package ch.epfl.tchu.game;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.*;
 
@@ -20,6 +21,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -178,6 +182,35 @@ class GameTest {
         Game.play(players, playersNames, SortedBag.of(ChMap.tickets()), TestRandomizer.newRandom());
     }
 
+    @Test
+    void whenSeveralGamesArePlayedConcurrently() throws Exception {
+        MatchRegistry registry = new MatchRegistry(Executors.newFixedThreadPool(4));
+        List<Future<?>> matches = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Map<PlayerId, Player> players =
+                    Map.of(
+                            PlayerId.PLAYER_1,
+                            spy(new StandardTestedPlayer("Alice"))
+                                    .whoIsADummyPlayer()
+                                    .whoAlwaysTriesToTakeARouteWhenPossible()
+                                    .whoDrawACardFaceUpOrBlindly(),
+                            PlayerId.PLAYER_2,
+                            spy(new StandardTestedPlayer("Bob"))
+                                    .whoIsADummyPlayer()
+                                    .whoAlwaysTriesToTakeARouteWhenPossible()
+                                    .whoDrawACardFaceUpOrBlindly());
+            matches.add(
+                    registry.start(
+                            players,
+                            playersNames,
+                            SortedBag.of(ChMap.tickets()),
+                            TestRandomizer.newRandom()));
+        }
+        // Every game must end on its own, without interfering with the others.
+        for (Future<?> match : matches) match.get(1, TimeUnit.MINUTES);
+        assertTrue(registry.shutdown(1, TimeUnit.MINUTES));
+    }
+
     // Players utils for tests.
 
     private static class StandardTestedPlayer implements Player {
@@ -0,0 +1,80 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.sim.BotKind;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryGameMetricsTest {
+    private static final Map<PlayerId, String> NAMES =
+            Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles");
+
+    private static Game game(long seed) {
+        Random rng = new Random(seed);
+        return new Game(
+                Map.of(
+                        PlayerId.PLAYER_1,
+                        BotKind.TICKETS.newPlayer(new Random(rng.nextLong())),
+                        PlayerId.PLAYER_2,
+                        BotKind.RANDOM.newPlayer(new Random(rng.nextLong()))),
+                NAMES,
+                SortedBag.of(ChMap.tickets()),
+                new Random(rng.nextLong()));
+    }
+
+    @Test
+    void gamesAreMeasured() {
+        InMemoryGameMetrics metrics = new InMemoryGameMetrics();
+        int deckRecreationsCount = 0;
+        for (int seed = 0; seed < 5; seed++) {
+            Game game = game(seed);
+            game.setMetrics(metrics);
+            game.run();
+            deckRecreationsCount += game.deckRecreationsCount();
+        }
+
+        long turnsCount = 0;
+        for (Player.TurnKind kind : Player.TurnKind.ALL) turnsCount += metrics.turnsCount(kind);
+        assertTrue(turnsCount > 0);
+        assertEquals(turnsCount, metrics.decisionTimes().count());
+        assertEquals(turnsCount, metrics.engineTimes().count());
+        assertEquals(5, metrics.longestTrailsTimes().count());
+        assertEquals(deckRecreationsCount, metrics.deckRecreationsCount());
+        // Both players are sent the state at least at the beginning of each turn.
+        assertTrue(metrics.stateUpdatesCount() >= 2 * turnsCount);
+        assertTrue(metrics.turnsCount(Player.TurnKind.CLAIM_ROUTE) > 0);
+        long tunnelsCount = 0;
+        for (GameMetrics.TunnelOutcome outcome : GameMetrics.TunnelOutcome.values())
+            tunnelsCount += metrics.tunnelAttemptsCount(outcome);
+        assertTrue(tunnelsCount > 0);
+    }
+
+    @Test
+    void metricsCantBeSetOnceTheGameIsPlayed() {
+        Game game = game(1);
+        game.run();
+        assertThrows(IllegalStateException.class, () -> game.setMetrics(new InMemoryGameMetrics()));
+    }
+
+    @Test
+    void histogramsBoundThePercentilesWithinAFactorOfTwo() {
+        InMemoryGameMetrics metrics = new InMemoryGameMetrics();
+        for (int i = 1; i <= 100; i++)
+            metrics.turnPlayed(PlayerId.PLAYER_1, Player.TurnKind.DRAW_CARDS, i * 1000L, 0);
+
+        InMemoryGameMetrics.Histogram times = metrics.decisionTimes();
+        assertEquals(100, times.count());
+        assertEquals(50_500.0, times.meanNanos());
+        for (double percentile : new double[] {1, 50, 99, 100}) {
+            long exact = (long) Math.ceil(percentile) * 1000;
+            long bound = times.percentileNanos(percentile);
+            assertTrue(exact <= bound && bound < 2 * exact, percentile + ": " + bound);
+        }
+        assertEquals(0, metrics.engineTimes().percentileNanos(99));
+        assertThrows(IllegalArgumentException.class, () -> times.percentileNanos(101));
+    }
+}
@@ -0,0 +1,79 @@
+package ch.epfl.tchu.game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class MapIndexTest {
+
+    private Station s0;
+    private Station s1;
+    private Station s2;
+    private Route simple;
+    private Route double1;
+    private Route double2;
+    private MapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        s0 = new Station(0, "A");
+        s1 = new Station(1, "B");
+        s2 = new Station(2, "C");
+        simple = new Route("A_B_1", s0, s1, 3, Route.Level.OVERGROUND, Color.RED);
+        double1 = new Route("B_C_1", s1, s2, 2, Route.Level.OVERGROUND, Color.BLUE);
+        double2 = new Route("B_C_2", s1, s2, 2, Route.Level.UNDERGROUND, null);
+        index = new MapIndex(List.of(s0, s1, s2), List.of(simple, double1, double2));
+    }
+
+    @Test
+    void idsArePositionsInTheLists() {
+        assertEquals(0, index.idOf(simple));
+        assertEquals(2, index.idOf(double2));
+        assertSame(double1, index.route(1));
+        assertEquals(2, index.idOf(s2));
+        assertEquals(-1, index.idOf(new Route("X", s0, s2, 1, Route.Level.OVERGROUND, null)));
+    }
+
+    @Test
+    void routesBetweenIgnoresTheDirection() {
+        assertEquals(List.of(double1, double2), index.routesBetween(s2, s1));
+        assertEquals(List.of(simple), index.routesBetween(s0, s1));
+        assertEquals(List.of(), index.routesBetween(s0, s2));
+    }
+
+    @Test
+    void doublePartnersAreEachOther() {
+        assertSame(double2, index.doublePartnerOf(double1));
+        assertSame(double1, index.doublePartnerOf(double2));
+        assertNull(index.doublePartnerOf(simple));
+        assertTrue(index.isPartOfDouble(double1));
+        assertFalse(index.isPartOfDouble(simple));
+    }
+
+    @Test
+    void routesFromListsTheRoutesOfAStation() {
+        assertEquals(List.of(simple, double1, double2), index.routesFrom(s1));
+        assertEquals(List.of(simple), index.routesFrom(s0));
+    }
+
+    @Test
+    void unknownStationsAreRejected() {
+        Station outside = new Station(3, "D");
+        Route route = new Route("A_D_1", s0, outside, 1, Route.Level.OVERGROUND, null);
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new MapIndex(List.of(s0, s1, s2), List.of(route)));
+    }
+
+    @Test
+    void chMapIndexAgreesWithIsPartOfDouble() {
+        MapIndex ch = MapIndex.ch();
+        for (Route route : ChMap.routes()) {
+            assertSame(route, ch.route(ch.idOf(route)));
+            assertEquals(route.isPartOfDouble(), ch.doublePartnerOf(route) != null);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ch.epfl.tchu.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.test.TestRandomizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class MatchSchedulerTest {
+
+    private static final Map<PlayerId, String> NAMES =
+            Map.of(PlayerId.PLAYER_1, "Alice", PlayerId.PLAYER_2, "Bob");
+
+    /** Players that wait for the latch at the start of the game, then abort it. */
+    private static Map<PlayerId, Player> playersWaitingFor(CountDownLatch latch) {
+        Player player = mock(Player.class);
+        doAnswer(
+                        invocationOnMock -> {
+                            latch.await();
+                            throw new IllegalStateException("Game aborted by the test.");
+                        })
+                .when(player)
+                .initPlayers(any(), any());
+        return Map.of(PlayerId.PLAYER_1, player, PlayerId.PLAYER_2, player);
+    }
+
+    /** Players that tell they have started, then wait for the latch even if interrupted. */
+    private static Map<PlayerId, Player> playersIgnoringInterrupts(
+            CountDownLatch started, CountDownLatch latch) {
+        Player player = mock(Player.class);
+        doAnswer(
+                        invocationOnMock -> {
+                            started.countDown();
+                            while (true) {
+                                try {
+                                    latch.await();
+                                    break;
+                                } catch (InterruptedException e) {
+                                    // Still blocked, as on a read which can't be interrupted.
+                                }
+                            }
+                            throw new IllegalStateException("Game aborted by the test.");
+                        })
+                .when(player)
+                .initPlayers(any(), any());
+        return Map.of(PlayerId.PLAYER_1, player, PlayerId.PLAYER_2, player);
+    }
+
+    @Test
+    void trySubmitRefusesMatchesAboveTheCap() throws Exception {
+        MatchScheduler scheduler = new MatchScheduler(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        Future<?> first =
+                scheduler
+                        .trySubmit(
+                                playersWaitingFor(latch),
+                                NAMES,
+                                SortedBag.of(ChMap.tickets()),
+                                TestRandomizer.newRandom())
+                        .orElseThrow();
+        assertTrue(
+                scheduler
+                        .trySubmit(
+                                playersWaitingFor(latch),
+                                NAMES,
+                                SortedBag.of(ChMap.tickets()),
+                                TestRandomizer.newRandom())
+                        .isEmpty());
+        assertEquals(1, scheduler.runningMatchesCount());
+
+        latch.countDown();
+        assertThrows(ExecutionException.class, () -> first.get(1, TimeUnit.MINUTES));
+        // The slot of the aborted match is given back.
+        Future<?> second =
+                scheduler.submit(
+                        playersWaitingFor(latch),
+                        NAMES,
+                        SortedBag.of(ChMap.tickets()),
+                        TestRandomizer.newRandom());
+        assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.MINUTES));
+        assertTrue(scheduler.shutdown(1, TimeUnit.MINUTES));
+    }
+
+    @Test
+    void cancelledMatchesKeepTheirSlotUntilTheirThreadIsDone() throws Exception {
+        MatchScheduler scheduler = new MatchScheduler(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        Future<?> cancelled =
+                scheduler.submit(
+                        playersIgnoringInterrupts(started, latch),
+                        NAMES,
+                        SortedBag.of(ChMap.tickets()),
+                        TestRandomizer.newRandom());
+        started.await();
+        assertTrue(cancelled.cancel(true));
+
+        // The game is still blocked on its players.
+        assertTrue(
+                scheduler
+                        .trySubmit(
+                                playersWaitingFor(latch),
+                                NAMES,
+                                SortedBag.of(ChMap.tickets()),
+                                TestRandomizer.newRandom())
+                        .isEmpty());
+        assertEquals(1, scheduler.runningMatchesCount());
+
+        latch.countDown();
+        Future<?> next =
+                scheduler.submit(
+                        playersWaitingFor(latch),
+                        NAMES,
+                        SortedBag.of(ChMap.tickets()),
+                        TestRandomizer.newRandom());
+        assertThrows(ExecutionException.class, () -> next.get(1, TimeUnit.MINUTES));
+        assertTrue(scheduler.shutdown(1, TimeUnit.MINUTES));
+    }
+
+    @Test
+    void theErrorOfAMatchIsGivenToItsCallbackBeforeItsSlotIsFreed() throws Exception {
+        MatchScheduler scheduler = new MatchScheduler(1);
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        Future<?> match =
+                scheduler.submit(
+                        playersWaitingFor(new CountDownLatch(0)),
+                        NAMES,
+                        SortedBag.of(ChMap.tickets()),
+                        TestRandomizer.newRandom(),
+                        e -> failure.complete(scheduler.runningMatchesCount() == 1 ? e : null));
+
+        assertTrue(failure.get(1, TimeUnit.MINUTES) instanceof IllegalStateException);
+        assertThrows(ExecutionException.class, () -> match.get(1, TimeUnit.MINUTES));
+        assertTrue(scheduler.shutdown(1, TimeUnit.MINUTES));
+    }
+
+    @Test
+    void constructorFailsWithNonPositiveCap() {
+        assertThrows(IllegalArgumentException.class, () -> new MatchScheduler(0));
+    }
+}
@@ -247,6 +247,15 @@ public class PlayerStateTest {
         assertTrue(playerState.withClaimedRoute(toClaim, claimCards).routes().contains(toClaim));
     }
 
+    @Test
+    void withClaimedRouteUpdatesLongestTrailLength() {
+        PlayerState state = staticPlayerState;
+        for (Route route : ChMap.routes().subList(0, 20)) {
+            state = state.withClaimedRoute(route, SortedBag.of());
+            assertEquals(Trail.longest(state.routes()).length(), state.longestTrailLength());
+        }
+    }
+
     @Test
     void returnsCorrectTicketPoints() {
         Station s1 = new Station(3, "SUH DUDE");
@@ -274,4 +283,23 @@ public class PlayerStateTest {
         int ticketPoints = playerState.ticketPoints();
         assertEquals(playerState.finalPoints(), claimPoints + ticketPoints);
     }
+
+    @Test
+    void ticketPointsAreThoseOfThePartitionOfTheRoutes() {
+        SortedBag<Ticket> allTickets = SortedBag.of(ChMap.tickets());
+        PlayerState state = new PlayerState(allTickets, cards, List.of());
+        // Every third route, so that some tickets are connected and others are not.
+        for (int i = 0; i < ChMap.routes().size(); i += 3) {
+            Route route = ChMap.routes().get(i);
+            state = state.withClaimedRoute(route, SortedBag.of());
+            StationPartition.Builder builder =
+                    new StationPartition.Builder(ChMap.stations().size());
+            for (Route claimed : state.routes())
+                builder.connect(claimed.station1(), claimed.station2());
+            StationPartition partition = builder.build();
+            int expected = 0;
+            for (Ticket ticket : allTickets) expected += ticket.points(partition);
+            assertEquals(expected, state.ticketPoints());
+        }
+    }
 }
@@ -150,7 +150,7 @@ public class PublicGameStateTest {
 
     @Test
     void returnCorrectListOfRoute() {
-        assertEquals(List.of(r2, r1), publicGameState.claimedRoutes());
+        assertEquals(List.of(r1, r2), publicGameState.claimedRoutes());
         playerState.remove(PLAYER_1, publicPlayerState1);
         playerState.remove(lastPlayer, publicPlayerState2);
         playerState.put(PLAYER_1, publicPlayerState2);
@@ -61,4 +61,14 @@ public class PublicPlayerStateTest {
         // 40 - 5 - 6
         assertEquals(29, publicPlayerState.carCount());
     }
+
+    @Test
+    void returnsCorrectLongestTrailLength() {
+        // the two routes are not connected, so the longest trail is the longest route
+        assertEquals(6, publicPlayerState.longestTrailLength());
+        Route route3 = new Route("Bienne", b, c, 2, Route.Level.OVERGROUND, null);
+        routes = List.of(route1, route2, route3);
+        assertEquals(13, new PublicPlayerState(1, 1, routes).longestTrailLength());
+        assertEquals(0, new PublicPlayerState(1, 1, List.of()).longestTrailLength());
+    }
 }
@@ -0,0 +1,60 @@
+package ch.epfl.tchu.game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class RouteListTest {
+
+    private final Route r1 = ChMap.routes().get(0);
+    private final Route r2 = ChMap.routes().get(1);
+    private final Route r3 = ChMap.routes().get(2);
+
+    @Test
+    void addedRoutesAreAtTheEnd() {
+        RouteList list = RouteList.of(List.of(r1)).with(r2);
+        assertEquals(List.of(r1, r2), list);
+        assertEquals(r1.length() + r2.length(), list.totalLength());
+        assertEquals(r1.claimPoints() + r2.claimPoints(), list.claimPoints());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(2));
+        assertThrows(UnsupportedOperationException.class, () -> list.add(r3));
+    }
+
+    @Test
+    void listsGrownFromTheSameListDoNotSeeEachOther() {
+        RouteList common = RouteList.of(List.of(r1));
+        RouteList withR2 = common.with(r2);
+        RouteList withR3 = common.with(r3);
+        assertEquals(List.of(r1), common);
+        assertEquals(List.of(r1, r2), withR2);
+        assertEquals(List.of(r1, r3), withR3);
+        assertEquals(List.of(r1, r2, r3), withR2.with(r3));
+    }
+
+    @Test
+    void listsGrowPastTheirInitialCapacity() {
+        RouteList list = RouteList.of(List.of());
+        for (Route route : ChMap.routes()) list = list.with(route);
+        assertEquals(ChMap.routes(), list);
+    }
+
+    @Test
+    void containsOnlyTheRoutesAdded() {
+        Route outsideOfTheMap = new Route("X", r1.station1(), r1.station2(), 1, r1.level(), null);
+        RouteList common = RouteList.of(List.of(r1));
+        RouteList withR2 = common.with(r2);
+        RouteList withOutside = common.with(outsideOfTheMap);
+        assertTrue(withR2.contains(r1));
+        assertTrue(withR2.contains(r2));
+        assertFalse(common.contains(r2));
+        assertFalse(withOutside.contains(r2));
+        assertTrue(withOutside.contains(outsideOfTheMap));
+        assertFalse(withR2.contains(outsideOfTheMap));
+        assertFalse(withR2.contains("r1"));
+        Route last = ChMap.routes().get(ChMap.routes().size() - 1);
+        assertTrue(withR2.with(last).contains(last));
+        assertFalse(withR2.contains(last));
+    }
+}
@@ -131,6 +131,25 @@ class RouteTest {
         assertEquals(underGroundRoute.possibleClaimCards().get(16), cardList.get(2));
     }
 
+    @Test
+    void canBeClaimedWithMatchesPossibleClaimCards() {
+        // overground red route of length 5: only 5 red cards
+        assertTrue(overGroundRoute.canBeClaimedWith(SortedBag.of(5, Card.RED, 1, Card.BLUE)));
+        assertFalse(
+                overGroundRoute.canBeClaimedWith(SortedBag.of(4, Card.RED, 1, Card.LOCOMOTIVE)));
+        // neutral tunnel of length 2: two cards of one color, completed by locomotives
+        assertTrue(
+                underGroundRoute.canBeClaimedWith(SortedBag.of(1, Card.BLUE, 1, Card.LOCOMOTIVE)));
+        assertTrue(underGroundRoute.canBeClaimedWith(SortedBag.of(2, Card.LOCOMOTIVE)));
+        assertFalse(underGroundRoute.canBeClaimedWith(SortedBag.of(1, Card.BLUE, 1, Card.RED)));
+        for (Route route : ChMap.routes()) {
+            SortedBag<Card> hand = SortedBag.of(2, Card.GREEN, 1, Card.LOCOMOTIVE);
+            assertEquals(
+                    route.possibleClaimCards().stream().anyMatch(hand::contains),
+                    route.canBeClaimedWith(hand));
+        }
+    }
+
     @Test
     void raisesIllegalArgumentExceptionIfRouteIsOverground() {
         assertThrows(
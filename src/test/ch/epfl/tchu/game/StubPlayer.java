@@ -0,0 +1,60 @@
+package ch.epfl.tchu.game;
+
+import ch.epfl.tchu.SortedBag;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Player of the tests, ignoring what it is told and answering every decision with a constant. The
+ * tests extend it to override only the methods they observe or slow down.
+ */
+public class StubPlayer implements Player {
+
+    @Override
+    public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {}
+
+    @Override
+    public void receiveInfo(String info) {}
+
+    @Override
+    public void updateState(PublicGameState newState, PlayerState ownState) {}
+
+    @Override
+    public void setInitialTicketChoice(SortedBag<Ticket> tickets) {}
+
+    @Override
+    public SortedBag<Ticket> chooseInitialTickets() {
+        return SortedBag.of(ChMap.tickets().get(1));
+    }
+
+    @Override
+    public TurnKind nextTurn() {
+        return TurnKind.DRAW_TICKETS;
+    }
+
+    @Override
+    public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+        return options;
+    }
+
+    @Override
+    public int drawSlot() {
+        return 3;
+    }
+
+    @Override
+    public Route claimedRoute() {
+        return ChMap.routes().get(7);
+    }
+
+    @Override
+    public SortedBag<Card> initialClaimCards() {
+        return SortedBag.of(Card.BLUE);
+    }
+
+    @Override
+    public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+        return SortedBag.of();
+    }
+}
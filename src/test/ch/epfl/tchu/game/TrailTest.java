@@ -67,6 +67,14 @@ public class TrailTest {
         assertEquals("Fribourg - Berne - Neuchâtel - Soleure - Berne - Lucerne (13)", longestTrail);
     }
 
+    @Test
+    void assertLongestUsesEveryRouteOfAClosedTrail() {
+        Route route4 = new Route("ID4", s2, s4, 2, Route.Level.OVERGROUND, Color.BLUE);
+        listOfRoutes = List.of(route1, route3, route4);
+        assertEquals(11, longest(listOfRoutes).length());
+        assertEquals(longest(listOfRoutes).station1(), longest(listOfRoutes).station2());
+    }
+
     @Test
     void assertStationsAndLengthAreNullWithEmptyRouteList() {
         listOfRoutes = List.of();
@@ -0,0 +1,107 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static ch.epfl.tchu.net.BinarySerdes.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySerdesTest {
+
+    private static <T> T roundTrip(BinarySerde<T> serde, T value, int expectedSize) {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        serde.write(buffer, value);
+        if (expectedSize >= 0) assertEquals(expectedSize, buffer.position());
+        buffer.flip();
+        T read = serde.read(buffer);
+        assertFalse(buffer.hasRemaining());
+        return read;
+    }
+
+    @Test
+    void integersAreZigzagVarInts() {
+        assertEquals(0, roundTrip(intSerde, 0, 1));
+        assertEquals(-1, roundTrip(intSerde, -1, 1));
+        assertEquals(63, roundTrip(intSerde, 63, 1));
+        assertEquals(64, roundTrip(intSerde, 64, 2));
+        assertEquals(Integer.MAX_VALUE, roundTrip(intSerde, Integer.MAX_VALUE, 5));
+        assertEquals(Integer.MIN_VALUE, roundTrip(intSerde, Integer.MIN_VALUE, 5));
+    }
+
+    @Test
+    void stringsAreUtf8() {
+        for (String toTest : List.of("Hello World", "", " ", "\n", "éà€")) {
+            assertEquals(toTest, roundTrip(stringSerde, toTest, -1));
+        }
+    }
+
+    @Test
+    void elementsOfListsAreIndices() {
+        assertEquals(PLAYER_2, roundTrip(playerIdSerde, PLAYER_2, 1));
+        assertNull(roundTrip(playerIdSerde, null, 1));
+        for (Route route : ChMap.routes()) assertEquals(route, roundTrip(routeSerde, route, 1));
+        for (Ticket ticket : ChMap.tickets())
+            assertEquals(ticket, roundTrip(ticketSerde, ticket, 1));
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        routeSerde.write(
+                                buffer,
+                                new Route(
+                                        "X",
+                                        new Station(0, "A"),
+                                        new Station(1, "B"),
+                                        1,
+                                        Route.Level.OVERGROUND,
+                                        null)));
+    }
+
+    @Test
+    void bagsAreWrittenWithTheirMultiplicities() {
+        SortedBag<Card> cards = SortedBag.of(12, Card.RED, 3, Card.LOCOMOTIVE);
+        assertEquals(cards, roundTrip(cardBagSerde, cards, 5));
+        assertEquals(SortedBag.of(), roundTrip(cardBagSerde, SortedBag.<Card>of(), 1));
+        List<SortedBag<Card>> options = List.of(SortedBag.of(Card.BLUE), SortedBag.of());
+        assertEquals(options, roundTrip(listOfCardBagSerde, options, -1));
+    }
+
+    @Test
+    void gameStatesAreRestored() {
+        GameState gameState =
+                GameState.initial(SortedBag.of(ChMap.tickets()), new Random(2021))
+                        .withClaimedRoute(ChMap.routes().get(3), SortedBag.of())
+                        .withInitiallyChosenTickets(PLAYER_1, SortedBag.of(ChMap.tickets().get(0)));
+        PublicGameState read = roundTrip(publicGameStateSerde, gameState, -1);
+        assertEquals(gameState.ticketsCount(), read.ticketsCount());
+        assertEquals(gameState.cardState().faceUpCards(), read.cardState().faceUpCards());
+        assertEquals(gameState.cardState().deckSize(), read.cardState().deckSize());
+        assertEquals(gameState.currentPlayerId(), read.currentPlayerId());
+        assertNull(read.lastPlayer());
+        for (PlayerId playerId : PlayerId.ALL) {
+            assertEquals(
+                    gameState.playerState(playerId).routes(), read.playerState(playerId).routes());
+            assertEquals(
+                    gameState.playerState(playerId).cardCount(),
+                    read.playerState(playerId).cardCount());
+        }
+
+        PlayerState playerState = gameState.playerState(PLAYER_1);
+        PlayerState readPlayerState = roundTrip(playerStateSerde, playerState, -1);
+        assertEquals(playerState.tickets(), readPlayerState.tickets());
+        assertEquals(playerState.cards(), readPlayerState.cards());
+        assertEquals(playerState.routes(), readPlayerState.routes());
+    }
+
+    @Test
+    void corruptedVarIntsAreRejected() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] {-1, -1, -1, -1, -1, 1});
+        assertThrows(IllegalArgumentException.class, () -> BinarySerde.readVarInt(buffer));
+    }
+}
@@ -0,0 +1,142 @@
+package ch.epfl.tchu.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedStreamsTest {
+
+    private static byte[] repeatedText(int length) {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < length) text.append("UPDATE_STATE 40:6,7,2,0,8:97:0:0 ");
+        return text.substring(0, length).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void chunksAreReadAsWritten() throws IOException {
+        byte[] random = new byte[5000];
+        new Random(2021).nextBytes(random);
+        List<byte[]> chunks =
+                List.of(new byte[] {1, 2, 3}, repeatedText(1000), random, repeatedText(127));
+
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        OutputStream out = CompressedStreams.compressing(sent, 128);
+        for (byte[] chunk : chunks) {
+            out.write(chunk);
+            out.flush();
+        }
+        out.flush();
+
+        InputStream in =
+                CompressedStreams.decompressing(new ByteArrayInputStream(sent.toByteArray()));
+        for (byte[] chunk : chunks) assertArrayEquals(chunk, in.readNBytes(chunk.length));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void chunksRepeatingThePreviousOnesAreSmall() throws IOException {
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        OutputStream out = CompressedStreams.compressing(sent, 128);
+        out.write(repeatedText(50));
+        out.flush();
+        // Under the threshold: the bytes and a header of one byte.
+        assertEquals(51, sent.size());
+
+        byte[] random = new byte[1000];
+        new Random(2021).nextBytes(random);
+        out.write(random);
+        out.flush();
+        int first = sent.size() - 51;
+        out.write(random);
+        out.flush();
+        int second = sent.size() - 51 - first;
+        assertTrue(first > 1000);
+        assertTrue(second < 100);
+    }
+
+    @Test
+    void truncatedChunksFail() throws IOException {
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        OutputStream out = CompressedStreams.compressing(sent, 0);
+        out.write(repeatedText(1000));
+        out.flush();
+        byte[] bytes = sent.toByteArray();
+        InputStream in =
+                CompressedStreams.decompressing(
+                        new ByteArrayInputStream(bytes, 0, bytes.length - 1));
+        assertThrows(EOFException.class, in::read);
+    }
+
+    @Test
+    void messagesAreExchangedWhetherCompressedOrNot() throws Exception {
+        String info = new String(repeatedText(1000), StandardCharsets.US_ASCII);
+        try (ServerSocket server = new ServerSocket(0)) {
+            for (boolean offered : List.of(false, true)) {
+                for (boolean accepted : List.of(false, true)) {
+                    try (Socket client = new Socket("localhost", server.getLocalPort());
+                            Socket accepting = server.accept()) {
+                        CompletableFuture<MessageChannel> serverSide =
+                                CompletableFuture.supplyAsync(
+                                        () ->
+                                                MessageChannel.acceptFormat(
+                                                        accepting, WireFormat.ALL, accepted));
+                        MessageChannel clientChannel =
+                                MessageChannel.offerFormats(client, WireFormat.ALL, offered);
+                        MessageChannel serverChannel = serverSide.get();
+
+                        for (int i = 0; i < 3; i++) {
+                            serverChannel
+                                    .begin(MessageId.RECEIVE_INFO)
+                                    .write(WireSerde.stringSerde, info)
+                                    .send();
+                            assertEquals(MessageId.RECEIVE_INFO, clientChannel.receive());
+                            assertEquals(info, clientChannel.read(WireSerde.stringSerde));
+                        }
+                        clientChannel.beginResponse().write(WireSerde.intSerde, 4).send();
+                        serverChannel.receiveResponse();
+                        assertEquals(4, serverChannel.read(WireSerde.intSerde));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void compressionIsAnsweredOnlyWithAFormat() {
+        assertEquals(
+                "HELLO BINARY,DEFLATE\n",
+                new String(
+                        MessageChannel.answerLine(Optional.of(WireFormat.BINARY), true),
+                        StandardCharsets.US_ASCII));
+        assertEquals(
+                "HELLO \n",
+                new String(
+                        MessageChannel.answerLine(Optional.empty(), true),
+                        StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void compressionIsChosenOnlyIfTheServerAcceptsIt() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            for (boolean accepted : List.of(false, true)) {
+                try (Socket client = new Socket("localhost", server.getLocalPort());
+                        Socket accepting = server.accept()) {
+                    CompletableFuture<Boolean> serverSide =
+                            CompletableFuture.supplyAsync(
+                                    () -> MessageChannel.acceptCompression(accepting, accepted));
+                    assertEquals(accepted, MessageChannel.offerCompression(client));
+                    assertEquals(accepted, serverSide.get());
+                }
+            }
+        }
+    }
+}
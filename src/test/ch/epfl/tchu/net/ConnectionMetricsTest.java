@@ -0,0 +1,142 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionMetricsTest {
+
+    @Test
+    void sizesAreTheBytesWritten() {
+        for (WireFormat format : WireFormat.ALL) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ConnectionMetrics metrics = new ConnectionMetrics();
+            MessageChannel channel =
+                    new MeteredChannel(
+                            MessageChannel.of(format, InputStream.nullInputStream(), out), metrics);
+            channel.begin(MessageId.RECEIVE_INFO).write(WireSerde.stringSerde, "Ada joue.");
+            channel.send();
+            channel.begin(MessageId.NEXT_TURN).send();
+
+            ConnectionMetrics.Snapshot snapshot = metrics.snapshot();
+            assertEquals(1, snapshot.sentCount(MessageId.RECEIVE_INFO));
+            assertEquals(1, snapshot.sentCount(MessageId.NEXT_TURN));
+            assertEquals(
+                    out.size(),
+                    snapshot.sentBytes(MessageId.RECEIVE_INFO)
+                            + snapshot.sentBytes(MessageId.NEXT_TURN));
+            assertEquals(2, snapshot.sentCount());
+            assertEquals(2, snapshot.flushesCount());
+            assertEquals(0, snapshot.receivedCount(MessageId.NEXT_TURN));
+        }
+    }
+
+    @Test
+    void responsesAreCountedForTheirRequest() {
+        for (WireFormat format : WireFormat.ALL) {
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            MessageChannel client =
+                    MessageChannel.of(format, InputStream.nullInputStream(), response);
+            client.beginResponse().write(WireSerde.intSerde, 3).send();
+
+            ConnectionMetrics metrics = new ConnectionMetrics();
+            MessageChannel channel =
+                    new MeteredChannel(
+                            MessageChannel.of(
+                                    format,
+                                    new ByteArrayInputStream(response.toByteArray()),
+                                    new ByteArrayOutputStream()),
+                            metrics);
+            channel.begin(MessageId.DRAW_SLOT).send();
+            channel.begin(MessageId.HEARTBEAT).send();
+            channel.receiveResponse();
+            assertEquals(3, channel.read(WireSerde.intSerde));
+
+            ConnectionMetrics.Snapshot snapshot = metrics.snapshot();
+            assertEquals(1, snapshot.receivedCount(MessageId.DRAW_SLOT));
+            assertEquals(response.size(), snapshot.receivedBytes(MessageId.DRAW_SLOT));
+            assertEquals(0, snapshot.receivedCount(MessageId.HEARTBEAT));
+            assertEquals(1, snapshot.flushesCount(MessageId.HEARTBEAT));
+        }
+    }
+
+    @Test
+    void bothEndsMeasureTheSameBytes() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            RemotePlayerClient client =
+                    new RemotePlayerClient(
+                            new StubPlayer(),
+                            "localhost",
+                            serverSocket.getLocalPort(),
+                            WireFormat.ALL);
+            CompletableFuture<Void> running = CompletableFuture.runAsync(client::run);
+            RemotePlayerProxy player;
+            try (Socket socket = serverSocket.accept()) {
+                player = new RemotePlayerProxy(socket, WireFormat.ALL, Duration.ofSeconds(1));
+                player.receiveInfo("Ada joue.");
+                player.receiveInfo("Charles joue.");
+                assertEquals(Player.TurnKind.DRAW_TICKETS, player.nextTurn());
+            }
+            running.get(1, TimeUnit.MINUTES);
+
+            ConnectionMetrics.Snapshot server = player.metrics().snapshot();
+            ConnectionMetrics.Snapshot remote = client.metrics().snapshot();
+            assertTrue(client.metrics().isClosed());
+            assertEquals(2, server.sentCount(MessageId.RECEIVE_INFO));
+            assertEquals(2, remote.receivedCount(MessageId.RECEIVE_INFO));
+            assertEquals(
+                    server.sentBytes(MessageId.RECEIVE_INFO),
+                    remote.receivedBytes(MessageId.RECEIVE_INFO));
+            assertEquals(1, remote.sentCount(MessageId.NEXT_TURN));
+            assertEquals(1, server.receivedCount(MessageId.NEXT_TURN));
+            assertEquals(
+                    remote.sentBytes(MessageId.NEXT_TURN),
+                    server.receivedBytes(MessageId.NEXT_TURN));
+            // The infos are batched and written along with the request.
+            assertEquals(1, server.flushesCount());
+            assertEquals(1, server.flushesCount(MessageId.NEXT_TURN));
+            assertEquals(3, player.sentMessagesCount());
+            assertEquals(1, player.flushesCount());
+        }
+    }
+
+    @Test
+    void logDumpsTheConnectionsUntilTheyAreClosed() throws Exception {
+        Path file = Files.createTempFile("tchu-metrics", ".log");
+        try {
+            ConnectionMetrics first = new ConnectionMetrics();
+            ConnectionMetrics second = new ConnectionMetrics();
+            first.sent(MessageId.RECEIVE_INFO, 12, 1_000);
+            ConnectionMetricsLog log = new ConnectionMetricsLog(file, Duration.ofHours(1));
+            log.register("client", first);
+            log.register("client", second);
+            second.close();
+            log.dump();
+            log.close();
+            assertThrows(IllegalStateException.class, log::dump);
+
+            List<String> lines = Files.readAllLines(file);
+            assertTrue(lines.get(0).endsWith("2 connection(s)"));
+            assertTrue(lines.contains("client"));
+            assertTrue(lines.contains("client#2 (closed)"));
+            assertTrue(lines.stream().anyMatch(line -> line.startsWith("RECEIVE_INFO")));
+            // The closed connection is forgotten once dumped.
+            assertTrue(lines.stream().anyMatch(line -> line.endsWith(": 1 connection(s)")));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import ch.epfl.tchu.sim.BotKind;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Plays whole games between bots through the network protocol, each bot being connected by a
+ * {@link RemotePlayerClient} to a {@link RemotePlayerProxy} over a loopback socket, and measures
+ * the messages and bytes exchanged, the latency of each message and the CPU time of the games
+ * (see {@link ProtocolReport}). The games are played one after the other, so that they don't
+ * disturb the latencies of each other, and are reproducible for a given seed.
+ *
+ * <p>Part of the test sources, as it plays the bots of {@link ch.epfl.tchu.sim}, on which the
+ * protocol itself does not depend (see {@link #main(String[])}).
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class LoopbackBenchmark {
+    private static final int DEFAULT_WARMUP_GAMES_COUNT = 5;
+    private static final int DEFAULT_GAMES_COUNT = 50;
+    private static final long DEFAULT_SEED = 2021;
+    private static final Map<PlayerId, String> NAMES =
+            Map.of(PlayerId.PLAYER_1, "Ada", PlayerId.PLAYER_2, "Charles");
+
+    private final Map<PlayerId, BotKind> bots;
+    private final List<WireFormat> formats;
+    private final Duration flushDelay;
+    private final boolean compression;
+
+    /**
+     * Constructs a benchmark of games between the given bots, exchanging their messages in the
+     * given format, in batching mode if flushDelay is not null, and compressed if asked.
+     *
+     * @param bots the kind of bot of each player.
+     * @param format the format of the messages.
+     * @param flushDelay the maximal delay of the messages expecting no response, null to send each
+     *     message right away (see {@link RemotePlayerProxy#RemotePlayerProxy(Socket, Collection,
+     *     Duration)}).
+     * @param compression whether to compress the messages.
+     * @throws IllegalArgumentException if there are not exactly two bots, or if flushDelay is
+     *     negative.
+     * @throws NullPointerException if the format is null.
+     */
+    public LoopbackBenchmark(
+            Map<PlayerId, BotKind> bots,
+            WireFormat format,
+            Duration flushDelay,
+            boolean compression) {
+        Preconditions.checkArgument(bots.size() == PlayerId.COUNT);
+        Preconditions.checkArgument(flushDelay == null || !flushDelay.isNegative());
+        this.bots = new EnumMap<>(bots);
+        this.formats = List.of(format);
+        this.flushDelay = flushDelay;
+        this.compression = compression;
+    }
+
+    /**
+     * Plays the given numbers of games, the first ones only to warm up the virtual machine, and
+     * measures the other ones.
+     *
+     * @param warmupGamesCount the number of games played before measuring.
+     * @param gamesCount the number of games measured.
+     * @param seed the seed from which the random generators of the games are derived.
+     * @return the measures of the games.
+     * @throws IllegalArgumentException if a number of games is negative.
+     * @throws UncheckedIOException if the connection of a player fails.
+     */
+    public ProtocolReport run(int warmupGamesCount, int gamesCount, long seed) {
+        Preconditions.checkArgument(warmupGamesCount >= 0 && gamesCount >= 0);
+        ExecutorService clients = Executors.newFixedThreadPool(PlayerId.COUNT);
+        try (ServerSocket server = new CountingServerSocket()) {
+            for (int i = 0; i < warmupGamesCount; i++)
+                play(server, clients, seed - warmupGamesCount + i, null);
+
+            Measures measures = new Measures();
+            long cpuStart = processCpuNanos();
+            long start = System.nanoTime();
+            for (int i = 0; i < gamesCount; i++) play(server, clients, seed + i, measures);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            long cpuEnd = processCpuNanos();
+
+            return new ProtocolReport(
+                    gamesCount,
+                    elapsed,
+                    measures.messagesCount,
+                    measures.sentBytes,
+                    measures.receivedBytes,
+                    cpuStart < 0 || cpuEnd < 0 ? -1 : cpuEnd - cpuStart,
+                    measures.latencies());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    // Plays a game, whose measures are added to the given ones, if not null.
+    private void play(ServerSocket server, Executor clients, long seed, Measures measures)
+            throws IOException {
+        Random seeds = new Random(seed);
+        Random rng = new Random(seeds.nextLong());
+        Map<PlayerId, Player> players = new EnumMap<>(PlayerId.class);
+        List<TimedPlayer> timedPlayers = new ArrayList<>();
+        List<CountingSocket> sockets = new ArrayList<>();
+        List<CompletableFuture<Void>> runningClients = new ArrayList<>();
+        try {
+            for (PlayerId id : PlayerId.ALL) {
+                Player bot = bots.get(id).newPlayer(new Random(seeds.nextLong()));
+                RemotePlayerClient client =
+                        new RemotePlayerClient(
+                                bot, "localhost", server.getLocalPort(), formats, compression);
+                runningClients.add(CompletableFuture.runAsync(client::run, clients));
+                // The players connect one after the other, so that each proxy gets its bot.
+                CountingSocket socket = (CountingSocket) server.accept();
+                sockets.add(socket);
+                TimedPlayer player =
+                        new TimedPlayer(
+                                new RemotePlayerProxy(socket, formats, flushDelay, compression));
+                timedPlayers.add(player);
+                players.put(id, player);
+            }
+            Game.play(players, NAMES, SortedBag.of(ChMap.tickets()), rng);
+        } finally {
+            // The clients stop once they reach the end of their stream.
+            for (Socket socket : sockets) socket.close();
+        }
+        for (CompletableFuture<Void> client : runningClients) {
+            try {
+                client.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+
+        if (measures == null) return;
+        for (TimedPlayer player : timedPlayers) measures.add(player);
+        for (CountingSocket socket : sockets) {
+            measures.sentBytes += socket.sentBytes.get();
+            measures.receivedBytes += socket.receivedBytes.get();
+        }
+    }
+
+    // The CPU time of the whole process, or -1 if the virtual machine does not measure it.
+    private static long processCpuNanos() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean)
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        return -1;
+    }
+
+    /** Measures of the games played so far. */
+    private static final class Measures {
+        private final Map<MessageId, List<Long>> latencies = new EnumMap<>(MessageId.class);
+        private long messagesCount;
+        private long sentBytes;
+        private long receivedBytes;
+
+        private void add(TimedPlayer player) {
+            // The messages of the proxy, and one response to each request.
+            messagesCount += player.proxy.sentMessagesCount() + player.requestsCount;
+            player.latencies.forEach(
+                    (messageId, samples) ->
+                            latencies
+                                    .computeIfAbsent(messageId, id -> new ArrayList<>())
+                                    .addAll(samples));
+        }
+
+        private Map<MessageId, long[]> latencies() {
+            Map<MessageId, long[]> arrays = new EnumMap<>(MessageId.class);
+            latencies.forEach(
+                    (messageId, samples) ->
+                            arrays.put(
+                                    messageId,
+                                    samples.stream().mapToLong(Long::longValue).toArray()));
+            return arrays;
+        }
+    }
+
+    /**
+     * Proxy measuring the time taken by each of its methods, by the message it sends. The states
+     * are counted as {@link MessageId#UPDATE_STATE}, whether they are sent whole or as deltas.
+     */
+    private static final class TimedPlayer implements Player {
+        private final RemotePlayerProxy proxy;
+        private final Map<MessageId, List<Long>> latencies = new EnumMap<>(MessageId.class);
+        private long requestsCount;
+
+        private TimedPlayer(RemotePlayerProxy proxy) {
+            this.proxy = proxy;
+        }
+
+        private void timed(MessageId messageId, Runnable message) {
+            timed(
+                    messageId,
+                    () -> {
+                        message.run();
+                        return null;
+                    });
+        }
+
+        private <T> T timed(MessageId messageId, Supplier<T> message) {
+            long start = System.nanoTime();
+            T response = message.get();
+            latencies
+                    .computeIfAbsent(messageId, id -> new ArrayList<>())
+                    .add(System.nanoTime() - start);
+            return response;
+        }
+
+        private <T> T request(MessageId messageId, Supplier<T> request) {
+            requestsCount++;
+            return timed(messageId, request);
+        }
+
+        @Override
+        public void initPlayers(PlayerId ownId, Map<PlayerId, String> playerNames) {
+            timed(MessageId.INIT_PLAYERS, () -> proxy.initPlayers(ownId, playerNames));
+        }
+
+        @Override
+        public void receiveInfo(String info) {
+            timed(MessageId.RECEIVE_INFO, () -> proxy.receiveInfo(info));
+        }
+
+        @Override
+        public void updateState(PublicGameState newState, PlayerState ownState) {
+            timed(MessageId.UPDATE_STATE, () -> proxy.updateState(newState, ownState));
+        }
+
+        @Override
+        public void setInitialTicketChoice(SortedBag<Ticket> tickets) {
+            timed(MessageId.SET_INITIAL_TICKETS, () -> proxy.setInitialTicketChoice(tickets));
+        }
+
+        @Override
+        public SortedBag<Ticket> chooseInitialTickets() {
+            return request(MessageId.CHOOSE_INITIAL_TICKETS, proxy::chooseInitialTickets);
+        }
+
+        @Override
+        public TurnKind nextTurn() {
+            return request(MessageId.NEXT_TURN, proxy::nextTurn);
+        }
+
+        @Override
+        public SortedBag<Ticket> chooseTickets(SortedBag<Ticket> options) {
+            return request(MessageId.CHOOSE_TICKETS, () -> proxy.chooseTickets(options));
+        }
+
+        @Override
+        public int drawSlot() {
+            return request(MessageId.DRAW_SLOT, proxy::drawSlot);
+        }
+
+        @Override
+        public Route claimedRoute() {
+            return request(MessageId.ROUTE, proxy::claimedRoute);
+        }
+
+        @Override
+        public SortedBag<Card> initialClaimCards() {
+            return request(MessageId.CARDS, proxy::initialClaimCards);
+        }
+
+        @Override
+        public SortedBag<Card> chooseAdditionalCards(List<SortedBag<Card>> options) {
+            return request(
+                    MessageId.CHOOSE_ADDITIONAL_CARDS, () -> proxy.chooseAdditionalCards(options));
+        }
+    }
+
+    /** Server socket whose connections count the bytes they send and receive. */
+    private static final class CountingServerSocket extends ServerSocket {
+        private CountingServerSocket() throws IOException {
+            super(0);
+        }
+
+        @Override
+        public Socket accept() throws IOException {
+            Socket socket = new CountingSocket();
+            implAccept(socket);
+            return socket;
+        }
+    }
+
+    /** Connection counting the bytes it sends and receives. */
+    private static final class CountingSocket extends Socket {
+        private final AtomicLong sentBytes = new AtomicLong();
+        private final AtomicLong receivedBytes = new AtomicLong();
+        private InputStream countingIn;
+        private OutputStream countingOut;
+
+        @Override
+        public synchronized InputStream getInputStream() throws IOException {
+            if (countingIn == null) {
+                countingIn =
+                        new FilterInputStream(super.getInputStream()) {
+                            @Override
+                            public int read() throws IOException {
+                                int b = super.read();
+                                if (b >= 0) receivedBytes.incrementAndGet();
+                                return b;
+                            }
+
+                            @Override
+                            public int read(byte[] b, int off, int len) throws IOException {
+                                int count = super.read(b, off, len);
+                                if (count > 0) receivedBytes.addAndGet(count);
+                                return count;
+                            }
+                        };
+            }
+            return countingIn;
+        }
+
+        @Override
+        public synchronized OutputStream getOutputStream() throws IOException {
+            if (countingOut == null) {
+                countingOut =
+                        new FilterOutputStream(super.getOutputStream()) {
+                            @Override
+                            public void write(int b) throws IOException {
+                                out.write(b);
+                                sentBytes.incrementAndGet();
+                            }
+
+                            @Override
+                            public void write(byte[] b, int off, int len) throws IOException {
+                                out.write(b, off, len);
+                                sentBytes.addAndGet(len);
+                            }
+                        };
+            }
+            return countingOut;
+        }
+    }
+
+    /**
+     * Plays games between two bots through the network protocol and prints the measures. The
+     * arguments are, all optional: the number of games measured, the format of the messages (see
+     * {@link WireFormat}), the flush delay in milliseconds (negative to send each message right
+     * away), whether to compress the messages, the bots of the two players (see {@link BotKind})
+     * and the seed.
+     *
+     * @param args the arguments of the benchmark.
+     */
+    public static void main(String[] args) {
+        int gamesCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES_COUNT;
+        WireFormat format = args.length > 1 ? WireFormat.valueOf(args[1]) : WireFormat.BINARY;
+        long flushMillis = args.length > 2 ? Long.parseLong(args[2]) : -1;
+        boolean compression = args.length > 3 && Boolean.parseBoolean(args[3]);
+        BotKind bot1 = args.length > 4 ? BotKind.valueOf(args[4]) : BotKind.TICKETS;
+        BotKind bot2 = args.length > 5 ? BotKind.valueOf(args[5]) : BotKind.TICKETS;
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : DEFAULT_SEED;
+
+        LoopbackBenchmark benchmark =
+                new LoopbackBenchmark(
+                        Map.of(PlayerId.PLAYER_1, bot1, PlayerId.PLAYER_2, bot2),
+                        format,
+                        flushMillis < 0 ? null : Duration.ofMillis(flushMillis),
+                        compression);
+        System.out.println(benchmark.run(DEFAULT_WARMUP_GAMES_COUNT, gamesCount, seed));
+    }
+}
@@ -0,0 +1,58 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.game.PlayerId;
+import ch.epfl.tchu.sim.BotKind;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoopbackBenchmarkTest {
+    private static final Map<PlayerId, BotKind> BOTS =
+            Map.of(PlayerId.PLAYER_1, BotKind.GREEDY, PlayerId.PLAYER_2, BotKind.TICKETS);
+
+    @Test
+    void benchmarksMeasureWholeGames() {
+        ProtocolReport report =
+                new LoopbackBenchmark(BOTS, WireFormat.BINARY, Duration.ofMillis(1), false)
+                        .run(1, 2, 7);
+
+        assertEquals(2, report.gamesCount());
+        // Each player is initialized and chooses its initial tickets once per game.
+        assertEquals(4, report.latenciesCount(MessageId.INIT_PLAYERS));
+        assertEquals(4, report.latenciesCount(MessageId.CHOOSE_INITIAL_TICKETS));
+        assertTrue(report.latenciesCount(MessageId.NEXT_TURN) > 0);
+        assertEquals(0, report.latenciesCount(MessageId.HEARTBEAT));
+        assertNull(report.latency(MessageId.HEARTBEAT, 50));
+        assertTrue(
+                report.latency(MessageId.NEXT_TURN, 50)
+                                .compareTo(report.latency(MessageId.NEXT_TURN, 99))
+                        <= 0);
+        assertTrue(report.sentBytesPerGame() > report.receivedBytesPerGame());
+        assertTrue(report.receivedBytesPerGame() > 0);
+        assertTrue(report.messagesCount() > 0);
+    }
+
+    @Test
+    void gamesDependOnlyOnTheirSeed() {
+        LoopbackBenchmark benchmark = new LoopbackBenchmark(BOTS, WireFormat.TEXT, null, false);
+        ProtocolReport first = benchmark.run(0, 1, 3);
+        ProtocolReport second = benchmark.run(0, 1, 3);
+
+        assertEquals(first.messagesCount(), second.messagesCount());
+        assertEquals(first.sentBytesPerGame(), second.sentBytesPerGame());
+        for (MessageId messageId : MessageId.values())
+            assertEquals(first.latenciesCount(messageId), second.latenciesCount(messageId));
+    }
+
+    @Test
+    void latencyFailsWithInvalidPercentiles() {
+        ProtocolReport report =
+                new LoopbackBenchmark(BOTS, WireFormat.BINARY, null, false).run(0, 0, 0);
+        assertEquals(0, report.gamesCount());
+        assertThrows(IllegalArgumentException.class, () -> report.latency(MessageId.ROUTE, 101));
+        assertThrows(IllegalArgumentException.class, () -> report.latency(MessageId.ROUTE, -1));
+    }
+}
@@ -0,0 +1,200 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NioGameServerTest {
+
+    // Player of the clients, keeping the infos it receives.
+    private static final class ConstantPlayer extends StubPlayer {
+        private final List<String> infos = new ArrayList<>();
+
+        @Override
+        public void receiveInfo(String info) {
+            infos.add(info);
+        }
+    }
+
+    @Test
+    void playersOfManyClientsAreServedConcurrently() throws Exception {
+        try (NioGameServer server = new NioGameServer(0, EnumSet.allOf(WireFormat.class))) {
+            List<ConstantPlayer> clientPlayers = new ArrayList<>();
+            List<Thread> clients = new ArrayList<>();
+            List<Player> players = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                ConstantPlayer clientPlayer = new ConstantPlayer();
+                List<WireFormat> offered = i % 2 == 0 ? WireFormat.ALL : List.of(WireFormat.TEXT);
+                Thread client =
+                        new Thread(
+                                () ->
+                                        new RemotePlayerClient(
+                                                        clientPlayer,
+                                                        "localhost",
+                                                        server.port(),
+                                                        offered)
+                                                .run());
+                client.start();
+                clientPlayers.add(clientPlayer);
+                clients.add(client);
+                players.add(server.awaitPlayer());
+            }
+
+            for (int i = 0; i < players.size(); i++) players.get(i).receiveInfo("info " + i);
+            for (Player player : players) {
+                assertEquals(Player.TurnKind.DRAW_TICKETS, player.nextTurn());
+                assertEquals(3, player.drawSlot());
+                assertEquals(ChMap.routes().get(7), player.claimedRoute());
+                SortedBag<Ticket> options = SortedBag.of(ChMap.tickets().subList(2, 5));
+                assertEquals(options, player.chooseTickets(options));
+            }
+            server.close();
+            for (Thread client : clients) client.join();
+            for (int i = 0; i < clientPlayers.size(); i++)
+                assertEquals(List.of("info " + i), clientPlayers.get(i).infos);
+        }
+    }
+
+    private static Thread connect(NioGameServer server, Player clientPlayer) {
+        Thread client =
+                new Thread(
+                        () ->
+                                new RemotePlayerClient(
+                                                clientPlayer,
+                                                "localhost",
+                                                server.port(),
+                                                WireFormat.ALL)
+                                        .run());
+        client.start();
+        return client;
+    }
+
+    @Test
+    void batchedMessagesAreSentWithTheNextRequest() throws Exception {
+        try (NioGameServer server =
+                new NioGameServer(0, WireFormat.ALL, Duration.ofMinutes(1))) {
+            ConstantPlayer clientPlayer = new ConstantPlayer();
+            Thread client = connect(server, clientPlayer);
+            RemotePlayerProxy player = (RemotePlayerProxy) server.awaitPlayer();
+
+            for (int i = 0; i < 3; i++) player.receiveInfo("info " + i);
+            assertEquals(0, player.flushesCount());
+            assertEquals(Player.TurnKind.DRAW_TICKETS, player.nextTurn());
+            assertEquals(List.of("info 0", "info 1", "info 2"), clientPlayer.infos);
+            assertEquals(4, player.sentMessagesCount());
+            assertEquals(1, player.flushesCount());
+
+            server.close();
+            client.join();
+        }
+    }
+
+    @Test
+    void batchedMessagesAreSentOnceTheirDelayExpires() throws Exception {
+        try (NioGameServer server =
+                new NioGameServer(0, WireFormat.ALL, Duration.ofMillis(20))) {
+            ConstantPlayer clientPlayer = new ConstantPlayer();
+            Thread client = connect(server, clientPlayer);
+            RemotePlayerProxy player = (RemotePlayerProxy) server.awaitPlayer();
+
+            player.receiveInfo("first");
+            player.receiveInfo("second");
+            for (int i = 0; i < 500 && player.flushesCount() == 0; i++) Thread.sleep(10);
+            assertEquals(2, player.sentMessagesCount());
+            assertEquals(1, player.flushesCount());
+
+            server.close();
+            client.join();
+        }
+    }
+
+    @Test
+    void responsesAwaitedFromAClosedConnectionFail() throws Exception {
+        try (NioGameServer server = new NioGameServer(0, List.of(WireFormat.TEXT));
+                Socket socket = new Socket("localhost", server.port())) {
+            OutputStream out = socket.getOutputStream();
+            out.write("HELLO BINARY,TEXT\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            Player player = server.awaitPlayer();
+
+            InputStream in = socket.getInputStream();
+            byte[] answer = new byte["HELLO TEXT\n".length()];
+            assertEquals(answer.length, in.readNBytes(answer, 0, answer.length));
+            assertEquals("HELLO TEXT\n", new String(answer, StandardCharsets.US_ASCII));
+
+            socket.close();
+            // Depending on when the server notices, the message or the response fails.
+            assertThrows(RuntimeException.class, player::nextTurn);
+        }
+    }
+
+    // Way of hosting matches on a server.
+    private interface Hosting {
+        void host(NioGameServer server) throws InterruptedException;
+    }
+
+    private static void assertConnectionsAreClosedOnceTheirMatchFails(Hosting hosting)
+            throws Exception {
+        try (NioGameServer server = new NioGameServer(0, WireFormat.ALL)) {
+            Thread host =
+                    new Thread(
+                            () -> {
+                                try {
+                                    hosting.host(server);
+                                } catch (InterruptedException e) {
+                                    throw new AssertionError(e);
+                                }
+                            });
+            host.start();
+            Thread client = connect(server, new ConstantPlayer());
+            // The opponent leaves right after choosing the format, which makes the match fail.
+            try (Socket socket = new Socket("localhost", server.port())) {
+                OutputStream out = socket.getOutputStream();
+                out.write("HELLO TEXT\n".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+            }
+
+            client.join(TimeUnit.MINUTES.toMillis(1));
+            assertFalse(client.isAlive());
+            server.close();
+            host.join();
+        }
+    }
+
+    @Test
+    void connectionsAreClosedOnceTheirMatchEnds() throws Exception {
+        MatchScheduler scheduler = new MatchScheduler(1);
+        assertConnectionsAreClosedOnceTheirMatchFails(server -> server.hostMatches(scheduler));
+        scheduler.shutdown(1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    void connectionsAreClosedOnceTheirAsyncMatchEnds() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        assertConnectionsAreClosedOnceTheirMatchFails(
+                server -> server.hostAsyncMatches(executor, null));
+        executor.shutdown();
+    }
+
+    @Test
+    void closedServersHaveNoMorePlayers() {
+        NioGameServer server = new NioGameServer(0, WireFormat.ALL);
+        server.close();
+        assertThrows(IllegalStateException.class, server::awaitPlayer);
+        assertThrows(IllegalStateException.class, server::awaitPlayer);
+    }
+}
@@ -0,0 +1,169 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.Preconditions;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Measures of the games played through the network by a {@link LoopbackBenchmark}: the messages
+ * and bytes exchanged, the latencies of the messages and the CPU time taken.
+ *
+ * @author Hugues Devimeux (327282)
+ * @author Luca Mouchel (324748)
+ */
+public final class ProtocolReport {
+    private final int gamesCount;
+    private final Duration elapsed;
+    private final long messagesCount;
+    private final long sentBytes;
+    private final long receivedBytes;
+    // CPU time of the whole process, negative if it can't be measured.
+    private final long cpuNanos;
+    // Latencies of each message, in nanoseconds, sorted.
+    private final Map<MessageId, long[]> latencies;
+
+    ProtocolReport(
+            int gamesCount,
+            Duration elapsed,
+            long messagesCount,
+            long sentBytes,
+            long receivedBytes,
+            long cpuNanos,
+            Map<MessageId, long[]> latencies) {
+        this.gamesCount = gamesCount;
+        this.elapsed = elapsed;
+        this.messagesCount = messagesCount;
+        this.sentBytes = sentBytes;
+        this.receivedBytes = receivedBytes;
+        this.cpuNanos = cpuNanos;
+        this.latencies = new EnumMap<>(MessageId.class);
+        latencies.forEach(
+                (messageId, samples) -> {
+                    long[] sorted = samples.clone();
+                    Arrays.sort(sorted);
+                    this.latencies.put(messageId, sorted);
+                });
+    }
+
+    /**
+     * Returns the number of games measured.
+     *
+     * @return the number of games.
+     */
+    public int gamesCount() {
+        return gamesCount;
+    }
+
+    /**
+     * Returns the time taken to play the games measured.
+     *
+     * @return the duration of the games.
+     */
+    public Duration elapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the number of messages exchanged, those sent by the server and the responses of the
+     * clients.
+     *
+     * @return the number of messages.
+     */
+    public long messagesCount() {
+        return messagesCount;
+    }
+
+    /**
+     * Returns the number of messages exchanged per second.
+     *
+     * @return the throughput of the messages.
+     */
+    public double messagesPerSecond() {
+        return elapsed.isZero() ? 0 : messagesCount * 1e9 / elapsed.toNanos();
+    }
+
+    /**
+     * Returns the average number of bytes sent by the server to both players in a game.
+     *
+     * @return the bytes sent per game.
+     */
+    public double sentBytesPerGame() {
+        return gamesCount == 0 ? 0 : (double) sentBytes / gamesCount;
+    }
+
+    /**
+     * Returns the average number of bytes received by the server from both players in a game.
+     *
+     * @return the bytes received per game.
+     */
+    public double receivedBytesPerGame() {
+        return gamesCount == 0 ? 0 : (double) receivedBytes / gamesCount;
+    }
+
+    /**
+     * Returns the average CPU time of a game, of the server and of the clients together.
+     *
+     * @return the CPU time per game, or null if the CPU time of the process can't be measured.
+     */
+    public Duration cpuTimePerGame() {
+        if (cpuNanos < 0) return null;
+        return Duration.ofNanos(gamesCount == 0 ? 0 : cpuNanos / gamesCount);
+    }
+
+    /**
+     * Returns the number of latencies measured for the given message.
+     *
+     * @param messageId the message.
+     * @return the number of times the message has been sent.
+     */
+    public int latenciesCount(MessageId messageId) {
+        long[] samples = latencies.get(messageId);
+        return samples == null ? 0 : samples.length;
+    }
+
+    /**
+     * Returns the given percentile of the latencies of the given message: for a message expecting
+     * a response, the time between its sending and the reception of the response, and otherwise
+     * the time to send it, or to buffer it in batching mode.
+     *
+     * @param messageId the message.
+     * @param percentile the percentile, between 0 and 100.
+     * @return the latency, or null if the message has never been sent.
+     * @throws IllegalArgumentException if the percentile is not between 0 and 100.
+     */
+    public Duration latency(MessageId messageId, double percentile) {
+        Preconditions.checkArgument(0 <= percentile && percentile <= 100);
+        long[] samples = latencies.get(messageId);
+        if (samples == null || samples.length == 0) return null;
+        int index = (int) Math.ceil(percentile / 100 * samples.length) - 1;
+        return Duration.ofNanos(samples[Math.max(0, index)]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(
+                "%d games in %.3f s, %d messages (%.0f messages/s)%n",
+                gamesCount, elapsed.toNanos() / 1e9, messagesCount, messagesPerSecond()));
+        report.append(String.format(
+                "%.0f bytes sent and %.0f bytes received per game%n",
+                sentBytesPerGame(), receivedBytesPerGame()));
+        Duration cpuTime = cpuTimePerGame();
+        if (cpuTime != null)
+            report.append(String.format("%.3f ms of CPU per game%n", cpuTime.toNanos() / 1e6));
+        report.append(
+                String.format("%-24s %8s %10s %10s", "message", "count", "p50 (us)", "p99 (us)"));
+        for (MessageId messageId : latencies.keySet()) {
+            report.append(String.format(
+                    "%n%-24s %8d %10.1f %10.1f",
+                    messageId,
+                    latenciesCount(messageId),
+                    latency(messageId, 50).toNanos() / 1e3,
+                    latency(messageId, 99).toNanos() / 1e3));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,301 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemotePlayerProxyTest {
+
+    // Player of the clients, making its slow decision once allowed to.
+    private static final class SlowPlayer extends StubPlayer {
+        private final CountDownLatch answering = new CountDownLatch(1);
+        private final MessageId slowDecision;
+
+        SlowPlayer() {
+            this(MessageId.DRAW_SLOT);
+        }
+
+        SlowPlayer(MessageId slowDecision) {
+            this.slowDecision = slowDecision;
+        }
+
+        private void awaitIfSlow(MessageId decision) {
+            if (decision != slowDecision) return;
+            try {
+                answering.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int drawSlot() {
+            awaitIfSlow(MessageId.DRAW_SLOT);
+            return super.drawSlot();
+        }
+
+        @Override
+        public Route claimedRoute() {
+            awaitIfSlow(MessageId.ROUTE);
+            return super.claimedRoute();
+        }
+
+        @Override
+        public SortedBag<Card> initialClaimCards() {
+            awaitIfSlow(MessageId.CARDS);
+            return super.initialClaimCards();
+        }
+    }
+
+    private static CompletableFuture<Void> connect(
+            int port, Player clientPlayer, Duration serverTimeout) {
+        return CompletableFuture.runAsync(
+                () ->
+                        new RemotePlayerClient(
+                                        clientPlayer,
+                                        "localhost",
+                                        port,
+                                        WireFormat.ALL,
+                                        false,
+                                        serverTimeout)
+                                .run());
+    }
+
+    // The slot drawn expires, and its late response is skipped by the next decision.
+    private static void assertExpiredDecisionIsMadeAutomatically(
+            RemotePlayerProxy player, SlowPlayer clientPlayer) {
+        assertEquals(GameConstants.DECK_SLOT, player.drawSlot());
+        clientPlayer.answering.countDown();
+        assertEquals(Player.TurnKind.DRAW_TICKETS, player.nextTurn());
+        assertEquals(ChMap.routes().get(7), player.claimedRoute());
+    }
+
+    @Test
+    void expiredDecisionsOfNioPlayersAreMadeAutomatically() throws Exception {
+        try (NioGameServer server = new NioGameServer(0, WireFormat.ALL)) {
+            server.setDecisionDeadline(Duration.ofMillis(100), ExpiryPolicy.AUTOMATIC);
+            SlowPlayer clientPlayer = new SlowPlayer();
+            CompletableFuture<Void> client = connect(server.port(), clientPlayer, null);
+            RemotePlayerProxy player = (RemotePlayerProxy) server.awaitPlayer();
+
+            assertExpiredDecisionIsMadeAutomatically(player, clientPlayer);
+            server.close();
+            client.get(1, TimeUnit.MINUTES);
+        }
+    }
+
+    // Connects the client to a proxy whose decisions expire and are made automatically.
+    private static void assertExpiredDecisions(
+            SlowPlayer clientPlayer, Consumer<RemotePlayerProxy> checks) throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            CompletableFuture<Void> client =
+                    connect(serverSocket.getLocalPort(), clientPlayer, null);
+            try (Socket socket = serverSocket.accept()) {
+                RemotePlayerProxy player = new RemotePlayerProxy(socket, WireFormat.ALL);
+                player.setDecisionDeadline(Duration.ofMillis(100), ExpiryPolicy.AUTOMATIC);
+                checks.accept(player);
+            }
+            client.get(1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Test
+    void expiredDecisionsOfSocketPlayersAreMadeAutomatically() throws Exception {
+        SlowPlayer clientPlayer = new SlowPlayer();
+        assertExpiredDecisions(
+                clientPlayer,
+                player -> assertExpiredDecisionIsMadeAutomatically(player, clientPlayer));
+    }
+
+    @Test
+    void expiredRoutesAreNeverClaimed() throws Exception {
+        SlowPlayer clientPlayer = new SlowPlayer(MessageId.ROUTE);
+        assertExpiredDecisions(
+                clientPlayer,
+                player -> {
+                    // The claim is given up, so that the late route is not claimed by its cards.
+                    assertNull(player.claimedRoute());
+                    clientPlayer.answering.countDown();
+                    assertEquals(Player.TurnKind.DRAW_TICKETS, player.nextTurn());
+                });
+    }
+
+    @Test
+    void expiredClaimCardsAreNone() throws Exception {
+        SlowPlayer clientPlayer = new SlowPlayer(MessageId.CARDS);
+        assertExpiredDecisions(
+                clientPlayer,
+                player -> {
+                    assertEquals(ChMap.routes().get(7), player.claimedRoute());
+                    // No cards, which the game rejects.
+                    assertEquals(SortedBag.of(), player.initialClaimCards());
+                    clientPlayer.answering.countDown();
+                    assertEquals(Player.TurnKind.DRAW_TICKETS, player.nextTurn());
+                });
+    }
+
+    @Test
+    void playersForfeitingAreDisconnected() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            SlowPlayer clientPlayer = new SlowPlayer();
+            CompletableFuture<Void> client =
+                    connect(serverSocket.getLocalPort(), clientPlayer, null);
+            try (Socket socket = serverSocket.accept()) {
+                RemotePlayerProxy player = new RemotePlayerProxy(socket, WireFormat.ALL);
+                player.setDecisionDeadline(Duration.ofMillis(100), ExpiryPolicy.FORFEIT);
+
+                assertThrows(IllegalStateException.class, player::drawSlot);
+                assertTrue(socket.isClosed());
+            }
+            clientPlayer.answering.countDown();
+            // The client stops, whether it notices it while sending its response or after it.
+            client.handle((v, e) -> null).get(1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Test
+    void silentPlayersForfeitAfterConsecutiveExpiries() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            SlowPlayer clientPlayer = new SlowPlayer();
+            CompletableFuture<Void> client =
+                    connect(serverSocket.getLocalPort(), clientPlayer, null);
+            try (Socket socket = serverSocket.accept()) {
+                RemotePlayerProxy player = new RemotePlayerProxy(socket, WireFormat.ALL);
+                player.setDecisionDeadline(Duration.ofMillis(100), ExpiryPolicy.automatic(2));
+
+                assertEquals(GameConstants.DECK_SLOT, player.drawSlot());
+                assertEquals(1, player.consecutiveExpiriesCount());
+                // The thread still waiting for the first response is released by the closing.
+                assertThrows(IllegalStateException.class, player::drawSlot);
+                assertTrue(socket.isClosed());
+            }
+            clientPlayer.answering.countDown();
+            client.handle((v, e) -> null).get(1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Test
+    void decisionsMadeInTimeResetTheExpiries() throws Exception {
+        SlowPlayer clientPlayer = new SlowPlayer();
+        assertExpiredDecisions(
+                clientPlayer,
+                player -> {
+                    player.setDecisionDeadline(Duration.ofMillis(100), ExpiryPolicy.automatic(2));
+                    assertEquals(GameConstants.DECK_SLOT, player.drawSlot());
+                    clientPlayer.answering.countDown();
+                    assertEquals(Player.TurnKind.DRAW_TICKETS, player.nextTurn());
+                    assertEquals(0, player.consecutiveExpiriesCount());
+                });
+    }
+
+    @Test
+    void heartbeatsKeepTheClientConnected() throws Exception {
+        try (NioGameServer server = new NioGameServer(0, WireFormat.ALL)) {
+            server.setHeartbeatInterval(Duration.ofMillis(20));
+            CompletableFuture<Void> client =
+                    connect(server.port(), new SlowPlayer(), Duration.ofMillis(200));
+            RemotePlayerProxy player = (RemotePlayerProxy) server.awaitPlayer();
+
+            Thread.sleep(500);
+            assertFalse(client.isDone());
+            assertTrue(player.sentMessagesCount() > 0);
+            assertEquals(Player.TurnKind.DRAW_TICKETS, player.nextTurn());
+            server.close();
+            client.get(1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Test
+    void clientsNotReadingDelayNoOtherBatch() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0);
+                Socket blockedClient = new Socket("localhost", serverSocket.getLocalPort());
+                Socket blockedSocket = serverSocket.accept();
+                Socket client = new Socket("localhost", serverSocket.getLocalPort());
+                Socket socket = serverSocket.accept()) {
+            RemotePlayerProxy blocked =
+                    new RemotePlayerProxy(
+                            MessageChannel.of(WireFormat.TEXT, blockedSocket),
+                            false,
+                            Duration.ofMillis(1));
+            // Fills the window of the client, which never reads, until the writes block.
+            String info = "x".repeat(1000);
+            CompletableFuture<Void> filling =
+                    CompletableFuture.runAsync(
+                            () -> {
+                                while (true) blocked.receiveInfo(info);
+                            });
+            Thread.sleep(500);
+            assertFalse(filling.isDone());
+
+            RemotePlayerProxy player =
+                    new RemotePlayerProxy(
+                            MessageChannel.of(WireFormat.TEXT, socket),
+                            false,
+                            Duration.ofMillis(1));
+            player.receiveInfo("info");
+            for (int i = 0; i < 500 && player.flushesCount() == 0; i++) Thread.sleep(10);
+            assertEquals(1, player.flushesCount());
+
+            // The blocked writes fail once the connection is closed.
+            blocked.close();
+            assertThrows(ExecutionException.class, () -> filling.get(1, TimeUnit.MINUTES));
+        }
+    }
+
+    @Test
+    void closedPlayersStopTheirHeartbeats() throws Exception {
+        try (NioGameServer server = new NioGameServer(0, WireFormat.ALL)) {
+            server.setHeartbeatInterval(Duration.ofMillis(20));
+            CompletableFuture<Void> client =
+                    connect(server.port(), new SlowPlayer(), Duration.ofMillis(200));
+            RemotePlayerProxy player = (RemotePlayerProxy) server.awaitPlayer();
+            Thread.sleep(100);
+
+            player.close();
+            long sent = player.sentMessagesCount();
+            Thread.sleep(200);
+            assertEquals(sent, player.sentMessagesCount());
+            assertTrue(player.metrics().isClosed());
+            // The client stops once it notices the connection is closed.
+            client.handle((v, e) -> null).get(1, TimeUnit.MINUTES);
+            player.close();
+        }
+    }
+
+    @Test
+    void clientsGiveUpSilentServers() throws Exception {
+        try (NioGameServer server = new NioGameServer(0, WireFormat.ALL)) {
+            CompletableFuture<Void> client =
+                    connect(server.port(), new SlowPlayer(), Duration.ofMillis(100));
+            server.awaitPlayer();
+
+            ExecutionException e =
+                    assertThrows(ExecutionException.class, () -> client.get(1, TimeUnit.MINUTES));
+            assertTrue(e.getCause() instanceof UncheckedIOException);
+        }
+    }
+
+    @Test
+    void heartbeatsNeedAClientChoosingTheFormat() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0);
+                Socket client = new Socket("localhost", serverSocket.getLocalPort());
+                Socket socket = serverSocket.accept()) {
+            RemotePlayerProxy player = new RemotePlayerProxy(socket);
+            assertThrows(
+                    IllegalStateException.class,
+                    () -> player.startHeartbeats(Duration.ofMillis(20)));
+        }
+    }
+}
@@ -362,10 +362,35 @@ class SerdesTest {
         testSerdeWithValues(publicGameStateSerde, gs, target, tester);
     }
 
+    @Test
+    void testStreamingWithinALine() {
+        StringBuilder line = new StringBuilder("UPDATE ");
+        intSerde.serializeTo(42, line);
+        line.append(' ');
+        cardBagSerde.serializeTo(SortedBag.of(2, RED, 1, LOCOMOTIVE), line);
+        line.append(' ');
+        playerIdSerde.serializeTo(null, line);
+        assertEquals("UPDATE 42 6,6,8 ", line.toString());
+        assertEquals(42, intSerde.deserializeFrom(line, 7, 9));
+        assertEquals(
+                SortedBag.of(2, RED, 1, LOCOMOTIVE), cardBagSerde.deserializeFrom(line, 10, 15));
+        assertEquals(null, playerIdSerde.deserializeFrom(line, 16, 16));
+    }
+
     private <T> void testSerdeWithValues(Serde<T> serde, T toSerialize, String expected) {
         assertEquals(expected, serde.serialize(toSerialize));
         assertEquals(toSerialize, serde.deserialize(expected));
         assertEquals(toSerialize, serde.deserialize(serde.serialize(toSerialize)));
+        assertEquals(toSerialize, streamed(serde, toSerialize, expected));
+    }
+
+    // Serializes the value in the middle of a line, checks it and deserializes it from there.
+    private static <T> T streamed(Serde<T> serde, T toSerialize, String expected) {
+        StringBuilder line = new StringBuilder("<");
+        serde.serializeTo(toSerialize, line);
+        line.append('>');
+        assertEquals("<" + expected + ">", line.toString());
+        return serde.deserializeFrom(line, 1, line.length() - 1);
     }
 
     private <T> void testSerdeWithValues(
@@ -373,5 +398,6 @@ class SerdesTest {
         assertEquals(expected, serde.serialize(toSerialize));
         equalityAsserter.accept(toSerialize, serde.deserialize(expected));
         equalityAsserter.accept(toSerialize, serde.deserialize(serde.serialize(toSerialize)));
+        equalityAsserter.accept(toSerialize, streamed(serde, toSerialize, expected));
     }
 }
@@ -0,0 +1,220 @@
+package ch.epfl.tchu.net;
+
+import ch.epfl.tchu.SortedBag;
+import ch.epfl.tchu.game.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static ch.epfl.tchu.game.PlayerId.PLAYER_1;
+import static ch.epfl.tchu.game.PlayerId.PLAYER_2;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateDeltaTest {
+
+    // Player of the client, counting the states it is given.
+    private static final class StatesPlayer extends StubPlayer {
+        private int statesCount;
+
+        @Override
+        public void updateState(PublicGameState newState, PlayerState ownState) {
+            statesCount++;
+        }
+    }
+
+    private static GameState initialState() {
+        GameState gameState = GameState.initial(SortedBag.of(ChMap.tickets()), new Random(2021));
+        gameState = gameState.withInitiallyChosenTickets(PLAYER_1, gameState.topTickets(3));
+        return gameState.withoutTopTickets(3);
+    }
+
+    private static void assertSameStates(PublicGameState expected, PublicGameState actual) {
+        assertEquals(expected.ticketsCount(), actual.ticketsCount());
+        assertEquals(expected.cardState().faceUpCards(), actual.cardState().faceUpCards());
+        assertEquals(expected.cardState().deckSize(), actual.cardState().deckSize());
+        assertEquals(expected.cardState().discardsSize(), actual.cardState().discardsSize());
+        assertEquals(expected.currentPlayerId(), actual.currentPlayerId());
+        assertEquals(expected.lastPlayer(), actual.lastPlayer());
+        for (PlayerId playerId : PlayerId.ALL) {
+            PublicPlayerState expectedPlayer = expected.playerState(playerId);
+            PublicPlayerState actualPlayer = actual.playerState(playerId);
+            assertEquals(expectedPlayer.ticketCount(), actualPlayer.ticketCount());
+            assertEquals(expectedPlayer.cardCount(), actualPlayer.cardCount());
+            assertEquals(expectedPlayer.routes(), actualPlayer.routes());
+        }
+    }
+
+    private static void assertSameStates(PlayerState expected, PlayerState actual) {
+        assertEquals(expected.tickets(), actual.tickets());
+        assertEquals(expected.cards(), actual.cards());
+        assertEquals(expected.routes(), actual.routes());
+    }
+
+    private static void assertRebuilt(GameState oldState, GameState newState) {
+        StateDelta delta =
+                StateDelta.between(
+                        oldState,
+                        oldState.playerState(PLAYER_1),
+                        newState,
+                        newState.playerState(PLAYER_1));
+        assertNotNull(delta);
+
+        StateDelta textDelta =
+                StateDelta.serde.text().deserialize(StateDelta.serde.text().serialize(delta));
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        StateDelta.serde.binary().write(buffer, delta);
+        buffer.flip();
+        StateDelta binaryDelta = StateDelta.serde.binary().read(buffer);
+        assertFalse(buffer.hasRemaining());
+
+        for (StateDelta toTest : List.of(delta, textDelta, binaryDelta)) {
+            assertSameStates(newState, toTest.applyTo((PublicGameState) oldState));
+            assertSameStates(
+                    newState.playerState(PLAYER_1), toTest.applyTo(oldState.playerState(PLAYER_1)));
+        }
+    }
+
+    @Test
+    void drawnCardsAreRebuilt() {
+        GameState gameState = initialState();
+        assertRebuilt(gameState, gameState.withDrawnFaceUpCard(2));
+        assertRebuilt(gameState, gameState.withBlindlyDrawnCard().forNextTurn());
+    }
+
+    @Test
+    void claimedRoutesAndChosenTicketsAreRebuilt() {
+        GameState gameState = initialState();
+        Route route = ChMap.routes().get(3);
+        GameState claimed =
+                gameState.withClaimedRoute(route, gameState.currentPlayerState().cards());
+        assertRebuilt(gameState, claimed);
+
+        SortedBag<Ticket> drawn = claimed.topTickets(3);
+        assertRebuilt(
+                claimed, claimed.withChosenAdditionalTickets(drawn, SortedBag.of(drawn.get(0))));
+    }
+
+    @Test
+    void unchangedStatesHaveAnEmptyDelta() {
+        GameState gameState = initialState();
+        StateDelta delta =
+                StateDelta.between(
+                        gameState,
+                        gameState.playerState(PLAYER_1),
+                        gameState,
+                        gameState.playerState(PLAYER_1));
+        assertEquals(":::::::::::::::", StateDelta.serde.text().serialize(delta));
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        StateDelta.serde.binary().write(buffer, delta);
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    void statesWhichLostRoutesOrTicketsHaveNoDelta() {
+        GameState gameState = initialState();
+        GameState claimed =
+                gameState.withClaimedRoute(ChMap.routes().get(3), SortedBag.of());
+        assertNull(
+                StateDelta.between(
+                        claimed,
+                        claimed.playerState(PLAYER_1),
+                        gameState,
+                        gameState.playerState(PLAYER_1)));
+        assertNull(
+                StateDelta.between(
+                        gameState,
+                        gameState.playerState(PLAYER_1),
+                        gameState,
+                        gameState.playerState(PLAYER_2)));
+    }
+
+    @Test
+    void proxiesSendWholeStatesOnceTheClientFailsToApplyADelta() {
+        for (WireFormat format : WireFormat.ALL) {
+            // The client answers that it could not apply the states sent.
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            MessageChannel.of(format, InputStream.nullInputStream(), response)
+                    .beginResponse()
+                    .write(WireSerde.intSerde, 0)
+                    .write(WireSerde.turnKindSerde, Player.TurnKind.DRAW_TICKETS)
+                    .send();
+            ByteArrayOutputStream sent = new ByteArrayOutputStream();
+            RemotePlayerProxy player =
+                    new RemotePlayerProxy(
+                            MessageChannel.of(
+                                    format,
+                                    new ByteArrayInputStream(response.toByteArray()),
+                                    sent),
+                            true,
+                            null);
+
+            GameState gameState = initialState();
+            player.updateState(gameState, gameState.playerState(PLAYER_1));
+            gameState = gameState.withDrawnFaceUpCard(2);
+            player.updateState(gameState, gameState.playerState(PLAYER_1));
+            assertEquals(Player.TurnKind.DRAW_TICKETS, player.nextTurn());
+            gameState = gameState.forNextTurn();
+            player.updateState(gameState, gameState.playerState(PLAYER_1));
+
+            MessageChannel client =
+                    MessageChannel.of(
+                            format,
+                            new ByteArrayInputStream(sent.toByteArray()),
+                            OutputStream.nullOutputStream());
+            assertEquals(MessageId.UPDATE_STATE, client.receive());
+            assertEquals(MessageId.UPDATE_STATE_DELTA, client.receive());
+            assertEquals(MessageId.NEXT_TURN, client.receive());
+            assertEquals(MessageId.UPDATE_STATE, client.receive());
+            assertNull(client.receive());
+        }
+    }
+
+    @Test
+    void clientsAskForWholeStatesAfterADeltaTheyCantApply() throws Exception {
+        GameState gameState = initialState();
+        StateDelta delta =
+                StateDelta.between(
+                        gameState,
+                        gameState.playerState(PLAYER_1),
+                        gameState.withDrawnFaceUpCard(2),
+                        gameState.withDrawnFaceUpCard(2).playerState(PLAYER_1));
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            StatesPlayer clientPlayer = new StatesPlayer();
+            RemotePlayerClient client =
+                    new RemotePlayerClient(
+                            clientPlayer, "localhost", serverSocket.getLocalPort(), WireFormat.ALL);
+            CompletableFuture<Void> running = CompletableFuture.runAsync(client::run);
+            try (Socket socket = serverSocket.accept()) {
+                MessageChannel server = MessageChannel.acceptFormat(socket, WireFormat.ALL, false);
+                // A delta without any state to apply it to is skipped.
+                server.begin(MessageId.UPDATE_STATE_DELTA).write(StateDelta.serde, delta).send();
+                server.begin(MessageId.NEXT_TURN).send();
+                server.receiveResponse();
+                assertEquals(0, server.read(WireSerde.intSerde));
+                assertEquals(Player.TurnKind.DRAW_TICKETS, server.read(WireSerde.turnKindSerde));
+
+                server.begin(MessageId.UPDATE_STATE)
+                        .write(WireSerde.publicGameStateSerde, gameState)
+                        .write(WireSerde.playerStateSerde, gameState.playerState(PLAYER_1))
+                        .send();
+                server.begin(MessageId.UPDATE_STATE_DELTA).write(StateDelta.serde, delta).send();
+                server.begin(MessageId.NEXT_TURN).send();
+                server.receiveResponse();
+                assertEquals(1, server.read(WireSerde.intSerde));
+                assertEquals(Player.TurnKind.DRAW_TICKETS, server.read(WireSerde.turnKindSerde));
+            }
+            running.get(1, TimeUnit.MINUTES);
+            assertEquals(2, clientPlayer.statesCount);
+        }
+    }
+}
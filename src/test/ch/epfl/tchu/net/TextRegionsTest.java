@@ -0,0 +1,36 @@
+package ch.epfl.tchu.net;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextRegionsTest {
+
+    @Test
+    void separatorsAreFoundInTheRegionOnly() {
+        String text = "a,b;c,d";
+        assertEquals(1, TextRegions.indexOf(text, ",", 0, text.length()));
+        assertEquals(5, TextRegions.indexOf(text, ",", 2, text.length()));
+        assertEquals(4, TextRegions.indexOf(text, ",", 2, 4));
+        assertEquals(3, TextRegions.indexOf(text, ";c", 0, text.length()));
+        assertEquals(4, TextRegions.indexOf(text, ";c", 0, 4));
+    }
+
+    @Test
+    void splitReturnsTheBoundsOfAllTheFields() {
+        String text = "HELLO BINARY,,TEXT";
+        assertArrayEquals(new int[] {6, 12, 13, 13, 14, 18}, TextRegions.split(text, ",", 6, 18));
+        assertArrayEquals(new int[] {3, 3}, TextRegions.split(text, ",", 3, 3));
+        assertArrayEquals(
+                new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11},
+                TextRegions.split("a,b,c,d,e,f", ",", 0, 11));
+    }
+
+    @Test
+    void fieldsReturnsTheBoundsOfTheFirstFields() {
+        String text = "1;2;3;4";
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5}, TextRegions.fields(text, ";", 0, 7, 3));
+        assertThrows(
+                IllegalArgumentException.class, () -> TextRegions.fields(text, ";", 0, 3, 3));
+    }
+}
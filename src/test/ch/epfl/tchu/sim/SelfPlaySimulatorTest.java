@@ -0,0 +1,65 @@
+package ch.epfl.tchu.sim;
+
+import ch.epfl.tchu.game.PlayerId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SelfPlaySimulatorTest {
+
+    private static Map<PlayerId, BotKind> bots(BotKind bot1, BotKind bot2) {
+        return Map.of(PlayerId.PLAYER_1, bot1, PlayerId.PLAYER_2, bot2);
+    }
+
+    @Test
+    void allBotsPlayCompleteGames() {
+        for (BotKind bot1 : BotKind.values()) {
+            for (BotKind bot2 : BotKind.values()) {
+                SimulationReport report = SelfPlaySimulator.simulate(5, bots(bot1, bot2), 2, 1);
+                assertEquals(5, report.gamesCount());
+                assertEquals(
+                        5,
+                        report.winsCount(PlayerId.PLAYER_1)
+                                + report.winsCount(PlayerId.PLAYER_2)
+                                + report.drawsCount());
+                assertEquals(bot1, report.bot(PlayerId.PLAYER_1));
+            }
+        }
+    }
+
+    @Test
+    void simulationsDependOnlyOnTheirSeed() {
+        Map<PlayerId, BotKind> bots = bots(BotKind.RANDOM, BotKind.TICKETS);
+        SimulationReport oneThread = SelfPlaySimulator.simulate(20, bots, 1, 42);
+        SimulationReport threeThreads = SelfPlaySimulator.simulate(20, bots, 3, 42);
+        for (PlayerId id : PlayerId.ALL) {
+            assertEquals(oneThread.winsCount(id), threeThreads.winsCount(id));
+            assertEquals(oneThread.averagePoints(id), threeThreads.averagePoints(id));
+            assertEquals(oneThread.longestTrailRate(id), threeThreads.longestTrailRate(id));
+        }
+        assertEquals(oneThread.averageDeckRecreations(), threeThreads.averageDeckRecreations());
+    }
+
+    @Test
+    void ticketBotsBeatRandomBots() {
+        SimulationReport report =
+                SelfPlaySimulator.simulate(20, bots(BotKind.TICKETS, BotKind.RANDOM), 1, 3);
+        assertTrue(report.winRate(PlayerId.PLAYER_1) > 0.5);
+        assertTrue(
+                report.averagePoints(PlayerId.PLAYER_1) > report.averagePoints(PlayerId.PLAYER_2));
+    }
+
+    @Test
+    void simulateFailsWithInvalidArguments() {
+        Map<PlayerId, BotKind> bots = bots(BotKind.RANDOM, BotKind.RANDOM);
+        Map<PlayerId, BotKind> oneBot = Map.of(PlayerId.PLAYER_1, BotKind.RANDOM);
+        assertThrows(
+                IllegalArgumentException.class, () -> SelfPlaySimulator.simulate(-1, bots, 1, 0));
+        assertThrows(
+                IllegalArgumentException.class, () -> SelfPlaySimulator.simulate(1, bots, 0, 0));
+        assertThrows(
+                IllegalArgumentException.class, () -> SelfPlaySimulator.simulate(1, oneBot, 1, 0));
+    }
+}